@@ -0,0 +1,231 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.benchmarks.codec;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.leshan.core.LwM2m.Version;
+import org.eclipse.leshan.core.model.LwM2mModel;
+import org.eclipse.leshan.core.model.LwM2mModelRepository;
+import org.eclipse.leshan.core.model.ObjectLoader;
+import org.eclipse.leshan.core.model.ObjectModel;
+import org.eclipse.leshan.core.model.ResourceModel;
+import org.eclipse.leshan.core.model.ResourceModel.Operations;
+import org.eclipse.leshan.core.model.ResourceModel.Type;
+import org.eclipse.leshan.core.node.LwM2mMultipleResource;
+import org.eclipse.leshan.core.node.LwM2mObjectInstance;
+import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.node.LwM2mSingleResource;
+import org.eclipse.leshan.core.node.codec.CodecException;
+import org.eclipse.leshan.core.node.codec.LwM2mValueChecker;
+import org.eclipse.leshan.core.node.codec.senml.LwM2mNodeSenMLDecoder;
+import org.eclipse.leshan.core.node.codec.senml.LwM2mNodeSenMLEncoder;
+import org.eclipse.leshan.core.node.codec.tlv.LwM2mNodeTlvDecoder;
+import org.eclipse.leshan.core.node.codec.tlv.LwM2mNodeTlvEncoder;
+import org.eclipse.leshan.senml.json.jackson.SenMLJsonJacksonEncoderDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares model lookups of {@link LwM2mModelRepository} (object models indexed by id in an array, resource models
+ * indexed by id in {@link ObjectModel}) with the previous approach using a {@link TreeMap} keyed by (id, version) and
+ * the <code>resources</code> map of {@link ObjectModel}.
+ * <p>
+ * Lookups are measured alone and through decoders, as decoders look for a resource model for each decoded resource.
+ * Device object (3) has small resource ids, Temperature object (3303) has IPSO resource ids (e.g. 5700).
+ * <p>
+ * Typical run : <code>java -jar leshan-benchmarks-*-jar-with-dependencies.jar ModelLookupBenchmark -prof gc</code>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelLookupBenchmark {
+
+    private static final int[][] LOOKUPS = new int[][] { { 3, 0 }, { 3, 9 }, { 3, 13 }, { 3, 16 }, { 3303, 5700 },
+            { 3303, 5601 }, { 3303, 5701 }, { 3303, 5750 } };
+
+    private final LwM2mPath devicePath = new LwM2mPath(3, 0);
+    private final LwM2mPath temperaturePath = new LwM2mPath(3303, 0);
+    private LwM2mModel model;
+    private LwM2mModel treeMapModel;
+    private LwM2mNodeTlvDecoder tlvDecoder;
+    private LwM2mNodeSenMLDecoder senMLDecoder;
+    private byte[] encodedDevice;
+    private byte[] encodedTemperature;
+
+    @Setup
+    public void setup() {
+        List<ObjectModel> models = new ArrayList<>(ObjectLoader.loadAllDefault());
+        models.add(createTemperatureModel());
+        model = new LwM2mModelRepository(models).getLwM2mModel();
+        treeMapModel = new TreeMapModel(models);
+        tlvDecoder = new LwM2mNodeTlvDecoder();
+        senMLDecoder = new LwM2mNodeSenMLDecoder(new SenMLJsonJacksonEncoderDecoder(), true);
+
+        Map<Integer, Long> powerSources = new HashMap<>();
+        powerSources.put(0, 1l);
+        powerSources.put(1, 5l);
+        LwM2mObjectInstance device = new LwM2mObjectInstance(0, //
+                LwM2mSingleResource.newStringResource(0, "Open Mobile Alliance"),
+                LwM2mSingleResource.newStringResource(1, "Lightweight M2M Client"),
+                LwM2mSingleResource.newStringResource(2, "345000123"), LwM2mSingleResource.newStringResource(3, "1.0"),
+                LwM2mMultipleResource.newIntegerResource(6, powerSources),
+                LwM2mSingleResource.newIntegerResource(9, 100), LwM2mSingleResource.newIntegerResource(10, 15),
+                LwM2mSingleResource.newDateResource(13, new Date(1_367_491_215_000l)),
+                LwM2mSingleResource.newStringResource(14, "+02:00"),
+                LwM2mSingleResource.newStringResource(15, "Europe/Paris"),
+                LwM2mSingleResource.newStringResource(16, "U"));
+        encodedDevice = new LwM2mNodeTlvEncoder().encode(device, devicePath, model, new LwM2mValueChecker());
+
+        LwM2mObjectInstance temperature = new LwM2mObjectInstance(0, //
+                LwM2mSingleResource.newFloatResource(5700, 21.5d), LwM2mSingleResource.newStringResource(5701, "Cel"),
+                LwM2mSingleResource.newFloatResource(5601, 18.0d), LwM2mSingleResource.newFloatResource(5602, 24.5d),
+                LwM2mSingleResource.newFloatResource(5603, -40d), LwM2mSingleResource.newFloatResource(5604, 85d),
+                LwM2mSingleResource.newStringResource(5750, "Living room"));
+        encodedTemperature = new LwM2mNodeSenMLEncoder(new SenMLJsonJacksonEncoderDecoder()).encode(temperature,
+                temperaturePath, model, new LwM2mValueChecker());
+    }
+
+    @Benchmark
+    public int getResourceModel() {
+        return lookupAll(model);
+    }
+
+    @Benchmark
+    public int getResourceModelWithTreeMap() {
+        return lookupAll(treeMapModel);
+    }
+
+    @Benchmark
+    public LwM2mObjectInstance decodeTlv() throws CodecException {
+        return tlvDecoder.decode(encodedDevice, devicePath, model, LwM2mObjectInstance.class);
+    }
+
+    @Benchmark
+    public LwM2mObjectInstance decodeTlvWithTreeMap() throws CodecException {
+        return tlvDecoder.decode(encodedDevice, devicePath, treeMapModel, LwM2mObjectInstance.class);
+    }
+
+    @Benchmark
+    public LwM2mObjectInstance decodeSenMLJson() throws CodecException {
+        return senMLDecoder.decode(encodedTemperature, temperaturePath, model, LwM2mObjectInstance.class);
+    }
+
+    @Benchmark
+    public LwM2mObjectInstance decodeSenMLJsonWithTreeMap() throws CodecException {
+        return senMLDecoder.decode(encodedTemperature, temperaturePath, treeMapModel, LwM2mObjectInstance.class);
+    }
+
+    private static int lookupAll(LwM2mModel model) {
+        int found = 0;
+        for (int[] lookup : LOOKUPS) {
+            if (model.getResourceModel(lookup[0], lookup[1]) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private static ObjectModel createTemperatureModel() {
+        List<ResourceModel> resources = new ArrayList<>();
+        resources.add(new ResourceModel(5700, "Sensor Value", Operations.R, false, true, Type.FLOAT, null, null, null));
+        resources.add(
+                new ResourceModel(5701, "Sensor Units", Operations.R, false, false, Type.STRING, null, null, null));
+        resources.add(new ResourceModel(5601, "Min Measured Value", Operations.R, false, false, Type.FLOAT, null, null,
+                null));
+        resources.add(new ResourceModel(5602, "Max Measured Value", Operations.R, false, false, Type.FLOAT, null, null,
+                null));
+        resources.add(
+                new ResourceModel(5603, "Min Range Value", Operations.R, false, false, Type.FLOAT, null, null, null));
+        resources.add(
+                new ResourceModel(5604, "Max Range Value", Operations.R, false, false, Type.FLOAT, null, null, null));
+        resources.add(new ResourceModel(5605, "Reset Min and Max Measured Values", Operations.E, false, false,
+                Type.NONE, null, null, null));
+        resources.add(new ResourceModel(5750, "Application Type", Operations.RW, false, false, Type.STRING, null, null,
+                null));
+        return new ObjectModel(3303, "Temperature", null, "1.1", true, false, resources);
+    }
+
+    /**
+     * Previous {@link LwM2mModelRepository} lookup : a {@link TreeMap} keyed by (id, version) and the
+     * <code>resources</code> map of {@link ObjectModel}.
+     */
+    private static class TreeMapModel implements LwM2mModel {
+
+        private final NavigableMap<Key, ObjectModel> objects = new TreeMap<>();
+
+        TreeMapModel(Collection<ObjectModel> models) {
+            for (ObjectModel model : models) {
+                objects.put(new Key(model.id, new Version(model.version)), model);
+            }
+        }
+
+        @Override
+        public ResourceModel getResourceModel(int objectId, int resourceId) {
+            ObjectModel objectModel = getObjectModel(objectId);
+            return objectModel == null ? null : objectModel.resources.get(resourceId);
+        }
+
+        @Override
+        public ObjectModel getObjectModel(int objectId) {
+            Key floorKey = objects.floorKey(new Key(objectId, Version.MAX));
+            if (floorKey == null || !floorKey.id.equals(objectId)) {
+                return null;
+            }
+            return objects.get(floorKey);
+        }
+
+        @Override
+        public Collection<ObjectModel> getObjectModels() {
+            return objects.values();
+        }
+
+        private static class Key implements Comparable<Key> {
+            final Integer id;
+            final Version version;
+
+            Key(Integer id, Version version) {
+                this.id = id;
+                this.version = version;
+            }
+
+            @Override
+            public int compareTo(Key o) {
+                int res = Integer.compare(this.id, o.id);
+                return res != 0 ? res : this.version.compareTo(o.version);
+            }
+        }
+    }
+}
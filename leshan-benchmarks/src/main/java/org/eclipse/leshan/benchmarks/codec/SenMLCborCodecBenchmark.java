@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.benchmarks.codec;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.leshan.core.model.LwM2mModel;
+import org.eclipse.leshan.core.model.ObjectLoader;
+import org.eclipse.leshan.core.model.StaticModel;
+import org.eclipse.leshan.core.node.LwM2mMultipleResource;
+import org.eclipse.leshan.core.node.LwM2mObjectInstance;
+import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.node.LwM2mSingleResource;
+import org.eclipse.leshan.core.node.codec.LwM2mValueChecker;
+import org.eclipse.leshan.core.node.codec.senml.LwM2mNodeSenMLEncoder;
+import org.eclipse.leshan.senml.SenMLEncoder;
+import org.eclipse.leshan.senml.SenMLPack;
+import org.eclipse.leshan.senml.SenMLRecord;
+import org.eclipse.leshan.senml.cbor.upokecenter.SenMLCborUpokecenterEncoderDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.upokecenter.cbor.CBORObject;
+
+/**
+ * Compares SenML-CBOR encoding written directly with a <code>CborWriter</code> with the previous approach building a
+ * {@link SenMLPack} then a <code>CBORObject</code> tree.
+ * <p>
+ * Typical run : <code>java -jar leshan-benchmarks-*-jar-with-dependencies.jar SenMLCborCodecBenchmark -prof gc</code>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SenMLCborCodecBenchmark {
+
+    private final LwM2mPath path = new LwM2mPath(3, 0);
+    private LwM2mModel model;
+    private LwM2mValueChecker converter;
+    private LwM2mNodeSenMLEncoder encoder;
+    private LwM2mNodeSenMLEncoder cborObjectEncoder;
+    private LwM2mObjectInstance device;
+
+    @Setup
+    public void setup() {
+        model = new StaticModel(ObjectLoader.loadDefault());
+        converter = new LwM2mValueChecker();
+        encoder = new LwM2mNodeSenMLEncoder(new SenMLCborUpokecenterEncoderDecoder());
+        cborObjectEncoder = new LwM2mNodeSenMLEncoder(new CborObjectSenMLEncoder());
+
+        Map<Integer, Long> powerSources = new HashMap<>();
+        powerSources.put(0, 1l);
+        powerSources.put(1, 5l);
+        device = new LwM2mObjectInstance(0, //
+                LwM2mSingleResource.newStringResource(0, "Open Mobile Alliance"),
+                LwM2mSingleResource.newStringResource(1, "Lightweight M2M Client"),
+                LwM2mSingleResource.newStringResource(2, "345000123"), LwM2mSingleResource.newStringResource(3, "1.0"),
+                LwM2mMultipleResource.newIntegerResource(6, powerSources),
+                LwM2mSingleResource.newIntegerResource(9, 100), LwM2mSingleResource.newIntegerResource(10, 15),
+                LwM2mSingleResource.newDateResource(13, new Date(1_367_491_215_000l)),
+                LwM2mSingleResource.newStringResource(14, "+02:00"),
+                LwM2mSingleResource.newStringResource(15, "Europe/Paris"),
+                LwM2mSingleResource.newStringResource(16, "U"));
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return encoder.encode(device, path, model, converter);
+    }
+
+    @Benchmark
+    public byte[] encode_with_cbor_objects() {
+        return cborObjectEncoder.encode(device, path, model, converter);
+    }
+
+    /**
+     * Previous SenML-CBOR serialization : whole {@link SenMLPack} converted to a tree of <code>CBORObject</code>.
+     */
+    private static class CborObjectSenMLEncoder implements SenMLEncoder {
+
+        @Override
+        public byte[] toSenML(SenMLPack pack) {
+            CBORObject cborArray = CBORObject.NewArray();
+            for (SenMLRecord record : pack.getRecords()) {
+                CBORObject cborRecord = CBORObject.NewMap();
+                if (record.getBaseName() != null && !record.getBaseName().isEmpty()) {
+                    cborRecord.Add(-2, record.getBaseName());
+                }
+                if (record.getBaseTime() != null) {
+                    cborRecord.Add(-3, record.getBaseTime());
+                }
+                if (record.getName() != null && !record.getName().isEmpty()) {
+                    cborRecord.Add(0, record.getName());
+                }
+                if (record.getTime() != null) {
+                    cborRecord.Add(6, record.getTime());
+                }
+                if (record.getNumberValue() != null) {
+                    cborRecord.Add(2, record.getNumberValue().longValue());
+                } else if (record.getStringValue() != null) {
+                    cborRecord.Add(3, record.getStringValue());
+                }
+                cborArray.Add(cborRecord);
+            }
+            return cborArray.EncodeToBytes();
+        }
+    }
+}
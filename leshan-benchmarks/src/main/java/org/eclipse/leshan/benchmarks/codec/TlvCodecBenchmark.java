@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.benchmarks.codec;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.leshan.core.model.LwM2mModel;
+import org.eclipse.leshan.core.model.ObjectLoader;
+import org.eclipse.leshan.core.model.ResourceModel;
+import org.eclipse.leshan.core.model.ResourceModel.Type;
+import org.eclipse.leshan.core.model.StaticModel;
+import org.eclipse.leshan.core.node.LwM2mMultipleResource;
+import org.eclipse.leshan.core.node.LwM2mObjectInstance;
+import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.node.LwM2mResource;
+import org.eclipse.leshan.core.node.LwM2mResourceInstance;
+import org.eclipse.leshan.core.node.LwM2mSingleResource;
+import org.eclipse.leshan.core.node.codec.CodecException;
+import org.eclipse.leshan.core.node.codec.LwM2mValueChecker;
+import org.eclipse.leshan.core.node.codec.tlv.LwM2mNodeTlvDecoder;
+import org.eclipse.leshan.core.node.codec.tlv.LwM2mNodeTlvEncoder;
+import org.eclipse.leshan.core.tlv.Tlv;
+import org.eclipse.leshan.core.tlv.Tlv.TlvType;
+import org.eclipse.leshan.core.tlv.TlvDecoder;
+import org.eclipse.leshan.core.tlv.TlvEncoder;
+import org.eclipse.leshan.core.tlv.TlvException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link LwM2mNodeTlvEncoder} / {@link LwM2mNodeTlvDecoder} (single pre-sized buffer, cursor based reading)
+ * with the previous approach building an intermediate {@link Tlv} tree with a byte array per value.
+ * <p>
+ * Typical run : <code>java -jar leshan-benchmarks-*-jar-with-dependencies.jar TlvCodecBenchmark -prof gc</code>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TlvCodecBenchmark {
+
+    private final LwM2mPath path = new LwM2mPath(3, 0);
+    private LwM2mModel model;
+    private LwM2mNodeTlvEncoder encoder;
+    private LwM2mNodeTlvDecoder decoder;
+    private LwM2mValueChecker converter;
+    private LwM2mObjectInstance device;
+    private byte[] encodedDevice;
+
+    @Setup
+    public void setup() {
+        model = new StaticModel(ObjectLoader.loadDefault());
+        encoder = new LwM2mNodeTlvEncoder();
+        decoder = new LwM2mNodeTlvDecoder();
+        converter = new LwM2mValueChecker();
+
+        Map<Integer, Long> powerSources = new HashMap<>();
+        powerSources.put(0, 1l);
+        powerSources.put(1, 5l);
+        Map<Integer, Long> errorCodes = new HashMap<>();
+        errorCodes.put(0, 0l);
+        device = new LwM2mObjectInstance(0, //
+                LwM2mSingleResource.newStringResource(0, "Open Mobile Alliance"),
+                LwM2mSingleResource.newStringResource(1, "Lightweight M2M Client"),
+                LwM2mSingleResource.newStringResource(2, "345000123"), LwM2mSingleResource.newStringResource(3, "1.0"),
+                LwM2mMultipleResource.newIntegerResource(6, powerSources),
+                LwM2mSingleResource.newIntegerResource(9, 100), LwM2mSingleResource.newIntegerResource(10, 15),
+                LwM2mMultipleResource.newIntegerResource(11, errorCodes),
+                LwM2mSingleResource.newDateResource(13, new Date(1_367_491_215_000l)),
+                LwM2mSingleResource.newStringResource(14, "+02:00"),
+                LwM2mSingleResource.newStringResource(15, "Europe/Paris"),
+                LwM2mSingleResource.newStringResource(16, "U"));
+        encodedDevice = encoder.encode(device, path, model, converter);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return encoder.encode(device, path, model, converter);
+    }
+
+    @Benchmark
+    public byte[] encode_with_tlv_tree() {
+        List<Tlv> tlvs = new ArrayList<>();
+        for (LwM2mResource resource : device.getResources().values()) {
+            Type type = model.getResourceModel(3, resource.getId()).type;
+            if (resource.isMultiInstances()) {
+                List<Tlv> instances = new ArrayList<>();
+                for (LwM2mResourceInstance instance : resource.getInstances().values()) {
+                    instances.add(new Tlv(TlvType.RESOURCE_INSTANCE, null, encodeValue(instance.getValue(), type),
+                            instance.getId()));
+                }
+                tlvs.add(new Tlv(TlvType.MULTIPLE_RESOURCE, instances.toArray(new Tlv[0]), null, resource.getId()));
+            } else {
+                tlvs.add(new Tlv(TlvType.RESOURCE_VALUE, null, encodeValue(resource.getValue(), type),
+                        resource.getId()));
+            }
+        }
+        return TlvEncoder.encode(tlvs.toArray(new Tlv[0])).array();
+    }
+
+    @Benchmark
+    public LwM2mObjectInstance decode() throws CodecException {
+        return decoder.decode(encodedDevice, path, model, LwM2mObjectInstance.class);
+    }
+
+    @Benchmark
+    public LwM2mObjectInstance decode_with_tlv_tree() throws TlvException {
+        Tlv[] tlvs = TlvDecoder.decode(ByteBuffer.wrap(encodedDevice));
+        List<LwM2mResource> resources = new ArrayList<>(tlvs.length);
+        for (Tlv tlv : tlvs) {
+            ResourceModel resourceModel = model.getResourceModel(3, tlv.getIdentifier());
+            if (tlv.getType() == TlvType.MULTIPLE_RESOURCE) {
+                Map<Integer, Object> values = new HashMap<>();
+                for (Tlv child : tlv.getChildren()) {
+                    values.put(child.getIdentifier(), decodeValue(child.getValue(), resourceModel.type));
+                }
+                resources.add(LwM2mMultipleResource.newResource(tlv.getIdentifier(), values, resourceModel.type));
+            } else {
+                resources.add(LwM2mSingleResource.newResource(tlv.getIdentifier(),
+                        decodeValue(tlv.getValue(), resourceModel.type), resourceModel.type));
+            }
+        }
+        return new LwM2mObjectInstance(0, resources);
+    }
+
+    private static byte[] encodeValue(Object value, Type type) {
+        switch (type) {
+        case STRING:
+            return TlvEncoder.encodeString((String) value);
+        case INTEGER:
+            return TlvEncoder.encodeInteger((Number) value);
+        case TIME:
+            return TlvEncoder.encodeDate((Date) value);
+        default:
+            throw new IllegalStateException("Unexpected type " + type);
+        }
+    }
+
+    private static Object decodeValue(byte[] value, Type type) throws TlvException {
+        switch (type) {
+        case STRING:
+            return TlvDecoder.decodeString(value);
+        case INTEGER:
+            return TlvDecoder.decodeInteger(value).longValue();
+        case TIME:
+            return TlvDecoder.decodeDate(value);
+        default:
+            throw new IllegalStateException("Unexpected type " + type);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.benchmarks.link;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.leshan.core.link.DefaultLinkParser;
+import org.eclipse.leshan.core.link.Link;
+import org.eclipse.leshan.core.link.LinkParseException;
+import org.eclipse.leshan.core.link.LinkParser;
+import org.eclipse.leshan.core.link.attributes.AttributeModel;
+import org.eclipse.leshan.core.link.attributes.Attributes;
+import org.eclipse.leshan.core.link.attributes.DefaultAttributeParser;
+import org.eclipse.leshan.core.link.lwm2m.DefaultLwM2mLinkParser;
+import org.eclipse.leshan.core.link.lwm2m.attributes.LwM2mAttributes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link DefaultLwM2mLinkParser} (byte oriented fast path for registration payloads) with the generic
+ * {@link DefaultLinkParser} based parsing, on payloads sent by devices at registration.
+ * <ul>
+ * <li><code>device</code> : a constrained device with a dozen of objects.</li>
+ * <li><code>gateway</code> : a gateway exposing hundreds of object instances.</li>
+ * <li><code>alternatePath</code> : a device using an alternate path, which is not handled by the fast path.</li>
+ * </ul>
+ * Typical run : <code>java -jar leshan-benchmarks-*-jar-with-dependencies.jar LinkParserBenchmark -prof gc</code>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LinkParserBenchmark {
+
+    @Param({ "device", "gateway", "alternatePath" })
+    public String payload;
+
+    private byte[] bytes;
+    private LinkParser parser;
+    private LinkParser genericParser;
+
+    @Setup
+    public void setup() {
+        parser = new DefaultLwM2mLinkParser();
+
+        Collection<AttributeModel<?>> suppportedAttributes = new ArrayList<AttributeModel<?>>();
+        suppportedAttributes.addAll(Attributes.ALL);
+        suppportedAttributes.addAll(LwM2mAttributes.ALL);
+        genericParser = new DefaultLwM2mLinkParser(
+                new DefaultLinkParser(new DefaultAttributeParser(suppportedAttributes)));
+
+        switch (payload) {
+        case "device":
+            bytes = ("</1>;ver=1.1,</1/0>,</3>;ver=1.1,</3/0>,</4/0>,</5/0>,</6/0>,</7/0>,</3303>;ver=1.1,</3303/0>,"
+                    + "</3303/1>,</3442>;ver=1.0,</3442/0>").getBytes(StandardCharsets.UTF_8);
+            break;
+        case "gateway":
+            StringBuilder b = new StringBuilder("</1>;ver=1.1,</1/0>,</1/1>,</3>;ver=1.2,</3/0>,</25>;ver=2.0");
+            for (int i = 0; i < 100; i++) {
+                b.append(",</25/").append(i).append('>');
+            }
+            for (int objectId : new int[] { 3303, 3304, 3323 }) {
+                b.append(",</").append(objectId).append(">;ver=1.1");
+                for (int i = 0; i < 100; i++) {
+                    b.append(",</").append(objectId).append('/').append(i).append('>');
+                }
+            }
+            bytes = b.toString().getBytes(StandardCharsets.UTF_8);
+            break;
+        case "alternatePath":
+            bytes = ("</lwm2m>;rt=\"oma.lwm2m\";ct=11543,</lwm2m/1>;ver=1.1,</lwm2m/1/0>,</lwm2m/3/0>,</lwm2m/4/0>,"
+                    + "</lwm2m/5/0>,</lwm2m/6/0>,</lwm2m/7/0>,</lwm2m/3303/0>,</lwm2m/3303/1>")
+                            .getBytes(StandardCharsets.UTF_8);
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown payload " + payload);
+        }
+    }
+
+    @Benchmark
+    public Link[] parse() throws LinkParseException {
+        return parser.parseCoreLinkFormat(bytes);
+    }
+
+    @Benchmark
+    public Link[] parseWithGenericParser() throws LinkParseException {
+        return genericParser.parseCoreLinkFormat(bytes);
+    }
+}
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.benchmarks.registration;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+import org.eclipse.leshan.core.LwM2m.LwM2mVersion;
+import org.eclipse.leshan.core.endpoint.EndpointUriUtil;
+import org.eclipse.leshan.core.link.Link;
+import org.eclipse.leshan.core.link.LinkParseException;
+import org.eclipse.leshan.core.link.lwm2m.DefaultLwM2mLinkParser;
+import org.eclipse.leshan.core.link.lwm2m.LwM2mLinkParser;
+import org.eclipse.leshan.core.peer.IpPeer;
+import org.eclipse.leshan.server.registration.DefaultRegistrationDataExtractor;
+import org.eclipse.leshan.server.registration.Registration;
+import org.eclipse.leshan.server.registration.RegistrationDataExtractor;
+import org.eclipse.leshan.server.registration.RegistrationDataExtractor.RegistrationData;
+
+/**
+ * Measures heap retained by each {@link Registration} for a fleet where devices share a few firmware profiles.
+ * <p>
+ * This is not a JMH benchmark, run it with :
+ * <code>java -Xmx4g -cp leshan-benchmarks-*-jar-with-dependencies.jar org.eclipse.leshan.benchmarks.registration.RegistrationFootprint [nbRegistrations] [nbProfiles]</code>
+ */
+public class RegistrationFootprint {
+
+    public static void main(String[] args) throws LinkParseException {
+        int nbRegistrations = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int nbProfiles = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+
+        byte[][] profiles = new byte[nbProfiles][];
+        for (int i = 0; i < nbProfiles; i++) {
+            profiles[i] = profile(i).getBytes(StandardCharsets.UTF_8);
+        }
+
+        LwM2mLinkParser parser = new DefaultLwM2mLinkParser();
+        RegistrationDataExtractor extractor = new DefaultRegistrationDataExtractor();
+        Registration[] registrations = new Registration[nbRegistrations];
+
+        long before = usedHeap();
+        for (int i = 0; i < nbRegistrations; i++) {
+            // parse links for each registration like it is done when a device registers
+            Link[] links = parser.parseCoreLinkFormat(profiles[i % nbProfiles]);
+            RegistrationData data = extractor.extractDataFromObjectLinks(links, LwM2mVersion.V1_1);
+            Map<String, String> attributes = Collections.singletonMap("fw", "profile-" + (i % nbProfiles));
+
+            registrations[i] = new Registration.Builder("reg-" + i, "urn:imei:" + (100_000_000_000_000l + i),
+                    new IpPeer(new InetSocketAddress("127.0.0.1", 10_000 + i % 50_000)),
+                    EndpointUriUtil.createUri("coap://0.0.0.0:5683")) //
+                            .lwM2mVersion(LwM2mVersion.V1_1) //
+                            .objectLinks(links) //
+                            .rootPath(data.getAlternatePath()) //
+                            .supportedContentFormats(data.getSupportedContentFormats()) //
+                            .supportedObjects(data.getSupportedObjects()) //
+                            .availableInstances(data.getAvailableInstances()) //
+                            .additionalRegistrationAttributes(attributes) //
+                            .build();
+        }
+        long after = usedHeap();
+
+        System.out.printf("%d registrations, %d profiles : %d bytes per registration%n", nbRegistrations, nbProfiles,
+                (after - before) / nbRegistrations);
+        // keep registrations reachable until the end of measure
+        System.out.println(registrations[nbRegistrations - 1].getEndpoint());
+    }
+
+    private static String profile(int profile) {
+        StringBuilder links = new StringBuilder("</>;rt=\"oma.lwm2m\";ct=\"60 110 112 11542 11543\"");
+        links.append(",</1>;ver=1.1,</1/0>,</2>,</3>;ver=1.1,</3/0>,</4>;ver=1.2,</4/0>,</5>,</5/0>,</6/0>,</7/0>");
+        for (int i = 0; i < 10; i++) {
+            links.append(",</").append(3300 + i).append(">;ver=1.1");
+            for (int j = 0; j <= (profile + i) % 4; j++) {
+                links.append(",</").append(3300 + i).append("/").append(j).append(">");
+            }
+        }
+        links.append(",</").append(10_000 + profile).append(">;ver=2.").append(profile % 3);
+        return links.toString();
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.benchmarks.registration;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.leshan.server.registration.RandomStringRegistrationIdProvider;
+import org.eclipse.leshan.server.registration.RegistrationIdProvider;
+import org.eclipse.leshan.server.registration.SecureRandomRegistrationIdProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures registration id creation when many threads handle registrations at the same time (e.g. all devices
+ * reconnecting after a server restart), then lookup of registration by id in a map like the one used by
+ * <code>InMemoryRegistrationStore</code>.
+ * <ul>
+ * <li><code>randomString</code> : {@link RandomStringRegistrationIdProvider}, a {@link java.util.Random} shared by all
+ * threads.</li>
+ * <li><code>secureRandom</code> : {@link SecureRandomRegistrationIdProvider}, per thread buffered
+ * {@link java.security.SecureRandom}.</li>
+ * <li><code>timeOrdered</code> : {@link SecureRandomRegistrationIdProvider} with time-ordered identifiers.</li>
+ * </ul>
+ * Benchmarks use 8 threads, use <code>-t</code> option to change it.
+ * <p>
+ * Typical run : <code>java -jar leshan-benchmarks-*-jar-with-dependencies.jar RegistrationIdBenchmark -prof gc</code>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class RegistrationIdBenchmark {
+
+    private static final int NB_REGISTRATIONS = 100_000;
+
+    @Param({ "randomString", "secureRandom", "timeOrdered" })
+    public String provider;
+
+    private RegistrationIdProvider idProvider;
+    private String[] registrationIds;
+    private ConcurrentHashMap<String, String> endpointsByRegistrationId;
+
+    @Setup
+    public void setup() {
+        switch (provider) {
+        case "randomString":
+            idProvider = new RandomStringRegistrationIdProvider();
+            break;
+        case "secureRandom":
+            idProvider = new SecureRandomRegistrationIdProvider();
+            break;
+        case "timeOrdered":
+            idProvider = new SecureRandomRegistrationIdProvider(SecureRandomRegistrationIdProvider.DEFAULT_LENGTH,
+                    true);
+            break;
+        default:
+            throw new IllegalStateException("unknown provider " + provider);
+        }
+
+        registrationIds = new String[NB_REGISTRATIONS];
+        endpointsByRegistrationId = new ConcurrentHashMap<>();
+        for (int i = 0; i < NB_REGISTRATIONS; i++) {
+            registrationIds[i] = idProvider.getRegistrationId(null);
+            endpointsByRegistrationId.put(registrationIds[i], "device" + i);
+        }
+    }
+
+    @Benchmark
+    public String createId() {
+        return idProvider.getRegistrationId(null);
+    }
+
+    @Benchmark
+    public String lookupById() {
+        // use a copy of the id, like an id parsed from an incoming request
+        String id = new String(registrationIds[ThreadLocalRandom.current().nextInt(NB_REGISTRATIONS)]);
+        return endpointsByRegistrationId.get(id);
+    }
+}
@@ -22,12 +22,17 @@ import org.eclipse.californium.core.coap.CoAP;
 import org.eclipse.californium.core.coap.Request;
 import org.eclipse.californium.core.observe.ObserveRelation;
 import org.eclipse.californium.core.observe.ObserveRelationFilter;
+import org.eclipse.leshan.client.notification.ObserveRelationIndex;
 import org.eclipse.leshan.core.californium.ObserveUtil;
 import org.eclipse.leshan.core.node.LwM2mPath;
 
 /**
  * An {@link ObserveRelationFilter} which select {@link ObserveRelation} based on one of resource URIs.
+ *
+ * @deprecated relations are now looked up in an {@link ObserveRelationIndex} (see {@link RootResource}), which does not
+ *             need to check every relation.
  */
+@Deprecated
 public class ObserveCompositeRelationFilter implements ObserveRelationFilter {
 
     private final List<LwM2mPath> paths;
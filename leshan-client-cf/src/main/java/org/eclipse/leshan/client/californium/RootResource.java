@@ -23,15 +23,20 @@ import static org.eclipse.leshan.core.californium.ResponseCodeUtil.toCoapRespons
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.californium.core.CoapResource;
 import org.eclipse.californium.core.CoapServer;
+import org.eclipse.californium.core.coap.CoAP.Code;
 import org.eclipse.californium.core.coap.CoAP.ResponseCode;
 import org.eclipse.californium.core.coap.MediaTypeRegistry;
 import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.observe.ObserveRelation;
 import org.eclipse.californium.core.server.resources.CoapExchange;
 import org.eclipse.leshan.client.californium.endpoint.ServerIdentityExtractor;
 import org.eclipse.leshan.client.endpoint.ClientEndpointToolbox;
+import org.eclipse.leshan.client.notification.NotificationCache;
+import org.eclipse.leshan.client.notification.ObserveRelationIndex;
 import org.eclipse.leshan.client.request.DownlinkRequestReceiver;
 import org.eclipse.leshan.client.servers.LwM2mServer;
 import org.eclipse.leshan.core.californium.ObserveUtil;
@@ -58,6 +63,7 @@ public class RootResource extends LwM2mClientCoapResource {
 
     protected DownlinkRequestReceiver requestReceiver;
     protected ClientEndpointToolbox toolbox;
+    protected final ObserveRelationIndex<ObserveRelation> observeRelations = new ObserveRelationIndex<>();
 
     public RootResource(IdentityHandlerProvider identityHandlerProvider,
             ServerIdentityExtractor serverIdentityExtractor, CoapServer coapServer,
@@ -129,9 +135,11 @@ public class RootResource extends LwM2mClientCoapResource {
                 exchange.respond(toCoapResponseCode(response.getCode()), response.getErrorMessage());
                 return;
             } else {
-                exchange.respond(toCoapResponseCode(response.getCode()), toolbox.getEncoder()
-                        .encodeNodes(response.getContent(), responseContentFormat, toolbox.getModel()),
-                        responseContentFormat.getCode());
+                ContentFormat format = responseContentFormat;
+                exchange.respond(toCoapResponseCode(response.getCode()), NotificationCache.encode(response.getContent(),
+                        format, null,
+                        () -> toolbox.getEncoder().encodeNodes(response.getContent(), format, toolbox.getModel())),
+                        format.getCode());
                 return;
             }
         } else {
@@ -153,6 +161,45 @@ public class RootResource extends LwM2mClientCoapResource {
         }
     }
 
+    @Override
+    public void addObserveRelation(ObserveRelation relation) {
+        super.addObserveRelation(relation);
+        List<LwM2mPath> paths = getObservedPaths(relation);
+        if (paths != null) {
+            observeRelations.add(relation, paths);
+        }
+    }
+
+    @Override
+    public void removeObserveRelation(ObserveRelation relation) {
+        super.removeObserveRelation(relation);
+        List<LwM2mPath> paths = getObservedPaths(relation);
+        if (paths != null) {
+            observeRelations.remove(relation, paths);
+        }
+    }
+
+    protected List<LwM2mPath> getObservedPaths(ObserveRelation relation) {
+        // only "Observe Composite" relations are supported on root resource
+        Request request = relation.getExchange().getRequest();
+        if (request.getCode() != Code.FETCH || !request.getOptions().hasContentFormat()) {
+            return null;
+        }
+        return ObserveUtil.getPathsFromContext(request.getUserContext());
+    }
+
+    /**
+     * Notify "Observe Composite" relations affected by a change of given paths.
+     *
+     * @param paths the changed paths
+     */
+    public void resourceChanged(LwM2mPath... paths) {
+        Set<ObserveRelation> affectedRelations = observeRelations.getRelations(paths);
+        if (!affectedRelations.isEmpty()) {
+            changed(affectedRelations::contains);
+        }
+    }
+
     private void updateUserContextWithPaths(Request coapRequest, List<LwM2mPath> paths) {
         HashMap<String, String> userContext = new HashMap<>();
         if (coapRequest.getUserContext() != null) {
@@ -23,7 +23,6 @@ import org.eclipse.californium.core.CoapServer;
 import org.eclipse.californium.core.coap.Request;
 import org.eclipse.californium.core.coap.Response;
 import org.eclipse.californium.core.server.resources.Resource;
-import org.eclipse.leshan.client.californium.ObserveCompositeRelationFilter;
 import org.eclipse.leshan.client.californium.RootResource;
 import org.eclipse.leshan.client.californium.bootstrap.BootstrapResource;
 import org.eclipse.leshan.client.californium.object.ObjectResource;
@@ -81,7 +80,7 @@ public class ClientCoapMessageTranslator {
         objectTree.addListener(new ObjectsListenerAdapter() {
             @Override
             public void resourceChanged(LwM2mPath... paths) {
-                rootResource.changed(new ObserveCompositeRelationFilter(paths));
+                rootResource.resourceChanged(paths);
             }
         });
         return rootResource;
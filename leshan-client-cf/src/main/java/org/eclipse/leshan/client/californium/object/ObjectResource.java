@@ -24,15 +24,19 @@ package org.eclipse.leshan.client.californium.object;
 import static org.eclipse.leshan.core.californium.ResponseCodeUtil.toCoapResponseCode;
 
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.californium.core.coap.CoAP.ResponseCode;
 import org.eclipse.californium.core.coap.MediaTypeRegistry;
 import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.observe.ObserveRelation;
 import org.eclipse.californium.core.server.resources.CoapExchange;
 import org.eclipse.californium.core.server.resources.Resource;
 import org.eclipse.leshan.client.californium.LwM2mClientCoapResource;
 import org.eclipse.leshan.client.californium.endpoint.ServerIdentityExtractor;
 import org.eclipse.leshan.client.endpoint.ClientEndpointToolbox;
+import org.eclipse.leshan.client.notification.NotificationCache;
+import org.eclipse.leshan.client.notification.ObserveRelationIndex;
 import org.eclipse.leshan.client.request.DownlinkRequestReceiver;
 import org.eclipse.leshan.client.resource.LwM2mObjectEnabler;
 import org.eclipse.leshan.client.resource.listener.ObjectListener;
@@ -83,6 +87,7 @@ public class ObjectResource extends LwM2mClientCoapResource implements ObjectLis
 
     protected DownlinkRequestReceiver requestReceiver;
     protected ClientEndpointToolbox toolbox;
+    protected final ObserveRelationIndex<ObserveRelation> observeRelations = new ObserveRelationIndex<>();
 
     public ObjectResource(int objectId, IdentityHandlerProvider identityHandlerProvider,
             ServerIdentityExtractor serverIdentityExtractor, DownlinkRequestReceiver requestReceiver,
@@ -149,7 +154,9 @@ public class ObjectResource extends LwM2mClientCoapResource implements ObjectLis
                     LwM2mNode content = response.getContent();
                     ContentFormat format = getContentFormat(observeRequest, requestedContentFormat);
                     exchange.respond(ResponseCode.CONTENT,
-                            toolbox.getEncoder().encode(content, format, path, toolbox.getModel()), format.getCode());
+                            NotificationCache.encode(content, format, path,
+                                    () -> toolbox.getEncoder().encode(content, format, path, toolbox.getModel())),
+                            format.getCode());
                     return;
                 } else {
                     exchange.respond(toCoapResponseCode(response.getCode()), response.getErrorMessage());
@@ -443,11 +450,40 @@ public class ObjectResource extends LwM2mClientCoapResource implements ObjectLis
         return this;
     }
 
+    @Override
+    public void addObserveRelation(ObserveRelation relation) {
+        super.addObserveRelation(relation);
+        LwM2mPath path = getObservedPath(relation);
+        if (path != null) {
+            observeRelations.add(relation, path);
+        }
+    }
+
+    @Override
+    public void removeObserveRelation(ObserveRelation relation) {
+        super.removeObserveRelation(relation);
+        LwM2mPath path = getObservedPath(relation);
+        if (path != null) {
+            observeRelations.remove(relation, path);
+        }
+    }
+
+    protected LwM2mPath getObservedPath(ObserveRelation relation) {
+        try {
+            return new LwM2mPath("/" + relation.getExchange().getRequest().getOptions().getUriPathString());
+        } catch (InvalidLwM2mPathException e) {
+            return null;
+        }
+    }
+
     @Override
     public void resourceChanged(LwM2mPath... paths) {
-        // notify CoAP layer than resources changes, this will send observe notification if an observe relationship
-        // exits.
-        changed(new ResourceObserveFilter(paths));
+        // notify CoAP layer than resources changes, this will send observe notification to affected observe
+        // relationships.
+        Set<ObserveRelation> affectedRelations = observeRelations.getRelations(paths);
+        if (!affectedRelations.isEmpty()) {
+            changed(affectedRelations::contains);
+        }
     }
 
     @Override
@@ -18,11 +18,16 @@ package org.eclipse.leshan.client.californium.object;
 
 import org.eclipse.californium.core.observe.ObserveRelation;
 import org.eclipse.californium.core.observe.ObserveRelationFilter;
+import org.eclipse.leshan.client.notification.ObserveRelationIndex;
 import org.eclipse.leshan.core.node.LwM2mPath;
 
 /**
  * An {@link ObserveRelationFilter} which select {@link ObserveRelation} based on resource URI.
+ *
+ * @deprecated relations are now looked up in an {@link ObserveRelationIndex} (see {@link ObjectResource}), which does
+ *             not need to check every relation.
  */
+@Deprecated
 public class ResourceObserveFilter implements ObserveRelationFilter {
 
     protected final LwM2mPath[] paths;
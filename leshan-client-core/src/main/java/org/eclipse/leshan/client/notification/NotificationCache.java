@@ -0,0 +1,163 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.client.notification;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import org.eclipse.leshan.core.request.ContentFormat;
+import org.eclipse.leshan.core.response.LwM2mResponse;
+
+/**
+ * A cache shared by all observe relations notified because of a same change.
+ * <p>
+ * When resources change, each affected observe relation is notified : the observed value is read again then encoded.
+ * When several relations (maybe from several servers) observe the same paths with the same content format, this cache
+ * allows to read the value only once and to encode it only once, then to send the same bytes to all of them.
+ * <p>
+ * A cache is bound to the current thread between {@link #begin()} and {@link #end()}. Notifications are generated
+ * synchronously while listeners are called, so the cache lives only the time of one change. Outside of this scope (e.g.
+ * for initial Observe response), {@link #current()} returns <code>null</code> and nothing is cached.
+ * <p>
+ * Observe responses are shared between servers : this means an instance enabler is expected to return the same value
+ * whatever the observing server during one change, which is the case of all enablers provided by Leshan.
+ */
+public class NotificationCache {
+
+    private static final ThreadLocal<NotificationCache> CURRENT = new ThreadLocal<>();
+
+    private final Map<Object, LwM2mResponse> responses = new HashMap<>();
+    private final Map<PayloadKey, byte[]> payloads = new HashMap<>();
+    private int depth = 0;
+
+    /**
+     * Bind a cache to the current thread or reuse the one already bound. Each call MUST be followed by a call to
+     * {@link #end()}.
+     *
+     * @return the cache bound to the current thread.
+     */
+    public static NotificationCache begin() {
+        NotificationCache cache = CURRENT.get();
+        if (cache == null) {
+            cache = new NotificationCache();
+            CURRENT.set(cache);
+        }
+        cache.depth++;
+        return cache;
+    }
+
+    /**
+     * @return the cache bound to the current thread or <code>null</code> if there is no change currently notified.
+     */
+    public static NotificationCache current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Unbind this cache from current thread if this is the end of the outermost {@link #begin()}.
+     */
+    public void end() {
+        if (--depth == 0) {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * Get response for the given key, calling the given reader only the first time.
+     *
+     * @param key identify the read, generally built from request type, paths and content formats.
+     * @param reader function reading the value.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends LwM2mResponse> T getResponse(Object key, Supplier<T> reader) {
+        LwM2mResponse response = responses.get(key);
+        if (response == null) {
+            response = reader.get();
+            responses.put(key, response);
+        }
+        return (T) response;
+    }
+
+    /**
+     * Get encoded payload of the given content, calling the given encoder only the first time.
+     *
+     * @param content the content to encode. It is compared by identity, so same content is generally the result of a
+     *        same cached response.
+     * @param format the content format used to encode.
+     * @param target the targeted path(s) if the encoding depends on it.
+     * @param encoder function encoding the content.
+     */
+    public byte[] getPayload(Object content, ContentFormat format, Object target, Supplier<byte[]> encoder) {
+        PayloadKey key = new PayloadKey(content, format, target);
+        byte[] payload = payloads.get(key);
+        if (payload == null) {
+            payload = encoder.get();
+            payloads.put(key, payload);
+        }
+        return payload;
+    }
+
+    /**
+     * Encode given content using the cache bound to the current thread if any.
+     *
+     * @see #getPayload(Object, ContentFormat, Object, Supplier)
+     */
+    public static byte[] encode(Object content, ContentFormat format, Object target, Supplier<byte[]> encoder) {
+        NotificationCache cache = current();
+        if (cache == null) {
+            return encoder.get();
+        }
+        return cache.getPayload(content, format, target, encoder);
+    }
+
+    /**
+     * Create a key for {@link #getResponse(Object, Supplier)} from the given values.
+     */
+    public static Object key(Object... values) {
+        return Arrays.asList(values);
+    }
+
+    private static class PayloadKey {
+        private final Object content;
+        private final ContentFormat format;
+        private final Object target;
+
+        PayloadKey(Object content, ContentFormat format, Object target) {
+            this.content = content;
+            this.format = format;
+            this.target = target;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(content) + Objects.hash(format, target);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof PayloadKey))
+                return false;
+            PayloadKey other = (PayloadKey) obj;
+            return content == other.content && Objects.equals(format, other.format)
+                    && Objects.equals(target, other.target);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.client.notification;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.util.Validate;
+
+/**
+ * An index of observe relations by observed {@link LwM2mPath}.
+ * <p>
+ * Relations are stored in a trie keyed by object id, object instance id, resource id and resource instance id. When
+ * some resources change, affected relations are found by walking down the trie along each changed path, so cost depends
+ * on path depth and not on the number of relations. A relation is affected if a changed path starts with one of its
+ * observed paths.
+ * <p>
+ * This class is thread-safe : {@link #getRelations(LwM2mPath...)} is lock-free, modifications are serialized.
+ *
+ * @param <T> type of the indexed relation. It is compared using {@link Object#equals(Object)}.
+ */
+public class ObserveRelationIndex<T> {
+
+    private final Node<T> root = new Node<>();
+
+    /**
+     * Add a relation observing given paths.
+     */
+    public void add(T relation, Collection<LwM2mPath> observedPaths) {
+        Validate.notNull(relation);
+        Validate.notNull(observedPaths);
+        synchronized (root) {
+            for (LwM2mPath path : observedPaths) {
+                Node<T> node = root;
+                for (int depth = 0; depth < size(path); depth++) {
+                    node = node.children.computeIfAbsent(id(path, depth), k -> new Node<>());
+                }
+                node.relations.add(relation);
+            }
+        }
+    }
+
+    /**
+     * Add a relation observing a single path.
+     */
+    public void add(T relation, LwM2mPath observedPath) {
+        add(relation, Collections.singleton(observedPath));
+    }
+
+    /**
+     * Remove a relation. Given paths MUST be the ones used to add it.
+     */
+    public void remove(T relation, Collection<LwM2mPath> observedPaths) {
+        Validate.notNull(relation);
+        Validate.notNull(observedPaths);
+        synchronized (root) {
+            for (LwM2mPath path : observedPaths) {
+                List<Node<T>> branch = new ArrayList<>(size(path) + 1);
+                Node<T> node = root;
+                branch.add(node);
+                for (int depth = 0; depth < size(path) && node != null; depth++) {
+                    node = node.children.get(id(path, depth));
+                    branch.add(node);
+                }
+                if (node == null) {
+                    continue;
+                }
+                node.relations.remove(relation);
+
+                // prune empty nodes
+                for (int depth = size(path); depth > 0; depth--) {
+                    Node<T> child = branch.get(depth);
+                    if (!child.isEmpty()) {
+                        break;
+                    }
+                    branch.get(depth - 1).children.remove(id(path, depth - 1), child);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove a relation observing a single path.
+     */
+    public void remove(T relation, LwM2mPath observedPath) {
+        remove(relation, Collections.singleton(observedPath));
+    }
+
+    /**
+     * @return all relations affected by a change of at least one of the given paths, without duplicates.
+     */
+    public Set<T> getRelations(LwM2mPath... changedPaths) {
+        Set<T> result = null;
+        for (LwM2mPath path : changedPaths) {
+            Node<T> node = root;
+            for (int depth = 0; node != null; depth++) {
+                if (!node.relations.isEmpty()) {
+                    if (result == null) {
+                        result = new LinkedHashSet<>();
+                    }
+                    result.addAll(node.relations);
+                }
+                node = depth < size(path) ? node.children.get(id(path, depth)) : null;
+            }
+        }
+        return result == null ? Collections.emptySet() : result;
+    }
+
+    /**
+     * @return <code>true</code> if no relation is indexed.
+     */
+    public boolean isEmpty() {
+        return root.isEmpty();
+    }
+
+    private static int size(LwM2mPath path) {
+        if (path.getObjectId() == null)
+            return 0;
+        if (path.getObjectInstanceId() == null)
+            return 1;
+        if (path.getResourceId() == null)
+            return 2;
+        if (path.getResourceInstanceId() == null)
+            return 3;
+        return 4;
+    }
+
+    private static Integer id(LwM2mPath path, int depth) {
+        switch (depth) {
+        case 0:
+            return path.getObjectId();
+        case 1:
+            return path.getObjectInstanceId();
+        case 2:
+            return path.getResourceId();
+        default:
+            return path.getResourceInstanceId();
+        }
+    }
+
+    private static class Node<T> {
+        final ConcurrentMap<Integer, Node<T>> children = new ConcurrentHashMap<>();
+        final Set<T> relations = ConcurrentHashMap.newKeySet();
+
+        boolean isEmpty() {
+            return relations.isEmpty() && children.isEmpty();
+        }
+    }
+}
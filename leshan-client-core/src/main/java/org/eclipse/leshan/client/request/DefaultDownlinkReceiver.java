@@ -17,6 +17,7 @@ package org.eclipse.leshan.client.request;
 
 import org.eclipse.leshan.client.bootstrap.BootstrapHandler;
 import org.eclipse.leshan.client.engine.RegistrationEngine;
+import org.eclipse.leshan.client.notification.NotificationCache;
 import org.eclipse.leshan.client.resource.LwM2mObjectEnabler;
 import org.eclipse.leshan.client.resource.LwM2mObjectTree;
 import org.eclipse.leshan.client.resource.LwM2mRootEnabler;
@@ -192,7 +193,16 @@ public class DefaultDownlinkReceiver implements DownlinkRequestReceiver {
             if (objectEnabler == null) {
                 response = toSendableResponse(ObserveResponse.notFound());
             } else {
-                response = toSendableResponse(objectEnabler.observe(sender, request));
+                NotificationCache cache = NotificationCache.current();
+                if (cache == null) {
+                    response = toSendableResponse(objectEnabler.observe(sender, request));
+                } else {
+                    // this is a notification : read only once for all servers observing same path
+                    response = toSendableResponse(cache.getResponse(
+                            NotificationCache.key(ObserveRequest.class, request.getPath(), request.getContentFormat(),
+                                    sender.isSystem(), sender.isLwm2mBootstrapServer()),
+                            () -> objectEnabler.observe(sender, request)));
+                }
             }
         }
 
@@ -208,7 +218,17 @@ public class DefaultDownlinkReceiver implements DownlinkRequestReceiver {
 
         @Override
         public void visit(ObserveCompositeRequest request) {
-            response = toSendableResponse(rootEnabler.observe(sender, request));
+            NotificationCache cache = NotificationCache.current();
+            if (cache == null) {
+                response = toSendableResponse(rootEnabler.observe(sender, request));
+            } else {
+                // this is a notification : read only once for all servers observing same paths
+                response = toSendableResponse(cache.getResponse(
+                        NotificationCache.key(ObserveCompositeRequest.class, request.getPaths(),
+                                request.getRequestContentFormat(), request.getResponseContentFormat(),
+                                sender.isSystem(), sender.isLwm2mBootstrapServer()),
+                        () -> rootEnabler.observe(sender, request)));
+            }
         }
 
         @Override
@@ -18,6 +18,7 @@ package org.eclipse.leshan.client.resource;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.eclipse.leshan.client.notification.NotificationCache;
 import org.eclipse.leshan.client.resource.listener.ObjectListener;
 import org.eclipse.leshan.core.node.LwM2mPath;
 import org.slf4j.Logger;
@@ -170,8 +171,14 @@ public class TransactionalObjectListener implements ObjectListener {
     }
 
     protected void fireResourcesChanged(LwM2mPath... path) {
-        for (ObjectListener listener : innerListeners) {
-            listener.resourceChanged(path);
+        // share read values and encoded payloads between all notifications generated by this change
+        NotificationCache cache = NotificationCache.begin();
+        try {
+            for (ObjectListener listener : innerListeners) {
+                listener.resourceChanged(path);
+            }
+        } finally {
+            cache.end();
         }
     }
 }
@@ -14,16 +14,19 @@
  *******************************************************************************/
 package org.eclipse.leshan.client.send;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.eclipse.leshan.client.engine.RegistrationEngine;
 import org.eclipse.leshan.client.request.UplinkRequestSender;
 import org.eclipse.leshan.client.resource.LwM2mRootEnabler;
 import org.eclipse.leshan.client.servers.LwM2mServer;
 import org.eclipse.leshan.core.Destroyable;
 import org.eclipse.leshan.core.Startable;
 import org.eclipse.leshan.core.Stoppable;
+import org.eclipse.leshan.core.model.LwM2mModel;
 import org.eclipse.leshan.core.node.LwM2mNode;
 import org.eclipse.leshan.core.node.LwM2mPath;
 import org.eclipse.leshan.core.node.TimestampedLwM2mNodes;
@@ -39,6 +42,7 @@ public class DataSenderManager implements Startable, Stoppable, Destroyable {
     private final Map<String, DataSender> dataSenders;
     private final LwM2mRootEnabler rootEnabler;
     private final UplinkRequestSender requestSender;
+    private volatile RegistrationEngine registrationEngine;
 
     public DataSenderManager(Map<String, DataSender> dataSenders, LwM2mRootEnabler rootEnabler,
             UplinkRequestSender requestSender) {
@@ -70,6 +74,31 @@ public class DataSenderManager implements Startable, Stoppable, Destroyable {
         }
     }
 
+    /**
+     * Set the {@link RegistrationEngine} used to know to which servers the client is registered.
+     */
+    public void setRegistrationEngine(RegistrationEngine registrationEngine) {
+        this.registrationEngine = registrationEngine;
+    }
+
+    /**
+     * @return All the registered Server indexed by the corresponding registration id;
+     */
+    public Map<String, LwM2mServer> getRegisteredServers() {
+        RegistrationEngine engine = registrationEngine;
+        if (engine == null) {
+            return Collections.emptyMap();
+        }
+        return engine.getRegisteredServers();
+    }
+
+    /**
+     * @return the model of objects supported by the client.
+     */
+    public LwM2mModel getModel() {
+        return rootEnabler.getModel();
+    }
+
     /**
      * Retrieves a data sender by its name
      *
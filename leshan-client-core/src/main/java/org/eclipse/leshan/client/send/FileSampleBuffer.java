@@ -0,0 +1,258 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.client.send;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.leshan.core.Destroyable;
+import org.eclipse.leshan.core.util.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link SampleBuffer} which stores samples in a fixed size file used as a ring buffer, so collected data survive a
+ * client restart and heap usage does not depend on the number of collected samples.
+ * <p>
+ * File layout is a small header followed by a circular data region where each sample is stored as a 4 bytes length
+ * followed by encoded sample. Data is written through the OS page cache without explicit sync.
+ */
+public class FileSampleBuffer implements SampleBuffer, Destroyable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileSampleBuffer.class);
+
+    private static final int MAGIC = 0x4C534231; // "LSB1"
+    // magic(4) + capacity(8) + headPosition(8) + count(4) + usedBytes(8) + headSequence(8) + droppedSamples(8)
+    private static final int HEADER_SIZE = 48;
+    private static final int LENGTH_SIZE = 4;
+
+    private final File file;
+    private final RandomAccessFile randomAccessFile;
+    private final FileChannel channel;
+    private final long capacityInBytes;
+    private final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    private final ByteBuffer length = ByteBuffer.allocate(LENGTH_SIZE);
+
+    // all fields are guarded by "this"
+    private long headPosition;
+    private int count;
+    private long usedBytes;
+    private long headSequence;
+    private long droppedSamples;
+
+    /**
+     * Open or create a file backed sample buffer.
+     * <p>
+     * If the file already exists and was created with same capacity, samples it contains are reloaded.
+     *
+     * @param file the file used to store samples.
+     * @param capacityInBytes size of the data region of the file.
+     * @throws IOException if file can not be opened or created.
+     */
+    public FileSampleBuffer(File file, long capacityInBytes) throws IOException {
+        Validate.notNull(file);
+        Validate.isTrue(capacityInBytes > LENGTH_SIZE, "capacity must be greater than 4");
+        this.file = file;
+        this.capacityInBytes = capacityInBytes;
+        this.randomAccessFile = new RandomAccessFile(file, "rw");
+        this.channel = randomAccessFile.getChannel();
+
+        if (!loadHeader()) {
+            writeHeader();
+        }
+    }
+
+    private boolean loadHeader() throws IOException {
+        if (channel.size() < HEADER_SIZE)
+            return false;
+
+        header.clear();
+        readFully(0, header);
+        header.flip();
+        if (header.getInt() != MAGIC) {
+            LOG.warn("{} is not a sample buffer file, it will be overwritten", file);
+            return false;
+        }
+        long capacity = header.getLong();
+        if (capacity != capacityInBytes) {
+            LOG.warn("{} was created with a capacity of {} bytes instead of {}, collected samples are dropped", file,
+                    capacity, capacityInBytes);
+            return false;
+        }
+        headPosition = header.getLong();
+        count = header.getInt();
+        usedBytes = header.getLong();
+        headSequence = header.getLong();
+        droppedSamples = header.getLong();
+        return true;
+    }
+
+    private void writeHeader() throws IOException {
+        header.clear();
+        header.putInt(MAGIC);
+        header.putLong(capacityInBytes);
+        header.putLong(headPosition);
+        header.putInt(count);
+        header.putLong(usedBytes);
+        header.putLong(headSequence);
+        header.putLong(droppedSamples);
+        header.flip();
+        writeFully(0, header);
+    }
+
+    @Override
+    public synchronized long add(byte[] sample) {
+        long recordSize = LENGTH_SIZE + sample.length;
+        if (recordSize > capacityInBytes) {
+            throw new IllegalArgumentException(String.format("Sample of %d bytes can not fit in a buffer of %d bytes",
+                    sample.length, capacityInBytes));
+        }
+        try {
+            while (usedBytes + recordSize > capacityInBytes) {
+                removeHead();
+                droppedSamples++;
+            }
+            long tailPosition = (headPosition + usedBytes) % capacityInBytes;
+            length.clear();
+            length.putInt(sample.length);
+            length.flip();
+            writeCircular(tailPosition, length);
+            writeCircular((tailPosition + LENGTH_SIZE) % capacityInBytes, ByteBuffer.wrap(sample));
+            count++;
+            usedBytes += recordSize;
+            writeHeader();
+            return headSequence + count - 1;
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Unable to write sample to %s", file), e);
+        }
+    }
+
+    @Override
+    public synchronized List<byte[]> peek(int maxSamples) {
+        List<byte[]> result = new ArrayList<>(Math.min(maxSamples, count));
+        try {
+            long position = headPosition;
+            for (int i = 0; i < count && i < maxSamples; i++) {
+                int sampleLength = readLength(position);
+                ByteBuffer sample = ByteBuffer.allocate(sampleLength);
+                readCircular((position + LENGTH_SIZE) % capacityInBytes, sample);
+                result.add(sample.array());
+                position = (position + LENGTH_SIZE + sampleLength) % capacityInBytes;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Unable to read samples from %s", file), e);
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized long getHeadSequence() {
+        return headSequence;
+    }
+
+    @Override
+    public synchronized void removeUntil(long sequence) {
+        if (headSequence >= sequence || count == 0)
+            return;
+        try {
+            while (headSequence < sequence && count > 0) {
+                removeHead();
+            }
+            writeHeader();
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Unable to remove samples from %s", file), e);
+        }
+    }
+
+    private void removeHead() throws IOException {
+        long recordSize = LENGTH_SIZE + readLength(headPosition);
+        headPosition = (headPosition + recordSize) % capacityInBytes;
+        usedBytes -= recordSize;
+        count--;
+        headSequence++;
+    }
+
+    @Override
+    public synchronized int size() {
+        return count;
+    }
+
+    @Override
+    public synchronized long getDroppedSamples() {
+        return droppedSamples;
+    }
+
+    @Override
+    public synchronized void destroy() {
+        try {
+            channel.force(false);
+            randomAccessFile.close();
+        } catch (IOException e) {
+            LOG.warn("Unable to close {}", file, e);
+        }
+    }
+
+    private int readLength(long position) throws IOException {
+        length.clear();
+        readCircular(position, length);
+        length.flip();
+        return length.getInt();
+    }
+
+    private void writeCircular(long position, ByteBuffer src) throws IOException {
+        int firstPart = (int) Math.min(src.remaining(), capacityInBytes - position);
+        ByteBuffer first = src.duplicate();
+        first.limit(first.position() + firstPart);
+        writeFully(HEADER_SIZE + position, first);
+        src.position(src.position() + firstPart);
+        if (src.hasRemaining()) {
+            writeFully(HEADER_SIZE, src);
+        }
+    }
+
+    private void readCircular(long position, ByteBuffer dst) throws IOException {
+        int firstPart = (int) Math.min(dst.remaining(), capacityInBytes - position);
+        ByteBuffer first = dst.duplicate();
+        first.limit(first.position() + firstPart);
+        readFully(HEADER_SIZE + position, first);
+        dst.position(dst.position() + firstPart);
+        if (dst.hasRemaining()) {
+            readFully(HEADER_SIZE, dst);
+        }
+    }
+
+    private void writeFully(long position, ByteBuffer src) throws IOException {
+        while (src.hasRemaining()) {
+            position += channel.write(src, position);
+        }
+    }
+
+    private void readFully(long position, ByteBuffer dst) throws IOException {
+        while (dst.hasRemaining()) {
+            int read = channel.read(dst, position);
+            if (read < 0) {
+                throw new IOException(String.format("Unexpected end of file %s", file));
+            }
+            position += read;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.client.send;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+import org.eclipse.leshan.core.util.Validate;
+
+/**
+ * A {@link SampleBuffer} which keeps samples in memory, bounded by the total size of encoded samples.
+ */
+public class InMemorySampleBuffer implements SampleBuffer {
+
+    private final long capacityInBytes;
+
+    // all fields are guarded by "this"
+    private final Deque<byte[]> samples = new ArrayDeque<>();
+    private long usedBytes;
+    private long headSequence;
+    private long droppedSamples;
+
+    /**
+     * @param capacityInBytes the maximum total size of encoded samples stored in this buffer.
+     */
+    public InMemorySampleBuffer(long capacityInBytes) {
+        Validate.isTrue(capacityInBytes > 0, "capacity must be greater than 0");
+        this.capacityInBytes = capacityInBytes;
+    }
+
+    @Override
+    public synchronized long add(byte[] sample) {
+        if (sample.length > capacityInBytes) {
+            throw new IllegalArgumentException(String.format("Sample of %d bytes can not fit in a buffer of %d bytes",
+                    sample.length, capacityInBytes));
+        }
+        while (usedBytes + sample.length > capacityInBytes) {
+            usedBytes -= samples.removeFirst().length;
+            headSequence++;
+            droppedSamples++;
+        }
+        samples.addLast(sample);
+        usedBytes += sample.length;
+        return headSequence + samples.size() - 1;
+    }
+
+    @Override
+    public synchronized List<byte[]> peek(int maxSamples) {
+        List<byte[]> result = new ArrayList<>(Math.min(maxSamples, samples.size()));
+        Iterator<byte[]> iterator = samples.iterator();
+        while (iterator.hasNext() && result.size() < maxSamples) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized long getHeadSequence() {
+        return headSequence;
+    }
+
+    @Override
+    public synchronized void removeUntil(long sequence) {
+        while (headSequence < sequence && !samples.isEmpty()) {
+            usedBytes -= samples.removeFirst().length;
+            headSequence++;
+        }
+    }
+
+    @Override
+    public synchronized int size() {
+        return samples.size();
+    }
+
+    @Override
+    public synchronized long getDroppedSamples() {
+        return droppedSamples;
+    }
+}
@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.client.send;
+
+import java.util.List;
+
+/**
+ * A bounded FIFO buffer of encoded samples used by {@link ScheduledDataSender} to store data until they can be sent.
+ * <p>
+ * Each sample added gets a sequence number. When buffer is full, oldest samples are dropped to make room for new ones.
+ * <p>
+ * Implementations MUST be thread-safe.
+ */
+public interface SampleBuffer {
+
+    /**
+     * Add an encoded sample at the end of the buffer. Oldest samples are dropped if there is not enough room.
+     *
+     * @param sample the encoded sample.
+     * @return the sequence number of the added sample.
+     * @throws IllegalArgumentException if the sample is bigger than buffer capacity.
+     */
+    long add(byte[] sample);
+
+    /**
+     * Get oldest samples without removing them.
+     *
+     * @param maxSamples the maximum number of samples to return.
+     * @return the oldest samples, the first one has the sequence number returned by {@link #getHeadSequence()}
+     */
+    List<byte[]> peek(int maxSamples);
+
+    /**
+     * @return the sequence number of the oldest sample in the buffer.
+     */
+    long getHeadSequence();
+
+    /**
+     * Remove all samples which have a sequence number lower than the given one.
+     * <p>
+     * This is generally used to remove samples returned by {@link #peek(int)} once they are sent. As some of them could
+     * have been dropped in the meantime, sequence number is used rather than a number of samples.
+     *
+     * @param sequence the sequence number of the first sample to keep.
+     */
+    void removeUntil(long sequence);
+
+    /**
+     * @return the number of samples in the buffer.
+     */
+    int size();
+
+    /**
+     * @return the number of samples dropped because buffer was full.
+     */
+    long getDroppedSamples();
+}
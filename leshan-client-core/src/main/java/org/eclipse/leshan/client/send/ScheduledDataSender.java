@@ -0,0 +1,424 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.client.send;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.leshan.client.servers.LwM2mServer;
+import org.eclipse.leshan.core.Destroyable;
+import org.eclipse.leshan.core.Startable;
+import org.eclipse.leshan.core.Stoppable;
+import org.eclipse.leshan.core.node.LwM2mNode;
+import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.node.TimestampedLwM2mNodes;
+import org.eclipse.leshan.core.node.codec.CodecException;
+import org.eclipse.leshan.core.node.codec.DefaultLwM2mDecoder;
+import org.eclipse.leshan.core.node.codec.DefaultLwM2mEncoder;
+import org.eclipse.leshan.core.node.codec.LwM2mDecoder;
+import org.eclipse.leshan.core.node.codec.LwM2mEncoder;
+import org.eclipse.leshan.core.request.ContentFormat;
+import org.eclipse.leshan.core.util.NamedThreadFactory;
+import org.eclipse.leshan.core.util.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A data sender which periodically samples data and sends them automatically by batch.
+ * <p>
+ * Samples are encoded in SenML-CBOR and stored in a bounded {@link SampleBuffer} (in memory or file backed). When
+ * buffer is full, oldest samples are dropped. Collected samples are sent when max batch size is reached or
+ * periodically. On failure (e.g. no connectivity) samples are kept in buffer and will be sent later, so a device can
+ * upload data collected during a connectivity gap without growing its heap. Nodes of the last samples are also kept in
+ * memory (at most max batch size), so they do not need to be decoded again before being sent.
+ * <p>
+ * Use {@link Builder} to create it.
+ */
+public class ScheduledDataSender implements DataSender, Startable, Stoppable, Destroyable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ScheduledDataSender.class);
+
+    private static final ContentFormat SAMPLE_FORMAT = ContentFormat.SENML_CBOR;
+
+    /**
+     * Describe a list of paths which should be sampled periodically.
+     */
+    public static class SamplingSchedule {
+        private final List<LwM2mPath> paths;
+        private final long periodInMs;
+
+        public SamplingSchedule(List<LwM2mPath> paths, long periodInMs) {
+            Validate.notEmpty(paths);
+            Validate.isTrue(periodInMs > 0, "period must be greater than 0");
+            this.paths = Collections.unmodifiableList(new ArrayList<>(paths));
+            this.periodInMs = periodInMs;
+        }
+
+        public List<LwM2mPath> getPaths() {
+            return paths;
+        }
+
+        public long getPeriodInMs() {
+            return periodInMs;
+        }
+    }
+
+    private final String name;
+    private final List<SamplingSchedule> schedules;
+    private final SampleBuffer buffer;
+    private final ContentFormat format;
+    private final LwM2mEncoder encoder;
+    private final LwM2mDecoder decoder;
+    private final int maxBatchSize;
+    private final long flushPeriodInMs;
+    private final long timeoutInMs;
+    private final Long serverId;
+
+    private final ScheduledExecutorService executor;
+    private final List<ScheduledFuture<?>> tasks = new ArrayList<>();
+    private final AtomicBoolean sending = new AtomicBoolean(false);
+    // sequence number => nodes of last samples, only accessed by sender thread.
+    private final NavigableMap<Long, TimestampedLwM2mNodes> lastSamples = new TreeMap<>();
+    private DataSenderManager dataSenderManager;
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            doFlush();
+        }
+    };
+
+    protected ScheduledDataSender(String name, List<SamplingSchedule> schedules, SampleBuffer buffer,
+            ContentFormat format, LwM2mEncoder encoder, LwM2mDecoder decoder, int maxBatchSize, long flushPeriodInMs,
+            long timeoutInMs, Long serverId) {
+        this.name = name;
+        this.schedules = schedules;
+        this.buffer = buffer;
+        this.format = format;
+        this.encoder = encoder;
+        this.decoder = decoder;
+        this.maxBatchSize = maxBatchSize;
+        this.flushPeriodInMs = flushPeriodInMs;
+        this.timeoutInMs = timeoutInMs;
+        this.serverId = serverId;
+        this.executor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory(name + "#%d"));
+    }
+
+    @Override
+    public void setDataSenderManager(DataSenderManager dataSenderManager) {
+        this.dataSenderManager = dataSenderManager;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    public SampleBuffer getBuffer() {
+        return buffer;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!tasks.isEmpty())
+            return;
+
+        for (final SamplingSchedule schedule : schedules) {
+            tasks.add(executor.scheduleAtFixedRate(new Runnable() {
+                @Override
+                public void run() {
+                    sample(schedule.getPaths());
+                }
+            }, 0, schedule.getPeriodInMs(), TimeUnit.MILLISECONDS));
+        }
+        tasks.add(executor.scheduleWithFixedDelay(flushTask, flushPeriodInMs, flushPeriodInMs, TimeUnit.MILLISECONDS));
+    }
+
+    @Override
+    public synchronized void stop() {
+        for (ScheduledFuture<?> task : tasks) {
+            task.cancel(false);
+        }
+        tasks.clear();
+    }
+
+    @Override
+    public void destroy() {
+        stop();
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (buffer instanceof Destroyable) {
+            ((Destroyable) buffer).destroy();
+        }
+    }
+
+    /**
+     * Try to send collected samples as soon as possible.
+     */
+    public void flush() {
+        try {
+            executor.execute(flushTask);
+        } catch (RejectedExecutionException e) {
+            // e.g. called from a response callback after destroy
+            LOG.debug("{} is destroyed, collected data will not be sent", name);
+        }
+    }
+
+    /**
+     * Sample current values of given paths and store them in buffer.
+     * <p>
+     * This is always executed by sender thread.
+     */
+    protected void sample(List<LwM2mPath> paths) {
+        try {
+            Map<LwM2mPath, LwM2mNode> currentValues = dataSenderManager.getCurrentValues(LwM2mServer.SYSTEM, paths);
+            if (currentValues.isEmpty())
+                return;
+
+            TimestampedLwM2mNodes sample = TimestampedLwM2mNodes.builder().addNodes(Instant.now(), currentValues)
+                    .build();
+            long sequence = buffer
+                    .add(encoder.encodeTimestampedNodes(sample, SAMPLE_FORMAT, dataSenderManager.getModel()));
+            lastSamples.put(sequence, sample);
+            if (lastSamples.size() > maxBatchSize) {
+                lastSamples.pollFirstEntry();
+            }
+        } catch (NoDataException e) {
+            LOG.debug("Unable to sample {} for {}", paths, name, e);
+            return;
+        } catch (RuntimeException e) {
+            LOG.warn("Unexpected error when sampling {} for {}", paths, name, e);
+            return;
+        }
+
+        if (buffer.size() >= maxBatchSize) {
+            doFlush();
+        }
+    }
+
+    /**
+     * Send oldest collected samples if there is no pending send.
+     * <p>
+     * This is always executed by sender thread, so no sample can be added between {@link SampleBuffer#peek(int)} and
+     * {@link SampleBuffer#getHeadSequence()}.
+     */
+    protected void doFlush() {
+        if (buffer.size() == 0 || !sending.compareAndSet(false, true))
+            return;
+
+        try {
+            LwM2mServer server = selectServer();
+            if (server == null) {
+                LOG.debug("No registered server to send data collected by {}", name);
+                sending.set(false);
+                return;
+            }
+
+            long firstSequence = buffer.getHeadSequence();
+            // forget samples which are not in buffer anymore
+            lastSamples.headMap(firstSequence).clear();
+            List<byte[]> samples = buffer.peek(maxBatchSize);
+            final long nextSequence = firstSequence + samples.size();
+
+            TimestampedLwM2mNodes.Builder data = TimestampedLwM2mNodes.builder();
+            int validSamples = 0;
+            for (int i = 0; i < samples.size(); i++) {
+                TimestampedLwM2mNodes nodes = lastSamples.get(firstSequence + i);
+                if (nodes == null) {
+                    // e.g. sample stored before a restart
+                    try {
+                        nodes = decoder.decodeTimestampedNodes(samples.get(i), SAMPLE_FORMAT, null,
+                                dataSenderManager.getModel());
+                    } catch (CodecException e) {
+                        LOG.warn("Corrupted sample dropped by {}", name, e);
+                        continue;
+                    }
+                }
+                data.add(nodes);
+                validSamples++;
+            }
+            if (validSamples == 0) {
+                // only corrupted samples, remove them or they will block the buffer forever.
+                buffer.removeUntil(nextSequence);
+                sending.set(false);
+                if (buffer.size() > 0) {
+                    flush();
+                }
+                return;
+            }
+
+            dataSenderManager.sendData(server, format, data.build(), response -> {
+                if (response.isSuccess()) {
+                    buffer.removeUntil(nextSequence);
+                    sending.set(false);
+                    // continue to drain buffer (e.g. after a connectivity gap)
+                    if (buffer.size() >= maxBatchSize) {
+                        flush();
+                    }
+                } else {
+                    LOG.debug("Unable to send data collected by {} : {} {}", name, response.getCode(),
+                            response.getErrorMessage());
+                    sending.set(false);
+                }
+            }, error -> {
+                LOG.debug("Unable to send data collected by {}", name, error);
+                sending.set(false);
+            }, timeoutInMs);
+        } catch (RuntimeException e) {
+            LOG.warn("Unexpected error when sending data collected by {}", name, e);
+            sending.set(false);
+        }
+    }
+
+    protected LwM2mServer selectServer() {
+        for (LwM2mServer server : dataSenderManager.getRegisteredServers().values()) {
+            if (serverId == null || serverId.equals(server.getId())) {
+                return server;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Builder for {@link ScheduledDataSender}.
+     */
+    public static class Builder {
+        private final String name;
+        private final List<SamplingSchedule> schedules = new ArrayList<>();
+        private SampleBuffer buffer;
+        private ContentFormat format = ContentFormat.SENML_CBOR;
+        private LwM2mEncoder encoder;
+        private LwM2mDecoder decoder;
+        private int maxBatchSize = 100;
+        private long flushPeriodInMs = 60000;
+        private long timeoutInMs = 60000;
+        private Long serverId;
+
+        public Builder(String name) {
+            Validate.notEmpty(name);
+            this.name = name;
+        }
+
+        /**
+         * Sample given paths every <code>periodInMs</code>.
+         */
+        public Builder addSampling(long periodInMs, LwM2mPath... paths) {
+            schedules.add(new SamplingSchedule(Arrays.asList(paths), periodInMs));
+            return this;
+        }
+
+        /**
+         * Sample given paths every <code>periodInMs</code>.
+         */
+        public Builder addSampling(long periodInMs, List<LwM2mPath> paths) {
+            schedules.add(new SamplingSchedule(paths, periodInMs));
+            return this;
+        }
+
+        /**
+         * Set buffer used to store collected samples. By default an {@link InMemorySampleBuffer} of 64KB is used.
+         */
+        public Builder setBuffer(SampleBuffer buffer) {
+            this.buffer = buffer;
+            return this;
+        }
+
+        /**
+         * Set {@link ContentFormat} used to send data. By default {@link ContentFormat#SENML_CBOR} is used.
+         */
+        public Builder setFormat(ContentFormat format) {
+            this.format = format;
+            return this;
+        }
+
+        public Builder setEncoder(LwM2mEncoder encoder) {
+            this.encoder = encoder;
+            return this;
+        }
+
+        public Builder setDecoder(LwM2mDecoder decoder) {
+            this.decoder = decoder;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of samples sent in one Send request. Data is sent as soon as this number of samples is
+         * collected. Default value is 100.
+         */
+        public Builder setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * Set the period at which collected samples are sent even if max batch size is not reached. Default value is 1
+         * minute.
+         */
+        public Builder setFlushPeriod(long flushPeriodInMs) {
+            this.flushPeriodInMs = flushPeriodInMs;
+            return this;
+        }
+
+        /**
+         * Set the timeout of Send requests. Default value is 1 minute.
+         */
+        public Builder setTimeout(long timeoutInMs) {
+            this.timeoutInMs = timeoutInMs;
+            return this;
+        }
+
+        /**
+         * Set short server ID of the server to which data should be sent. By default data is sent to the first
+         * registered server.
+         */
+        public Builder setServerId(Long serverId) {
+            this.serverId = serverId;
+            return this;
+        }
+
+        public ScheduledDataSender build() {
+            Validate.notEmpty(schedules, "at least one sampling schedule is needed");
+            Validate.isTrue(maxBatchSize > 0, "max batch size must be greater than 0");
+            Validate.isTrue(flushPeriodInMs > 0, "flush period must be greater than 0");
+            Validate.isTrue(ContentFormat.SENML_CBOR.equals(format) || ContentFormat.SENML_JSON.equals(format),
+                    "format must be SENML_CBOR or SENML_JSON");
+            if (buffer == null)
+                buffer = new InMemorySampleBuffer(64 * 1024);
+            if (encoder == null)
+                encoder = new DefaultLwM2mEncoder();
+            if (decoder == null)
+                decoder = new DefaultLwM2mDecoder();
+            return new ScheduledDataSender(name, schedules, buffer, format, encoder, decoder, maxBatchSize,
+                    flushPeriodInMs, timeoutInMs, serverId);
+        }
+    }
+}
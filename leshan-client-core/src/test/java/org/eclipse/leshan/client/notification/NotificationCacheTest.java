@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.client.notification;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.leshan.client.resource.TransactionalObjectListener;
+import org.eclipse.leshan.client.resource.listener.ObjectListener;
+import org.eclipse.leshan.client.resource.listener.ObjectsListenerAdapter;
+import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.node.LwM2mSingleResource;
+import org.eclipse.leshan.core.request.ContentFormat;
+import org.eclipse.leshan.core.response.ObserveResponse;
+import org.junit.jupiter.api.Test;
+
+public class NotificationCacheTest {
+
+    @Test
+    public void cache_is_bound_to_thread_until_outermost_end() {
+        assertNull(NotificationCache.current());
+
+        NotificationCache cache = NotificationCache.begin();
+        NotificationCache nested = NotificationCache.begin();
+        assertSame(cache, nested);
+        nested.end();
+        assertSame(cache, NotificationCache.current());
+        cache.end();
+
+        assertNull(NotificationCache.current());
+    }
+
+    @Test
+    public void read_and_encode_only_once() {
+        AtomicInteger reads = new AtomicInteger();
+        AtomicInteger encodings = new AtomicInteger();
+        LwM2mPath path = new LwM2mPath(3, 0, 1);
+
+        NotificationCache cache = NotificationCache.begin();
+        try {
+            ObserveResponse first = null;
+            for (int i = 0; i < 3; i++) {
+                ObserveResponse response = cache
+                        .getResponse(NotificationCache.key(path, ContentFormat.TEXT, false, false), () -> {
+                            reads.incrementAndGet();
+                            return ObserveResponse.success(LwM2mSingleResource.newStringResource(1, "value"));
+                        });
+                if (first == null) {
+                    first = response;
+                }
+                assertSame(first, response);
+
+                NotificationCache.encode(response.getContent(), ContentFormat.TEXT, path, () -> {
+                    encodings.incrementAndGet();
+                    return "value".getBytes();
+                });
+                NotificationCache.encode(response.getContent(), ContentFormat.CBOR, path, () -> {
+                    encodings.incrementAndGet();
+                    return new byte[] { 0x65 };
+                });
+            }
+            // equal content which is not the same instance is encoded again
+            NotificationCache.encode(LwM2mSingleResource.newStringResource(1, "value"), ContentFormat.TEXT, path,
+                    () -> {
+                        encodings.incrementAndGet();
+                        return "value".getBytes();
+                    });
+        } finally {
+            cache.end();
+        }
+
+        assertEquals(1, reads.get());
+        assertEquals(3, encodings.get());
+    }
+
+    @Test
+    public void nothing_is_cached_outside_of_change() {
+        AtomicInteger encodings = new AtomicInteger();
+        Object content = new Object();
+        for (int i = 0; i < 2; i++) {
+            NotificationCache.encode(content, ContentFormat.TEXT, null, () -> {
+                encodings.incrementAndGet();
+                return new byte[0];
+            });
+        }
+        assertEquals(2, encodings.get());
+    }
+
+    @Test
+    public void listeners_are_called_with_a_cache() {
+        TransactionalObjectListener transactionalListener = new TransactionalObjectListener(null);
+        AtomicInteger calls = new AtomicInteger();
+        ObjectListener listener = new ObjectsListenerAdapter() {
+            @Override
+            public void resourceChanged(LwM2mPath... paths) {
+                assertNotNull(NotificationCache.current());
+                calls.incrementAndGet();
+            }
+        };
+        transactionalListener.addListener(listener);
+        transactionalListener.addListener(listener);
+
+        transactionalListener.resourceChanged(new LwM2mPath(3, 0, 1));
+
+        assertEquals(2, calls.get());
+        assertNull(NotificationCache.current());
+    }
+}
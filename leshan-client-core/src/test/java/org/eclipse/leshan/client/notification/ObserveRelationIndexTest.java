@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.client.notification;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.eclipse.leshan.core.node.LwM2mPath;
+import org.junit.jupiter.api.Test;
+
+public class ObserveRelationIndexTest {
+
+    @Test
+    public void changed_path_affects_relations_observing_parent_paths() {
+        ObserveRelationIndex<String> index = new ObserveRelationIndex<>();
+        index.add("root", LwM2mPath.ROOTPATH);
+        index.add("object", new LwM2mPath(3));
+        index.add("instance", new LwM2mPath(3, 0));
+        index.add("resource", new LwM2mPath(3, 0, 1));
+        index.add("other resource", new LwM2mPath(3, 0, 2));
+        index.add("other instance", new LwM2mPath(3, 1));
+        index.add("other object", new LwM2mPath(4));
+
+        assertEquals(new HashSet<>(Arrays.asList("root", "object", "instance", "resource")),
+                index.getRelations(new LwM2mPath(3, 0, 1)));
+        assertEquals(new HashSet<>(Arrays.asList("root", "object", "instance")),
+                index.getRelations(new LwM2mPath(3, 0)));
+        assertEquals(new HashSet<>(Arrays.asList("root", "other object")), index.getRelations(new LwM2mPath(4, 2)));
+        assertEquals(Collections.singleton("root"), index.getRelations(new LwM2mPath(5, 0, 1, 2)));
+    }
+
+    @Test
+    public void relation_observing_several_paths_is_returned_once() {
+        ObserveRelationIndex<String> index = new ObserveRelationIndex<>();
+        index.add("composite", Arrays.asList(new LwM2mPath(3, 0, 1), new LwM2mPath(3, 0, 2), new LwM2mPath(1)));
+
+        assertEquals(Collections.singleton("composite"),
+                index.getRelations(new LwM2mPath(3, 0, 1), new LwM2mPath(3, 0, 2), new LwM2mPath(1, 0, 1)));
+        assertTrue(index.getRelations(new LwM2mPath(3, 0, 3)).isEmpty());
+    }
+
+    @Test
+    public void removed_relations_are_pruned() {
+        ObserveRelationIndex<String> index = new ObserveRelationIndex<>();
+        index.add("resource", new LwM2mPath(3, 0, 1));
+        index.add("composite", Arrays.asList(new LwM2mPath(3, 0), new LwM2mPath(1, 0, 1)));
+
+        index.remove("resource", new LwM2mPath(3, 0, 1));
+        assertEquals(Collections.singleton("composite"), index.getRelations(new LwM2mPath(3, 0, 1)));
+
+        // removing unknown relation or path is ignored
+        index.remove("unknown", new LwM2mPath(3, 0, 1));
+        index.remove("composite", new LwM2mPath(5, 0));
+
+        index.remove("composite", Arrays.asList(new LwM2mPath(3, 0), new LwM2mPath(1, 0, 1)));
+        assertTrue(index.getRelations(new LwM2mPath(3, 0, 1), new LwM2mPath(1, 0, 1)).isEmpty());
+        assertTrue(index.isEmpty());
+    }
+}
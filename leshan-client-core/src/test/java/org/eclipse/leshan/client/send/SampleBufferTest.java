@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.client.send;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class SampleBufferTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    public void in_memory_buffer_drops_oldest_samples() {
+        check_buffer_drops_oldest_samples(new InMemorySampleBuffer(30));
+    }
+
+    @Test
+    public void file_buffer_drops_oldest_samples() throws IOException {
+        // 30 bytes of data + 4 bytes of length for each of 3 samples
+        FileSampleBuffer buffer = new FileSampleBuffer(new File(tempDir, "samples"), 42);
+        check_buffer_drops_oldest_samples(buffer);
+        buffer.destroy();
+    }
+
+    private void check_buffer_drops_oldest_samples(SampleBuffer buffer) {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, buffer.add(sample(i)));
+        }
+
+        assertEquals(3, buffer.size());
+        assertEquals(2, buffer.getDroppedSamples());
+        assertEquals(2, buffer.getHeadSequence());
+        List<byte[]> samples = buffer.peek(10);
+        assertEquals(3, samples.size());
+        assertArrayEquals(sample(2), samples.get(0));
+        assertArrayEquals(sample(4), samples.get(2));
+
+        // remove first sample and check we can still add new one
+        buffer.removeUntil(3);
+        assertEquals(5, buffer.add(sample(5)));
+        samples = buffer.peek(2);
+        assertEquals(2, samples.size());
+        assertArrayEquals(sample(3), samples.get(0));
+        assertArrayEquals(sample(4), samples.get(1));
+        assertEquals(3, buffer.size());
+
+        assertThrows(IllegalArgumentException.class, () -> buffer.add(new byte[100]));
+    }
+
+    @Test
+    public void file_buffer_reloads_samples() throws IOException {
+        File file = new File(tempDir, "samples");
+        FileSampleBuffer buffer = new FileSampleBuffer(file, 42);
+        for (int i = 0; i < 4; i++) {
+            buffer.add(sample(i));
+        }
+        buffer.destroy();
+
+        buffer = new FileSampleBuffer(file, 42);
+        assertEquals(3, buffer.size());
+        assertEquals(1, buffer.getHeadSequence());
+        List<byte[]> samples = buffer.peek(3);
+        assertArrayEquals(sample(1), samples.get(0));
+        assertArrayEquals(sample(3), samples.get(2));
+        buffer.destroy();
+
+        // a different capacity means that previous samples are dropped
+        buffer = new FileSampleBuffer(file, 100);
+        assertEquals(0, buffer.size());
+        buffer.destroy();
+    }
+
+    private byte[] sample(int i) {
+        return String.format("sample-%03d", i).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.client.send;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.leshan.client.servers.LwM2mServer;
+import org.eclipse.leshan.core.model.LwM2mModel;
+import org.eclipse.leshan.core.model.ObjectLoader;
+import org.eclipse.leshan.core.model.StaticModel;
+import org.eclipse.leshan.core.node.LwM2mNode;
+import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.node.LwM2mSingleResource;
+import org.eclipse.leshan.core.node.TimestampedLwM2mNodes;
+import org.eclipse.leshan.core.peer.IpPeer;
+import org.eclipse.leshan.core.request.ContentFormat;
+import org.eclipse.leshan.core.response.ErrorCallback;
+import org.eclipse.leshan.core.response.ResponseCallback;
+import org.eclipse.leshan.core.response.SendResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ScheduledDataSenderTest {
+
+    private static final LwM2mModel MODEL = new StaticModel(ObjectLoader.loadDefault());
+    private static final LwM2mPath BATTERY_LEVEL = new LwM2mPath(3, 0, 9);
+
+    private ScheduledDataSender sender;
+    private FakeDataSenderManager dataSenderManager;
+
+    @BeforeEach
+    public void create_sender() {
+        sender = new ScheduledDataSender.Builder("test").addSampling(60000, BATTERY_LEVEL).setMaxBatchSize(3).build();
+        dataSenderManager = new FakeDataSenderManager(sender);
+    }
+
+    @AfterEach
+    public void destroy_sender() {
+        sender.destroy();
+    }
+
+    @Test
+    public void samples_are_sent_by_batch() {
+        sender.sample(Arrays.asList(BATTERY_LEVEL));
+        sender.sample(Arrays.asList(BATTERY_LEVEL));
+        assertEquals(0, dataSenderManager.sentData.size());
+        assertEquals(2, sender.getBuffer().size());
+
+        // max batch size reached
+        sender.sample(Arrays.asList(BATTERY_LEVEL));
+        assertEquals(1, dataSenderManager.sentData.size());
+        assertEquals(dataSenderManager.sampledValues, sentValues());
+        assertEquals(0, sender.getBuffer().size());
+    }
+
+    @Test
+    public void samples_are_kept_when_send_fails() {
+        dataSenderManager.success = false;
+        sender.sample(Arrays.asList(BATTERY_LEVEL));
+        sender.doFlush();
+        assertEquals(1, sender.getBuffer().size());
+
+        dataSenderManager.success = true;
+        sender.doFlush();
+        assertEquals(0, sender.getBuffer().size());
+        assertEquals(dataSenderManager.sampledValues, sentValues());
+    }
+
+    @Test
+    public void samples_stored_before_restart_are_decoded() {
+        // same buffer used by a new sender, like a file buffer after a restart
+        sender.sample(Arrays.asList(BATTERY_LEVEL));
+        ScheduledDataSender restartedSender = new ScheduledDataSender.Builder("restarted")
+                .addSampling(60000, BATTERY_LEVEL).setBuffer(sender.getBuffer()).build();
+        dataSenderManager = new FakeDataSenderManager(restartedSender);
+        try {
+            restartedSender.doFlush();
+            assertEquals(1, dataSenderManager.sentData.size());
+            assertEquals(0, sender.getBuffer().size());
+        } finally {
+            restartedSender.destroy();
+        }
+    }
+
+    @Test
+    public void corrupted_samples_do_not_block_buffer() {
+        // batch with only corrupted samples is removed
+        sender.getBuffer().add(new byte[] { 1, 2, 3 });
+        sender.getBuffer().add(new byte[] { 4, 5, 6 });
+        sender.doFlush();
+        assertEquals(0, sender.getBuffer().size());
+        assertEquals(0, dataSenderManager.sentData.size());
+
+        // corrupted samples are removed with valid ones
+        sender.getBuffer().add(new byte[] { 1, 2, 3 });
+        sender.sample(Arrays.asList(BATTERY_LEVEL));
+        sender.doFlush();
+        assertEquals(0, sender.getBuffer().size());
+        assertEquals(dataSenderManager.sampledValues, sentValues());
+    }
+
+    @Test
+    public void flush_after_destroy_does_not_throw() {
+        sender.destroy();
+        assertDoesNotThrow(() -> sender.flush());
+    }
+
+    private List<Long> sentValues() {
+        List<Long> values = new ArrayList<>();
+        for (TimestampedLwM2mNodes data : dataSenderManager.sentData) {
+            data.getTimestamps().forEach(timestamp -> values
+                    .add((Long) ((LwM2mSingleResource) data.getNodesAt(timestamp).get(BATTERY_LEVEL)).getValue()));
+        }
+        return values;
+    }
+
+    static class FakeDataSenderManager extends DataSenderManager {
+        private final LwM2mServer server = new LwM2mServer(new IpPeer(new InetSocketAddress("localhost", 5683)), 1l,
+                URI.create("coap://localhost:5683"));
+        final List<Long> sampledValues = new ArrayList<>();
+        final List<TimestampedLwM2mNodes> sentData = new ArrayList<>();
+        boolean success = true;
+
+        public FakeDataSenderManager(DataSender dataSender) {
+            super(Collections.singletonMap(dataSender.getName(), dataSender), null, null);
+        }
+
+        @Override
+        public Map<LwM2mPath, LwM2mNode> getCurrentValues(LwM2mServer server, List<LwM2mPath> paths) {
+            try {
+                // ensure each sample has its own timestamp
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            long value = sampledValues.size();
+            sampledValues.add(value);
+            Map<LwM2mPath, LwM2mNode> values = new HashMap<>();
+            values.put(BATTERY_LEVEL, LwM2mSingleResource.newIntegerResource(BATTERY_LEVEL.getResourceId(), value));
+            return values;
+        }
+
+        @Override
+        public Map<String, LwM2mServer> getRegisteredServers() {
+            return Collections.singletonMap("registrationId", server);
+        }
+
+        @Override
+        public LwM2mModel getModel() {
+            return MODEL;
+        }
+
+        @Override
+        public void sendData(LwM2mServer server, ContentFormat format, TimestampedLwM2mNodes nodes,
+                ResponseCallback<SendResponse> onResponse, ErrorCallback onError, long timeoutInMs) {
+            if (success) {
+                sentData.add(nodes);
+                onResponse.onResponse(SendResponse.success());
+            } else {
+                onError.onError(new Exception("no connectivity"));
+            }
+        }
+    }
+}
@@ -0,0 +1,609 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.californium.oscore.cf;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import org.eclipse.californium.core.coap.CoAP.ResponseCode;
+import org.eclipse.californium.core.coap.Token;
+import org.eclipse.californium.oscore.ByteId;
+import org.eclipse.californium.oscore.CoapOSException;
+import org.eclipse.californium.oscore.ErrorDescriptions;
+import org.eclipse.californium.oscore.HashMapCtxDB;
+import org.eclipse.californium.oscore.OSCoreCtx;
+import org.eclipse.californium.oscore.OSCoreCtxDB;
+import org.eclipse.californium.oscore.OSException;
+import org.eclipse.leshan.core.californium.oscore.cf.OscoreContextListener.RemovalCause;
+import org.eclipse.leshan.core.util.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An {@link OSCoreCtxDB} which store context in memory and is able to derive context from {@link OscoreParameters}
+ * provided in {@link OscoreStore}, like {@link InMemoryOscoreContextDB}, but designed for servers handling a lot of
+ * foreign peers :
+ * <ul>
+ * <li>Looking for an already known context does not take any lock.
+ * <li>When a context is missing, only one thread derives it for a given recipient ID (others wait for the result), and
+ * no lock is held while {@link OscoreStore} is accessed, so derivations for different peers run concurrently.
+ * <li>The number of contexts is bounded : least recently used contexts are evicted when maximum size is reached.
+ * <li>Optionally, contexts not used for a given time expire.
+ * </ul>
+ * An evicted or expired context is derived again from {@link OscoreStore} on next use. As this context uses same keys,
+ * its sender sequence number and replay window MUST NOT be reset (see
+ * https://datatracker.ietf.org/doc/html/rfc8613#section-7.2.1) : the sender sequence number and the highest received
+ * sequence number are kept for each evicted or expired context and applied to the context derived again (all sequence
+ * numbers up to the highest received one are then rejected). This state is dropped when the context is explicitly
+ * removed (e.g. security info removed). At most as many states as contexts are kept, oldest ones are dropped beyond
+ * that : use an {@link OscoreContextStatePersister} if more peers than the maximum number of contexts could be used
+ * alternately. Use {@link #addListener(OscoreContextListener)} to be notified about derived and removed contexts, e.g.
+ * {@link OscoreContextStatePersister} uses it to save and restore context states across restarts.
+ * <p>
+ * {@link #removeContext(byte[])} should be preferred to remove a context for a given recipient ID as, unlike
+ * {@link #getContext(byte[])}, it never derives a new context.
+ */
+public class ConcurrentOscoreContextDB implements OSCoreCtxDB {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ConcurrentOscoreContextDB.class);
+
+    public static final int DEFAULT_MAX_CONTEXTS = 100_000;
+
+    // sequence numbers which could be used by messages being protected with a context while it is removed.
+    private static final int IN_FLIGHT_SENDER_SEQUENCE_NUMBER_MARGIN = 100;
+
+    private final OscoreStore store;
+    private final int maxContexts;
+    private final long expirationInNanos;
+    private final LongSupplier nanoClock;
+
+    private final ConcurrentMap<ByteId, Entry> contexts = new ConcurrentHashMap<>();
+    private final ConcurrentMap<ByteId, CompletableFuture<OSCoreCtx>> pendingDerivations = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Token, OSCoreCtx> contextsByToken = new ConcurrentHashMap<>();
+    // tokens by recipient ID, so tokens of a removed context are found without scanning all tokens
+    private final ConcurrentMap<ByteId, Set<Token>> tokensByRecipientId = new ConcurrentHashMap<>();
+    // states of evicted or expired contexts, waiting for context to be derived again. Those are rarely accessed (only
+    // on eviction or derivation), so a synchronized LRU map is enough.
+    private final Map<ByteId, EvictedState> evictedStates;
+    // contexts explicitly added by URI are rare (client side only), so we rely on californium implementation which
+    // knows how to normalize URI. It is only created when needed.
+    private volatile HashMapCtxDB contextsByUri;
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final List<OscoreContextListener> listeners = new CopyOnWriteArrayList<>();
+
+    private static class Entry {
+        final OSCoreCtx context;
+        volatile long lastAccess;
+
+        Entry(OSCoreCtx context, long now) {
+            this.context = context;
+            this.lastAccess = now;
+        }
+    }
+
+    private static class EvictedState {
+        final int senderSequenceNumber;
+        // -1 if nothing was received
+        final int highestRecipientSequenceNumber;
+        // only a hash of keys is kept to check that context derived again uses same keys
+        final int keysHash;
+
+        EvictedState(OSCoreCtx context) {
+            OscoreContextState state = OscoreContextState.from(context)
+                    .withSenderSequenceNumberMargin(IN_FLIGHT_SENDER_SEQUENCE_NUMBER_MARGIN);
+            this.senderSequenceNumber = state.getSenderSequenceNumber();
+            this.highestRecipientSequenceNumber = state.getLowestRecipientSequenceNumber() + 31
+                    - Integer.numberOfLeadingZeros(state.getRecipientReplayWindow());
+            this.keysHash = keysHash(context);
+        }
+
+        boolean sameKeys(OSCoreCtx context) {
+            return keysHash == keysHash(context);
+        }
+
+        OscoreContextState toState(OSCoreCtx context) {
+            if (highestRecipientSequenceNumber < 0) {
+                return new OscoreContextState(context.getRecipientId(), senderSequenceNumber, 0, 0);
+            }
+            return new OscoreContextState(context.getRecipientId(), senderSequenceNumber,
+                    highestRecipientSequenceNumber, 1);
+        }
+
+        private static int keysHash(OSCoreCtx context) {
+            return 31 * Arrays.hashCode(context.getSenderKey()) + Arrays.hashCode(context.getRecipientKey());
+        }
+    }
+
+    private static class EvictionCandidate {
+        final ByteId key;
+        final Entry entry;
+        final long lastAccess;
+
+        EvictionCandidate(ByteId key, Entry entry) {
+            this.key = key;
+            this.entry = entry;
+            this.lastAccess = entry.lastAccess;
+        }
+    }
+
+    /**
+     * Create a DB which holds at most {@link #DEFAULT_MAX_CONTEXTS} contexts, without expiration.
+     */
+    public ConcurrentOscoreContextDB(OscoreStore oscoreStore) {
+        this(oscoreStore, DEFAULT_MAX_CONTEXTS, 0, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @param oscoreStore store used to derive missing contexts
+     * @param maxContexts maximum number of contexts kept in memory
+     * @param expiration time after which a context not used is removed, 0 means never.
+     * @param unit unit of expiration
+     */
+    public ConcurrentOscoreContextDB(OscoreStore oscoreStore, int maxContexts, long expiration, TimeUnit unit) {
+        this(oscoreStore, maxContexts, unit.toNanos(expiration), System::nanoTime);
+    }
+
+    ConcurrentOscoreContextDB(OscoreStore oscoreStore, int maxContexts, long expirationInNanos,
+            LongSupplier nanoClock) {
+        Validate.notNull(oscoreStore);
+        Validate.isTrue(maxContexts > 0, "maxContexts must be positive");
+        Validate.isTrue(expirationInNanos >= 0, "expiration must not be negative");
+        this.store = oscoreStore;
+        this.maxContexts = maxContexts;
+        this.expirationInNanos = expirationInNanos;
+        this.nanoClock = nanoClock;
+        this.evictedStates = Collections.synchronizedMap(new LinkedHashMap<ByteId, EvictedState>() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ByteId, EvictedState> eldest) {
+                if (size() > maxContexts) {
+                    LOG.debug("State of evicted context [{}] dropped as too many states are kept", eldest.getKey());
+                    return true;
+                }
+                return false;
+            }
+        });
+    }
+
+    @Override
+    public OSCoreCtx getContext(byte[] rid, byte[] IDContext) throws CoapOSException {
+        if (rid == null) {
+            throw new CoapOSException(ErrorDescriptions.CONTEXT_NOT_FOUND, ResponseCode.UNAUTHORIZED);
+        }
+        if (IDContext != null) {
+            OSCoreCtx osCoreCtx = getKnownContext(new ByteId(rid));
+            if (osCoreCtx == null || !Arrays.equals(IDContext, osCoreCtx.getIdContext())) {
+                throw new IllegalArgumentException("Internal Leshan operations should always use a null ID Context");
+            }
+            return osCoreCtx;
+        }
+        return getOrDeriveContext(rid);
+    }
+
+    @Override
+    public OSCoreCtx getContext(byte[] rid) {
+        if (rid == null) {
+            return null;
+        }
+        return getOrDeriveContext(rid);
+    }
+
+    @Override
+    public OSCoreCtx getContext(String uri) throws OSException {
+        HashMapCtxDB byUri = contextsByUri;
+        if (byUri != null) {
+            OSCoreCtx osCoreCtx = byUri.getContext(uri);
+            // ignore contexts which was removed since they was added
+            if (osCoreCtx != null && getKnownContext(new ByteId(osCoreCtx.getRecipientId())) == osCoreCtx) {
+                return osCoreCtx;
+            }
+        }
+
+        // try to derive new context from OSCORE parameter in OSCORE Store
+        byte[] rid = store.getRecipientId(uri);
+        if (rid != null) {
+            return getOrDeriveContext(rid);
+        }
+        return null;
+    }
+
+    @Override
+    public OSCoreCtx getContextByToken(Token token) {
+        if (token == null) {
+            LOG.error(ErrorDescriptions.TOKEN_NULL);
+            throw new NullPointerException(ErrorDescriptions.TOKEN_NULL);
+        }
+        return contextsByToken.get(token);
+    }
+
+    @Override
+    public void addContext(Token token, OSCoreCtx ctx) {
+        if (token != null) {
+            OSCoreCtx previous = contextsByToken.put(token, ctx);
+            if (previous != null && previous != ctx) {
+                unindexToken(new ByteId(previous.getRecipientId()), token);
+            }
+            tokensByRecipientId.compute(new ByteId(ctx.getRecipientId()), (rid, tokens) -> {
+                Set<Token> result = tokens == null ? new HashSet<>() : tokens;
+                result.add(token);
+                return result;
+            });
+        }
+        addContext(ctx);
+    }
+
+    @Override
+    public void addContext(String uri, OSCoreCtx ctx) throws OSException {
+        if (uri != null) {
+            HashMapCtxDB byUri = contextsByUri;
+            if (byUri == null) {
+                synchronized (this) {
+                    byUri = contextsByUri;
+                    if (byUri == null) {
+                        byUri = new HashMapCtxDB();
+                        contextsByUri = byUri;
+                    }
+                }
+            }
+            byUri.addContext(uri, ctx);
+        }
+        addContext(ctx);
+    }
+
+    @Override
+    public void addContext(OSCoreCtx ctx) {
+        if (ctx == null) {
+            LOG.error(ErrorDescriptions.CTX_NULL);
+            throw new NullPointerException(ErrorDescriptions.CTX_NULL);
+        }
+        ByteId key = new ByteId(ctx.getRecipientId());
+        Entry previous = contexts.get(key);
+        if (previous != null && previous.context == ctx) {
+            previous.lastAccess = nanoClock.getAsLong();
+            return;
+        }
+        Entry replaced = contexts.put(key, new Entry(ctx, nanoClock.getAsLong()));
+        if (replaced != null && replaced.context != ctx) {
+            // e.g. context re-derivation : replaced context keys could be derived again later.
+            keepState(key, replaced.context);
+        }
+        evictIfNeeded();
+    }
+
+    @Override
+    public void removeContext(OSCoreCtx ctx) {
+        if (ctx == null) {
+            LOG.error(ErrorDescriptions.CTX_NULL);
+            throw new NullPointerException(ErrorDescriptions.CTX_NULL);
+        }
+        ByteId key = new ByteId(ctx.getRecipientId());
+        Entry entry = contexts.get(key);
+        evictedStates.remove(key);
+        if (entry != null && entry.context == ctx && remove(key, entry, RemovalCause.REMOVED)) {
+            removeTokens(Collections.singleton(ctx));
+        }
+    }
+
+    /**
+     * Remove context for the given recipient ID without trying to derive it if it is not already known. A derivation in
+     * progress for this recipient ID will not be added to this DB.
+     *
+     * @return the removed context or <code>null</code> if there was no context for this recipient ID.
+     */
+    public OSCoreCtx removeContext(byte[] rid) {
+        Validate.notNull(rid);
+        ByteId key = new ByteId(rid);
+        pendingDerivations.remove(key);
+        evictedStates.remove(key);
+        Entry entry = contexts.get(key);
+        if (entry != null && remove(key, entry, RemovalCause.REMOVED)) {
+            removeTokens(Collections.singleton(entry.context));
+            return entry.context;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean tokenExist(Token token) {
+        if (token == null) {
+            LOG.error(ErrorDescriptions.TOKEN_NULL);
+            throw new NullPointerException(ErrorDescriptions.TOKEN_NULL);
+        }
+        return contextsByToken.containsKey(token);
+    }
+
+    @Override
+    public void removeToken(Token token) {
+        OSCoreCtx context = contextsByToken.remove(token);
+        if (context != null) {
+            unindexToken(new ByteId(context.getRecipientId()), token);
+        }
+    }
+
+    @Override
+    public void purge() {
+        pendingDerivations.clear();
+        for (Map.Entry<ByteId, Entry> entry : contexts.entrySet()) {
+            remove(entry.getKey(), entry.getValue(), RemovalCause.REMOVED);
+        }
+        contextsByToken.clear();
+        tokensByRecipientId.clear();
+        evictedStates.clear();
+        HashMapCtxDB byUri = contextsByUri;
+        if (byUri != null) {
+            byUri.purge();
+        }
+    }
+
+    /**
+     * Remove all contexts not used since more than expiration time. This is done lazily on access, but this can be
+     * called periodically to release memory of contexts which are not used anymore.
+     */
+    public void removeExpiredContexts() {
+        if (expirationInNanos == 0) {
+            return;
+        }
+        long now = nanoClock.getAsLong();
+        Set<OSCoreCtx> removed = newIdentitySet();
+        for (Map.Entry<ByteId, Entry> entry : contexts.entrySet()) {
+            if (isExpired(entry.getValue(), now) && remove(entry.getKey(), entry.getValue(), RemovalCause.EXPIRED)) {
+                removed.add(entry.getValue().context);
+            }
+        }
+        removeTokens(removed);
+    }
+
+    /**
+     * @return the number of contexts currently in memory.
+     */
+    public int size() {
+        return contexts.size();
+    }
+
+    /**
+     * @return a snapshot of contexts currently in memory.
+     */
+    public List<OSCoreCtx> getContexts() {
+        List<OSCoreCtx> result = new ArrayList<>(contexts.size());
+        for (Entry entry : contexts.values()) {
+            result.add(entry.context);
+        }
+        return result;
+    }
+
+    public void addListener(OscoreContextListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(OscoreContextListener listener) {
+        listeners.remove(listener);
+    }
+
+    private OSCoreCtx getKnownContext(ByteId key) {
+        Entry entry = contexts.get(key);
+        if (entry == null) {
+            return null;
+        }
+        long now = nanoClock.getAsLong();
+        if (isExpired(entry, now)) {
+            if (remove(key, entry, RemovalCause.EXPIRED)) {
+                removeTokens(Collections.singleton(entry.context));
+            }
+            return null;
+        }
+        entry.lastAccess = now;
+        return entry.context;
+    }
+
+    private OSCoreCtx getOrDeriveContext(byte[] rid) {
+        ByteId key = new ByteId(rid);
+        OSCoreCtx osCoreCtx = getKnownContext(key);
+        if (osCoreCtx != null) {
+            return osCoreCtx;
+        }
+
+        // only one thread derives context for a given recipient ID, others wait for its result
+        CompletableFuture<OSCoreCtx> derivation = new CompletableFuture<>();
+        CompletableFuture<OSCoreCtx> pendingDerivation = pendingDerivations.putIfAbsent(key, derivation);
+        if (pendingDerivation != null) {
+            return waitFor(pendingDerivation);
+        }
+        try {
+            // context could have been added since our first lookup
+            osCoreCtx = getKnownContext(key);
+            if (osCoreCtx == null) {
+                // try to derive new context from OSCORE parameter in OSCORE Store
+                OscoreParameters params = store.getOscoreParameters(rid);
+                if (params != null) {
+                    osCoreCtx = deriveContext(params);
+                    if (osCoreCtx != null) {
+                        restoreState(key, osCoreCtx);
+                        for (OscoreContextListener listener : listeners) {
+                            listener.contextDerived(osCoreCtx);
+                        }
+                        osCoreCtx = addDerivedContext(key, osCoreCtx, derivation);
+                    }
+                }
+            }
+            derivation.complete(osCoreCtx);
+            return osCoreCtx;
+        } catch (RuntimeException e) {
+            derivation.completeExceptionally(e);
+            throw e;
+        } finally {
+            pendingDerivations.remove(key, derivation);
+        }
+    }
+
+    private OSCoreCtx addDerivedContext(ByteId key, OSCoreCtx osCoreCtx, CompletableFuture<OSCoreCtx> derivation) {
+        ByteId contextKey = new ByteId(osCoreCtx.getRecipientId());
+        Entry entry = new Entry(osCoreCtx, nanoClock.getAsLong());
+        Entry previous = contexts.putIfAbsent(contextKey, entry);
+        if (previous != null) {
+            // an other context was added meanwhile (e.g. by context re-derivation), use it.
+            return previous.context;
+        }
+        // if context was removed during derivation, we must not keep it.
+        if (pendingDerivations.get(key) != derivation) {
+            contexts.remove(contextKey, entry);
+            return null;
+        }
+        evictIfNeeded();
+        return osCoreCtx;
+    }
+
+    private OSCoreCtx waitFor(CompletableFuture<OSCoreCtx> derivation) {
+        try {
+            return derivation.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return expirationInNanos > 0 && now - entry.lastAccess > expirationInNanos;
+    }
+
+    /**
+     * Remove the entry and notify listeners, but does not remove tokens associated to its context.
+     */
+    private boolean remove(ByteId key, Entry entry, RemovalCause cause) {
+        if (contexts.remove(key, entry)) {
+            if (cause != RemovalCause.REMOVED) {
+                keepState(key, entry.context);
+            }
+            for (OscoreContextListener listener : listeners) {
+                listener.contextRemoved(entry.context, cause);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * When maximum size is exceeded, remove expired contexts then least recently used ones. We remove 10% more than
+     * needed, so the cost of sorting contexts is amortized over several additions.
+     */
+    private void evictIfNeeded() {
+        if (contexts.size() <= maxContexts || !evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            removeExpiredContexts();
+
+            int toEvict = contexts.size() - (maxContexts - maxContexts / 10);
+            if (toEvict <= 0) {
+                return;
+            }
+            // snapshot last access time as it could be modified concurrently while sorting
+            List<EvictionCandidate> candidates = new ArrayList<>(contexts.size());
+            for (Map.Entry<ByteId, Entry> entry : contexts.entrySet()) {
+                candidates.add(new EvictionCandidate(entry.getKey(), entry.getValue()));
+            }
+            candidates.sort(Comparator.comparingLong(c -> c.lastAccess));
+            Set<OSCoreCtx> evicted = newIdentitySet();
+            for (int i = 0; i < candidates.size() && toEvict > 0; i++) {
+                EvictionCandidate candidate = candidates.get(i);
+                if (remove(candidate.key, candidate.entry, RemovalCause.EVICTED)) {
+                    evicted.add(candidate.entry.context);
+                    toEvict--;
+                }
+            }
+            removeTokens(evicted);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void keepState(ByteId key, OSCoreCtx context) {
+        evictedStates.put(key, new EvictedState(context));
+    }
+
+    private void restoreState(ByteId key, OSCoreCtx context) {
+        EvictedState evictedState = evictedStates.remove(key);
+        if (evictedState == null) {
+            return;
+        }
+        if (!evictedState.sameKeys(context)) {
+            // context is derived from new OSCORE parameters, previous state does not apply.
+            return;
+        }
+        OscoreContextState state = evictedState.toState(context);
+        try {
+            state.applyTo(context);
+        } catch (OSException | RuntimeException e) {
+            // we must not use a context which could reuse nonces.
+            throw new IllegalStateException(String.format("Unable to restore %s", state), e);
+        }
+    }
+
+    private void removeTokens(Set<OSCoreCtx> removedContexts) {
+        for (OSCoreCtx context : removedContexts) {
+            tokensByRecipientId.computeIfPresent(new ByteId(context.getRecipientId()), (rid, tokens) -> {
+                // tokens of an other context using same recipient ID are kept
+                tokens.removeIf(
+                        token -> contextsByToken.computeIfPresent(token, (t, c) -> c == context ? null : c) == null);
+                return tokens.isEmpty() ? null : tokens;
+            });
+        }
+    }
+
+    private void unindexToken(ByteId rid, Token token) {
+        tokensByRecipientId.computeIfPresent(rid, (k, tokens) -> {
+            tokens.remove(token);
+            return tokens.isEmpty() ? null : tokens;
+        });
+    }
+
+    private static Set<OSCoreCtx> newIdentitySet() {
+        return Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    private static OSCoreCtx deriveContext(OscoreParameters oscoreParameters) {
+        try {
+            OSCoreCtx osCoreCtx = new OSCoreCtx(oscoreParameters.getMasterSecret(), true,
+                    oscoreParameters.getAeadAlgorithm(), oscoreParameters.getSenderId(),
+                    oscoreParameters.getRecipientId(), oscoreParameters.getHmacAlgorithm(), 32,
+                    oscoreParameters.getMasterSalt(), null, 1000);
+            osCoreCtx.setContextRederivationEnabled(true);
+            return osCoreCtx;
+        } catch (OSException e) {
+            LOG.error("Unable to derive context from {}", oscoreParameters, e);
+            return null;
+        }
+    }
+}
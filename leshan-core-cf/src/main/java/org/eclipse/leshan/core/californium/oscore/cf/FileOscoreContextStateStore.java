@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.californium.oscore.cf;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.californium.oscore.ByteId;
+import org.eclipse.leshan.core.util.Validate;
+
+/**
+ * An {@link OscoreContextStateStore} which keeps all states in a binary file.
+ * <p>
+ * Each batch of modifications rewrites the whole file : a temporary file is written then moved atomically in place of
+ * the previous one, so a crash while writing never leaves a corrupted file. As a state is only 13 bytes plus recipient
+ * ID, this stays cheap for hundreds of thousands of contexts when batches are written periodically.
+ */
+public class FileOscoreContextStateStore implements OscoreContextStateStore {
+
+    private static final int VERSION = 1;
+
+    private final Path file;
+    private final Path tmpFile;
+    // recipient ID => state
+    private final Map<ByteId, OscoreContextState> states = new LinkedHashMap<>();
+    private boolean loaded;
+
+    /**
+     * @param file path of the file where states are stored, it is created if it does not exist.
+     */
+    public FileOscoreContextStateStore(Path file) {
+        Validate.notNull(file);
+        this.file = file;
+        this.tmpFile = file.resolveSibling(file.getFileName() + ".tmp");
+    }
+
+    @Override
+    public synchronized Collection<OscoreContextState> loadStates() {
+        ensureLoaded();
+        return new ArrayList<>(states.values());
+    }
+
+    @Override
+    public synchronized void saveStates(Collection<OscoreContextState> statesToSave) {
+        ensureLoaded();
+        if (statesToSave.isEmpty()) {
+            return;
+        }
+        for (OscoreContextState state : statesToSave) {
+            states.put(new ByteId(state.getRecipientId()), state);
+        }
+        write();
+    }
+
+    @Override
+    public synchronized void removeStates(Collection<byte[]> recipientIds) {
+        ensureLoaded();
+        boolean modified = false;
+        for (byte[] recipientId : recipientIds) {
+            modified |= states.remove(new ByteId(recipientId)) != null;
+        }
+        if (modified) {
+            write();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        states.clear();
+        if (Files.exists(file)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                int version = in.readUnsignedByte();
+                if (version != VERSION) {
+                    throw new IOException(String.format("Unsupported version %d", version));
+                }
+                int size = in.readInt();
+                for (int i = 0; i < size; i++) {
+                    byte[] recipientId = new byte[in.readUnsignedByte()];
+                    in.readFully(recipientId);
+                    OscoreContextState state = new OscoreContextState(recipientId, in.readInt(), in.readInt(),
+                            in.readInt());
+                    states.put(new ByteId(recipientId), state);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(String.format("Unable to read OSCORE context states from %s", file), e);
+            }
+        }
+        loaded = true;
+    }
+
+    private void write() {
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+                out.writeByte(VERSION);
+                out.writeInt(states.size());
+                for (OscoreContextState state : states.values()) {
+                    out.writeByte(state.getRecipientId().length);
+                    out.write(state.getRecipientId());
+                    out.writeInt(state.getSenderSequenceNumber());
+                    out.writeInt(state.getLowestRecipientSequenceNumber());
+                    out.writeInt(state.getRecipientReplayWindow());
+                }
+            }
+            try {
+                Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Unable to write OSCORE context states to %s", file), e);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.californium.oscore.cf;
+
+import org.eclipse.californium.oscore.OSCoreCtx;
+
+/**
+ * Listener notified when an {@link OSCoreCtx} is derived by or removed from a {@link ConcurrentOscoreContextDB}.
+ * <p>
+ * This can be used to release resources associated to a context or to save its state (e.g. sequence number) before it
+ * is forgotten. Listeners are called synchronously, so they should not block.
+ */
+public interface OscoreContextListener {
+
+    enum RemovalCause {
+        /** context was removed explicitly (e.g. by {@code removeContext} or {@code purge}) */
+        REMOVED,
+        /** context was not used for longer than the configured expiration time */
+        EXPIRED,
+        /** context was evicted because maximum number of contexts was reached */
+        EVICTED
+    }
+
+    /**
+     * Called when a context was derived from {@code OscoreStore}, before it is added to the DB and used. This can be
+     * used to restore a previously saved state (e.g. sequence number) in this new context.
+     *
+     * @param context the derived context
+     */
+    default void contextDerived(OSCoreCtx context) {
+    }
+
+    /**
+     * Called when a context is removed from the DB.
+     *
+     * @param context the removed context
+     * @param cause the reason why this context was removed
+     */
+    void contextRemoved(OSCoreCtx context, RemovalCause cause);
+}
@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.californium.oscore.cf;
+
+import java.util.Arrays;
+
+import org.eclipse.californium.oscore.OSCoreCtx;
+import org.eclipse.californium.oscore.OSException;
+import org.eclipse.leshan.core.util.Hex;
+import org.eclipse.leshan.core.util.Validate;
+
+/**
+ * Mutable state of an {@link OSCoreCtx} which is not derived from {@link OscoreParameters} : sender sequence number and
+ * recipient replay window.
+ * <p>
+ * See : https://datatracker.ietf.org/doc/html/rfc8613#section-7.4 and
+ * https://datatracker.ietf.org/doc/html/rfc8613#appendix-B.1
+ */
+public class OscoreContextState {
+
+    private final byte[] recipientId;
+    private final int senderSequenceNumber;
+    private final int lowestRecipientSequenceNumber;
+    private final int recipientReplayWindow;
+
+    /**
+     * @param recipientId recipient ID of the context
+     * @param senderSequenceNumber next sequence number to use to send a message
+     * @param lowestRecipientSequenceNumber lowest sequence number of the recipient replay window
+     * @param recipientReplayWindow bit field of already received sequence numbers, bit <code>i</code> stands for
+     *        <code>lowestRecipientSequenceNumber + i</code>
+     */
+    public OscoreContextState(byte[] recipientId, int senderSequenceNumber, int lowestRecipientSequenceNumber,
+            int recipientReplayWindow) {
+        Validate.notNull(recipientId);
+        Validate.isTrue(senderSequenceNumber >= 0, "senderSequenceNumber must not be negative");
+        Validate.isTrue(lowestRecipientSequenceNumber >= 0, "lowestRecipientSequenceNumber must not be negative");
+        this.recipientId = recipientId;
+        this.senderSequenceNumber = senderSequenceNumber;
+        this.lowestRecipientSequenceNumber = lowestRecipientSequenceNumber;
+        this.recipientReplayWindow = recipientReplayWindow;
+    }
+
+    /**
+     * @return current state of the given context.
+     */
+    public static OscoreContextState from(OSCoreCtx context) {
+        return new OscoreContextState(context.getRecipientId(), context.getSenderSeq(), context.getLowestRecipientSeq(),
+                context.getRecipientReplayWindow());
+    }
+
+    public byte[] getRecipientId() {
+        return recipientId;
+    }
+
+    public int getSenderSequenceNumber() {
+        return senderSequenceNumber;
+    }
+
+    public int getLowestRecipientSequenceNumber() {
+        return lowestRecipientSequenceNumber;
+    }
+
+    public int getRecipientReplayWindow() {
+        return recipientReplayWindow;
+    }
+
+    /**
+     * Create a state where sender sequence number is increased by the given margin. This should be used when a state is
+     * restored, as sequence numbers used since the state was saved are not known and a sequence number MUST NOT be
+     * reused.
+     *
+     * @param margin number of sequence numbers which could have been used since state was saved.
+     * @return the new state
+     */
+    public OscoreContextState withSenderSequenceNumberMargin(int margin) {
+        Validate.isTrue(margin >= 0, "margin must not be negative");
+        long senderSeq = Math.min((long) senderSequenceNumber + margin, Integer.MAX_VALUE);
+        return new OscoreContextState(recipientId, (int) senderSeq, lowestRecipientSequenceNumber,
+                recipientReplayWindow);
+    }
+
+    /**
+     * Restore this state in a context derived from same {@link OscoreParameters}.
+     * <p>
+     * Sender sequence number is never decreased, so this can be applied to a context which was already used or to which
+     * an other state was already applied. Replay window can not be set directly, so it is rebuilt by marking as
+     * received all sequence numbers which would be rejected by the saved window, sequence numbers already rejected by
+     * the context are ignored.
+     *
+     * @param context a context derived from same {@link OscoreParameters}.
+     * @throws OSException if sequence numbers are not valid for this context.
+     */
+    public void applyTo(OSCoreCtx context) throws OSException {
+        Validate.isTrue(Arrays.equals(recipientId, context.getRecipientId()), "recipient ID does not match");
+
+        synchronized (context) {
+            if (context.getSenderSeq() < senderSequenceNumber) {
+                context.setSenderSeq(senderSequenceNumber);
+            }
+        }
+
+        // highest received sequence number is the highest bit of the window
+        int highest = lowestRecipientSequenceNumber + 31 - Integer.numberOfLeadingZeros(recipientReplayWindow);
+        if (highest < 0) {
+            // nothing was received yet
+            return;
+        }
+        // sequence numbers lower than window are rejected as too old
+        int lowest = Math.max(0, highest - context.getRecipientReplaySize() + 1);
+        for (int seq = lowest; seq < lowestRecipientSequenceNumber; seq++) {
+            markAsReceived(context, seq);
+        }
+        for (int i = 0; i < 32; i++) {
+            if ((recipientReplayWindow >>> i & 1) == 1) {
+                markAsReceived(context, lowestRecipientSequenceNumber + i);
+            }
+        }
+    }
+
+    private static void markAsReceived(OSCoreCtx context, int seq) {
+        try {
+            context.checkIncomingSeq(seq);
+        } catch (OSException e) {
+            // already received or too old for this context : it is already rejected.
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "OscoreContextState [recipientId=%s, senderSequenceNumber=%s, lowestRecipientSequenceNumber=%s, recipientReplayWindow=%s]",
+                Hex.encodeHexString(recipientId), senderSequenceNumber, lowestRecipientSequenceNumber,
+                Integer.toBinaryString(recipientReplayWindow));
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + lowestRecipientSequenceNumber;
+        result = prime * result + Arrays.hashCode(recipientId);
+        result = prime * result + recipientReplayWindow;
+        result = prime * result + senderSequenceNumber;
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        OscoreContextState other = (OscoreContextState) obj;
+        if (lowestRecipientSequenceNumber != other.lowestRecipientSequenceNumber)
+            return false;
+        if (!Arrays.equals(recipientId, other.recipientId))
+            return false;
+        if (recipientReplayWindow != other.recipientReplayWindow)
+            return false;
+        if (senderSequenceNumber != other.senderSequenceNumber)
+            return false;
+        return true;
+    }
+}
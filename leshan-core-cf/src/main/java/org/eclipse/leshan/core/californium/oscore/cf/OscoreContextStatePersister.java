@@ -0,0 +1,257 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.californium.oscore.cf;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.oscore.ByteId;
+import org.eclipse.californium.oscore.OSCoreCtx;
+import org.eclipse.californium.oscore.OSException;
+import org.eclipse.leshan.core.Destroyable;
+import org.eclipse.leshan.core.Startable;
+import org.eclipse.leshan.core.Stoppable;
+import org.eclipse.leshan.core.util.NamedThreadFactory;
+import org.eclipse.leshan.core.util.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Saves state (sender sequence number and replay window) of contexts of a {@link ConcurrentOscoreContextDB} in an
+ * {@link OscoreContextStateStore}, and restores it when contexts are derived again, e.g. after a restart. So foreign
+ * peers can go on using their context instead of doing a context re-derivation.
+ * <p>
+ * States are loaded in one batch on {@link #start()}, then modified states are saved in one batch periodically and on
+ * {@link #stop()}. As sender sequence numbers used since the last save are unknown after a crash, restored sender
+ * sequence numbers are increased by a margin which MUST be greater than the number of messages sent to a peer between 2
+ * saves (see https://datatracker.ietf.org/doc/html/rfc8613#appendix-B.1.1). Increased values are saved before any
+ * context is restored, so a sequence number is never reused even after consecutive crashes.
+ * <p>
+ * Messages received between the last save and a crash could be replayed after restart. This does not happen on a
+ * graceful shutdown, as all states are saved on {@link #stop()}.
+ * <p>
+ * Only contexts derived from {@link OscoreStore} (without ID Context) are persisted : contexts created by context
+ * re-derivation use different keys, so peers using them will re-derive context again after a restart.
+ */
+public class OscoreContextStatePersister implements OscoreContextListener, Startable, Stoppable, Destroyable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OscoreContextStatePersister.class);
+
+    public static final long DEFAULT_SAVE_PERIOD_IN_SECONDS = 10;
+    public static final int DEFAULT_SENDER_SEQUENCE_NUMBER_MARGIN = 1000;
+
+    private final ConcurrentOscoreContextDB contextDB;
+    private final OscoreContextStateStore store;
+    private final long savePeriodInMillis;
+    private final int senderSequenceNumberMargin;
+
+    // states of contexts which are not in memory, waiting for context to be derived again
+    private final ConcurrentMap<ByteId, OscoreContextState> restoredStates = new ConcurrentHashMap<>();
+    // last states written in store
+    private final ConcurrentMap<ByteId, OscoreContextState> savedStates = new ConcurrentHashMap<>();
+    // recipient IDs of states to remove from store
+    private final ConcurrentMap<ByteId, byte[]> removedStates = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService executor;
+    private ScheduledFuture<?> saveTask;
+    private boolean loaded;
+
+    /**
+     * Create a persister which saves states every {@link #DEFAULT_SAVE_PERIOD_IN_SECONDS} seconds and uses a sender
+     * sequence number margin of {@link #DEFAULT_SENDER_SEQUENCE_NUMBER_MARGIN}.
+     */
+    public OscoreContextStatePersister(ConcurrentOscoreContextDB contextDB, OscoreContextStateStore store) {
+        this(contextDB, store, DEFAULT_SAVE_PERIOD_IN_SECONDS, TimeUnit.SECONDS, DEFAULT_SENDER_SEQUENCE_NUMBER_MARGIN);
+    }
+
+    /**
+     * @param contextDB the DB containing contexts to persist
+     * @param store the store where states are persisted
+     * @param savePeriod time between 2 saves of modified states
+     * @param unit unit of savePeriod
+     * @param senderSequenceNumberMargin value added to saved sender sequence numbers when they are restored
+     */
+    public OscoreContextStatePersister(ConcurrentOscoreContextDB contextDB, OscoreContextStateStore store,
+            long savePeriod, TimeUnit unit, int senderSequenceNumberMargin) {
+        Validate.notNull(contextDB);
+        Validate.notNull(store);
+        Validate.isTrue(savePeriod > 0, "savePeriod must be positive");
+        Validate.isTrue(senderSequenceNumberMargin > 0, "senderSequenceNumberMargin must be positive");
+        this.contextDB = contextDB;
+        this.store = store;
+        this.savePeriodInMillis = unit.toMillis(savePeriod);
+        this.senderSequenceNumberMargin = senderSequenceNumberMargin;
+        this.executor = Executors
+                .newSingleThreadScheduledExecutor(new NamedThreadFactory("OSCORE Context State Persister"));
+        contextDB.addListener(this);
+    }
+
+    /**
+     * Load all states from store (only on first call), then start to save modified states periodically.
+     */
+    @Override
+    public synchronized void start() {
+        if (!loaded) {
+            load();
+            loaded = true;
+        }
+        if (saveTask == null) {
+            saveTask = executor.scheduleWithFixedDelay(this::saveSafely, savePeriodInMillis, savePeriodInMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stop periodic save, then save all modified states.
+     */
+    @Override
+    public synchronized void stop() {
+        if (saveTask != null) {
+            saveTask.cancel(false);
+            saveTask = null;
+        }
+        save();
+    }
+
+    @Override
+    public void destroy() {
+        stop();
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        contextDB.removeListener(this);
+    }
+
+    private void load() {
+        Collection<OscoreContextState> states = store.loadStates();
+        if (states.isEmpty()) {
+            return;
+        }
+
+        // reserve sequence numbers which could have been used since last save, before using them.
+        List<OscoreContextState> reservedStates = new ArrayList<>(states.size());
+        for (OscoreContextState state : states) {
+            reservedStates.add(state.withSenderSequenceNumberMargin(senderSequenceNumberMargin));
+        }
+        store.saveStates(reservedStates);
+
+        for (OscoreContextState state : reservedStates) {
+            ByteId key = new ByteId(state.getRecipientId());
+            savedStates.put(key, state);
+            restoredStates.put(key, state);
+        }
+        LOG.debug("{} OSCORE context states loaded", reservedStates.size());
+    }
+
+    /**
+     * Save all states modified since last save and remove states of removed contexts.
+     */
+    public synchronized void save() {
+        // contexts in memory
+        List<OscoreContextState> modifiedStates = new ArrayList<>();
+        for (OSCoreCtx context : contextDB.getContexts()) {
+            if (isPersisted(context)) {
+                ByteId key = new ByteId(context.getRecipientId());
+                restoredStates.remove(key);
+                addIfModified(modifiedStates, key, OscoreContextState.from(context));
+            }
+        }
+        // contexts evicted from memory
+        for (Map.Entry<ByteId, OscoreContextState> entry : restoredStates.entrySet()) {
+            addIfModified(modifiedStates, entry.getKey(), entry.getValue());
+        }
+
+        if (!modifiedStates.isEmpty()) {
+            store.saveStates(modifiedStates);
+            for (OscoreContextState state : modifiedStates) {
+                savedStates.put(new ByteId(state.getRecipientId()), state);
+            }
+        }
+
+        // removed after save, in case a context was removed while we were saving it
+        List<byte[]> removedRecipientIds = new ArrayList<>(removedStates.values());
+        if (!removedRecipientIds.isEmpty()) {
+            store.removeStates(removedRecipientIds);
+            for (byte[] recipientId : removedRecipientIds) {
+                removedStates.remove(new ByteId(recipientId));
+            }
+        }
+        LOG.trace("{} OSCORE context states saved, {} removed", modifiedStates.size(), removedRecipientIds.size());
+    }
+
+    private void saveSafely() {
+        try {
+            save();
+        } catch (RuntimeException e) {
+            // states are still considered as modified, so they will be saved next time.
+            LOG.warn("Unable to save OSCORE context states", e);
+        }
+    }
+
+    private void addIfModified(List<OscoreContextState> modifiedStates, ByteId key, OscoreContextState state) {
+        if (!state.equals(savedStates.get(key))) {
+            modifiedStates.add(state);
+        }
+    }
+
+    private boolean isPersisted(OSCoreCtx context) {
+        return context.getIdContext() == null;
+    }
+
+    @Override
+    public void contextDerived(OSCoreCtx context) {
+        if (!isPersisted(context)) {
+            return;
+        }
+        OscoreContextState state = restoredStates.get(new ByteId(context.getRecipientId()));
+        if (state != null) {
+            try {
+                state.applyTo(context);
+            } catch (OSException | RuntimeException e) {
+                LOG.warn("Unable to restore {}", state, e);
+            }
+        }
+    }
+
+    @Override
+    public void contextRemoved(OSCoreCtx context, RemovalCause cause) {
+        if (!isPersisted(context)) {
+            return;
+        }
+        ByteId key = new ByteId(context.getRecipientId());
+        if (cause == RemovalCause.REMOVED) {
+            // context is explicitly removed (e.g. security info removed), so its state must not be reused.
+            restoredStates.remove(key);
+            savedStates.remove(key);
+            removedStates.put(key, context.getRecipientId());
+        } else {
+            // context is only removed from memory, keep its state for next derivation.
+            restoredStates.put(key, OscoreContextState.from(context));
+            removedStates.remove(key);
+        }
+    }
+}
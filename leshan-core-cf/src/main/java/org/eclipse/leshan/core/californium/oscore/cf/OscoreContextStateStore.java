@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.californium.oscore.cf;
+
+import java.util.Collection;
+
+/**
+ * A store where {@link OscoreContextState} are persisted, so OSCORE contexts can be resumed after a restart without
+ * context re-derivation.
+ * <p>
+ * Store is accessed by batch, generally periodically, by {@link OscoreContextStatePersister}.
+ *
+ * @see FileOscoreContextStateStore
+ */
+public interface OscoreContextStateStore {
+
+    /**
+     * @return all states currently saved.
+     */
+    Collection<OscoreContextState> loadStates();
+
+    /**
+     * Add or replace states, states are identified by recipient ID.
+     *
+     * @param states the states to save
+     */
+    void saveStates(Collection<OscoreContextState> states);
+
+    /**
+     * Remove states for given recipient IDs.
+     *
+     * @param recipientIds recipient IDs of states to remove
+     */
+    void removeStates(Collection<byte[]> recipientIds);
+}
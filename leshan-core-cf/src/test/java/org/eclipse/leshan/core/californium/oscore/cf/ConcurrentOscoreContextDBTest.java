@@ -0,0 +1,281 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.californium.oscore.cf;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.californium.core.coap.Token;
+import org.eclipse.californium.cose.AlgorithmID;
+import org.eclipse.californium.oscore.OSCoreCtx;
+import org.eclipse.californium.oscore.OSException;
+import org.eclipse.leshan.core.californium.oscore.cf.OscoreContextListener.RemovalCause;
+import org.junit.jupiter.api.Test;
+
+public class ConcurrentOscoreContextDBTest {
+
+    private static class TestOscoreStore implements OscoreStore {
+        final AtomicInteger calls = new AtomicInteger();
+        volatile CountDownLatch release;
+
+        @Override
+        public OscoreParameters getOscoreParameters(byte[] recipientID) {
+            calls.incrementAndGet();
+            if (release != null) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (recipientID[0] < 0) {
+                return null;
+            }
+            return new OscoreParameters(new byte[] { 0x7F }, recipientID, new byte[16], AlgorithmID.AES_CCM_16_64_128,
+                    AlgorithmID.HKDF_HMAC_SHA_256, null);
+        }
+
+        @Override
+        public byte[] getRecipientId(String foreignPeerURI) {
+            return null;
+        }
+    }
+
+    private static class RemovedContexts implements OscoreContextListener {
+        final List<OSCoreCtx> contexts = new ArrayList<>();
+        final List<RemovalCause> causes = new ArrayList<>();
+
+        @Override
+        public void contextRemoved(OSCoreCtx context, RemovalCause cause) {
+            contexts.add(context);
+            causes.add(cause);
+        }
+    }
+
+    private final TestOscoreStore store = new TestOscoreStore();
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    public void context_is_derived_once() {
+        ConcurrentOscoreContextDB db = new ConcurrentOscoreContextDB(store);
+
+        OSCoreCtx context = db.getContext(rid(1));
+        assertNotNull(context);
+        assertSame(context, db.getContext(rid(1)));
+        assertEquals(1, store.calls.get());
+
+        // unknown recipient id are not cached
+        assertNull(db.getContext(rid(-1)));
+        assertNull(db.getContext(rid(-1)));
+        assertEquals(3, store.calls.get());
+        assertEquals(1, db.size());
+    }
+
+    @Test
+    public void concurrent_misses_derive_context_once() throws Exception {
+        ConcurrentOscoreContextDB db = new ConcurrentOscoreContextDB(store);
+        store.release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<OSCoreCtx>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> db.getContext(rid(1))));
+            }
+            // let all threads reach the DB before releasing the store
+            Thread.sleep(200);
+            store.release.countDown();
+
+            OSCoreCtx context = results.get(0).get(5, TimeUnit.SECONDS);
+            assertNotNull(context);
+            for (Future<OSCoreCtx> result : results) {
+                assertSame(context, result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, store.calls.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void least_recently_used_contexts_are_evicted() {
+        ConcurrentOscoreContextDB db = new ConcurrentOscoreContextDB(store, 10, 0, clock::get);
+        RemovedContexts removed = new RemovedContexts();
+        db.addListener(removed);
+
+        for (int i = 0; i < 10; i++) {
+            clock.incrementAndGet();
+            db.getContext(rid(i));
+        }
+        // use first contexts, so 2 and 3 are now the least recently used
+        clock.incrementAndGet();
+        OSCoreCtx first = db.getContext(rid(0));
+        OSCoreCtx second = db.getContext(rid(1));
+
+        // exceeding max size evicts 10% more than needed
+        clock.incrementAndGet();
+        db.getContext(rid(10));
+        assertEquals(9, db.size());
+        assertEquals(2, removed.contexts.size());
+        assertEquals(rid(2)[0], removed.contexts.get(0).getRecipientId()[0]);
+        assertEquals(rid(3)[0], removed.contexts.get(1).getRecipientId()[0]);
+        assertEquals(RemovalCause.EVICTED, removed.causes.get(0));
+
+        assertSame(first, db.getContext(rid(0)));
+        assertSame(second, db.getContext(rid(1)));
+    }
+
+    @Test
+    public void unused_contexts_expire() {
+        ConcurrentOscoreContextDB db = new ConcurrentOscoreContextDB(store, 10, 100, clock::get);
+        RemovedContexts removed = new RemovedContexts();
+        db.addListener(removed);
+
+        OSCoreCtx context = db.getContext(rid(1));
+        db.getContext(rid(2));
+        clock.addAndGet(60);
+        assertSame(context, db.getContext(rid(1)));
+
+        // context 1 was used recently, context 2 expires
+        clock.addAndGet(60);
+        db.removeExpiredContexts();
+        assertEquals(1, db.size());
+        assertEquals(RemovalCause.EXPIRED, removed.causes.get(0));
+
+        // context 1 expires on access and is derived again
+        clock.addAndGet(101);
+        OSCoreCtx newContext = db.getContext(rid(1));
+        assertNotSame(context, newContext);
+        assertSame(context, removed.contexts.get(1));
+        assertEquals(RemovalCause.EXPIRED, removed.causes.get(1));
+    }
+
+    @Test
+    public void remove_context_by_recipient_id_does_not_derive() {
+        ConcurrentOscoreContextDB db = new ConcurrentOscoreContextDB(store);
+        RemovedContexts removed = new RemovedContexts();
+        db.addListener(removed);
+
+        assertNull(db.removeContext(rid(1)));
+        assertEquals(0, store.calls.get());
+
+        OSCoreCtx context = db.getContext(rid(1));
+        assertSame(context, db.removeContext(rid(1)));
+        assertEquals(0, db.size());
+        assertEquals(RemovalCause.REMOVED, removed.causes.get(0));
+    }
+
+    @Test
+    public void evicted_context_keeps_sequence_numbers_and_replay_window() throws OSException {
+        ConcurrentOscoreContextDB db = new ConcurrentOscoreContextDB(store, 1, 0, clock::get);
+        Token token = Token.fromProvider(new byte[] { 1 });
+
+        clock.incrementAndGet();
+        OSCoreCtx context = db.getContext(rid(1));
+        db.addContext(token, context);
+        for (int i = 0; i < 5; i++) {
+            context.increaseSenderSeq();
+        }
+        context.checkIncomingSeq(3);
+
+        // evict context 1
+        clock.incrementAndGet();
+        db.getContext(rid(2));
+        assertEquals(1, db.size());
+        assertNull(db.getContextByToken(token));
+
+        // context derived again must not reuse nonces nor accept replayed messages
+        OSCoreCtx newContext = db.getContext(rid(1));
+        assertNotSame(context, newContext);
+        assertTrue(newContext.getSenderSeq() >= 5);
+        assertThrows(OSException.class, () -> newContext.checkIncomingSeq(3));
+        newContext.checkIncomingSeq(4);
+    }
+
+    @Test
+    public void evicted_context_tokens_are_removed_without_other_tokens() {
+        ConcurrentOscoreContextDB db = new ConcurrentOscoreContextDB(store, 2, 0, clock::get);
+        Token token1 = Token.fromProvider(new byte[] { 1 });
+        Token token2 = Token.fromProvider(new byte[] { 2 });
+        Token token3 = Token.fromProvider(new byte[] { 3 });
+
+        clock.incrementAndGet();
+        OSCoreCtx context1 = db.getContext(rid(1));
+        db.addContext(token1, context1);
+        clock.incrementAndGet();
+        OSCoreCtx context2 = db.getContext(rid(2));
+        db.addContext(token2, context2);
+        db.addContext(token3, context2);
+        db.removeToken(token3);
+
+        // evict context 1
+        clock.incrementAndGet();
+        db.getContext(rid(3));
+        assertFalse(db.tokenExist(token1));
+        assertSame(context2, db.getContextByToken(token2));
+        assertFalse(db.tokenExist(token3));
+    }
+
+    @Test
+    public void number_of_evicted_context_states_is_bounded() throws OSException {
+        ConcurrentOscoreContextDB db = new ConcurrentOscoreContextDB(store, 1, 0, clock::get);
+
+        clock.incrementAndGet();
+        db.getContext(rid(1)).increaseSenderSeq();
+        clock.incrementAndGet();
+        db.getContext(rid(2)).increaseSenderSeq();
+        // evict context 2, state of context 1 is dropped as only 1 state is kept
+        clock.incrementAndGet();
+        db.getContext(rid(3));
+
+        assertTrue(db.getContext(rid(2)).getSenderSeq() > 0);
+        assertEquals(0, db.getContext(rid(1)).getSenderSeq());
+    }
+
+    @Test
+    public void removed_context_state_is_not_reused() throws OSException {
+        ConcurrentOscoreContextDB db = new ConcurrentOscoreContextDB(store);
+
+        OSCoreCtx context = db.getContext(rid(1));
+        context.increaseSenderSeq();
+        context.checkIncomingSeq(3);
+        db.removeContext(rid(1));
+
+        OSCoreCtx newContext = db.getContext(rid(1));
+        assertEquals(0, newContext.getSenderSeq());
+        newContext.checkIncomingSeq(3);
+    }
+
+    private static byte[] rid(int id) {
+        return new byte[] { (byte) id };
+    }
+}
@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.californium.oscore.cf;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.cose.AlgorithmID;
+import org.eclipse.californium.oscore.OSCoreCtx;
+import org.eclipse.californium.oscore.OSException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class OscoreContextStatePersisterTest {
+
+    private static final int MARGIN = 100;
+
+    private static class TestOscoreStore implements OscoreStore {
+        @Override
+        public OscoreParameters getOscoreParameters(byte[] recipientID) {
+            return new OscoreParameters(new byte[] { 0x7F }, recipientID, new byte[16], AlgorithmID.AES_CCM_16_64_128,
+                    AlgorithmID.HKDF_HMAC_SHA_256, null);
+        }
+
+        @Override
+        public byte[] getRecipientId(String foreignPeerURI) {
+            return null;
+        }
+    }
+
+    @TempDir
+    Path tempDir;
+
+    private ConcurrentOscoreContextDB db;
+    private OscoreContextStatePersister persister;
+
+    private void given_a_started_server(int maxContexts) {
+        db = new ConcurrentOscoreContextDB(new TestOscoreStore(), maxContexts, 0, TimeUnit.SECONDS);
+        persister = new OscoreContextStatePersister(db,
+                new FileOscoreContextStateStore(tempDir.resolve("oscore-states.data")), 1, TimeUnit.HOURS, MARGIN);
+        persister.start();
+    }
+
+    private void given_a_started_server() {
+        given_a_started_server(ConcurrentOscoreContextDB.DEFAULT_MAX_CONTEXTS);
+    }
+
+    @Test
+    public void context_state_is_restored_after_restart() throws OSException {
+        given_a_started_server();
+        OSCoreCtx context = db.getContext(rid(1));
+        for (int i = 0; i < 5; i++) {
+            context.increaseSenderSeq();
+        }
+        context.checkIncomingSeq(3);
+        context.checkIncomingSeq(4);
+        context.checkIncomingSeq(7);
+        persister.destroy();
+
+        given_a_started_server();
+        OSCoreCtx restoredContext = db.getContext(rid(1));
+        assertNotSame(context, restoredContext);
+        assertEquals(5 + MARGIN, restoredContext.getSenderSeq());
+        // already received sequence numbers are rejected
+        assertThrows(OSException.class, () -> restoredContext.checkIncomingSeq(4));
+        assertThrows(OSException.class, () -> restoredContext.checkIncomingSeq(7));
+        // others are accepted
+        restoredContext.checkIncomingSeq(5);
+        restoredContext.checkIncomingSeq(8);
+        persister.destroy();
+    }
+
+    @Test
+    public void sender_sequence_numbers_are_never_reused_after_crashes() throws OSException {
+        given_a_started_server();
+        OSCoreCtx context = db.getContext(rid(1));
+        context.increaseSenderSeq();
+        persister.save();
+        // messages sent after last save, then crash
+        context.increaseSenderSeq();
+        context.increaseSenderSeq();
+
+        given_a_started_server();
+        OSCoreCtx restoredContext = db.getContext(rid(1));
+        assertEquals(1 + MARGIN, restoredContext.getSenderSeq());
+        // crash again before any save
+        restoredContext.increaseSenderSeq();
+
+        given_a_started_server();
+        assertEquals(1 + 2 * MARGIN, db.getContext(rid(1)).getSenderSeq());
+        persister.destroy();
+    }
+
+    @Test
+    public void removed_context_state_is_not_restored() throws OSException {
+        given_a_started_server();
+        OSCoreCtx context = db.getContext(rid(1));
+        context.increaseSenderSeq();
+        persister.save();
+        db.removeContext(rid(1));
+        persister.destroy();
+
+        given_a_started_server();
+        assertEquals(0, db.getContext(rid(1)).getSenderSeq());
+        persister.destroy();
+    }
+
+    @Test
+    public void evicted_context_state_is_restored() throws OSException {
+        given_a_started_server(1);
+        OSCoreCtx context = db.getContext(rid(1));
+        context.increaseSenderSeq();
+        context.increaseSenderSeq();
+
+        // evict context of rid 1
+        db.getContext(rid(2));
+        assertEquals(1, db.size());
+
+        OSCoreCtx restoredContext = db.getContext(rid(1));
+        assertNotSame(context, restoredContext);
+        // sequence numbers are never reused, even by messages being sent while context was evicted
+        assertTrue(restoredContext.getSenderSeq() >= 2);
+        persister.destroy();
+    }
+
+    private static byte[] rid(int id) {
+        return new byte[] { (byte) id };
+    }
+}
@@ -0,0 +1,419 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.cbor;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import org.eclipse.leshan.core.util.datatype.ULong;
+
+/**
+ * A CBOR writer which writes data items directly into a growable byte array, without creating any intermediate object
+ * tree.
+ * <p>
+ * Encoding is the same as the one produced by <a href="https://github.com/peteroupc/CBOR-Java">"upokecenter"
+ * CBOR-Java</a> <code>CBORObject.EncodeToBytes()</code> : integers and lengths use the shortest form, floating-point
+ * values use the shortest form which preserves the value (except zero which is always encoded in single precision) and
+ * {@link BigDecimal} are encoded as decimal fractions.
+ * <p>
+ * Arrays and maps have definite length so their size must be known before writing their content.
+ *
+ * @see <a href="https://datatracker.ietf.org/doc/html/rfc8949">rfc8949 - Concise Binary Object Representation</a>
+ */
+public class CborWriter {
+
+    private static final int MAJOR_TYPE_UNSIGNED_INTEGER = 0;
+    private static final int MAJOR_TYPE_NEGATIVE_INTEGER = 1;
+    private static final int MAJOR_TYPE_BYTE_STRING = 2;
+    private static final int MAJOR_TYPE_TEXT_STRING = 3;
+    private static final int MAJOR_TYPE_ARRAY = 4;
+    private static final int MAJOR_TYPE_MAP = 5;
+    private static final int MAJOR_TYPE_TAG = 6;
+
+    private static final int FALSE = 0xf4;
+    private static final int TRUE = 0xf5;
+    private static final int NULL = 0xf6;
+    private static final int HALF_PRECISION = 0xf9;
+    private static final int SINGLE_PRECISION = 0xfa;
+    private static final int DOUBLE_PRECISION = 0xfb;
+
+    private static final int TAG_POSITIVE_BIGNUM = 2;
+    private static final int TAG_NEGATIVE_BIGNUM = 3;
+    private static final int TAG_DECIMAL_FRACTION = 4;
+
+    private static final BigInteger MAX_UINT64 = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+    private static final BigInteger MIN_NINT64 = MAX_UINT64.negate().subtract(BigInteger.ONE);
+
+    private byte[] buffer;
+    private int size = 0;
+
+    public CborWriter() {
+        this(64);
+    }
+
+    /**
+     * @param initialCapacity the initial size of the buffer, it grows as needed.
+     */
+    public CborWriter(int initialCapacity) {
+        this.buffer = new byte[initialCapacity];
+    }
+
+    // ------- Integers -------
+
+    public CborWriter writeInteger(long value) {
+        if (value >= 0) {
+            writeTypeAndArgument(MAJOR_TYPE_UNSIGNED_INTEGER, value);
+        } else {
+            writeTypeAndArgument(MAJOR_TYPE_NEGATIVE_INTEGER, -1 - value);
+        }
+        return this;
+    }
+
+    /**
+     * Write an unsigned 64 bits integer.
+     */
+    public CborWriter writeUnsignedInteger(ULong value) {
+        writeTypeAndArgument(MAJOR_TYPE_UNSIGNED_INTEGER, value.longValue());
+        return this;
+    }
+
+    /**
+     * Write an integer as an integer data item if it fits in 64 bits (with sign), else as a bignum.
+     */
+    public CborWriter writeInteger(BigInteger value) {
+        if (value.bitLength() < 64) {
+            return writeInteger(value.longValue());
+        }
+        if (value.signum() > 0) {
+            if (value.compareTo(MAX_UINT64) <= 0) {
+                writeTypeAndArgument(MAJOR_TYPE_UNSIGNED_INTEGER, value.longValue());
+            } else {
+                writeTag(TAG_POSITIVE_BIGNUM);
+                writeBytes(unsignedMagnitude(value));
+            }
+        } else {
+            if (value.compareTo(MIN_NINT64) >= 0) {
+                writeTypeAndArgument(MAJOR_TYPE_NEGATIVE_INTEGER, BigInteger.ONE.negate().subtract(value).longValue());
+            } else {
+                writeTag(TAG_NEGATIVE_BIGNUM);
+                writeBytes(unsignedMagnitude(BigInteger.ONE.negate().subtract(value)));
+            }
+        }
+        return this;
+    }
+
+    private static byte[] unsignedMagnitude(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        // remove sign byte
+        return bytes[0] == 0 ? Arrays.copyOfRange(bytes, 1, bytes.length) : bytes;
+    }
+
+    /**
+     * Write a decimal fraction (tag 4) : <code>[exponent, mantissa]</code>.
+     */
+    public CborWriter writeDecimal(BigDecimal value) {
+        writeTag(TAG_DECIMAL_FRACTION);
+        writeArrayHeader(2);
+        writeInteger(-(long) value.scale());
+        writeInteger(value.unscaledValue());
+        return this;
+    }
+
+    // ------- Floating-point -------
+
+    public CborWriter writeFloat(float value) {
+        if (Float.isNaN(value)) {
+            // widening could change NaN payload
+            long bits = Float.floatToRawIntBits(value) & 0xffff_ffffL;
+            return writeFloatingPoint(bits >>> 31 << 63 | 0x7ffL << 52 | (bits & 0x7f_ffffL) << 29);
+        }
+        return writeDouble((double) value);
+    }
+
+    /**
+     * Write a floating-point value using the shortest precision (half, single or double) which keeps the exact value.
+     */
+    public CborWriter writeDouble(double value) {
+        return writeFloatingPoint(Double.doubleToRawLongBits(value));
+    }
+
+    private CborWriter writeFloatingPoint(long bits) {
+        int half = toHalfPrecision(bits);
+        if (half != -1) {
+            ensureCapacity(3);
+            buffer[size++] = (byte) HALF_PRECISION;
+            writeBigEndian(half, 2);
+        } else if (isSinglePrecision(bits)) {
+            ensureCapacity(5);
+            buffer[size++] = (byte) SINGLE_PRECISION;
+            writeBigEndian(toSinglePrecision(bits), 4);
+        } else {
+            ensureCapacity(9);
+            buffer[size++] = (byte) DOUBLE_PRECISION;
+            writeBigEndian(bits, 8);
+        }
+        return this;
+    }
+
+    private static int toHalfPrecision(long bits) {
+        int sign = (int) (bits >>> 63) << 15;
+        int exponent = (int) (bits >>> 52) & 0x7ff;
+        long mantissa = bits & 0xf_ffff_ffff_ffffL;
+
+        if (exponent == 0x7ff) {
+            // infinity or NaN
+            if ((mantissa & 0x3ff_ffff_ffffL) != 0) {
+                return -1;
+            }
+            return sign | 0x7c00 | (int) (mantissa >>> 42);
+        }
+        if (exponent == 0) {
+            // zero (always written in single precision) or double subnormal (too small for half)
+            return -1;
+        }
+        int unbiased = exponent - 1023;
+        if (unbiased >= -14 && unbiased <= 15) {
+            // half normal
+            if ((mantissa & 0x3ff_ffff_ffffL) != 0) {
+                return -1;
+            }
+            return sign | (unbiased + 15) << 10 | (int) (mantissa >>> 42);
+        }
+        if (unbiased >= -24 && unbiased < -14) {
+            // half subnormal
+            long significand = mantissa | 1L << 52;
+            int shift = 52 - (unbiased + 24);
+            if ((significand & ((1L << shift) - 1)) != 0) {
+                return -1;
+            }
+            return sign | (int) (significand >>> shift);
+        }
+        return -1;
+    }
+
+    private static boolean isNaN(long bits) {
+        return (bits & 0x7ff0_0000_0000_0000L) == 0x7ff0_0000_0000_0000L && (bits & 0xf_ffff_ffff_ffffL) != 0;
+    }
+
+    private static boolean isSinglePrecision(long bits) {
+        if (isNaN(bits)) {
+            return (bits & 0x1fff_ffffL) == 0;
+        }
+        double value = Double.longBitsToDouble(bits);
+        return (double) (float) value == value;
+    }
+
+    private static int toSinglePrecision(long bits) {
+        if (isNaN(bits)) {
+            // narrowing could change NaN payload
+            return (int) (bits >>> 63) << 31 | 0x7f80_0000 | (int) ((bits & 0xf_ffff_ffff_ffffL) >>> 29);
+        }
+        return Float.floatToRawIntBits((float) Double.longBitsToDouble(bits));
+    }
+
+    // ------- Others -------
+
+    public CborWriter writeBoolean(boolean value) {
+        ensureCapacity(1);
+        buffer[size++] = (byte) (value ? TRUE : FALSE);
+        return this;
+    }
+
+    public CborWriter writeNull() {
+        ensureCapacity(1);
+        buffer[size++] = (byte) NULL;
+        return this;
+    }
+
+    public CborWriter writeTag(long tag) {
+        writeTypeAndArgument(MAJOR_TYPE_TAG, tag);
+        return this;
+    }
+
+    public CborWriter writeBytes(byte[] value) {
+        writeTypeAndArgument(MAJOR_TYPE_BYTE_STRING, value.length);
+        ensureCapacity(value.length);
+        System.arraycopy(value, 0, buffer, size, value.length);
+        size += value.length;
+        return this;
+    }
+
+    /**
+     * Write a text string encoded in UTF-8.
+     *
+     * @throws IllegalArgumentException if the string contains an unpaired surrogate.
+     */
+    public CborWriter writeString(String value) {
+        int length = value.length();
+        int utf8Length = utf8Length(value);
+        writeTypeAndArgument(MAJOR_TYPE_TEXT_STRING, utf8Length);
+        ensureCapacity(utf8Length);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer[size++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[size++] = (byte) (0xc0 | c >> 6);
+                buffer[size++] = (byte) (0x80 | c & 0x3f);
+            } else if (Character.isHighSurrogate(c)) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[size++] = (byte) (0xf0 | codePoint >> 18);
+                buffer[size++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+                buffer[size++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+                buffer[size++] = (byte) (0x80 | codePoint & 0x3f);
+            } else {
+                buffer[size++] = (byte) (0xe0 | c >> 12);
+                buffer[size++] = (byte) (0x80 | c >> 6 & 0x3f);
+                buffer[size++] = (byte) (0x80 | c & 0x3f);
+            }
+        }
+        return this;
+    }
+
+    private static int utf8Length(String value) {
+        int utf8Length = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                utf8Length += 1;
+            } else if (c < 0x800) {
+                utf8Length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                utf8Length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                throw new IllegalArgumentException("String contains an unpaired surrogate code point.");
+            } else {
+                utf8Length += 3;
+            }
+        }
+        return utf8Length;
+    }
+
+    /**
+     * Write the header of an array, which must be followed by <code>nbItems</code> data items.
+     */
+    public CborWriter writeArrayHeader(int nbItems) {
+        writeTypeAndArgument(MAJOR_TYPE_ARRAY, nbItems);
+        return this;
+    }
+
+    /**
+     * Write the header of a map, which must be followed by <code>nbEntries</code> pairs of key and value data items.
+     */
+    public CborWriter writeMapHeader(int nbEntries) {
+        writeTypeAndArgument(MAJOR_TYPE_MAP, nbEntries);
+        return this;
+    }
+
+    // ------- Output -------
+
+    /**
+     * @return the number of bytes written so far.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return a copy of the bytes written so far.
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    /**
+     * Useful when the number of items is only known once they are all written.
+     *
+     * @param nbItems number of data items written so far.
+     * @return the bytes written so far wrapped in an array of <code>nbItems</code> items.
+     */
+    public byte[] toArrayBytes(int nbItems) {
+        int headerSize = argumentSize(nbItems);
+        byte[] result = new byte[headerSize + size];
+
+        // write header at the end of the buffer then copy it
+        ensureCapacity(headerSize);
+        int contentSize = size;
+        writeTypeAndArgument(MAJOR_TYPE_ARRAY, nbItems);
+        System.arraycopy(buffer, contentSize, result, 0, headerSize);
+        System.arraycopy(buffer, 0, result, headerSize, contentSize);
+        size = contentSize;
+        return result;
+    }
+
+    // ------- Internals -------
+
+    private static int argumentSize(long argument) {
+        if (argument >= 0 && argument < 24) {
+            return 1;
+        } else if (argument >= 0 && argument <= 0xff) {
+            return 2;
+        } else if (argument >= 0 && argument <= 0xffff) {
+            return 3;
+        } else if (argument >= 0 && argument <= 0xffff_ffffL) {
+            return 5;
+        } else {
+            return 9;
+        }
+    }
+
+    /**
+     * @param argument an unsigned 64 bits value.
+     */
+    private void writeTypeAndArgument(int majorType, long argument) {
+        int argumentSize = argumentSize(argument);
+        ensureCapacity(argumentSize);
+        int initialByte = majorType << 5;
+        switch (argumentSize) {
+        case 1:
+            buffer[size++] = (byte) (initialByte | (int) argument);
+            break;
+        case 2:
+            buffer[size++] = (byte) (initialByte | 24);
+            writeBigEndian(argument, 1);
+            break;
+        case 3:
+            buffer[size++] = (byte) (initialByte | 25);
+            writeBigEndian(argument, 2);
+            break;
+        case 5:
+            buffer[size++] = (byte) (initialByte | 26);
+            writeBigEndian(argument, 4);
+            break;
+        default:
+            buffer[size++] = (byte) (initialByte | 27);
+            writeBigEndian(argument, 8);
+            break;
+        }
+    }
+
+    private void writeBigEndian(long value, int nbBytes) {
+        for (int i = nbBytes - 1; i >= 0; i--) {
+            buffer[size++] = (byte) (value >>> (8 * i));
+        }
+    }
+
+    private void ensureCapacity(int additionalBytes) {
+        int required = size + additionalBytes;
+        if (required > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(required, buffer.length * 2));
+        }
+    }
+}
@@ -37,10 +37,15 @@ import org.eclipse.leshan.core.node.LwM2mPath;
 
 /**
  * A Default Link Parser which is able to create more LWM2M flavored link.
+ * <p>
+ * When the standard object version attribute model is used, the common payload sent at registration (e.g.
+ * {@code </1/0>,</3>;ver=1.1,</3/0>}) is parsed by a byte oriented single pass parser. Other payloads are handled by
+ * the generic {@link LinkParser}.
  */
 public class DefaultLwM2mLinkParser implements LwM2mLinkParser {
 
     private final LinkParser parser;
+    private final boolean fastPathEnabled;
 
     public DefaultLwM2mLinkParser() {
         // Define all supported Attributes
@@ -50,15 +55,19 @@ public class DefaultLwM2mLinkParser implements LwM2mLinkParser {
 
         // Create default link Parser
         this.parser = new DefaultLinkParser(new DefaultAttributeParser(suppportedAttributes));
+        this.fastPathEnabled = true;
     }
 
     public DefaultLwM2mLinkParser(Collection<? extends AttributeModel<?>> suppportedAttributes) {
         // Create default link Parser
         this.parser = new DefaultLinkParser(new DefaultAttributeParser(suppportedAttributes));
+        // fast path creates standard object version attribute
+        this.fastPathEnabled = suppportedAttributes.contains(LwM2mAttributes.OBJECT_VERSION);
     }
 
     public DefaultLwM2mLinkParser(LinkParser internalLinkParser) {
         this.parser = internalLinkParser;
+        this.fastPathEnabled = false;
     }
 
     @Override
@@ -113,6 +122,13 @@ public class DefaultLwM2mLinkParser implements LwM2mLinkParser {
 
     @Override
     public Link[] parseCoreLinkFormat(byte[] bytes) throws LinkParseException {
+        if (fastPathEnabled && bytes != null && bytes.length > 0) {
+            Link[] links = LwM2mLinkFastParser.parse(bytes);
+            if (links != null) {
+                return links;
+            }
+        }
+
         Link[] links = parser.parseCoreLinkFormat(bytes);
 
         // search root resource
@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.link.lwm2m;
+
+import java.util.Arrays;
+
+import org.eclipse.leshan.core.LwM2m.Version;
+import org.eclipse.leshan.core.link.Link;
+import org.eclipse.leshan.core.link.lwm2m.attributes.LwM2mAttribute;
+import org.eclipse.leshan.core.link.lwm2m.attributes.LwM2mAttributes;
+import org.eclipse.leshan.core.link.lwm2m.attributes.MixedLwM2mAttributeSet;
+import org.eclipse.leshan.core.node.InvalidLwM2mPathException;
+import org.eclipse.leshan.core.node.LwM2mPath;
+
+/**
+ * A byte oriented single pass parser for the CoRE Link Format payload generally sent by LWM2M client on register or
+ * update : a list of links to objects or object instances with an optional object version like
+ * {@code </1/0>,</3>;ver=1.1,</3/0>}.
+ * <p>
+ * It does not use the generic {@code StringParser}/{@code AttributeParser} machinery. As soon as the payload contains
+ * something else (alternate path, other attributes, quoted value, invalid content ...), {@link #parse(byte[])} returns
+ * <code>null</code> and the complete parser must be used instead. This one is also in charge of raising errors.
+ */
+class LwM2mLinkFastParser {
+
+    private static final int MAX_ID_DIGITS = 5;
+    private static final int MAX_VERSION_DIGITS = 4;
+
+    // LwM2mAttribute is immutable, so attributes for most common versions are shared.
+    private static final int MAX_CACHED_VERSION = 10;
+    private static final LwM2mAttribute<?>[] VERSION_ATTRIBUTES = new LwM2mAttribute<?>[MAX_CACHED_VERSION
+            * MAX_CACHED_VERSION];
+
+    private LwM2mLinkFastParser() {
+    }
+
+    /**
+     * @return links parsed from <code>bytes</code> or <code>null</code> if this payload is not supported by this
+     *         parser.
+     */
+    static Link[] parse(byte[] bytes) {
+        int length = bytes.length;
+        Link[] links = new Link[16];
+        int nbLinks = 0;
+        int[] ids = new int[4];
+        int pos = 0;
+
+        while (true) {
+            // "<" "/"
+            if (pos + 1 >= length || bytes[pos] != '<' || bytes[pos + 1] != '/') {
+                return null;
+            }
+            pos += 2;
+
+            // path : 1 to 4 numeric segments
+            int nbIds = 0;
+            while (true) {
+                int start = pos;
+                int id = 0;
+                while (pos < length && isDigit(bytes[pos]) && pos - start < MAX_ID_DIGITS) {
+                    id = id * 10 + (bytes[pos] - '0');
+                    pos++;
+                }
+                int nbDigits = pos - start;
+                if (nbDigits == 0 || (nbDigits > 1 && bytes[start] == '0') || nbIds == ids.length) {
+                    return null;
+                }
+                ids[nbIds++] = id;
+
+                if (pos < length && bytes[pos] == '/') {
+                    pos++;
+                } else {
+                    break;
+                }
+            }
+            if (pos >= length || bytes[pos] != '>') {
+                return null;
+            }
+            pos++;
+
+            // attributes : only object version on object link is supported
+            LwM2mAttribute<?> version = null;
+            if (pos < length && bytes[pos] == ';') {
+                if (nbIds != 1 || !startsWith(bytes, pos, ";ver=")) {
+                    return null;
+                }
+                pos += 5;
+
+                int start = pos;
+                int major = 0;
+                while (pos < length && isDigit(bytes[pos]) && pos - start < MAX_VERSION_DIGITS) {
+                    major = major * 10 + (bytes[pos] - '0');
+                    pos++;
+                }
+                if (pos == start || (pos - start > 1 && bytes[start] == '0') || pos >= length || bytes[pos] != '.') {
+                    return null;
+                }
+                pos++;
+
+                start = pos;
+                int minor = 0;
+                while (pos < length && isDigit(bytes[pos]) && pos - start < MAX_VERSION_DIGITS) {
+                    minor = minor * 10 + (bytes[pos] - '0');
+                    pos++;
+                }
+                if (pos == start || (pos - start > 1 && bytes[start] == '0')) {
+                    return null;
+                }
+                version = versionAttribute(major, minor);
+            }
+
+            // create link
+            LwM2mPath path;
+            try {
+                path = toPath(ids, nbIds);
+            } catch (InvalidLwM2mPathException e) {
+                return null;
+            }
+            MixedLwM2mAttributeSet attributes = version == null ? new MixedLwM2mAttributeSet()
+                    : new MixedLwM2mAttributeSet(version);
+            if (nbLinks == links.length) {
+                links = Arrays.copyOf(links, nbLinks * 2);
+            }
+            links[nbLinks++] = new MixedLwM2mLink("/", path, attributes);
+
+            // "," or end of payload
+            if (pos == length) {
+                break;
+            }
+            if (bytes[pos] != ',') {
+                return null;
+            }
+            pos++;
+        }
+        return nbLinks == links.length ? links : Arrays.copyOf(links, nbLinks);
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean startsWith(byte[] bytes, int pos, String prefix) {
+        if (pos + prefix.length() > bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (bytes[pos + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static LwM2mPath toPath(int[] ids, int nbIds) {
+        switch (nbIds) {
+        case 1:
+            return new LwM2mPath(ids[0]);
+        case 2:
+            return new LwM2mPath(ids[0], ids[1]);
+        case 3:
+            return new LwM2mPath(ids[0], ids[1], ids[2]);
+        default:
+            return new LwM2mPath(ids[0], ids[1], ids[2], ids[3]);
+        }
+    }
+
+    private static LwM2mAttribute<?> versionAttribute(int major, int minor) {
+        if (major >= MAX_CACHED_VERSION || minor >= MAX_CACHED_VERSION) {
+            return LwM2mAttributes.create(LwM2mAttributes.OBJECT_VERSION, new Version(major, minor));
+        }
+        // concurrent initialization may create the same attribute twice, this is harmless.
+        int index = major * MAX_CACHED_VERSION + minor;
+        LwM2mAttribute<?> attribute = VERSION_ATTRIBUTES[index];
+        if (attribute == null) {
+            attribute = LwM2mAttributes.create(LwM2mAttributes.OBJECT_VERSION, new Version(major, minor));
+            VERSION_ATTRIBUTES[index] = attribute;
+        }
+        return attribute;
+    }
+}
@@ -45,6 +45,9 @@ import org.xml.sax.SAXParseException;
 
 /**
  * A parser for Object DDF files.
+ * <p>
+ * This parser is thread-safe, so several files can be parsed concurrently with the same instance (see
+ * {@link ObjectLoader#loadObjectsFromDir(File, DDFFileParser, ObjectModelValidator, java.util.concurrent.ExecutorService)}).
  */
 public class DDFFileParser {
 
@@ -139,7 +142,11 @@ public class DDFFileParser {
 
         try {
             // Parse XML file
-            DocumentBuilder builder = createDocumentBuilder(factory);
+            DocumentBuilder builder;
+            // DocumentBuilderFactory is not thread-safe
+            synchronized (factory) {
+                builder = createDocumentBuilder(factory);
+            }
             Document document = builder.parse(inputStream);
 
             // Get DDF file validator
@@ -46,6 +46,8 @@ public class DefaultDDFFileValidator implements DDFFileValidator {
     private static String LWM2M_V1_1_SCHEMA_PATH = "/schemas/LWM2M-v1_1.xsd";
 
     private final String schema;
+    // Schema is immutable and thread-safe, so it is compiled only once.
+    private volatile Schema compiledSchema;
 
     /**
      * Create a {@link DDFFileValidator} using the LWM2M v1.1 schema.
@@ -85,7 +87,12 @@ public class DefaultDDFFileValidator implements DDFFileValidator {
      * @throws IOException see {@link Validator#validate(Source)}
      */
     public void validate(Source xmlToValidate) throws SAXException, IOException {
-        Validator validator = getEmbeddedLwM2mSchema().newValidator();
+        Schema compiled = compiledSchema;
+        if (compiled == null) {
+            compiled = getEmbeddedLwM2mSchema();
+            compiledSchema = compiled;
+        }
+        Validator validator = compiled.newValidator();
         validator.validate(xmlToValidate);
     }
 
@@ -15,6 +15,9 @@
  *******************************************************************************/
 package org.eclipse.leshan.core.model;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import org.eclipse.leshan.core.LwM2m.LwM2mVersion;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
@@ -23,11 +26,14 @@ import org.w3c.dom.NodeList;
 /**
  * Create {@link DefaultDDFFileValidator}.
  * <p>
- * Support LWM2M version 1.0 and 1.1.
+ * Support LWM2M version 1.0 and 1.1. Validators are created once by version and then reused, so schemas are compiled
+ * only once.
  */
 
 public class DefaultDDFFileValidatorFactory implements DDFFileValidatorFactory {
 
+    private final ConcurrentMap<LwM2mVersion, DDFFileValidator> validators = new ConcurrentHashMap<>();
+
     @Override
     public LwM2mVersion extractLWM2MVersion(Document document, String DocumentName) throws InvalidDDFFileException {
         NodeList nodes = document.getElementsByTagName("LWM2M");
@@ -54,6 +60,6 @@ public class DefaultDDFFileValidatorFactory implements DDFFileValidatorFactory {
 
     @Override
     public DDFFileValidator create(LwM2mVersion lwm2mVersion) {
-        return new DefaultDDFFileValidator(lwm2mVersion);
+        return validators.computeIfAbsent(lwm2mVersion, DefaultDDFFileValidator::new);
     }
 }
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * An immutable index of values by <code>int</code> key, used to lookup models without boxing nor hashing.
+ * <p>
+ * Small keys (generally the case of object and resource ids defined by OMA) are stored in a dense array indexed by key.
+ * Other keys (e.g. IPSO resource ids like 5700) are stored in a sorted array and looked up by binary search.
+ */
+final class IntKeyedIndex<T> {
+
+    // dense array is sized to at most DENSE_RATIO * size + DENSE_MARGIN entries
+    private static final int DENSE_RATIO = 2;
+    private static final int DENSE_MARGIN = 64;
+
+    private static final IntKeyedIndex<?> EMPTY = new IntKeyedIndex<>(new Object[0], new int[0], new Object[0]);
+
+    private final Object[] dense; // values by key for key < dense.length
+    private final int[] sparseKeys; // sorted keys >= dense.length or negative
+    private final Object[] sparseValues;
+
+    private IntKeyedIndex(Object[] dense, int[] sparseKeys, Object[] sparseValues) {
+        this.dense = dense;
+        this.sparseKeys = sparseKeys;
+        this.sparseValues = sparseValues;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> IntKeyedIndex<T> of(Map<Integer, T> values) {
+        if (values == null || values.isEmpty()) {
+            return (IntKeyedIndex<T>) EMPTY;
+        }
+
+        // compute size of dense part
+        int denseLimit = DENSE_RATIO * values.size() + DENSE_MARGIN;
+        int denseLength = 0;
+        for (Integer key : values.keySet()) {
+            if (key >= 0 && key < denseLimit && key >= denseLength) {
+                denseLength = key + 1;
+            }
+        }
+
+        // fill dense and sparse part
+        Object[] dense = new Object[denseLength];
+        List<Integer> sparse = new ArrayList<>();
+        for (Entry<Integer, T> entry : values.entrySet()) {
+            int key = entry.getKey();
+            if (key >= 0 && key < denseLength) {
+                dense[key] = entry.getValue();
+            } else {
+                sparse.add(key);
+            }
+        }
+        Collections.sort(sparse);
+        int[] sparseKeys = new int[sparse.size()];
+        Object[] sparseValues = new Object[sparse.size()];
+        for (int i = 0; i < sparseKeys.length; i++) {
+            sparseKeys[i] = sparse.get(i);
+            sparseValues[i] = values.get(sparse.get(i));
+        }
+        return new IntKeyedIndex<>(dense, sparseKeys, sparseValues);
+    }
+
+    @SuppressWarnings("unchecked")
+    T get(int key) {
+        if (key >= 0 && key < dense.length) {
+            return (T) dense[key];
+        }
+        int low = 0;
+        int high = sparseKeys.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midKey = sparseKeys[mid];
+            if (midKey < key) {
+                low = mid + 1;
+            } else if (midKey > key) {
+                high = mid - 1;
+            } else {
+                return (T) sparseValues[mid];
+            }
+        }
+        return null;
+    }
+}
@@ -15,8 +15,13 @@
  *******************************************************************************/
 package org.eclipse.leshan.core.model;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.NavigableMap;
 import java.util.TreeMap;
 
@@ -97,18 +102,43 @@ public class LwM2mModelRepository {
 
     }
 
-    // This map contains all the object models available. Different version could be used.
-    private final NavigableMap<Key, ObjectModel> objects;
+    /**
+     * All versions of a given object, sorted by version. Versions of an object are generally few, so a linear search is
+     * faster than any map.
+     */
+    private static class VersionedObjectModels {
+        final Version[] versions;
+        final ObjectModel[] models;
+
+        VersionedObjectModels(Version[] versions, ObjectModel[] models) {
+            this.versions = versions;
+            this.models = models;
+        }
+
+        ObjectModel get(Version version) {
+            for (int i = 0; i < versions.length; i++) {
+                if (versions[i].equals(version)) {
+                    return models[i];
+                }
+            }
+            return null;
+        }
+
+        ObjectModel getLatest() {
+            return models[models.length - 1];
+        }
+    }
+
+    // This index contains all the object models available by id. Different version could be used.
+    private final IntKeyedIndex<VersionedObjectModels> objects;
 
     public LwM2mModelRepository(ObjectModel... objectModels) {
         this(Arrays.asList(objectModels));
     }
 
     public LwM2mModelRepository(Collection<ObjectModel> objectModels) {
-        if (objectModels == null) {
-            objects = new TreeMap<>();
-        } else {
-            NavigableMap<Key, ObjectModel> map = new TreeMap<>();
+        NavigableMap<Key, ObjectModel> map = new TreeMap<>();
+        if (objectModels != null) {
             for (ObjectModel model : objectModels) {
                 // validate Key
                 validateKey(model.id, model.version);
@@ -127,9 +157,32 @@ public class LwM2mModelRepository {
                             model.version);
                 }
             }
-            // TODO use unmodifiableNavigableMap when we pass to java8.
-            objects = map;
         }
+        objects = createIndex(map);
+    }
+
+    private static IntKeyedIndex<VersionedObjectModels> createIndex(NavigableMap<Key, ObjectModel> sortedModels) {
+        // models are sorted by id then by version, so we just need to group consecutive models by id
+        Map<Integer, VersionedObjectModels> index = new HashMap<>();
+        List<Version> versions = new ArrayList<>();
+        List<ObjectModel> models = new ArrayList<>();
+        Integer currentId = null;
+        for (Entry<Key, ObjectModel> entry : sortedModels.entrySet()) {
+            if (currentId != null && !currentId.equals(entry.getKey().id)) {
+                index.put(currentId, new VersionedObjectModels(versions.toArray(new Version[0]),
+                        models.toArray(new ObjectModel[0])));
+                versions.clear();
+                models.clear();
+            }
+            currentId = entry.getKey().id;
+            versions.add(entry.getKey().version);
+            models.add(entry.getValue());
+        }
+        if (currentId != null) {
+            index.put(currentId,
+                    new VersionedObjectModels(versions.toArray(new Version[0]), models.toArray(new ObjectModel[0])));
+        }
+        return IntKeyedIndex.of(index);
     }
 
     private void validateKey(Integer id, String version) {
@@ -143,14 +196,15 @@ public class LwM2mModelRepository {
 
     public ObjectModel getObjectModel(Integer objectId, String version) {
         validateKey(objectId, version);
-        return objects.get(getKey(objectId, version));
+        return getObjectModel(objectId, new Version(version));
     }
 
     public ObjectModel getObjectModel(Integer objectId, Version version) {
         LwM2mNodeUtil.validateObjectId(objectId);
         Validate.notNull(version, "version must not be null");
 
-        return objects.get(getKey(objectId, version));
+        VersionedObjectModels models = objects.get(objectId);
+        return models == null ? null : models.get(version);
     }
 
     /**
@@ -159,11 +213,8 @@ public class LwM2mModelRepository {
     public ObjectModel getObjectModel(Integer objectId) {
         LwM2mNodeUtil.validateObjectId(objectId);
 
-        Key floorKey = objects.floorKey(getKey(objectId, Version.MAX));
-        if (floorKey == null || !floorKey.id.equals(objectId)) {
-            return null;
-        }
-        return objects.get(floorKey);
+        VersionedObjectModels models = objects.get(objectId);
+        return models == null ? null : models.getLatest();
     }
 
     private Key getKey(Integer objectId, String version) {
@@ -185,7 +236,7 @@ public class LwM2mModelRepository {
                 if (objectModel == null)
                     return null;
 
-                return objectModel.resources.get(resourceId);
+                return objectModel.getResourceModel(resourceId);
             }
 
             @Override
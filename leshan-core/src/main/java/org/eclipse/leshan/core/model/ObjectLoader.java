@@ -15,19 +15,31 @@
  *******************************************************************************/
 package org.eclipse.leshan.core.model;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.leshan.core.LwM2m.LwM2mVersion;
 import org.eclipse.leshan.core.LwM2m.Version;
+import org.eclipse.leshan.core.util.NamedThreadFactory;
 import org.eclipse.leshan.core.util.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -301,7 +313,7 @@ public class ObjectLoader {
     }
 
     /**
-     * Load object definitions from directory.
+     * Load object definitions from directory. Files are parsed concurrently.
      * <p>
      * Invalid model will be logged and ignored.
      *
@@ -310,8 +322,14 @@ public class ObjectLoader {
      *        model if you already trust it.
      */
     public static List<ObjectModel> loadObjectsFromDir(File modelsDir, boolean validate) {
-        return loadObjectsFromDir(modelsDir, new DDFFileParser(validate ? new DefaultDDFFileValidatorFactory() : null),
-                validate ? new DefaultObjectModelValidator() : null);
+        ExecutorService executor = createExecutor();
+        try {
+            return loadObjectsFromDir(modelsDir,
+                    new DDFFileParser(validate ? new DefaultDDFFileValidatorFactory() : null),
+                    validate ? new DefaultObjectModelValidator() : null, executor);
+        } finally {
+            executor.shutdown();
+        }
     }
 
     /**
@@ -327,7 +345,167 @@ public class ObjectLoader {
      */
     public static List<ObjectModel> loadObjectsFromDir(File modelsDir, DDFFileParser ddfFileParser,
             ObjectModelValidator modelValidator) {
+        return loadObjectsFromDir(modelsDir, ddfFileParser, modelValidator, null);
+    }
+
+    /**
+     * Load object definitions from directory, parsing files concurrently with the given executor.
+     * <p>
+     * Invalid model will be logged and ignored. Order of returned models does not depend on executor.
+     *
+     * @param modelsDir the directory containing all the ddf file definition.
+     * @param ddfFileParser a ddfFileParser which could do validation optionally. It must be thread-safe if an executor
+     *        is used.
+     * @param modelValidator an Object model validator to ensure model is valid, see
+     *        {@link DefaultObjectModelValidator}. If {@code null} then there will be no validation. It must be
+     *        thread-safe if an executor is used.
+     * @param executor executor used to parse files or {@code null} to parse them in calling thread.
+     */
+    public static List<ObjectModel> loadObjectsFromDir(File modelsDir, final DDFFileParser ddfFileParser,
+            final ObjectModelValidator modelValidator, ExecutorService executor) {
+        List<ObjectModel> models = new ArrayList<>();
+        List<List<ObjectModel>> modelsByFile = forEachFile(listDdfFiles(modelsDir), executor,
+                new FileLoader<List<ObjectModel>>() {
+                    @Override
+                    public List<ObjectModel> load(File file) {
+                        LOG.debug("Loading object models from DDF file {}", file.getAbsolutePath());
+                        try (FileInputStream input = new FileInputStream(file)) {
+                            return loadDdfFile(input, file.getName(), ddfFileParser, modelValidator);
+                        } catch (IOException | InvalidModelException | InvalidDDFFileException e) {
+                            LOG.warn(MessageFormat.format("Unable to load object models for {0}",
+                                    file.getAbsolutePath()), e);
+                            return Collections.emptyList();
+                        }
+                    }
+                });
+        for (List<ObjectModel> fileModels : modelsByFile) {
+            models.addAll(fileModels);
+        }
+        return models;
+    }
+
+    /**
+     * Load object definitions from directory using a precompiled binary snapshot of models. Files are parsed
+     * concurrently.
+     * <p>
+     * See {@link #loadObjectsFromDir(File, File, DDFFileParser, ObjectModelValidator, ExecutorService)}.
+     *
+     * @param modelsDir the directory containing all the ddf file definition.
+     * @param snapshotFile the snapshot file, it is created if it does not exist.
+     * @param validate true if you want model validation.
+     */
+    public static List<ObjectModel> loadObjectsFromDir(File modelsDir, File snapshotFile, boolean validate) {
+        ExecutorService executor = createExecutor();
+        try {
+            return loadObjectsFromDir(modelsDir, snapshotFile,
+                    new DDFFileParser(validate ? new DefaultDDFFileValidatorFactory() : null),
+                    validate ? new DefaultObjectModelValidator() : null, executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Load object definitions from directory using a precompiled binary snapshot of models.
+     * <p>
+     * Snapshot contains models of each DDF file keyed by file name and SHA-256 hash of the file content. Models of
+     * files which did not change since snapshot creation are read from the memory-mapped snapshot, others are parsed
+     * (and validated). If some files were parsed or removed, the snapshot is written again. A snapshot written without
+     * validation is not used when validation is required.
+     * <p>
+     * Invalid model will be logged and ignored, they are not stored in snapshot.
+     *
+     * @param modelsDir the directory containing all the ddf file definition.
+     * @param snapshotFile the snapshot file, it is created if it does not exist.
+     * @param ddfFileParser a ddfFileParser which could do validation optionally. It must be thread-safe if an executor
+     *        is used.
+     * @param modelValidator an Object model validator to ensure model is valid, see
+     *        {@link DefaultObjectModelValidator}. If {@code null} then there will be no validation. It must be
+     *        thread-safe if an executor is used.
+     * @param executor executor used to parse files or {@code null} to parse them in calling thread.
+     */
+    public static List<ObjectModel> loadObjectsFromDir(File modelsDir, File snapshotFile,
+            final DDFFileParser ddfFileParser, final ObjectModelValidator modelValidator, ExecutorService executor) {
+
+        // read snapshot
+        ObjectModelSnapshot existingSnapshot = null;
+        if (snapshotFile.isFile()) {
+            try {
+                existingSnapshot = ObjectModelSnapshot.read(snapshotFile);
+                if (modelValidator != null && !existingSnapshot.isValidated()) {
+                    LOG.debug("Model snapshot {} ignored as it was created without validation", snapshotFile);
+                    existingSnapshot = null;
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                LOG.warn(MessageFormat.format("Unable to read model snapshot {0}", snapshotFile), e);
+            }
+        }
+        final ObjectModelSnapshot snapshot = existingSnapshot;
+
+        // load models from snapshot or from DDF files
+        final AtomicBoolean snapshotChanged = new AtomicBoolean(snapshot == null);
+        List<ObjectModelSnapshot.Entry> entries = forEachFile(listDdfFiles(modelsDir), executor,
+                new FileLoader<ObjectModelSnapshot.Entry>() {
+                    @Override
+                    public ObjectModelSnapshot.Entry load(File file) {
+                        try {
+                            byte[] content = Files.readAllBytes(file.toPath());
+                            byte[] hash = MessageDigest.getInstance("SHA-256").digest(content);
+                            if (snapshot != null) {
+                                try {
+                                    List<ObjectModel> models = snapshot.getModels(file.getName(), hash);
+                                    if (models != null) {
+                                        return new ObjectModelSnapshot.Entry(file.getName(), hash, models);
+                                    }
+                                } catch (IllegalArgumentException e) {
+                                    LOG.warn(MessageFormat.format("Unable to read {0} models from snapshot",
+                                            file.getName()), e);
+                                }
+                            }
+
+                            snapshotChanged.set(true);
+                            LOG.debug("Loading object models from DDF file {}", file.getAbsolutePath());
+                            List<ObjectModel> models = loadDdfFile(new ByteArrayInputStream(content), file.getName(),
+                                    ddfFileParser, modelValidator);
+                            return new ObjectModelSnapshot.Entry(file.getName(), hash, models);
+                        } catch (IOException | InvalidModelException | InvalidDDFFileException e) {
+                            snapshotChanged.set(true);
+                            LOG.warn(MessageFormat.format("Unable to load object models for {0}",
+                                    file.getAbsolutePath()), e);
+                            return null;
+                        } catch (NoSuchAlgorithmException e) {
+                            throw new IllegalStateException("SHA-256 is not supported", e);
+                        }
+                    }
+                });
+
         List<ObjectModel> models = new ArrayList<>();
+        List<ObjectModelSnapshot.Entry> validEntries = new ArrayList<>(entries.size());
+        for (ObjectModelSnapshot.Entry entry : entries) {
+            if (entry != null) {
+                models.addAll(entry.models);
+                validEntries.add(entry);
+            }
+        }
+
+        // write snapshot again if needed
+        if (snapshotChanged.get() || snapshot.size() != validEntries.size()) {
+            try {
+                ObjectModelSnapshot.write(snapshotFile, modelValidator != null, validEntries);
+            } catch (IOException e) {
+                LOG.warn(MessageFormat.format("Unable to write model snapshot {0}", snapshotFile), e);
+            }
+        }
+        return models;
+    }
+
+    private static ExecutorService createExecutor() {
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                new NamedThreadFactory("Leshan Object Loader#%d"));
+    }
+
+    private static List<File> listDdfFiles(File modelsDir) {
+        List<File> files = new ArrayList<>();
 
         // check if the folder is usable
         if (!modelsDir.isDirectory() || !modelsDir.canRead()) {
@@ -337,21 +515,56 @@ public class ObjectLoader {
         } else {
             // get all files
             for (File file : modelsDir.listFiles()) {
-                if (!file.canRead())
-                    continue;
+                if (file.canRead() && file.getName().endsWith(".xml")) {
+                    files.add(file);
+                }
+            }
+        }
+        return files;
+    }
 
-                if (file.getName().endsWith(".xml")) {
-                    // from DDF file
-                    LOG.debug("Loading object models from DDF file {}", file.getAbsolutePath());
-                    try (FileInputStream input = new FileInputStream(file)) {
-                        models.addAll(loadDdfFile(input, file.getName(), ddfFileParser, modelValidator));
-                    } catch (IOException | InvalidModelException | InvalidDDFFileException e) {
-                        LOG.warn(MessageFormat.format("Unable to load object models for {0}", file.getAbsolutePath()),
-                                e);
-                    }
+    private interface FileLoader<T> {
+        T load(File file);
+    }
+
+    /**
+     * Load each file using given executor (or calling thread if executor is {@code null}), results are in files order.
+     */
+    private static <T> List<T> forEachFile(List<File> files, ExecutorService executor, final FileLoader<T> loader) {
+        List<T> results = new ArrayList<>(files.size());
+        if (executor == null || files.size() < 2) {
+            for (File file : files) {
+                results.add(loader.load(file));
+            }
+            return results;
+        }
+
+        List<Future<T>> futures = new ArrayList<>(files.size());
+        for (final File file : files) {
+            futures.add(executor.submit(new Callable<T>() {
+                @Override
+                public T call() {
+                    return loader.load(file);
                 }
+            }));
+        }
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading models", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Unable to load models", e.getCause());
+        } finally {
+            for (Future<T> future : futures) {
+                future.cancel(true);
             }
         }
-        return models;
+        return results;
     }
 }
@@ -48,6 +48,7 @@ public class ObjectModel {
     public final String description2;
 
     public final Map<Integer, ResourceModel> resources; // resources by ID
+    private final IntKeyedIndex<ResourceModel> resourcesIndex; // resources by ID, without boxing
 
     public ObjectModel(Integer id, String name, String description, String version, Boolean multiple, Boolean mandatory,
             ResourceModel... resources) {
@@ -83,6 +84,20 @@ public class ObjectModel {
             resourcesMap.put(resource.id, resource);
         }
         this.resources = Collections.unmodifiableMap(resourcesMap);
+        this.resourcesIndex = IntKeyedIndex.of(resourcesMap);
+    }
+
+    /**
+     * Get the model of a resource of this object.
+     * <p>
+     * This is equivalent to <code>resources.get(resourceId)</code> but without boxing nor hashing, so this should be
+     * preferred on hot path (e.g. encoding/decoding).
+     *
+     * @return the resource model or <code>null</code> if there is no resource with this id.
+     * @since 2.0
+     */
+    public ResourceModel getResourceModel(int resourceId) {
+        return resourcesIndex.get(resourceId);
     }
 
     public boolean isOmaObject() {
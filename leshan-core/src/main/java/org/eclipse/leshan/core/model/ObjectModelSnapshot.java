@@ -0,0 +1,322 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.leshan.core.model.ResourceModel.Operations;
+import org.eclipse.leshan.core.model.ResourceModel.Type;
+
+/**
+ * A binary snapshot of {@link ObjectModel}s parsed from DDF files, keyed by file name and hash of file content.
+ * <p>
+ * Snapshot file is memory-mapped and models of a DDF file are decoded only when its content did not change since the
+ * snapshot was written.
+ *
+ * @see ObjectLoader#loadObjectsFromDir(File, File, DDFFileParser, ObjectModelValidator,
+ *      java.util.concurrent.ExecutorService)
+ */
+class ObjectModelSnapshot {
+
+    private static final int MAGIC = 0x4C4D4D53; // "LMMS"
+    // version 2 : enum values are written by name, so snapshots do not depend on enum constants order
+    private static final int FORMAT_VERSION = 2;
+
+    /**
+     * Models of a DDF file.
+     */
+    static class Entry {
+        final String fileName;
+        final byte[] hash;
+        final List<ObjectModel> models;
+
+        Entry(String fileName, byte[] hash, List<ObjectModel> models) {
+            this.fileName = fileName;
+            this.hash = hash;
+            this.models = models;
+        }
+    }
+
+    private static class IndexEntry {
+        final byte[] hash;
+        final int offset;
+
+        IndexEntry(byte[] hash, int offset) {
+            this.hash = hash;
+            this.offset = offset;
+        }
+    }
+
+    private final ByteBuffer buffer;
+    private final boolean validated;
+    private final Map<String, IndexEntry> index;
+
+    private ObjectModelSnapshot(ByteBuffer buffer, boolean validated, Map<String, IndexEntry> index) {
+        this.buffer = buffer;
+        this.validated = validated;
+        this.index = index;
+    }
+
+    /**
+     * @return <code>true</code> if models were validated before being written in this snapshot.
+     */
+    boolean isValidated() {
+        return validated;
+    }
+
+    int size() {
+        return index.size();
+    }
+
+    /**
+     * @return models of the given file or <code>null</code> if there is no models for this file with this hash.
+     * @throws IllegalArgumentException if snapshot is corrupted
+     */
+    List<ObjectModel> getModels(String fileName, byte[] hash) {
+        IndexEntry entry = index.get(fileName);
+        if (entry == null || !Arrays.equals(entry.hash, hash)) {
+            return null;
+        }
+        // use a duplicate to allow concurrent decoding
+        ByteBuffer b = buffer.duplicate();
+        try {
+            b.position(entry.offset);
+            int nbModels = b.getInt();
+            List<ObjectModel> models = new ArrayList<>(nbModels);
+            for (int i = 0; i < nbModels; i++) {
+                models.add(readObjectModel(b));
+            }
+            return models;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format("Corrupted models for %s", fileName), e);
+        }
+    }
+
+    /**
+     * Read a snapshot file using a memory-mapped buffer.
+     *
+     * @throws IOException if file can not be read
+     * @throws IllegalArgumentException if file is not a valid snapshot
+     */
+    static ObjectModelSnapshot read(File file) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                throw new IllegalArgumentException(String.format("%s is not a supported model snapshot", file));
+            }
+            boolean validated = buffer.get() != 0;
+            int nbEntries = buffer.getInt();
+            Map<String, IndexEntry> index = new HashMap<>();
+            for (int i = 0; i < nbEntries; i++) {
+                String fileName = readString(buffer);
+                byte[] hash = new byte[buffer.get() & 0xFF];
+                buffer.get(hash);
+                index.put(fileName, new IndexEntry(hash, buffer.getInt()));
+            }
+            return new ObjectModelSnapshot(buffer, validated, index);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException(String.format("%s is a corrupted model snapshot", file), e);
+        }
+    }
+
+    /**
+     * Write a snapshot file. Snapshot is written in a temporary file which then replaces the given one.
+     */
+    static void write(File file, boolean validated, List<Entry> entries) throws IOException {
+        // encode models of each file
+        List<byte[]> encodedEntries = new ArrayList<>(entries.size());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (Entry entry : entries) {
+            bytes.reset();
+            out.writeInt(entry.models.size());
+            for (ObjectModel model : entry.models) {
+                writeObjectModel(out, model);
+            }
+            encodedEntries.add(bytes.toByteArray());
+        }
+
+        // encode header and index
+        bytes.reset();
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeBoolean(validated);
+        out.writeInt(entries.size());
+        for (Entry entry : entries) {
+            writeString(out, entry.fileName);
+            out.writeByte(entry.hash.length);
+            out.write(entry.hash);
+            out.writeInt(0); // offset, computed below
+        }
+        byte[] header = bytes.toByteArray();
+
+        // compute offset of each entry
+        ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+        headerBuffer.position(13);
+        int offset = header.length;
+        for (int i = 0; i < entries.size(); i++) {
+            skipString(headerBuffer);
+            headerBuffer.position(headerBuffer.position() + 1 + entries.get(i).hash.length);
+            headerBuffer.putInt(offset);
+            offset += encodedEntries.get(i).length;
+        }
+
+        // write all
+        Path target = file.toPath();
+        Path tmp = Files.createTempFile(target.toAbsolutePath().getParent(), file.getName(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(header));
+                for (byte[] encodedEntry : encodedEntries) {
+                    channel.write(ByteBuffer.wrap(encodedEntry));
+                }
+            }
+            try {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void writeObjectModel(DataOutputStream out, ObjectModel model) throws IOException {
+        writeInteger(out, model.id);
+        writeString(out, model.name);
+        writeString(out, model.description);
+        writeString(out, model.version);
+        writeBoolean(out, model.multiple);
+        writeBoolean(out, model.mandatory);
+        writeString(out, model.urn);
+        writeString(out, model.lwm2mVersion);
+        writeString(out, model.description2);
+        out.writeInt(model.resources.size());
+        for (ResourceModel resource : model.resources.values()) {
+            writeInteger(out, resource.id);
+            writeString(out, resource.name);
+            writeString(out, resource.operations == null ? null : resource.operations.name());
+            writeBoolean(out, resource.multiple);
+            writeBoolean(out, resource.mandatory);
+            writeString(out, resource.type == null ? null : resource.type.name());
+            writeString(out, resource.rangeEnumeration);
+            writeString(out, resource.units);
+            writeString(out, resource.description);
+        }
+    }
+
+    private static ObjectModel readObjectModel(ByteBuffer in) {
+        Integer id = readInteger(in);
+        String name = readString(in);
+        String description = readString(in);
+        String version = readString(in);
+        Boolean multiple = readBoolean(in);
+        Boolean mandatory = readBoolean(in);
+        String urn = readString(in);
+        String lwm2mVersion = readString(in);
+        String description2 = readString(in);
+        int nbResources = in.getInt();
+        List<ResourceModel> resources = new ArrayList<>(nbResources);
+        for (int i = 0; i < nbResources; i++) {
+            Integer resourceId = readInteger(in);
+            String resourceName = readString(in);
+            String operations = readString(in);
+            Boolean resourceMultiple = readBoolean(in);
+            Boolean resourceMandatory = readBoolean(in);
+            String type = readString(in);
+            String rangeEnumeration = readString(in);
+            String units = readString(in);
+            String resourceDescription = readString(in);
+            resources.add(new ResourceModel(resourceId, resourceName,
+                    operations == null ? null : Operations.valueOf(operations), resourceMultiple, resourceMandatory,
+                    type == null ? null : Type.valueOf(type), rangeEnumeration, units, resourceDescription));
+        }
+        return new ObjectModel(id, name, description, version, multiple, mandatory, resources, urn, lwm2mVersion,
+                description2);
+    }
+
+    private static void writeInteger(DataOutputStream out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    private static Integer readInteger(ByteBuffer in) {
+        return in.get() == 0 ? null : in.getInt();
+    }
+
+    private static void writeBoolean(DataOutputStream out, Boolean value) throws IOException {
+        out.writeByte(value == null ? -1 : value ? 1 : 0);
+    }
+
+    private static Boolean readBoolean(ByteBuffer in) {
+        byte value = in.get();
+        return value < 0 ? null : value != 0;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void skipString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length > 0) {
+            in.position(in.position() + length);
+        }
+    }
+}
@@ -32,6 +32,7 @@ public class StaticModel implements LwM2mModel {
     private static final Logger LOG = LoggerFactory.getLogger(StaticModel.class);
 
     private final Map<Integer, ObjectModel> objects; // objects by ID
+    private final IntKeyedIndex<ObjectModel> objectsIndex; // objects by ID, without boxing
 
     public StaticModel(ObjectModel... objectModels) {
         this(Arrays.asList(objectModels));
@@ -50,20 +51,21 @@ public class StaticModel implements LwM2mModel {
             }
             objects = Collections.unmodifiableMap(map);
         }
+        objectsIndex = IntKeyedIndex.of(objects);
     }
 
     @Override
     public ResourceModel getResourceModel(int objectId, int resourceId) {
-        ObjectModel object = objects.get(objectId);
+        ObjectModel object = objectsIndex.get(objectId);
         if (object != null) {
-            return object.resources.get(resourceId);
+            return object.getResourceModel(resourceId);
         }
         return null;
     }
 
     @Override
     public ObjectModel getObjectModel(int objectId) {
-        return objects.get(objectId);
+        return objectsIndex.get(objectId);
     }
 
     @Override
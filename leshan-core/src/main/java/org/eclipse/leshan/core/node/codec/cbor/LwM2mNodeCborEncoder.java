@@ -17,6 +17,7 @@ package org.eclipse.leshan.core.node.codec.cbor;
 
 import java.util.Date;
 
+import org.eclipse.leshan.core.cbor.CborWriter;
 import org.eclipse.leshan.core.link.DefaultLinkSerializer;
 import org.eclipse.leshan.core.link.Link;
 import org.eclipse.leshan.core.link.LinkSerializer;
@@ -36,13 +37,10 @@ import org.eclipse.leshan.core.node.codec.CodecException;
 import org.eclipse.leshan.core.node.codec.LwM2mValueConverter;
 import org.eclipse.leshan.core.node.codec.NodeEncoder;
 import org.eclipse.leshan.core.util.Validate;
-import org.eclipse.leshan.core.util.datatype.NumberUtil;
 import org.eclipse.leshan.core.util.datatype.ULong;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.upokecenter.cbor.CBORObject;
-
 public class LwM2mNodeCborEncoder implements NodeEncoder {
 
     private static final Logger LOG = LoggerFactory.getLogger(LwM2mNodeCborEncoder.class);
@@ -112,9 +110,7 @@ public class LwM2mNodeCborEncoder implements NodeEncoder {
                         "Unable to encode value for resource {} without type(probably a executable one)", path);
             }
 
-            CBORObject cbor = getCborValue(expectedType, val);
-
-            encoded = cbor.EncodeToBytes();
+            encoded = writeCborValue(expectedType, val, new CborWriter(16)).toByteArray();
         }
 
         @Override
@@ -130,59 +126,40 @@ public class LwM2mNodeCborEncoder implements NodeEncoder {
                         "Unable to encode value for resource {} without type(probably a executable one)", path);
             }
 
-            CBORObject cbor = getCborValue(expectedType, val);
-
-            encoded = cbor.EncodeToBytes();
+            encoded = writeCborValue(expectedType, val, new CborWriter(16)).toByteArray();
         }
 
-        private CBORObject getCborValue(Type expectedType, Object val) {
-            CBORObject cbor;
+        private CborWriter writeCborValue(Type expectedType, Object val, CborWriter writer) {
             if (val == null) {
-                return CBORObject.Null;
+                return writer.writeNull();
             }
             switch (expectedType) {
             case INTEGER:
-                cbor = CBORObject.FromObject((long) val);
-                break;
+                return writer.writeInteger((long) val);
             case FLOAT:
-                cbor = CBORObject.FromObject((double) val);
-                break;
+                return writer.writeDouble((double) val);
             case STRING:
-                cbor = CBORObject.FromObject((String) val);
-                break;
+                return writer.writeString((String) val);
             case UNSIGNED_INTEGER:
-                cbor = CBORObject.FromObject(NumberUtil.unsignedLongToEInteger(((ULong) val).longValue()));
-                break;
+                return writer.writeUnsignedInteger((ULong) val);
             case BOOLEAN:
-                cbor = ((Boolean) val) ? CBORObject.True : CBORObject.False;
-                break;
+                return writer.writeBoolean((Boolean) val);
             case TIME:
                 // see https://tools.ietf.org/html/rfc7049#section-2.4.1
                 // number of seconds since 1970/1/1
                 long time = ((Date) val).getTime() / 1000;
-                cbor = CBORObject.FromObjectAndTag(time, 1);
-
-                // maybe a new API will be available in new version of CBOR-java :
-                // https://github.com/peteroupc/CBOR-Java/issues/14#issuecomment-737114305
-
-                // using this could works but encode the date as string sounds a bit less straightforward.
-                // cbor = CBORObject.FromObject(val); // val must be a Date
-                break;
+                return writer.writeTag(1).writeInteger(time);
             case OBJLNK:
                 ObjectLink objlnk = (ObjectLink) val;
-                cbor = CBORObject.FromObject(objlnk.encodeToString());
-                break;
+                return writer.writeString(objlnk.encodeToString());
             case CORELINK:
                 Link[] links = (Link[]) val;
-                cbor = CBORObject.FromObject(linkSerializer.serializeCoreLinkFormat(links));
-                break;
+                return writer.writeString(linkSerializer.serializeCoreLinkFormat(links));
             case OPAQUE:
-                cbor = CBORObject.FromObject((byte[]) val);
-                break;
+                return writer.writeBytes((byte[]) val);
             default:
                 throw new CodecException("Cannot encode %s in cbor format for %s", val, path);
             }
-            return cbor;
         }
     }
 }
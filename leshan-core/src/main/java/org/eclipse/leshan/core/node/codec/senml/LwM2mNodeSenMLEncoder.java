@@ -15,7 +15,6 @@ package org.eclipse.leshan.core.node.codec.senml;
 
 import java.math.BigDecimal;
 import java.time.Instant;
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -47,8 +46,8 @@ import org.eclipse.leshan.core.util.TimestampUtil;
 import org.eclipse.leshan.core.util.Validate;
 import org.eclipse.leshan.senml.SenMLEncoder;
 import org.eclipse.leshan.senml.SenMLException;
-import org.eclipse.leshan.senml.SenMLPack;
 import org.eclipse.leshan.senml.SenMLRecord;
+import org.eclipse.leshan.senml.SenMLRecordWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -73,18 +72,17 @@ public class LwM2mNodeSenMLEncoder implements TimestampedNodeEncoder, MultiNodeE
         Validate.notNull(path);
         Validate.notNull(model);
 
+        SenMLRecordWriter writer = encoder.newRecordWriter();
         InternalEncoder internalEncoder = new InternalEncoder();
         internalEncoder.objectId = path.getObjectId();
         internalEncoder.model = model;
         internalEncoder.requestPath = path;
         internalEncoder.converter = converter;
+        internalEncoder.writer = writer;
         node.accept(internalEncoder);
 
-        SenMLPack pack = new SenMLPack();
-        pack.setRecords(internalEncoder.records);
-
         try {
-            return encoder.toSenML(pack);
+            return writer.toSenML();
         } catch (SenMLException e) {
             throw new CodecException(e, "Unable to encode node[path:%s] : %s", path, node);
         }
@@ -96,8 +94,8 @@ public class LwM2mNodeSenMLEncoder implements TimestampedNodeEncoder, MultiNodeE
         // validate arguments
         Validate.notEmpty(nodes);
 
-        // Encodes nodes to SenML pack
-        SenMLPack pack = new SenMLPack();
+        // Encodes nodes to SenML records
+        SenMLRecordWriter writer = encoder.newRecordWriter();
         for (Entry<LwM2mPath, LwM2mNode> entry : nodes.entrySet()) {
             LwM2mPath path = entry.getKey();
             InternalEncoder internalEncoder = new InternalEncoder();
@@ -105,11 +103,10 @@ public class LwM2mNodeSenMLEncoder implements TimestampedNodeEncoder, MultiNodeE
             internalEncoder.model = model;
             internalEncoder.requestPath = path;
             internalEncoder.converter = converter;
-            internalEncoder.records = new ArrayList<>();
+            internalEncoder.writer = writer;
             LwM2mNode node = entry.getValue();
             if (node != null) {
                 node.accept(internalEncoder);
-                pack.addRecords(internalEncoder.records);
             }
             // else
             // We just ignore null node as the LWM2M specification says that "Read-Composite operation is treated as
@@ -120,7 +117,7 @@ public class LwM2mNodeSenMLEncoder implements TimestampedNodeEncoder, MultiNodeE
 
         // Encodes SenML pack using internal encoder (it could be SenML-JSON or SenML-CBOR encoder)
         try {
-            return encoder.toSenML(pack);
+            return writer.toSenML();
         } catch (SenMLException e) {
             throw new CodecException(e, "Unable to encode multi node[paths:%s] : %s", nodes.keySet(), nodes);
         }
@@ -133,7 +130,7 @@ public class LwM2mNodeSenMLEncoder implements TimestampedNodeEncoder, MultiNodeE
         Validate.notNull(path);
         Validate.notNull(model);
 
-        SenMLPack pack = new SenMLPack();
+        SenMLRecordWriter writer = encoder.newRecordWriter();
         for (TimestampedLwM2mNode timestampedLwM2mNode : timestampedNodes) {
 
             if (timestampedLwM2mNode.getTimestamp().getEpochSecond() < 268_435_456) {
@@ -149,15 +146,13 @@ public class LwM2mNodeSenMLEncoder implements TimestampedNodeEncoder, MultiNodeE
             internalEncoder.model = model;
             internalEncoder.requestPath = path;
             internalEncoder.converter = converter;
-            internalEncoder.records = new ArrayList<>();
+            internalEncoder.writer = writer;
+            internalEncoder.baseTime = TimestampUtil.fromInstant(timestampedLwM2mNode.getTimestamp());
             timestampedLwM2mNode.getNode().accept(internalEncoder);
-            BigDecimal timestampInSeconds = TimestampUtil.fromInstant(timestampedLwM2mNode.getTimestamp());
-            internalEncoder.records.get(0).setBaseTime(timestampInSeconds);
-            pack.addRecords(internalEncoder.records);
         }
 
         try {
-            return encoder.toSenML(pack);
+            return writer.toSenML();
         } catch (SenMLException e) {
             throw new CodecException(e, "Unable to encode timestamped node[path:%s] : %s", path, timestampedNodes);
         }
@@ -168,7 +163,7 @@ public class LwM2mNodeSenMLEncoder implements TimestampedNodeEncoder, MultiNodeE
             LwM2mValueConverter converter) throws CodecException {
         Validate.notEmpty(timestampedNodes.getTimestamps());
 
-        SenMLPack pack = new SenMLPack();
+        SenMLRecordWriter writer = encoder.newRecordWriter();
         for (Instant timestamp : timestampedNodes.getTimestamps()) {
             Map<LwM2mPath, LwM2mNode> nodesAtTimestamp = timestampedNodes.getNodesAt(timestamp);
             for (Entry<LwM2mPath, LwM2mNode> entry : nodesAtTimestamp.entrySet()) {
@@ -178,22 +173,17 @@ public class LwM2mNodeSenMLEncoder implements TimestampedNodeEncoder, MultiNodeE
                 internalEncoder.model = model;
                 internalEncoder.requestPath = path;
                 internalEncoder.converter = converter;
-                internalEncoder.records = new ArrayList<>();
+                internalEncoder.writer = writer;
+                internalEncoder.baseTime = TimestampUtil.fromInstant(timestamp);
                 LwM2mNode node = entry.getValue();
                 if (node != null) {
                     node.accept(internalEncoder);
-
-                    List<SenMLRecord> records = internalEncoder.records;
-                    if (!records.isEmpty()) {
-                        records.get(0).setBaseTime(TimestampUtil.fromInstant(timestamp));
-                        pack.addRecords(records);
-                    }
                 }
             }
         }
 
         try {
-            return encoder.toSenML(pack);
+            return writer.toSenML();
         } catch (SenMLException e) {
             throw new CodecException(e, "Unable to encode timestamped nodes: %s", timestampedNodes);
         }
@@ -205,9 +195,12 @@ public class LwM2mNodeSenMLEncoder implements TimestampedNodeEncoder, MultiNodeE
         private LwM2mModel model;
         private LwM2mPath requestPath;
         private LwM2mValueConverter converter;
+        // base time of first record, if any
+        private BigDecimal baseTime;
 
         // visitor output
-        private ArrayList<SenMLRecord> records = new ArrayList<>();
+        private SenMLRecordWriter writer;
+        private int nbRecords = 0;
 
         @Override
         public void visit(LwM2mRoot root) {
@@ -329,9 +322,10 @@ public class LwM2mNodeSenMLEncoder implements TimestampedNodeEncoder, MultiNodeE
                 bn += "/";
             }
 
-            // Set basename only for first record
-            if (records.isEmpty()) {
+            // Set basename and base time only for first record
+            if (nbRecords == 0) {
                 record.setBaseName(bn);
+                record.setBaseTime(baseTime);
             }
             record.setName(n);
 
@@ -340,8 +334,13 @@ public class LwM2mNodeSenMLEncoder implements TimestampedNodeEncoder, MultiNodeE
             Object convertedValue = converter.convertValue(value, valueType, expectedType, lwM2mResourcePath);
             setResourceValue(convertedValue, expectedType, lwM2mResourcePath, record);
 
-            // Add record to the List
-            records.add(record);
+            // Write record
+            try {
+                writer.write(record);
+                nbRecords++;
+            } catch (SenMLException e) {
+                throw new CodecException(e, "Unable to encode node[path:%s] : %s", lwM2mResourcePath, value);
+            }
         }
 
         private void setResourceValue(Object value, Type type, LwM2mPath resourcePath, SenMLRecord record) {
@@ -15,11 +15,13 @@
  *******************************************************************************/
 package org.eclipse.leshan.core.node.codec.tlv;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import java.util.Map.Entry;
+import java.util.function.IntSupplier;
 
 import org.eclipse.leshan.core.link.DefaultLinkSerializer;
 import org.eclipse.leshan.core.link.Link;
@@ -42,7 +44,7 @@ import org.eclipse.leshan.core.node.codec.LwM2mValueConverter;
 import org.eclipse.leshan.core.node.codec.NodeEncoder;
 import org.eclipse.leshan.core.tlv.Tlv;
 import org.eclipse.leshan.core.tlv.Tlv.TlvType;
-import org.eclipse.leshan.core.tlv.TlvEncoder;
+import org.eclipse.leshan.core.tlv.TlvWriter;
 import org.eclipse.leshan.core.util.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -76,9 +78,17 @@ public class LwM2mNodeTlvEncoder implements NodeEncoder {
         internalEncoder.model = model;
         internalEncoder.converter = converter;
         node.accept(internalEncoder);
-        return internalEncoder.out.toByteArray();
+        return internalEncoder.out;
     }
 
+    /**
+     * Encode nodes in 2 passes without intermediate {@link Tlv} tree:
+     * <ol>
+     * <li>a sizing pass which converts values and computes length of each TLV,</li>
+     * <li>a writing pass which writes TLVs in a single pre-sized buffer using the results of the first pass.</li>
+     * </ol>
+     * Both passes walk the nodes in the same order.
+     */
     private class InternalEncoder implements LwM2mNodeVisitor {
 
         // visitor inputs
@@ -86,8 +96,19 @@ public class LwM2mNodeTlvEncoder implements NodeEncoder {
         private LwM2mModel model;
         private LwM2mValueConverter converter;
 
+        // sizing pass output : TLV lengths, converted values and their types in writing order
+        private int[] lengths = new int[16];
+        private int lengthsSize = 0;
+        private final List<Object> values = new ArrayList<>();
+        private final List<Type> types = new ArrayList<>();
+
+        // writing pass state
+        private TlvWriter writer;
+        private int lengthsIndex = 0;
+        private int valuesIndex = 0;
+
         // visitor output
-        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private byte[] out;
 
         @Override
         public void visit(LwM2mRoot root) {
@@ -98,46 +119,31 @@ public class LwM2mNodeTlvEncoder implements NodeEncoder {
         public void visit(LwM2mObject object) {
             LOG.trace("Encoding object {} into TLV", object);
 
-            Tlv[] tlvs;
-
             // encoded as an array of instances
-            tlvs = new Tlv[object.getInstances().size()];
-            int i = 0;
-            for (Entry<Integer, LwM2mObjectInstance> instance : object.getInstances().entrySet()) {
-                Tlv[] resources = encodeResources(instance.getValue().getResources().values(),
-                        new LwM2mPath(object.getId(), instance.getKey()));
-                tlvs[i] = new Tlv(TlvType.OBJECT_INSTANCE, resources, null, instance.getKey());
-                i++;
-            }
-
-            try {
-                out.write(TlvEncoder.encode(tlvs).array());
-            } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
+            encode(() -> {
+                int size = 0;
+                for (Entry<Integer, LwM2mObjectInstance> instance : object.getInstances().entrySet()) {
+                    size += encodeInstance(instance.getKey(), instance.getValue().getResources().values(),
+                            new LwM2mPath(object.getId(), instance.getKey()));
+                }
+                return size;
+            });
         }
 
         @Override
         public void visit(LwM2mObjectInstance instance) {
             LOG.trace("Encoding object instance {} into TLV", instance);
 
-            Tlv[] tlvs;
             if (path.isObjectInstance() || instance.getId() == LwM2mObjectInstance.UNDEFINED) {
                 // the instanceId is part of the request path or is undefined
                 // so the instance TLV layer is not needed.
                 // encoded as an array of resource TLVs
-                tlvs = encodeResources(instance.getResources().values(), new LwM2mIncompletePath(path.getObjectId()));
+                LwM2mPath instancePath = new LwM2mIncompletePath(path.getObjectId());
+                encode(() -> encodeResources(instance.getResources().values(), instancePath));
             } else {
                 // encoded as an instance TLV
-                Tlv[] resources = encodeResources(instance.getResources().values(),
-                        new LwM2mPath(path.getObjectId(), instance.getId()));
-                tlvs = new Tlv[] { new Tlv(TlvType.OBJECT_INSTANCE, resources, null, instance.getId()) };
-            }
-
-            try {
-                out.write(TlvEncoder.encode(tlvs).array());
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+                LwM2mPath instancePath = new LwM2mPath(path.getObjectId(), instance.getId());
+                encode(() -> encodeInstance(instance.getId(), instance.getResources().values(), instancePath));
             }
         }
 
@@ -145,104 +151,193 @@ public class LwM2mNodeTlvEncoder implements NodeEncoder {
         public void visit(LwM2mResource resource) {
             LOG.trace("Encoding resource {} into TLV", resource);
 
-            Tlv rTlv = encodeResource(resource, path);
+            encode(() -> encodeResource(resource, path));
+        }
+
+        @Override
+        public void visit(LwM2mResourceInstance resourceInstance) {
+            LOG.trace("Encoding resource instance {} into TLV", resourceInstance);
 
-            try {
-                out.write(TlvEncoder.encode(new Tlv[] { rTlv }).array());
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+            ResourceModel rSpec = model.getResourceModel(path.getObjectId(), path.getResourceId());
+            Type expectedType = rSpec != null ? rSpec.type : resourceInstance.getType();
+
+            encode(() -> encodeResourceInstance(resourceInstance, path, expectedType));
+        }
+
+        /**
+         * Run the sizing pass then the writing pass of the given TLVs encoding.
+         */
+        private void encode(IntSupplier tlvs) {
+            int size = tlvs.getAsInt();
+            writer = new TlvWriter(size);
+            tlvs.getAsInt();
+            out = writer.toByteArray();
+        }
+
+        private boolean isSizing() {
+            return writer == null;
+        }
+
+        private int encodeInstance(int instanceId, Collection<LwM2mResource> resources, LwM2mPath instancePath) {
+            if (isSizing()) {
+                int slot = reserveLength();
+                int length = encodeResources(resources, instancePath);
+                lengths[slot] = length;
+                return TlvWriter.tlvSize(instanceId, length);
+            } else {
+                writer.writeHeader(TlvType.OBJECT_INSTANCE, instanceId, lengths[lengthsIndex++]);
+                encodeResources(resources, instancePath);
+                return 0;
             }
         }
 
-        private Tlv[] encodeResources(Collection<LwM2mResource> resources, LwM2mPath instancePath) {
-            Tlv[] rTlvs = new Tlv[resources.size()];
-            int i = 0;
+        private int encodeResources(Collection<LwM2mResource> resources, LwM2mPath instancePath) {
+            int size = 0;
             for (LwM2mResource resource : resources) {
-                rTlvs[i] = encodeResource(resource, instancePath.append(resource.getId()));
-                i++;
+                size += encodeResource(resource, append(instancePath, resource.getId()));
             }
-            return rTlvs;
+            return size;
         }
 
-        private Tlv encodeResource(LwM2mResource resource, LwM2mPath resourcePath) {
-            ResourceModel rSpec = model.getResourceModel(path.getObjectId(), resource.getId());
-            Type expectedType = rSpec != null ? rSpec.type : resource.getType();
-
-            Tlv rTlv;
+        private int encodeResource(LwM2mResource resource, LwM2mPath resourcePath) {
             if (resource.isMultiInstances()) {
-                Tlv[] instances = new Tlv[resource.getInstances().size()];
-                int i = 0;
-                for (LwM2mResourceInstance resourceInstance : resource.getInstances().values()) {
-                    LwM2mPath resourceInstancePath = resourcePath.append(resourceInstance.getId());
-                    instances[i] = encodeResourceInstance(resourceInstance, resourceInstancePath, expectedType);
-                    i++;
+                if (isSizing()) {
+                    ResourceModel rSpec = model.getResourceModel(path.getObjectId(), resource.getId());
+                    Type expectedType = rSpec != null ? rSpec.type : resource.getType();
+
+                    int slot = reserveLength();
+                    int length = 0;
+                    for (LwM2mResourceInstance resourceInstance : resource.getInstances().values()) {
+                        length += encodeResourceInstance(resourceInstance,
+                                resourcePath.append(resourceInstance.getId()), expectedType);
+                    }
+                    lengths[slot] = length;
+                    return TlvWriter.tlvSize(resource.getId(), length);
+                } else {
+                    writer.writeHeader(TlvType.MULTIPLE_RESOURCE, resource.getId(), lengths[lengthsIndex++]);
+                    for (LwM2mResourceInstance resourceInstance : resource.getInstances().values()) {
+                        encodeResourceInstance(resourceInstance, null, null);
+                    }
+                    return 0;
                 }
-                rTlv = new Tlv(TlvType.MULTIPLE_RESOURCE, instances, null, resource.getId());
             } else {
-                Object convertedValue = converter.convertValue(resource.getValue(), resource.getType(), expectedType,
-                        resourcePath);
-                rTlv = new Tlv(TlvType.RESOURCE_VALUE, null,
-                        this.encodeTlvValue(convertedValue, expectedType, resourcePath), resource.getId());
+                if (isSizing()) {
+                    ResourceModel rSpec = model.getResourceModel(path.getObjectId(), resource.getId());
+                    Type expectedType = rSpec != null ? rSpec.type : resource.getType();
+                    Object convertedValue = converter.convertValue(resource.getValue(), resource.getType(),
+                            expectedType, resourcePath);
+                    return sizeTlvValue(resource.getId(), convertedValue, expectedType, resourcePath);
+                } else {
+                    return writeTlvValue(TlvType.RESOURCE_VALUE, resource.getId());
+                }
             }
-            return rTlv;
         }
 
-        @Override
-        public void visit(LwM2mResourceInstance resourceInstance) {
-            LOG.trace("Encoding resource instance {} into TLV", resourceInstance);
-
-            ResourceModel rSpec = model.getResourceModel(path.getObjectId(), path.getResourceId());
-            Type expectedType = rSpec != null ? rSpec.type : resourceInstance.getType();
-
-            Tlv rTlv = encodeResourceInstance(resourceInstance, path, expectedType);
-
-            try {
-                out.write(TlvEncoder.encode(new Tlv[] { rTlv }).array());
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+        private int encodeResourceInstance(LwM2mResourceInstance resourceInstance, LwM2mPath resourceInstancePath,
+                Type expectedType) {
+            if (isSizing()) {
+                Object convertedValue = converter.convertValue(resourceInstance.getValue(), resourceInstance.getType(),
+                        expectedType, resourceInstancePath);
+                return sizeTlvValue(resourceInstance.getId(), convertedValue, expectedType, resourceInstancePath);
+            } else {
+                return writeTlvValue(TlvType.RESOURCE_INSTANCE, resourceInstance.getId());
             }
         }
 
-        private Tlv encodeResourceInstance(LwM2mResourceInstance resourceInstance, LwM2mPath resourceInstancePath,
-                Type expectedType) {
-            Object convertedValue = converter.convertValue(resourceInstance.getValue(), resourceInstance.getType(),
-                    expectedType, resourceInstancePath);
-            return new Tlv(TlvType.RESOURCE_INSTANCE, null,
-                    this.encodeTlvValue(convertedValue, expectedType, resourceInstancePath), resourceInstance.getId());
+        private LwM2mPath append(LwM2mPath path, int id) {
+            // paths are only needed to convert values during sizing pass
+            return isSizing() ? path.append(id) : null;
+        }
+
+        private int reserveLength() {
+            if (lengthsSize == lengths.length) {
+                lengths = Arrays.copyOf(lengths, lengthsSize * 2);
+            }
+            return lengthsSize++;
         }
 
-        private byte[] encodeTlvValue(Object value, Type type, LwM2mPath path) {
+        private int sizeTlvValue(int identifier, Object value, Type type, LwM2mPath path) {
             LOG.trace("Encoding value {} in TLV", value);
             if (type == null || type == Type.NONE) {
                 throw new CodecException(
                         "Unable to encode value for resource {} without type(probably a executable one)", path);
             }
 
+            int length;
             try {
                 switch (type) {
                 case STRING:
-                    return TlvEncoder.encodeString((String) value);
+                    length = TlvWriter.stringSize((String) value);
+                    break;
                 case INTEGER:
                 case UNSIGNED_INTEGER:
-                    return TlvEncoder.encodeInteger((Number) value);
+                    length = TlvWriter.integerSize(((Number) value).longValue());
+                    break;
                 case FLOAT:
-                    return TlvEncoder.encodeFloat((Number) value);
+                    length = TlvWriter.floatSize((Number) value);
+                    break;
                 case BOOLEAN:
-                    return TlvEncoder.encodeBoolean((Boolean) value);
+                    length = 1;
+                    break;
                 case TIME:
-                    return TlvEncoder.encodeDate((Date) value);
+                    length = 4;
+                    break;
                 case OPAQUE:
-                    return (byte[]) value;
+                    length = ((byte[]) value).length;
+                    break;
                 case OBJLNK:
-                    return TlvEncoder.encodeObjlnk((ObjectLink) value);
+                    length = 4;
+                    break;
                 case CORELINK:
-                    return TlvEncoder.encodeString(linkSerializer.serializeCoreLinkFormat((Link[]) value));
+                    value = linkSerializer.serializeCoreLinkFormat((Link[]) value);
+                    length = TlvWriter.stringSize((String) value);
+                    break;
                 default:
                     throw new CodecException("Invalid value %s for type %s of %s", value, type, path);
                 }
             } catch (IllegalArgumentException e) {
                 throw new CodecException(e, "Invalid value %s for type %s of %s", value, type, path);
             }
+
+            int slot = reserveLength();
+            lengths[slot] = length;
+            values.add(value);
+            types.add(type);
+            return TlvWriter.tlvSize(identifier, length);
+        }
+
+        private int writeTlvValue(TlvType tlvType, int identifier) {
+            writer.writeHeader(tlvType, identifier, lengths[lengthsIndex++]);
+            Object value = values.get(valuesIndex);
+            Type type = types.get(valuesIndex++);
+            switch (type) {
+            case STRING:
+            case CORELINK: // already serialized during sizing pass
+                writer.writeString((String) value);
+                break;
+            case INTEGER:
+            case UNSIGNED_INTEGER:
+                writer.writeInteger(((Number) value).longValue());
+                break;
+            case FLOAT:
+                writer.writeFloat((Number) value);
+                break;
+            case BOOLEAN:
+                writer.writeBoolean((Boolean) value);
+                break;
+            case TIME:
+                writer.writeDate((Date) value);
+                break;
+            case OPAQUE:
+                writer.writeBytes((byte[]) value);
+                break;
+            case OBJLNK:
+                writer.writeObjlnk((ObjectLink) value);
+                break;
+            default:
+                throw new IllegalStateException("Unexpected type " + type);
+            }
+            return 0;
         }
     }
 }
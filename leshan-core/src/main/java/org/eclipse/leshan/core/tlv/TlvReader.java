@@ -0,0 +1,291 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.tlv;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.eclipse.leshan.core.node.ObjectLink;
+import org.eclipse.leshan.core.tlv.Tlv.TlvType;
+import org.eclipse.leshan.core.util.Hex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A cursor over TLV encoded content which reads values directly from the underlying byte array, without creating
+ * {@link Tlv} objects or copying values.
+ * <p>
+ * Call {@link #next()} to move to the next TLV of the current level, then read its value with <code>read*</code>
+ * methods or use {@link #children()} to iterate over its children.
+ * <p>
+ * Value decoding follows same rules as {@link TlvDecoder}.
+ *
+ * @see TlvDecoder
+ * @see TlvWriter
+ */
+public class TlvReader {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TlvReader.class);
+
+    private final byte[] buffer;
+    private final int end;
+    private int position;
+
+    // current TLV
+    private TlvType type;
+    private int identifier;
+    private int valueOffset;
+    private int length;
+
+    public TlvReader(byte[] buffer) {
+        this(buffer, 0, buffer.length);
+    }
+
+    public TlvReader(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.position = offset;
+        this.end = offset + length;
+    }
+
+    /**
+     * @return <code>true</code> if there is TLV remaining at this level.
+     */
+    public boolean hasNext() {
+        return position < end;
+    }
+
+    /**
+     * Move the cursor to the next TLV of this level.
+     *
+     * @throws TlvException if TLV header is invalid or if value exceed the content.
+     */
+    public void next() throws TlvException {
+        if (position >= end) {
+            throw new TlvException("No more TLV to read");
+        }
+        int typeByte = buffer[position++] & 0xFF;
+        switch (typeByte & 0b1100_0000) {
+        case 0b0000_0000:
+            type = TlvType.OBJECT_INSTANCE;
+            break;
+        case 0b0100_0000:
+            type = TlvType.RESOURCE_INSTANCE;
+            break;
+        case 0b1000_0000:
+            type = TlvType.MULTIPLE_RESOURCE;
+            break;
+        default:
+            type = TlvType.RESOURCE_VALUE;
+            break;
+        }
+
+        // decode identifier
+        if ((typeByte & 0b0010_0000) == 0) {
+            identifier = readUnsigned(1, "identifier");
+        } else {
+            identifier = readUnsigned(2, "identifier");
+        }
+
+        // decode length
+        switch (typeByte & 0b0001_1000) {
+        case 0b0000_0000:
+            // 3 bit length
+            length = typeByte & 0b0000_0111;
+            break;
+        case 0b0000_1000:
+            length = readUnsigned(1, "length");
+            break;
+        case 0b0001_0000:
+            length = readUnsigned(2, "length");
+            break;
+        default:
+            length = readUnsigned(3, "length");
+            break;
+        }
+
+        if (length > end - position) {
+            throw new TlvException(
+                    String.format("Invalid 'value' length : %d bytes expected but only %d available for TLV %s %d",
+                            length, end - position, type, identifier));
+        }
+        valueOffset = position;
+        position += length;
+        LOG.trace("reading {} {} of length {}", type, identifier, length);
+    }
+
+    /**
+     * @return the number of TLV remaining at this level, without moving the cursor.
+     */
+    public int count() throws TlvException {
+        TlvReader counter = new TlvReader(buffer, position, end - position);
+        int count = 0;
+        while (counter.hasNext()) {
+            counter.next();
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return the type of the next TLV without moving the cursor, or <code>null</code> if there is no more TLV.
+     */
+    public TlvType peekType() {
+        if (!hasNext()) {
+            return null;
+        }
+        switch (buffer[position] & 0b1100_0000) {
+        case 0b0000_0000:
+            return TlvType.OBJECT_INSTANCE;
+        case 0b0100_0000:
+            return TlvType.RESOURCE_INSTANCE;
+        case 0b1000_0000:
+            return TlvType.MULTIPLE_RESOURCE;
+        default:
+            return TlvType.RESOURCE_VALUE;
+        }
+    }
+
+    public TlvType getType() {
+        return type;
+    }
+
+    public int getIdentifier() {
+        return identifier;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return a reader over children of current TLV.
+     */
+    public TlvReader children() {
+        return new TlvReader(buffer, valueOffset, length);
+    }
+
+    /**
+     * @return a copy of the current TLV value.
+     */
+    public byte[] getValue() {
+        return Arrays.copyOfRange(buffer, valueOffset, valueOffset + length);
+    }
+
+    /**
+     * @return the current TLV value as hexadecimal string, generally used for logging.
+     */
+    public String getValueAsHex() {
+        return Hex.encodeHexString(getValue());
+    }
+
+    // ------- Value decoding -------
+
+    /**
+     * @see TlvDecoder#decodeString(byte[])
+     */
+    public String readString() {
+        return new String(buffer, valueOffset, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @see TlvDecoder#decodeBoolean(byte[])
+     */
+    public boolean readBoolean() throws TlvException {
+        if (length == 1) {
+            byte value = buffer[valueOffset];
+            if (value == 0) {
+                return false;
+            } else if (value == 1) {
+                return true;
+            } else {
+                LOG.warn("Boolean value should be encoded as integer with value 0 or 1, not {}", value);
+                return false;
+            }
+        }
+        throw new TlvException("Invalid length for a boolean value: " + length);
+    }
+
+    /**
+     * @see TlvDecoder#decodeInteger(byte[])
+     */
+    public long readInteger() throws TlvException {
+        if (length == 0 || length > 8) {
+            throw new TlvException("Invalid length for an integer value: " + length);
+        }
+        return readSigned();
+    }
+
+    /**
+     * @see TlvDecoder#decodeDate(byte[])
+     */
+    public Date readDate() throws TlvException {
+        if (length == 0 || length > 8) {
+            throw new TlvException("Invalid length for a time value: " + length);
+        }
+        return new Date(readSigned() * 1000L);
+    }
+
+    /**
+     * @see TlvDecoder#decodeFloat(byte[])
+     */
+    public double readFloat() throws TlvException {
+        if (length == 4) {
+            return Float.intBitsToFloat((int) readSigned());
+        } else if (length == 8) {
+            return Double.longBitsToDouble(readSigned());
+        } else {
+            throw new TlvException("Invalid length for a float value: " + length);
+        }
+    }
+
+    /**
+     * @see TlvDecoder#decodeObjlnk(byte[])
+     */
+    public ObjectLink readObjlnk() throws TlvException {
+        if (length > 4) {
+            throw new TlvException("Invalid length for an objlnk value: " + length);
+        }
+        // missing bytes are considered as 0 like TlvDecoder does.
+        int objectId = (byteAt(0) << 8) | byteAt(1);
+        int objectInstanceId = (byteAt(2) << 8) | byteAt(3);
+        return new ObjectLink(objectId, objectInstanceId);
+    }
+
+    private int byteAt(int index) {
+        return index < length ? buffer[valueOffset + index] & 0xFF : 0;
+    }
+
+    private long readSigned() {
+        // first byte is sign extended
+        long value = buffer[valueOffset];
+        for (int i = 1; i < length; i++) {
+            value = (value << 8) | (buffer[valueOffset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    private int readUnsigned(int size, String field) throws TlvException {
+        if (size > end - position) {
+            throw new TlvException(String.format("Invalid '%s' length", field));
+        }
+        int value = 0;
+        for (int i = 0; i < size; i++) {
+            value = (value << 8) | (buffer[position++] & 0xFF);
+        }
+        return value;
+    }
+}
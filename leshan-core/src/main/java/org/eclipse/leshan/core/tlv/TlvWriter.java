@@ -0,0 +1,275 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.tlv;
+
+import java.util.Date;
+
+import org.eclipse.leshan.core.node.ObjectLink;
+import org.eclipse.leshan.core.tlv.Tlv.TlvType;
+
+/**
+ * A TLV writer which writes directly into a single pre-sized byte array, without creating {@link Tlv} objects or
+ * intermediate byte arrays.
+ * <p>
+ * The total size must be known when the writer is created. Use the static <code>*Size</code> methods during a first
+ * pass to compute it. Then write each TLV header followed by its value or its children.
+ *
+ * @see TlvEncoder
+ * @see TlvReader
+ */
+public class TlvWriter {
+
+    private static final int MAX_LENGTH_8BIT = 256;
+    private static final int MAX_LENGTH_16BIT = 65_536;
+    private static final int MAX_LENGTH_24BIT = 16_777_216;
+
+    private final byte[] buffer;
+    private int position = 0;
+
+    /**
+     * @param size the exact number of bytes which will be written.
+     */
+    public TlvWriter(int size) {
+        this.buffer = new byte[size];
+    }
+
+    // ------- Sizing -------
+
+    /**
+     * @return the size of a whole TLV (header + value) with the given identifier and value length.
+     */
+    public static int tlvSize(int identifier, int length) {
+        int size = 1 /* HEADER */;
+        size += (identifier < MAX_LENGTH_8BIT) ? 1 : 2; /* 8 bits or 16 bits identifiers */
+
+        if (length < 8) {
+            size += 0;
+        } else if (length < MAX_LENGTH_8BIT) {
+            size += 1;
+        } else if (length < MAX_LENGTH_16BIT) {
+            size += 2;
+        } else if (length < MAX_LENGTH_24BIT) {
+            size += 3;
+        } else {
+            throw new IllegalArgumentException("length should fit in max 24bits");
+        }
+        return size + length;
+    }
+
+    /**
+     * @return the size of the value encoded with {@link #writeInteger(long)}.
+     */
+    public static int integerSize(long value) {
+        if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            return 1;
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            return 2;
+        } else if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+            return 4;
+        } else {
+            return 8;
+        }
+    }
+
+    /**
+     * @return the size of the value encoded with {@link #writeFloat(Number)}.
+     */
+    public static int floatSize(Number value) {
+        return value instanceof Float ? 4 : 8;
+    }
+
+    /**
+     * @return the size of the value encoded with {@link #writeString(String)}, which is the length of the UTF-8
+     *         encoding of the string.
+     */
+    public static int stringSize(String value) {
+        int size = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                size += 1;
+            } else if (c < 0x800) {
+                size += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                size += 4;
+                i++;
+            } else {
+                // includes malformed surrogate encoded as '?' like String.getBytes does
+                size += Character.isSurrogate(c) ? 1 : 3;
+            }
+        }
+        return size;
+    }
+
+    // ------- Writing -------
+
+    /**
+     * Write the header of a TLV.
+     *
+     * @param type the TLV type
+     * @param identifier the TLV identifier
+     * @param length the length of the value, or the total size of children TLVs for container types.
+     */
+    public void writeHeader(TlvType type, int identifier, int length) {
+        int typeByte;
+        switch (type) {
+        case OBJECT_INSTANCE:
+            typeByte = 0b00_000000;
+            break;
+        case RESOURCE_INSTANCE:
+            typeByte = 0b01_000000;
+            break;
+        case MULTIPLE_RESOURCE:
+            typeByte = 0b10_000000;
+            break;
+        case RESOURCE_VALUE:
+            typeByte = 0b11_000000;
+            break;
+        default:
+            throw new IllegalArgumentException("unknown TLV type : '" + type + "'");
+        }
+
+        // encode identifier length
+        typeByte |= (identifier < MAX_LENGTH_8BIT) ? 0b00_0000 : 0b10_0000;
+
+        // type of length
+        if (length < 8) {
+            typeByte |= length;
+        } else if (length < MAX_LENGTH_8BIT) {
+            typeByte |= 0b0000_1000;
+        } else if (length < MAX_LENGTH_16BIT) {
+            typeByte |= 0b0001_0000;
+        } else if (length < MAX_LENGTH_24BIT) {
+            typeByte |= 0b0001_1000;
+        } else {
+            throw new IllegalArgumentException("length should fit in max 24bits");
+        }
+
+        buffer[position++] = (byte) typeByte;
+        if (identifier < MAX_LENGTH_8BIT) {
+            buffer[position++] = (byte) identifier;
+        } else {
+            writeBigEndian(identifier, 2);
+        }
+
+        if (length >= 8) {
+            if (length < MAX_LENGTH_8BIT) {
+                buffer[position++] = (byte) length;
+            } else if (length < MAX_LENGTH_16BIT) {
+                writeBigEndian(length, 2);
+            } else {
+                writeBigEndian(length, 3);
+            }
+        }
+    }
+
+    /**
+     * Write an integer value using the smallest size (1, 2, 4 or 8 bytes).
+     */
+    public void writeInteger(long value) {
+        writeBigEndian(value, integerSize(value));
+    }
+
+    /**
+     * Write a float value on 4 bytes for {@link Float} or 8 bytes for other numbers.
+     */
+    public void writeFloat(Number value) {
+        if (value instanceof Float) {
+            writeBigEndian(Float.floatToIntBits(value.floatValue()), 4);
+        } else {
+            writeBigEndian(Double.doubleToLongBits(value.doubleValue()), 8);
+        }
+    }
+
+    /**
+     * Write a boolean value on 1 byte.
+     */
+    public void writeBoolean(boolean value) {
+        buffer[position++] = value ? (byte) 1 : (byte) 0;
+    }
+
+    /**
+     * Write a date as a number of seconds on 4 bytes.
+     */
+    public void writeDate(Date value) {
+        writeBigEndian((int) (value.getTime() / 1000L), 4);
+    }
+
+    /**
+     * Write an object link value on 4 bytes.
+     */
+    public void writeObjlnk(ObjectLink value) {
+        writeBigEndian(value.getObjectId(), 2);
+        writeBigEndian(value.getObjectInstanceId(), 2);
+    }
+
+    /**
+     * Write an UTF-8 encoded string. Its size is given by {@link #stringSize(String)}.
+     */
+    public void writeString(String value) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buffer[position++] = (byte) '?';
+            } else {
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    /**
+     * Write raw bytes.
+     */
+    public void writeBytes(byte[] value) {
+        System.arraycopy(value, 0, buffer, position, value.length);
+        position += value.length;
+    }
+
+    /**
+     * @return the written bytes.
+     * @throws IllegalStateException if written size does not match the size given at creation.
+     */
+    public byte[] toByteArray() {
+        if (position != buffer.length) {
+            throw new IllegalStateException(
+                    String.format("%d bytes written but %d bytes expected", position, buffer.length));
+        }
+        return buffer;
+    }
+
+    private void writeBigEndian(long value, int size) {
+        for (int i = size - 1; i >= 0; i--) {
+            buffer[position++] = (byte) (value >> (8 * i));
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.util;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Provides canonical instances of immutable values : equal values are replaced by a single shared instance.
+ * <p>
+ * Canonical instances are weakly referenced, so they are released as soon as they are not used anymore.
+ * <p>
+ * This class is thread-safe and lock-free : it is based on a {@link ConcurrentHashMap} of weak references, so it can be
+ * used concurrently by all threads creating registrations.
+ *
+ * @param <T> type of interned values, they must be immutable and implement {@link Object#equals(Object)} and
+ *        {@link Object#hashCode()}.
+ */
+public class WeakInterner<T> {
+
+    private final ConcurrentMap<Object, WeakKey<T>> canonicalValues = new ConcurrentHashMap<>();
+    private final ReferenceQueue<T> releasedValues = new ReferenceQueue<>();
+
+    /**
+     * @return the canonical instance equal to the given value. If there is no such instance, the given value becomes
+     *         the canonical one.
+     */
+    public T intern(T value) {
+        return intern(value, Function.identity());
+    }
+
+    /**
+     * @param value the value to intern. It could be a mutable value, it will not be stored.
+     * @param toCanonical function used to create an immutable copy of the value if there is no canonical instance yet.
+     *        The copy must be equal to the value.
+     * @return the canonical instance equal to the given value.
+     */
+    public <V extends T> T intern(V value, Function<? super V, ? extends T> toCanonical) {
+        if (value == null) {
+            return null;
+        }
+        removeReleasedValues();
+
+        WeakKey<T> ref = canonicalValues.get(new LookupKey(value));
+        T canonical = ref == null ? null : ref.get();
+        if (canonical != null) {
+            return canonical;
+        }
+
+        T candidate = toCanonical.apply(value);
+        WeakKey<T> candidateRef = new WeakKey<>(candidate, releasedValues);
+        while (true) {
+            WeakKey<T> existingRef = canonicalValues.putIfAbsent(candidateRef, candidateRef);
+            if (existingRef == null) {
+                return candidate;
+            }
+            canonical = existingRef.get();
+            if (canonical != null) {
+                // added concurrently by another thread
+                return canonical;
+            }
+            // released meanwhile, replace it
+            canonicalValues.remove(existingRef, existingRef);
+        }
+    }
+
+    /**
+     * @return the number of canonical instances currently retained.
+     */
+    public int size() {
+        removeReleasedValues();
+        return canonicalValues.size();
+    }
+
+    private void removeReleasedValues() {
+        Reference<? extends T> released;
+        while ((released = releasedValues.poll()) != null) {
+            canonicalValues.remove(released);
+        }
+    }
+
+    /**
+     * Map key weakly referencing a canonical value. Its hash code is kept, so it can still be removed when the value is
+     * released.
+     */
+    private static class WeakKey<T> extends WeakReference<T> {
+        private final int hash;
+
+        WeakKey(T value, ReferenceQueue<T> queue) {
+            super(value, queue);
+            this.hash = value.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof WeakKey)) {
+                return false;
+            }
+            T value = get();
+            return value != null && value.equals(((WeakKey<?>) obj).get());
+        }
+    }
+
+    /**
+     * Key used to search a canonical value equal to a given one, without creating a weak reference.
+     */
+    private static class LookupKey {
+        private final Object value;
+
+        LookupKey(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        public int hashCode() {
+            return value.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof WeakKey && value.equals(((WeakKey<?>) obj).get());
+        }
+    }
+}
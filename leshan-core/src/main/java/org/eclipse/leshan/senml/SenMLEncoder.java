@@ -24,4 +24,25 @@ public interface SenMLEncoder {
 
     public byte[] toSenML(SenMLPack pack) throws SenMLException;
 
+    /**
+     * Create a {@link SenMLRecordWriter} to encode records without building a whole {@link SenMLPack} first.
+     * <p>
+     * Default implementation collects records in a {@link SenMLPack} and calls {@link #toSenML(SenMLPack)}.
+     * Implementations able to write records on the fly should override it.
+     */
+    default SenMLRecordWriter newRecordWriter() {
+        SenMLPack pack = new SenMLPack();
+        return new SenMLRecordWriter() {
+            @Override
+            public void write(SenMLRecord record) {
+                pack.addRecord(record);
+            }
+
+            @Override
+            public byte[] toSenML() throws SenMLException {
+                return SenMLEncoder.this.toSenML(pack);
+            }
+        };
+    }
+
 }
@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.senml;
+
+/**
+ * Encodes SenML records one by one, as soon as they are produced.
+ *
+ * @see SenMLEncoder#newRecordWriter()
+ */
+public interface SenMLRecordWriter {
+
+    /**
+     * Add a record to the SenML pack being encoded. The record should not be modified after this call.
+     */
+    void write(SenMLRecord record) throws SenMLException;
+
+    /**
+     * @return the encoded SenML pack containing all written records.
+     */
+    byte[] toSenML() throws SenMLException;
+}
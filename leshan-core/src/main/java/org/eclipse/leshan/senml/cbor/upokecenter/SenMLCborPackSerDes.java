@@ -15,14 +15,11 @@
  *******************************************************************************/
 package org.eclipse.leshan.senml.cbor.upokecenter;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Collection;
 
-import org.eclipse.leshan.core.util.datatype.NumberUtil;
+import org.eclipse.leshan.core.cbor.CborWriter;
 import org.eclipse.leshan.core.util.datatype.ULong;
 import org.eclipse.leshan.senml.SenMLException;
 import org.eclipse.leshan.senml.SenMLPack;
@@ -36,6 +33,7 @@ import com.upokecenter.cbor.CBORType;
 public class SenMLCborPackSerDes {
 
     private final boolean allowNoValue;
+    private final boolean keepingInsertionOrder;
 
     public SenMLCborPackSerDes() {
         this(false);
@@ -51,7 +49,20 @@ public class SenMLCborPackSerDes {
      * @param allowNoValue <code>True</code> to not check if there is a value for each SenML record.
      */
     public SenMLCborPackSerDes(boolean allowNoValue) {
+        this(allowNoValue, false);
+    }
+
+    /**
+     * Create SenML-CBOR serializer/deserializer based on CBOR-JAVA.
+     *
+     * @param allowNoValue <code>True</code> to not check if there is a value for each SenML record.
+     * @param keepingInsertionOrder <code>True</code> to write record fields in insertion order (bn, bt, n, t, value)
+     *        instead of CBOR-Java sorted map order.
+     * @see #SenMLCborPackSerDes(boolean)
+     */
+    public SenMLCborPackSerDes(boolean allowNoValue, boolean keepingInsertionOrder) {
         this.allowNoValue = allowNoValue;
+        this.keepingInsertionOrder = keepingInsertionOrder;
     }
 
     public SenMLPack deserializeFromCbor(Collection<CBORObject> objects) throws SenMLException {
@@ -154,85 +165,126 @@ public class SenMLCborPackSerDes {
     }
 
     public byte[] serializeToCbor(SenMLPack pack) throws SenMLException {
-        try (OutputStream stream = new ByteArrayOutputStream()) {
-            CBORObject cborArray = CBORObject.NewArray();
-            for (SenMLRecord record : pack.getRecords()) {
-                CBORObject cborRecord = newMap();
-                if (record.getBaseName() != null && !record.getBaseName().isEmpty()) {
-                    cborRecord.Add(-2, record.getBaseName());
-                }
+        CborWriter writer = new CborWriter();
+        for (SenMLRecord record : pack.getRecords()) {
+            serializeRecord(record, writer);
+        }
+        return writer.toArrayBytes(pack.getRecords().size());
+    }
+
+    /**
+     * Write a SenML record as a CBOR map directly in the given {@link CborWriter}.
+     * <p>
+     * Map keys are written in CBOR-Java sorted map order (or insertion order if <code>keepingInsertionOrder</code> is
+     * used) so output is the same as the one of CBOR-Java.
+     */
+    public void serializeRecord(SenMLRecord record, CborWriter writer) throws SenMLException {
+        try {
+            boolean hasBaseName = record.getBaseName() != null && !record.getBaseName().isEmpty();
+            boolean hasName = record.getName() != null && !record.getName().isEmpty();
+            Type type = record.getType();
+            boolean hasValue = type != null && (type != Type.NUMBER || isSupportedNumber(record.getNumberValue()));
+
+            if (type == null && !allowNoValue) {
+                throw new SenMLException("Invalid SenML record : record must have a value (v,vb,vlo,vd,vs) : %s",
+                        record);
+            }
 
+            int nbEntries = (hasBaseName ? 1 : 0) + (record.getBaseTime() != null ? 1 : 0) + (hasName ? 1 : 0)
+                    + (record.getTime() != null ? 1 : 0) + (hasValue ? 1 : 0);
+            writer.writeMapHeader(nbEntries);
+
+            if (keepingInsertionOrder) {
+                if (hasBaseName) {
+                    writer.writeInteger(-2).writeString(record.getBaseName());
+                }
                 if (record.getBaseTime() != null) {
-                    cborRecord.Add(-3, record.getBaseTime());
+                    writer.writeInteger(-3).writeDecimal(record.getBaseTime());
                 }
-
-                if (record.getName() != null && !record.getName().isEmpty()) {
-                    cborRecord.Add(0, record.getName());
+                if (hasName) {
+                    writer.writeInteger(0).writeString(record.getName());
                 }
-
                 if (record.getTime() != null) {
-                    cborRecord.Add(6, record.getTime());
-                }
-
-                Type type = record.getType();
-                if (type != null) {
-                    switch (record.getType()) {
-                    case NUMBER:
-                        Number value = record.getNumberValue();
-                        if (value instanceof Byte) {
-                            cborRecord.Add(2, value.byteValue());
-                        } else if (value instanceof Short) {
-                            cborRecord.Add(2, value.shortValue());
-                        } else if (value instanceof Integer) {
-                            cborRecord.Add(2, value.intValue());
-                        } else if (value instanceof Long) {
-                            cborRecord.Add(2, value.longValue());
-                        } else if (value instanceof BigInteger) {
-                            cborRecord.Add(2, value);
-                        }
-                        // unsigned integer
-                        else if (value instanceof ULong) {
-                            cborRecord.Add(2, NumberUtil.unsignedLongToEInteger(((ULong) value).longValue()));
-                        }
-                        // floating-point
-                        else if (value instanceof Float) {
-                            cborRecord.Add(2, value.floatValue());
-                        } else if (value instanceof Double) {
-                            cborRecord.Add(2, value.doubleValue());
-                        } else if (value instanceof BigDecimal) {
-                            cborRecord.Add(2, value);
-                        }
-                        break;
-                    case BOOLEAN:
-                        cborRecord.Add(4, record.getBooleanValue());
-                        break;
-                    case OBJLNK:
-                        cborRecord.Add("vlo", record.getObjectLinkValue());
-                        break;
-                    case OPAQUE:
-                        cborRecord.Add(8, record.getOpaqueValue());
-                        break;
-                    case STRING:
-                        cborRecord.Add(3, record.getStringValue());
-                        break;
-                    default:
-                        break;
-                    }
-                } else {
-                    if (!allowNoValue) {
-                        throw new SenMLException(
-                                "Invalid SenML record : record must have a value (v,vb,vlo,vd,vs) : %s", record);
-                    }
+                    writer.writeInteger(6).writeDecimal(record.getTime());
+                }
+                if (hasValue) {
+                    writeValue(record, type, writer);
+                }
+            } else {
+                // CBOR-Java sorted map order : n(0), v(2), vs(3), vb(4), t(6), vd(8), bn(-2), bt(-3), vlo
+                if (hasName) {
+                    writer.writeInteger(0).writeString(record.getName());
+                }
+                if (hasValue && type != Type.OPAQUE && type != Type.OBJLNK) {
+                    writeValue(record, type, writer);
+                }
+                if (record.getTime() != null) {
+                    writer.writeInteger(6).writeDecimal(record.getTime());
+                }
+                if (hasValue && type == Type.OPAQUE) {
+                    writeValue(record, type, writer);
+                }
+                if (hasBaseName) {
+                    writer.writeInteger(-2).writeString(record.getBaseName());
+                }
+                if (record.getBaseTime() != null) {
+                    writer.writeInteger(-3).writeDecimal(record.getBaseTime());
+                }
+                if (hasValue && type == Type.OBJLNK) {
+                    writeValue(record, type, writer);
                 }
-                cborArray.Add(cborRecord);
             }
-            return cborArray.EncodeToBytes();
-        } catch (IllegalArgumentException | IllegalStateException | IOException e) {
+        } catch (IllegalArgumentException | IllegalStateException e) {
             throw new SenMLException(e, "Unable to serialize SenML in CBOR");
         }
     }
 
-    CBORObject newMap() {
-        return CBORObject.NewMap();
+    private boolean isSupportedNumber(Number value) {
+        return value instanceof Byte || value instanceof Short || value instanceof Integer || value instanceof Long
+                || value instanceof BigInteger || value instanceof ULong || value instanceof Float
+                || value instanceof Double || value instanceof BigDecimal;
+    }
+
+    private void writeValue(SenMLRecord record, Type type, CborWriter writer) {
+        switch (type) {
+        case NUMBER:
+            writer.writeInteger(2);
+            Number value = record.getNumberValue();
+            if (value instanceof Byte) {
+                // CBOR-Java considers byte as unsigned
+                writer.writeInteger(value.byteValue() & 0xff);
+            } else if (value instanceof Short || value instanceof Integer || value instanceof Long) {
+                writer.writeInteger(value.longValue());
+            } else if (value instanceof BigInteger) {
+                writer.writeInteger((BigInteger) value);
+            }
+            // unsigned integer
+            else if (value instanceof ULong) {
+                writer.writeUnsignedInteger((ULong) value);
+            }
+            // floating-point
+            else if (value instanceof Float) {
+                writer.writeFloat(value.floatValue());
+            } else if (value instanceof Double) {
+                writer.writeDouble(value.doubleValue());
+            } else if (value instanceof BigDecimal) {
+                writer.writeDecimal((BigDecimal) value);
+            }
+            break;
+        case BOOLEAN:
+            writer.writeInteger(4).writeBoolean(record.getBooleanValue());
+            break;
+        case OBJLNK:
+            writer.writeString("vlo").writeString(record.getObjectLinkValue());
+            break;
+        case OPAQUE:
+            writer.writeInteger(8).writeBytes(record.getOpaqueValue());
+            break;
+        case STRING:
+            writer.writeInteger(3).writeString(record.getStringValue());
+            break;
+        default:
+            break;
+        }
     }
 }
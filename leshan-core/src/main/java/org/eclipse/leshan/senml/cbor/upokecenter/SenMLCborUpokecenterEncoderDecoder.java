@@ -15,10 +15,13 @@
  *******************************************************************************/
 package org.eclipse.leshan.senml.cbor.upokecenter;
 
+import org.eclipse.leshan.core.cbor.CborWriter;
 import org.eclipse.leshan.senml.SenMLDecoder;
 import org.eclipse.leshan.senml.SenMLEncoder;
 import org.eclipse.leshan.senml.SenMLException;
 import org.eclipse.leshan.senml.SenMLPack;
+import org.eclipse.leshan.senml.SenMLRecord;
+import org.eclipse.leshan.senml.SenMLRecordWriter;
 
 import com.upokecenter.cbor.CBORException;
 import com.upokecenter.cbor.CBORObject;
@@ -27,6 +30,9 @@ import com.upokecenter.cbor.CBORType;
 /**
  * Helper for encoding/decoding SenML CBOR using <a href="https://github.com/peteroupc/CBOR-Java">"upokecenter"
  * CBOR-Java</a>
+ * <p>
+ * Decoding uses CBOR-Java object model. Encoding writes bytes directly with a {@link CborWriter}, which produces the
+ * same output as CBOR-Java without creating <code>CBORObject</code> trees.
  */
 public class SenMLCborUpokecenterEncoderDecoder implements SenMLDecoder, SenMLEncoder {
     private final SenMLCborPackSerDes serDes;
@@ -42,23 +48,13 @@ public class SenMLCborUpokecenterEncoderDecoder implements SenMLDecoder, SenMLEn
      * SenML records used with a Read-Composite operation do not contain any value field, so
      * <code>allowNoValue=true</code> can be used skip this validation.
      *
-     * @param keepingInsertionOrder Set it to <code>True</code> allows to keep insertion order at serialization. This is
-     *        a kind of HACK using reflection which could make testing easier but could bring performance penalty
+     * @param keepingInsertionOrder Set it to <code>True</code> allows to keep insertion order at serialization. This
+     *        could make testing easier.
      * @param allowNoValue <code>True</code> to not check if there is a value for each SenML record.
      * @see <a href="https://github.com/peteroupc/CBOR-Java/issues/13">CBOR-Java#13 issue</a>
      */
     public SenMLCborUpokecenterEncoderDecoder(boolean keepingInsertionOrder, boolean allowNoValue) {
-        if (keepingInsertionOrder) {
-            serDes = new SenMLCborPackSerDes(allowNoValue) {
-                @Override
-                CBORObject newMap() {
-                    return CBORObject.NewOrderedMap();
-                }
-            };
-
-        } else {
-            serDes = new SenMLCborPackSerDes(allowNoValue);
-        }
+        serDes = new SenMLCborPackSerDes(allowNoValue, keepingInsertionOrder);
     }
 
     @Override
@@ -68,6 +64,29 @@ public class SenMLCborUpokecenterEncoderDecoder implements SenMLDecoder, SenMLEn
         return serDes.serializeToCbor(pack);
     }
 
+    /**
+     * @return a {@link SenMLRecordWriter} which writes each record directly as CBOR, without building a
+     *         {@link SenMLPack} or any <code>CBORObject</code>.
+     */
+    @Override
+    public SenMLRecordWriter newRecordWriter() {
+        return new SenMLRecordWriter() {
+            private final CborWriter writer = new CborWriter(256);
+            private int nbRecords = 0;
+
+            @Override
+            public void write(SenMLRecord record) throws SenMLException {
+                serDes.serializeRecord(record, writer);
+                nbRecords++;
+            }
+
+            @Override
+            public byte[] toSenML() {
+                return writer.toArrayBytes(nbRecords);
+            }
+        };
+    }
+
     @Override
     public SenMLPack fromSenML(byte[] data) throws SenMLException {
         try {
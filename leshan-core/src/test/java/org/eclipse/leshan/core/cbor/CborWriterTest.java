@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.cbor;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.eclipse.leshan.core.util.Hex;
+import org.eclipse.leshan.core.util.datatype.NumberUtil;
+import org.eclipse.leshan.core.util.datatype.ULong;
+import org.junit.jupiter.api.Test;
+
+import com.upokecenter.cbor.CBORObject;
+
+public class CborWriterTest {
+
+    private final Random random = new Random(42);
+
+    private void assertSameAsCborJava(CBORObject expected, CborWriter writer) {
+        byte[] expectedBytes = expected.EncodeToBytes();
+        assertArrayEquals(expectedBytes, writer.toByteArray(), () -> String.format("%s : expected %s but was %s",
+                expected, Hex.encodeHexString(expectedBytes), Hex.encodeHexString(writer.toByteArray())));
+    }
+
+    @Test
+    public void write_integers() {
+        long[] values = { 0, 1, 23, 24, 255, 256, 65535, 65536, 0xffff_ffffL, 0x1_0000_0000L, Long.MAX_VALUE, -1, -24,
+                -25, -256, -257, -65536, -65537, Long.MIN_VALUE };
+        for (long value : values) {
+            assertSameAsCborJava(CBORObject.FromObject(value), new CborWriter().writeInteger(value));
+        }
+        for (int i = 0; i < 10_000; i++) {
+            long value = random.nextLong() >> random.nextInt(64);
+            assertSameAsCborJava(CBORObject.FromObject(value), new CborWriter().writeInteger(value));
+        }
+    }
+
+    @Test
+    public void write_unsigned_and_big_integers() {
+        ULong max = ULong.valueOf(-1L);
+        assertSameAsCborJava(CBORObject.FromObject(NumberUtil.unsignedLongToEInteger(max.longValue())),
+                new CborWriter().writeUnsignedInteger(max));
+
+        BigInteger twoPow64 = BigInteger.ONE.shiftLeft(64);
+        BigInteger[] values = { BigInteger.ZERO, BigInteger.valueOf(Long.MAX_VALUE),
+                BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.ONE), twoPow64.subtract(BigInteger.ONE), twoPow64,
+                twoPow64.negate(), twoPow64.negate().subtract(BigInteger.ONE), BigInteger.TEN.pow(40),
+                BigInteger.TEN.pow(40).negate() };
+        for (BigInteger value : values) {
+            assertSameAsCborJava(CBORObject.FromObject(value), new CborWriter().writeInteger(value));
+        }
+    }
+
+    @Test
+    public void write_decimals() {
+        String[] values = { "0", "-0.0", "1.5", "1.50", "1E+2", "1600000000.123", "-2.5", "123.456E-40",
+                "18446744073709551615.5", "-18446744073709551616.5" };
+        for (String value : values) {
+            BigDecimal decimal = new BigDecimal(value);
+            assertSameAsCborJava(CBORObject.FromObject(decimal), new CborWriter().writeDecimal(decimal));
+        }
+    }
+
+    @Test
+    public void write_floating_points() {
+        double[] values = { 0.0, -0.0, 1.0, 1.5, -2.0, 0.1, 65504, 100000.0, 6.103515625E-5, 5.960464477539063E-8,
+                Float.MIN_VALUE, Float.MAX_VALUE, Double.MIN_VALUE, Double.MAX_VALUE, Double.NaN,
+                Double.longBitsToDouble(0x7ff0_0000_0000_0001L), Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY };
+        for (double value : values) {
+            assertSameAsCborJava(CBORObject.FromObject(value), new CborWriter().writeDouble(value));
+        }
+        for (int i = 0; i < 10_000; i++) {
+            // random half, single and double precision values
+            double half = Math.scalb((double) (random.nextInt(2048) - 1024), random.nextInt(40) - 34);
+            assertSameAsCborJava(CBORObject.FromObject(half), new CborWriter().writeDouble(half));
+
+            float single = Float.intBitsToFloat(random.nextInt());
+            assertSameAsCborJava(CBORObject.FromObject(single), new CborWriter().writeFloat(single));
+
+            double value = Double.longBitsToDouble(random.nextLong());
+            assertSameAsCborJava(CBORObject.FromObject(value), new CborWriter().writeDouble(value));
+        }
+    }
+
+    @Test
+    public void write_strings_and_bytes() {
+        String[] values = { "", "a", "hé€😀", new String(new char[300]).replace('\0', 'z') };
+        for (String value : values) {
+            assertSameAsCborJava(CBORObject.FromObject(value), new CborWriter().writeString(value));
+        }
+        byte[] bytes = new byte[70_000];
+        random.nextBytes(bytes);
+        assertSameAsCborJava(CBORObject.FromObject(bytes), new CborWriter().writeBytes(bytes));
+
+        assertThrows(IllegalArgumentException.class, () -> new CborWriter().writeString("a\ud83d"));
+    }
+
+    @Test
+    public void write_array_once_content_is_written() {
+        CBORObject expected = CBORObject.NewArray();
+        CborWriter writer = new CborWriter(1);
+        for (int i = 0; i < 30; i++) {
+            expected.Add(CBORObject.FromObjectAndTag(i, 1));
+            writer.writeTag(1).writeInteger(i);
+        }
+        expected.Add(CBORObject.True).Add(CBORObject.False).Add(CBORObject.Null);
+        writer.writeBoolean(true).writeBoolean(false).writeNull();
+
+        assertArrayEquals(expected.EncodeToBytes(), writer.toArrayBytes(33));
+    }
+}
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.link.lwm2m;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.eclipse.leshan.core.link.DefaultLinkParser;
+import org.eclipse.leshan.core.link.Link;
+import org.eclipse.leshan.core.link.LinkParseException;
+import org.eclipse.leshan.core.link.LinkParser;
+import org.eclipse.leshan.core.link.attributes.AttributeModel;
+import org.eclipse.leshan.core.link.attributes.Attributes;
+import org.eclipse.leshan.core.link.attributes.DefaultAttributeParser;
+import org.eclipse.leshan.core.link.lwm2m.attributes.LwM2mAttributes;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class LwM2mLinkFastParserTest {
+
+    private final LinkParser parser = new DefaultLwM2mLinkParser();
+    private final LinkParser genericParser;
+
+    public LwM2mLinkFastParserTest() {
+        Collection<AttributeModel<?>> suppportedAttributes = new ArrayList<AttributeModel<?>>();
+        suppportedAttributes.addAll(Attributes.ALL);
+        suppportedAttributes.addAll(LwM2mAttributes.ALL);
+        genericParser = new DefaultLwM2mLinkParser(
+                new DefaultLinkParser(new DefaultAttributeParser(suppportedAttributes)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { //
+            "</1>", //
+            "</1/0>,</3/0>", //
+            "</1>;ver=1.1,</1/0>,</3>;ver=1.0,</3/0>,</65535/65534/65533/65532>", //
+            "</3442>;ver=10.12,</3442/0>", //
+            "</0/1>,</0/0>,</9999>;ver=9999.9999" //
+    })
+    public void parse_supported_payloads(String payload) throws LinkParseException {
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        assertNotNull(LwM2mLinkFastParser.parse(bytes));
+        assertArrayEquals(genericParser.parseCoreLinkFormat(bytes), parser.parseCoreLinkFormat(bytes));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { //
+            "</>;rt=\"oma.lwm2m\";ct=110,</1/0>,</3/0>", //
+            "</lwm2m>;rt=\"oma.lwm2m\",</lwm2m/1/0>", //
+            "</>,</1/0>", //
+            "</1/0>;ver=1.0,</3/0>", //
+            "</1>;ver=\"1.0\"", //
+            "</1>;pmin=10", //
+            "</1>;ver=1.0;pmin=10", //
+            "</1>;ver=01.0", //
+            "</1>;ver=1", //
+            "</01>", //
+            "</1/>", //
+            "</1/0/0/0/0>", //
+            "</100000>", //
+            "</70000>", //
+            "</1>,", //
+            "</1>, </2>", //
+            "</1>,</2> ", //
+            "<1>", //
+            "</1" //
+    })
+    public void fallback_to_generic_parser(String payload) {
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        assertNull(LwM2mLinkFastParser.parse(bytes));
+
+        // result or error must be same than generic parser
+        Link[] expected;
+        try {
+            expected = genericParser.parseCoreLinkFormat(bytes);
+        } catch (LinkParseException e) {
+            assertThrowsExactly(LinkParseException.class, () -> parser.parseCoreLinkFormat(bytes));
+            return;
+        }
+        assertArrayEquals(expected, assertDoesNotThrow(() -> parser.parseCoreLinkFormat(bytes)));
+    }
+}
@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.eclipse.leshan.core.LwM2m.Version;
 import org.eclipse.leshan.core.model.ResourceModel.Operations;
 import org.eclipse.leshan.core.model.ResourceModel.Type;
 import org.junit.jupiter.api.Test;
@@ -85,6 +86,36 @@ public class LwM2mModelRespositotyTest {
         assertNull(objectModel);
     }
 
+    @Test
+    public void validate_get_sparse_object_ids() {
+
+        // create repository, unordered and with ids which does not fit in a dense array
+        List<ObjectModel> models = new ArrayList<ObjectModel>();
+        models.add(createModel(10241, "1.0"));
+        models.add(createModel(3303, "1.1"));
+        models.add(createModel(3, "1.1"));
+        models.add(createModel(3303, "1.0"));
+        models.add(createModel(3, "1.0"));
+        models.add(createModel(42769, "2.0"));
+        LwM2mModelRepository repository = new LwM2mModelRepository(models);
+
+        // validate get specific and most recent version
+        assertEquals("1.0", repository.getObjectModel(3303, "1.0").version);
+        assertEquals("1.1", repository.getObjectModel(3303).version);
+        assertEquals("1.0", repository.getObjectModel(10241).version);
+        assertEquals("2.0", repository.getObjectModel(42769, new Version("2.0")).version);
+        assertEquals("1.1", repository.getObjectModel(3).version);
+        assertNull(repository.getObjectModel(3304));
+        assertNull(repository.getObjectModel(10241, "1.1"));
+
+        // validate resources lookup through LwM2mModel
+        LwM2mModel model = repository.getLwM2mModel();
+        assertEquals((Integer) 3303, model.getObjectModel(3303).id);
+        assertEquals(0, model.getResourceModel(42769, 0).id);
+        assertNull(model.getResourceModel(42769, 1));
+        assertNull(model.getResourceModel(3304, 0));
+    }
+
     private ObjectModel createModel(Integer objectId, String version) {
         ResourceModel resourceModel = new ResourceModel(0, "a resource", Operations.R, false, false, Type.BOOLEAN, null,
                 null, null);
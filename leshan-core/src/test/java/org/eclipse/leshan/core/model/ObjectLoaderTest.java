@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ObjectLoaderTest {
+
+    @TempDir
+    File tempDir;
+    File modelsDir;
+    File snapshotFile;
+
+    @BeforeEach
+    public void copyModels() throws IOException {
+        modelsDir = new File(tempDir, "models");
+        modelsDir.mkdir();
+        snapshotFile = new File(tempDir, "models.snapshot");
+        for (String filename : ObjectLoader.ddfpaths) {
+            try (InputStream in = ObjectLoader.class.getResourceAsStream("/models/" + filename)) {
+                Files.copy(in, new File(modelsDir, filename).toPath());
+            }
+        }
+    }
+
+    @Test
+    public void load_in_parallel() {
+        List<ObjectModel> expected = ObjectLoader.loadObjectsFromDir(modelsDir, new DDFFileParser(), null);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<ObjectModel> models = ObjectLoader.loadObjectsFromDir(modelsDir,
+                    new DDFFileParser(new DefaultDDFFileValidatorFactory()), new DefaultObjectModelValidator(),
+                    executor);
+            assertEquals(toString(expected), toString(models));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void load_with_snapshot() throws IOException {
+        List<ObjectModel> expected = ObjectLoader.loadObjectsFromDir(modelsDir, true);
+
+        // first load creates snapshot
+        CountingParser parser = new CountingParser();
+        List<ObjectModel> models = ObjectLoader.loadObjectsFromDir(modelsDir, snapshotFile, parser,
+                new DefaultObjectModelValidator(), null);
+        assertEquals(toString(expected), toString(models));
+        assertEquals(ObjectLoader.ddfpaths.length, parser.count.get());
+        assertTrue(snapshotFile.isFile());
+
+        // next load uses snapshot
+        parser = new CountingParser();
+        models = ObjectLoader.loadObjectsFromDir(modelsDir, snapshotFile, parser, new DefaultObjectModelValidator(),
+                null);
+        assertEquals(toString(expected), toString(models));
+        assertEquals(0, parser.count.get());
+
+        // only modified file is parsed again
+        File deviceModel = new File(modelsDir, "3.xml");
+        String content = new String(Files.readAllBytes(deviceModel.toPath()), StandardCharsets.UTF_8);
+        Files.write(deviceModel.toPath(),
+                content.replace("<Name>Device</Name>", "<Name>MyDevice</Name>").getBytes(StandardCharsets.UTF_8));
+        parser = new CountingParser();
+        models = ObjectLoader.loadObjectsFromDir(modelsDir, snapshotFile, parser, new DefaultObjectModelValidator(),
+                null);
+        assertEquals(1, parser.count.get());
+        assertEquals(expected.size(), models.size());
+        assertTrue(toString(models).contains("name=MyDevice,"));
+
+        // and snapshot is updated
+        parser = new CountingParser();
+        ObjectLoader.loadObjectsFromDir(modelsDir, snapshotFile, parser, new DefaultObjectModelValidator(), null);
+        assertEquals(0, parser.count.get());
+    }
+
+    @Test
+    public void corrupted_snapshot_is_ignored() throws IOException {
+        List<ObjectModel> expected = ObjectLoader.loadObjectsFromDir(modelsDir, snapshotFile, false);
+
+        byte[] snapshot = Files.readAllBytes(snapshotFile.toPath());
+        Files.write(snapshotFile.toPath(), Arrays.copyOf(snapshot, snapshot.length / 2));
+
+        List<ObjectModel> models = ObjectLoader.loadObjectsFromDir(modelsDir, snapshotFile, false);
+        assertEquals(toString(expected), toString(models));
+        assertEquals(snapshot.length, snapshotFile.length());
+    }
+
+    private static String toString(List<ObjectModel> models) {
+        List<String> result = new ArrayList<>();
+        for (ObjectModel model : models) {
+            result.add(model.toString());
+        }
+        result.sort(null);
+        return result.toString();
+    }
+
+    private static class CountingParser extends DDFFileParser {
+        final AtomicInteger count = new AtomicInteger();
+
+        CountingParser() {
+            super(new DefaultDDFFileValidatorFactory());
+        }
+
+        @Override
+        public List<ObjectModel> parse(InputStream inputStream, String streamName)
+                throws InvalidDDFFileException, IOException {
+            count.incrementAndGet();
+            return super.parse(inputStream, streamName);
+        }
+    }
+}
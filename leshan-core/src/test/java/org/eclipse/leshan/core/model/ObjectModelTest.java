@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Arrays;
+import java.util.Map.Entry;
+
+import org.eclipse.leshan.core.model.ResourceModel.Operations;
+import org.eclipse.leshan.core.model.ResourceModel.Type;
+import org.junit.jupiter.api.Test;
+
+public class ObjectModelTest {
+
+    @Test
+    public void get_resource_model_is_consistent_with_resources_map() {
+        for (ObjectModel objectModel : ObjectLoader.loadAllDefault()) {
+            for (Entry<Integer, ResourceModel> resource : objectModel.resources.entrySet()) {
+                assertSame(resource.getValue(), objectModel.getResourceModel(resource.getKey()));
+            }
+            assertNull(objectModel.getResourceModel(-1));
+            assertNull(objectModel.getResourceModel(65535));
+        }
+    }
+
+    @Test
+    public void get_resource_model_with_sparse_ids() {
+        ObjectModel objectModel = new ObjectModel(3303, "Temperature", null, "1.0", true, false,
+                Arrays.asList(createResource(5700), createResource(0), createResource(65534), createResource(5601),
+                        createResource(5)));
+
+        assertEquals(0, objectModel.getResourceModel(0).id);
+        assertEquals(5, objectModel.getResourceModel(5).id);
+        assertEquals(5601, objectModel.getResourceModel(5601).id);
+        assertEquals(5700, objectModel.getResourceModel(5700).id);
+        assertEquals(65534, objectModel.getResourceModel(65534).id);
+        assertNull(objectModel.getResourceModel(1));
+        assertNull(objectModel.getResourceModel(5701));
+        assertNull(objectModel.getResourceModel(65535));
+    }
+
+    @Test
+    public void get_resource_model_without_resources() {
+        ObjectModel objectModel = new ObjectModel(4242, "Empty", null, "1.0", true, false);
+        assertNull(objectModel.getResourceModel(0));
+    }
+
+    private ResourceModel createResource(int id) {
+        return new ResourceModel(id, "resource " + id, Operations.R, false, false, Type.INTEGER, null, null, null);
+    }
+}
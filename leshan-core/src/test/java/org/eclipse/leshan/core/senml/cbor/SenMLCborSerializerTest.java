@@ -14,17 +14,26 @@
 
 package org.eclipse.leshan.core.senml.cbor;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
 import org.eclipse.leshan.core.util.Hex;
+import org.eclipse.leshan.core.util.datatype.NumberUtil;
+import org.eclipse.leshan.core.util.datatype.ULong;
 import org.eclipse.leshan.senml.SenMLDecoder;
 import org.eclipse.leshan.senml.SenMLEncoder;
 import org.eclipse.leshan.senml.SenMLException;
 import org.eclipse.leshan.senml.SenMLPack;
 import org.eclipse.leshan.senml.SenMLRecord;
+import org.eclipse.leshan.senml.SenMLRecordWriter;
 import org.eclipse.leshan.senml.cbor.upokecenter.SenMLCborUpokecenterEncoderDecoder;
 import org.junit.jupiter.api.Test;
 
+import com.upokecenter.cbor.CBORObject;
+
 public class SenMLCborSerializerTest extends AbstractSenMLTest {
 
     private final SenMLEncoder encoder;
@@ -86,4 +95,93 @@ public class SenMLCborSerializerTest extends AbstractSenMLTest {
         assertEquals("/3442/0/130", record.getBaseName());
         assertEquals(300.0d, record.getNumberValue());
     }
+
+    private SenMLPack givenPackWithAllKindOfValues() {
+        SenMLPack pack = new SenMLPack();
+        Number[] numbers = { (byte) -1, (short) -300, 70_000, Long.MIN_VALUE, new BigInteger("18446744073709551616"),
+                ULong.valueOf("18446744073709551615"), 1.5f, 0.1d, 0.0d, new BigDecimal("-2.25") };
+        for (int i = 0; i < numbers.length; i++) {
+            SenMLRecord record = new SenMLRecord();
+            if (i == 0) {
+                record.setBaseName("/3442/0/");
+                record.setBaseTime(new BigDecimal("1600000000.123"));
+            }
+            record.setName(Integer.toString(i));
+            record.setNumberValue(numbers[i]);
+            pack.addRecord(record);
+        }
+        SenMLRecord record = new SenMLRecord();
+        record.setName("100");
+        record.setTime(BigDecimal.valueOf(-5));
+        record.setBooleanValue(true);
+        pack.addRecord(record);
+        record = new SenMLRecord();
+        record.setName("110");
+        record.setTime(BigDecimal.valueOf(268_435_456));
+        record.setStringValue("h\u00e9llo");
+        pack.addRecord(record);
+        record = new SenMLRecord();
+        record.setBaseName("/3442/1/");
+        record.setName("120");
+        record.setTime(BigDecimal.ONE);
+        record.setOpaqueValue(new byte[] { 1, 2, 3 });
+        pack.addRecord(record);
+        record = new SenMLRecord();
+        record.setBaseName("/3442/1/");
+        record.setBaseTime(BigDecimal.TEN);
+        record.setName("130");
+        record.setObjectLinkValue("3:0");
+        pack.addRecord(record);
+        return pack;
+    }
+
+    private byte[] encodeWithCborJava(SenMLPack pack, boolean keepingInsertionOrder) {
+        CBORObject cborArray = CBORObject.NewArray();
+        for (SenMLRecord record : pack.getRecords()) {
+            CBORObject cborRecord = keepingInsertionOrder ? CBORObject.NewOrderedMap() : CBORObject.NewMap();
+            if (record.getBaseName() != null)
+                cborRecord.Add(-2, record.getBaseName());
+            if (record.getBaseTime() != null)
+                cborRecord.Add(-3, record.getBaseTime());
+            cborRecord.Add(0, record.getName());
+            if (record.getTime() != null)
+                cborRecord.Add(6, record.getTime());
+            Number value = record.getNumberValue();
+            if (value instanceof ULong) {
+                cborRecord.Add(2, NumberUtil.unsignedLongToEInteger(value.longValue()));
+            } else if (value != null) {
+                cborRecord.Add(2, value);
+            }
+            if (record.getBooleanValue() != null)
+                cborRecord.Add(4, record.getBooleanValue());
+            if (record.getStringValue() != null)
+                cborRecord.Add(3, record.getStringValue());
+            if (record.getObjectLinkValue() != null)
+                cborRecord.Add("vlo", record.getObjectLinkValue());
+            if (record.getOpaqueValue() != null)
+                cborRecord.Add(8, record.getOpaqueValue());
+            cborArray.Add(cborRecord);
+        }
+        return cborArray.EncodeToBytes();
+    }
+
+    @Test
+    public void serialize_same_bytes_as_cbor_java() throws SenMLException {
+        SenMLPack pack = givenPackWithAllKindOfValues();
+
+        assertArrayEquals(encodeWithCborJava(pack, true), encoder.toSenML(pack));
+        assertArrayEquals(encodeWithCborJava(pack, false), new SenMLCborUpokecenterEncoderDecoder().toSenML(pack));
+    }
+
+    @Test
+    public void record_writer_writes_same_bytes_as_pack_serialization() throws SenMLException {
+        SenMLPack pack = givenPackWithAllKindOfValues();
+        for (SenMLEncoder encoder : new SenMLEncoder[] { this.encoder, new SenMLCborUpokecenterEncoderDecoder() }) {
+            SenMLRecordWriter writer = encoder.newRecordWriter();
+            for (SenMLRecord record : pack.getRecords()) {
+                writer.write(record);
+            }
+            assertArrayEquals(encoder.toSenML(pack), writer.toSenML());
+        }
+    }
 }
@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.tlv;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import org.eclipse.leshan.core.node.ObjectLink;
+import org.eclipse.leshan.core.tlv.Tlv.TlvType;
+import org.junit.jupiter.api.Test;
+
+public class TlvWriterTest {
+
+    @Test
+    public void write_same_bytes_as_tlv_encoder() {
+        String longString = new String(new char[300]).replace('\0', 'a');
+        Date date = new Date(1_700_000_000_000L);
+        ObjectLink objlnk = new ObjectLink(3, 0);
+
+        // write TLVs directly
+        int length = TlvWriter.tlvSize(0, TlvWriter.integerSize(-5)) //
+                + TlvWriter.tlvSize(1, TlvWriter.integerSize(70_000)) //
+                + TlvWriter.tlvSize(2, TlvWriter.floatSize(1.5f)) //
+                + TlvWriter.tlvSize(3, TlvWriter.floatSize(2.25d)) //
+                + TlvWriter.tlvSize(4, TlvWriter.stringSize(longString)) //
+                + TlvWriter.tlvSize(5, 4) //
+                + TlvWriter.tlvSize(6, 4) //
+                + TlvWriter.tlvSize(7, 1);
+        int size = TlvWriter.tlvSize(300, length);
+        TlvWriter writer = new TlvWriter(size);
+        writer.writeHeader(TlvType.MULTIPLE_RESOURCE, 300, length);
+        writer.writeHeader(TlvType.RESOURCE_INSTANCE, 0, TlvWriter.integerSize(-5));
+        writer.writeInteger(-5);
+        writer.writeHeader(TlvType.RESOURCE_INSTANCE, 1, TlvWriter.integerSize(70_000));
+        writer.writeInteger(70_000);
+        writer.writeHeader(TlvType.RESOURCE_INSTANCE, 2, TlvWriter.floatSize(1.5f));
+        writer.writeFloat(1.5f);
+        writer.writeHeader(TlvType.RESOURCE_INSTANCE, 3, TlvWriter.floatSize(2.25d));
+        writer.writeFloat(2.25d);
+        writer.writeHeader(TlvType.RESOURCE_INSTANCE, 4, TlvWriter.stringSize(longString));
+        writer.writeString(longString);
+        writer.writeHeader(TlvType.RESOURCE_INSTANCE, 5, 4);
+        writer.writeDate(date);
+        writer.writeHeader(TlvType.RESOURCE_INSTANCE, 6, 4);
+        writer.writeObjlnk(objlnk);
+        writer.writeHeader(TlvType.RESOURCE_INSTANCE, 7, 1);
+        writer.writeBoolean(true);
+
+        // encode same TLVs with TlvEncoder
+        Tlv[] children = new Tlv[] { //
+                new Tlv(TlvType.RESOURCE_INSTANCE, null, TlvEncoder.encodeInteger(-5), 0),
+                new Tlv(TlvType.RESOURCE_INSTANCE, null, TlvEncoder.encodeInteger(70_000), 1),
+                new Tlv(TlvType.RESOURCE_INSTANCE, null, TlvEncoder.encodeFloat(1.5f), 2),
+                new Tlv(TlvType.RESOURCE_INSTANCE, null, TlvEncoder.encodeFloat(2.25d), 3),
+                new Tlv(TlvType.RESOURCE_INSTANCE, null, TlvEncoder.encodeString(longString), 4),
+                new Tlv(TlvType.RESOURCE_INSTANCE, null, TlvEncoder.encodeDate(date), 5),
+                new Tlv(TlvType.RESOURCE_INSTANCE, null, TlvEncoder.encodeObjlnk(objlnk), 6),
+                new Tlv(TlvType.RESOURCE_INSTANCE, null, TlvEncoder.encodeBoolean(true), 7) };
+        ByteBuffer expected = TlvEncoder.encode(new Tlv[] { new Tlv(TlvType.MULTIPLE_RESOURCE, children, null, 300) });
+
+        assertArrayEquals(expected.array(), writer.toByteArray());
+    }
+
+    @Test
+    public void compute_utf8_string_size() {
+        String[] values = new String[] { "", "ascii", "é", "€uro", "😀 emoji", "bad \uD83D surrogate", "\uDE00 bad" };
+        for (String value : values) {
+            byte[] expected = value.getBytes(StandardCharsets.UTF_8);
+            assertEquals(expected.length, TlvWriter.stringSize(value), value);
+
+            TlvWriter writer = new TlvWriter(expected.length);
+            writer.writeString(value);
+            assertArrayEquals(expected, writer.toByteArray(), value);
+        }
+    }
+
+    @Test
+    public void read_written_values() throws TlvException {
+        int size = TlvWriter.tlvSize(1, 8) + TlvWriter.tlvSize(2, 4);
+        TlvWriter writer = new TlvWriter(size);
+        writer.writeHeader(TlvType.RESOURCE_VALUE, 1, 8);
+        writer.writeInteger(Long.MIN_VALUE);
+        writer.writeHeader(TlvType.RESOURCE_VALUE, 2, 4);
+        writer.writeFloat(-0.5f);
+
+        TlvReader reader = new TlvReader(writer.toByteArray());
+        assertEquals(2, reader.count());
+        assertEquals(TlvType.RESOURCE_VALUE, reader.peekType());
+        reader.next();
+        assertEquals(1, reader.getIdentifier());
+        assertEquals(Long.MIN_VALUE, reader.readInteger());
+        reader.next();
+        assertEquals(2, reader.getIdentifier());
+        assertEquals(-0.5d, reader.readFloat());
+        assertFalse(reader.hasNext());
+    }
+
+    @Test
+    public void reader_reject_truncated_value() {
+        // resource value of 5 bytes with only 2 bytes available
+        TlvReader reader = new TlvReader(new byte[] { (byte) 0b11_0_00_101, 1, 2, 3 });
+        assertThrows(TlvException.class, reader::next);
+    }
+
+    @Test
+    public void reject_unexpected_size() {
+        TlvWriter writer = new TlvWriter(2);
+        writer.writeBoolean(true);
+        assertThrows(IllegalStateException.class, writer::toByteArray);
+    }
+}
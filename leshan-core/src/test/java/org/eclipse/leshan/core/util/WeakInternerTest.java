@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class WeakInternerTest {
+
+    @Test
+    public void equal_values_are_replaced_by_canonical_instance() {
+        WeakInterner<Set<Integer>> interner = new WeakInterner<>();
+
+        Set<Integer> value = new TreeSet<>(Arrays.asList(1, 2, 3));
+        Set<Integer> canonical = interner.intern(value, s -> Collections.unmodifiableSet(new TreeSet<>(s)));
+
+        // mutable value is not stored
+        assertNotSame(value, canonical);
+        assertEquals(value, canonical);
+        assertSame(canonical, interner.intern(new TreeSet<>(Arrays.asList(3, 2, 1))));
+        assertEquals(1, interner.size());
+    }
+
+    @Test
+    public void concurrent_interning_returns_same_instance() throws Exception {
+        WeakInterner<String> interner = new WeakInterner<>();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Callable<String>> tasks = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                tasks.add(() -> interner.intern(new String("value")));
+            }
+            List<Future<String>> results = executor.invokeAll(tasks);
+
+            String canonical = results.get(0).get();
+            for (Future<String> result : results) {
+                assertSame(canonical, result.get());
+            }
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+        }
+    }
+}
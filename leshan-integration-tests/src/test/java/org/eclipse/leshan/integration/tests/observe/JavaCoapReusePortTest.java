@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.integration.tests.observe;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.eclipse.leshan.core.ResponseCode.CHANGED;
+import static org.eclipse.leshan.core.ResponseCode.CONTENT;
+import static org.eclipse.leshan.integration.tests.util.LeshanTestClientBuilder.givenClientUsing;
+import static org.eclipse.leshan.integration.tests.util.assertion.Assertions.assertThat;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.eclipse.leshan.client.servers.LwM2mServer;
+import org.eclipse.leshan.core.endpoint.Protocol;
+import org.eclipse.leshan.core.node.LwM2mSingleResource;
+import org.eclipse.leshan.core.observation.SingleObservation;
+import org.eclipse.leshan.core.request.ContentFormat;
+import org.eclipse.leshan.core.request.ObserveRequest;
+import org.eclipse.leshan.core.request.ReadRequest;
+import org.eclipse.leshan.core.request.WriteRequest;
+import org.eclipse.leshan.core.response.ObserveResponse;
+import org.eclipse.leshan.core.response.ReadResponse;
+import org.eclipse.leshan.core.response.WriteResponse;
+import org.eclipse.leshan.core.util.TestLwM2mId;
+import org.eclipse.leshan.integration.tests.util.LeshanTestClient;
+import org.eclipse.leshan.integration.tests.util.LeshanTestServer;
+import org.eclipse.leshan.integration.tests.util.LeshanTestServerBuilder;
+import org.eclipse.leshan.integration.tests.util.junit5.extensions.BeforeEachParameterizedResolver;
+import org.eclipse.leshan.server.registration.Registration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Tests java-coap server endpoint with several sockets sharing the same port, including block-wise notifications which
+ * need the server to request remaining blocks.
+ */
+@ExtendWith(BeforeEachParameterizedResolver.class)
+public class JavaCoapReusePortTest {
+
+    /*---------------------------------/
+     *  Parameterized Tests
+     * -------------------------------*/
+    @ParameterizedTest(name = "{0} - Client using {1} - Server using {2}")
+    @MethodSource("transports")
+    @Retention(RetentionPolicy.RUNTIME)
+    private @interface TestAllTransportLayer {
+    }
+
+    static Stream<org.junit.jupiter.params.provider.Arguments> transports() {
+        return Stream.of(//
+                // ProtocolUsed - Client Endpoint Provider - Server Endpoint Provider
+                arguments(Protocol.COAP, "Californium", "java-coap"), //
+                arguments(Protocol.COAP, "Californium", "java-coap-reuseport"));
+    }
+
+    /*---------------------------------/
+     *  Set-up and Tear-down Tests
+     * -------------------------------*/
+
+    LeshanTestServer server;
+    LeshanTestClient client;
+    List<LeshanTestClient> otherClients = new ArrayList<>();
+    Registration currentRegistration;
+
+    @BeforeEach
+    public void start(Protocol givenProtocol, String givenClientEndpointProvider, String givenServerEndpointProvider) {
+        server = new LeshanTestServerBuilder(givenProtocol).with(givenServerEndpointProvider).build();
+        server.start();
+        client = givenClientUsing(givenProtocol).with(givenClientEndpointProvider).connectingTo(server).build();
+        client.start();
+        server.waitForNewRegistrationOf(client);
+        client.waitForRegistrationTo(server);
+
+        currentRegistration = server.getRegistrationFor(client);
+    }
+
+    @AfterEach
+    public void stop() throws InterruptedException {
+        for (LeshanTestClient otherClient : otherClients) {
+            otherClient.destroy(false);
+        }
+        if (client != null)
+            client.destroy(false);
+        if (server != null)
+            server.destroy();
+    }
+
+    /*---------------------------------/
+     *  Tests
+     * -------------------------------*/
+    @TestAllTransportLayer
+    public void can_send_requests_to_several_clients(Protocol givenProtocol, String givenClientEndpointProvider,
+            String givenServerEndpointProvider) throws InterruptedException {
+        // each client uses its own port, so kernel could choose different sockets for them
+        for (int i = 0; i < 4; i++) {
+            LeshanTestClient otherClient = givenClientUsing(givenProtocol).with(givenClientEndpointProvider)
+                    .named(client.getEndpointName() + "_" + i).connectingTo(server).build();
+            otherClients.add(otherClient);
+            otherClient.start();
+            server.waitForNewRegistrationOf(otherClient);
+        }
+
+        for (LeshanTestClient otherClient : otherClients) {
+            ReadResponse response = server.send(server.getRegistrationFor(otherClient), new ReadRequest(3, 0, 1));
+            assertThat(response) //
+                    .hasCode(CONTENT) //
+                    .hasValidUnderlyingResponseFor(givenServerEndpointProvider);
+        }
+    }
+
+    @TestAllTransportLayer
+    public void can_observe_resource_with_block_wise_notification(Protocol givenProtocol,
+            String givenClientEndpointProvider, String givenServerEndpointProvider) throws InterruptedException {
+        // observe opaque resource
+        ObserveResponse observeResponse = server.send(currentRegistration,
+                new ObserveRequest(ContentFormat.OPAQUE, TestLwM2mId.TEST_OBJECT, 0, TestLwM2mId.OPAQUE_VALUE));
+        assertThat(observeResponse).hasCode(CONTENT);
+        SingleObservation observation = observeResponse.getObservation();
+
+        // client changes value to one bigger than a CoAP message
+        byte[] value = new byte[4000];
+        new Random().nextBytes(value);
+        WriteResponse writeResponse = client.getObjectTree().getObjectEnabler(TestLwM2mId.TEST_OBJECT).write(
+                LwM2mServer.SYSTEM,
+                new WriteRequest(ContentFormat.OPAQUE, TestLwM2mId.TEST_OBJECT, 0, TestLwM2mId.OPAQUE_VALUE, value));
+        assertThat(writeResponse).hasCode(CHANGED);
+
+        // verify notification
+        server.waitForNewObservation(observation);
+        ObserveResponse response = server.waitForNotificationOf(observation);
+        assertThat(response.getContent())
+                .isEqualTo(LwM2mSingleResource.newBinaryResource(TestLwM2mId.OPAQUE_VALUE, value));
+    }
+}
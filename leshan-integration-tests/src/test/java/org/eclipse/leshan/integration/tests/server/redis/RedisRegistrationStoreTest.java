@@ -17,17 +17,26 @@
 package org.eclipse.leshan.integration.tests.server.redis;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 import org.eclipse.californium.core.coap.CoAP;
 import org.eclipse.californium.core.coap.Request;
@@ -35,6 +44,8 @@ import org.eclipse.californium.core.coap.Token;
 import org.eclipse.californium.core.network.serialization.UdpDataParser;
 import org.eclipse.californium.core.network.serialization.UdpDataSerializer;
 import org.eclipse.californium.elements.AddressEndpointContext;
+import org.eclipse.leshan.core.LwM2m.LwM2mVersion;
+import org.eclipse.leshan.core.LwM2m.Version;
 import org.eclipse.leshan.core.californium.ObserveUtil;
 import org.eclipse.leshan.core.endpoint.EndpointUriUtil;
 import org.eclipse.leshan.core.link.Link;
@@ -57,12 +68,24 @@ import org.eclipse.leshan.server.californium.observation.ObservationSerDes;
 import org.eclipse.leshan.server.observation.LwM2mNotificationReceiver;
 import org.eclipse.leshan.server.profile.ClientProfile;
 import org.eclipse.leshan.server.redis.RedisRegistrationStore;
+import org.eclipse.leshan.server.registration.ExpirationListener;
 import org.eclipse.leshan.server.registration.Registration;
+import org.eclipse.leshan.server.registration.RegistrationChange;
+import org.eclipse.leshan.server.registration.RegistrationChangeLog;
+import org.eclipse.leshan.server.registration.RegistrationChangeLogTruncatedException;
+import org.eclipse.leshan.server.registration.RegistrationPage;
+import org.eclipse.leshan.server.registration.RegistrationQuery;
 import org.eclipse.leshan.server.registration.RegistrationStore;
+import org.eclipse.leshan.server.registration.RegistrationUpdate;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.params.ScanParams;
+import redis.clients.jedis.resps.ScanResult;
+import redis.clients.jedis.util.Pool;
+
 public class RedisRegistrationStoreTest {
 
     private final String ep = "urn:endpoint";
@@ -75,7 +98,12 @@ public class RedisRegistrationStoreTest {
     private final Token aToken = Token.EMPTY;
     private final ObservationIdentifier anObservationId = new ObservationIdentifier(aToken.getBytes());
 
+    // prefix of keys used by stores created by a test, so they do not conflict with default store
+    private final String testPrefix = "TEST#REGSTORE#";
+
+    Pool<Jedis> pool;
     RegistrationStore store;
+    RedisRegistrationStore testStore;
     LwM2mObservationStore observationStore;
     InetAddress address;
     Registration registration;
@@ -83,7 +111,9 @@ public class RedisRegistrationStoreTest {
     @BeforeEach
     public void setUp() throws UnknownHostException {
         address = InetAddress.getLocalHost();
-        store = new RedisRegistrationStore(RedisTestUtil.createJedisPool());
+        pool = RedisTestUtil.createJedisPool();
+        deleteTestKeys();
+        store = new RedisRegistrationStore(pool);
         observationStore = new LwM2mObservationStore(store, new LwM2mNotificationReceiver() {
 
             @Override
@@ -113,6 +143,10 @@ public class RedisRegistrationStoreTest {
     @AfterEach
     public void stop() {
         store.removeRegistration(registrationId);
+        if (testStore != null) {
+            testStore.destroy();
+        }
+        deleteTestKeys();
     }
 
     @Test
@@ -177,6 +211,337 @@ public class RedisRegistrationStoreTest {
         assertNull(leshanObservation);
     }
 
+    @Test
+    public void find_registrations_using_indexes() {
+        testStore = givenATestStore(new RedisRegistrationStore.Builder(pool));
+        testStore.addRegistration(
+                givenARegistration("ep1", "1", false, objects(3, "1.0", 5, "1.1"), attributes("t", "a")));
+        testStore.addRegistration(
+                givenARegistration("ep2", "2", true, objects(3, "1.0", 5, "1.0"), attributes("t", "b")));
+        testStore.addRegistration(givenARegistration("ep3", "3", true, objects(3, "1.1"), attributes("x", "a")));
+
+        assertEquals(Arrays.asList("ep1", "ep2"),
+                endpoints(new RegistrationQuery.Builder().supportedObject(5).build()));
+        assertEquals(Arrays.asList("ep1"),
+                endpoints(new RegistrationQuery.Builder().supportedObject(5, new Version("1.1")).build()));
+        assertEquals(Arrays.asList("ep2", "ep3"), endpoints(new RegistrationQuery.Builder().queueMode(true).build()));
+        assertEquals(Arrays.asList("ep1", "ep2"),
+                endpoints(new RegistrationQuery.Builder().additionalAttribute("t").build()));
+        assertEquals(Arrays.asList("ep2"), endpoints(new RegistrationQuery.Builder().additionalAttribute("t", "b")
+                .queueMode(true).supportedObject(3).build()));
+        assertEquals(Arrays.asList(),
+                endpoints(new RegistrationQuery.Builder().additionalAttribute("t", "a").queueMode(true).build()));
+        assertEquals(Arrays.asList(), endpoints(new RegistrationQuery.Builder().supportedObject(6).build()));
+    }
+
+    @Test
+    public void find_registrations_by_page() {
+        testStore = givenATestStore(new RedisRegistrationStore.Builder(pool));
+        // more registrations than the size of a batch read from index
+        for (int i = 39; i >= 0; i--) {
+            testStore.addRegistration(
+                    givenARegistration(String.format("ep%02d", i), "id" + i, i % 2 == 0, objects(3, "1.0"), null));
+        }
+
+        RegistrationQuery query = new RegistrationQuery.Builder().limit(3).build();
+        RegistrationPage page = testStore.findRegistrations(query);
+        assertEquals(Arrays.asList("ep00", "ep01", "ep02"), endpoints(page));
+        assertEquals("ep02", page.getNextCursor());
+        assertEquals(page.getNextCursor(), query.scan(testStore.getAllRegistrations()).getNextCursor());
+
+        page = testStore.findRegistrations(query.withCursor("ep38"));
+        assertEquals(Arrays.asList("ep39"), endpoints(page));
+        assertFalse(page.hasNext());
+
+        // compare with the default implementation which scan all registrations
+        query = new RegistrationQuery.Builder().queueMode(true).limit(7).build();
+        List<String> found = new ArrayList<>();
+        List<String> scanned = new ArrayList<>();
+        for (String cursor = null;;) {
+            RegistrationPage indexed = testStore.findRegistrations(query.withCursor(cursor));
+            RegistrationPage scan = query.withCursor(cursor).scan(testStore.getAllRegistrations());
+            found.addAll(endpoints(indexed));
+            scanned.addAll(endpoints(scan));
+            assertEquals(scan.getNextCursor(), indexed.getNextCursor());
+            cursor = indexed.getNextCursor();
+            if (cursor == null) {
+                break;
+            }
+        }
+        assertEquals(20, found.size());
+        assertEquals("ep00", found.get(0));
+        assertEquals("ep38", found.get(19));
+        assertEquals(found, scanned);
+    }
+
+    @Test
+    public void update_and_remove_registration_update_indexes() {
+        testStore = givenATestStore(new RedisRegistrationStore.Builder(pool));
+        testStore.addRegistration(givenARegistration("ep1", "1", false, objects(3, "1.0"), attributes("t", "a")));
+        RegistrationQuery byOldAttribute = new RegistrationQuery.Builder().additionalAttribute("t", "a").build();
+        RegistrationQuery byNewAttribute = new RegistrationQuery.Builder().additionalAttribute("t", "b").build();
+        assertEquals(Arrays.asList("ep1"), endpoints(byOldAttribute));
+
+        testStore.updateRegistration(givenAnUpdate("1", attributes("t", "b")));
+        assertEquals(Arrays.asList(), endpoints(byOldAttribute));
+        assertEquals(Arrays.asList("ep1"), endpoints(byNewAttribute));
+
+        // registration with same endpoint replaces previous one
+        testStore.addRegistration(givenARegistration("ep1", "2", true, objects(3, "1.0"), null));
+        assertEquals(Arrays.asList(), endpoints(byNewAttribute));
+        assertEquals(Arrays.asList("ep1"), endpoints(new RegistrationQuery.Builder().queueMode(true).build()));
+
+        testStore.removeRegistration("2");
+        assertEquals(Arrays.asList(), endpoints(new RegistrationQuery.Builder().build()));
+        // empty sorted sets are deleted by Redis, so no index entry is left
+        assertEquals(Collections.emptySet(), getTestKeys("EPS#IDX#"));
+    }
+
+    @Test
+    public void expired_registration_is_removed_from_indexes() throws InterruptedException {
+        testStore = givenATestStore(new RedisRegistrationStore.Builder(pool).setCleanPeriod(1));
+        testStore.addRegistration(givenARegistration("ep1", "1", false, objects(3, "1.0"), null));
+        testStore.addRegistration(givenAnExpiredRegistration("ep2", "2"));
+        assertEquals(Arrays.asList("ep1", "ep2"), endpoints(new RegistrationQuery.Builder().build()));
+
+        testStore.start();
+        long timeout = System.currentTimeMillis() + 5000;
+        while (testStore.getRegistration("2") != null && System.currentTimeMillis() < timeout) {
+            Thread.sleep(100);
+        }
+
+        assertNull(testStore.getRegistration("2"));
+        assertEquals(Arrays.asList("ep1"), endpoints(new RegistrationQuery.Builder().build()));
+        try (Jedis j = pool.getResource()) {
+            for (String key : getTestKeys("EPS#IDX#")) {
+                if (!key.endsWith("#VERSION")) {
+                    assertNull(j.zscore(key, "ep2"), key);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void registrations_stored_without_indexes_are_indexed_on_start() {
+        // given registrations stored by a version without query indexes
+        RedisRegistrationStore previousStore = givenATestStore(new RedisRegistrationStore.Builder(pool));
+        previousStore.addRegistration(givenARegistration("ep1", "1", false, objects(3, "1.0"), attributes("t", "a")));
+        previousStore.addRegistration(givenARegistration("ep2", "2", true, objects(3, "1.0"), null));
+        previousStore.destroy();
+        deleteTestKeys("EPS#IDX#");
+
+        testStore = givenATestStore(new RedisRegistrationStore.Builder(pool));
+        assertEquals(Arrays.asList(), endpoints(new RegistrationQuery.Builder().build()));
+
+        // when
+        testStore.start();
+
+        // then
+        assertEquals(Arrays.asList("ep1", "ep2"), endpoints(new RegistrationQuery.Builder().build()));
+        assertEquals(Arrays.asList("ep1"), endpoints(new RegistrationQuery.Builder().additionalAttribute("t").build()));
+        assertEquals(Arrays.asList("ep2"), endpoints(new RegistrationQuery.Builder().queueMode(true).build()));
+        assertTrue(getTestKeys("EPS#IDX#").contains(testPrefix + "EPS#IDX##VERSION"));
+    }
+
+    @Test
+    public void registration_changes_are_logged_in_order() throws InterruptedException {
+        // given
+        testStore = givenATestStore(
+                new RedisRegistrationStore.Builder(pool).setChangeLogMaxLength(1000).setCleanPeriod(1));
+        RegistrationChangeLog changeLog = testStore.getChangeLog();
+        assertEquals(0, changeLog.getLastOffset());
+
+        // when
+        testStore.addRegistration(givenARegistration("dev1", "1", false, objects(3, "1.0"), null));
+        testStore.addRegistration(givenARegistration("dev2", "2", false, objects(3, "1.0"), null));
+        testStore.updateRegistration(givenAnUpdate("1", attributes("a", "1")));
+        testStore.removeRegistration("2");
+        // unknown registration is not logged
+        testStore.removeRegistration("3");
+        // expired registration is removed by cleaner task
+        testStore.addRegistration(givenAnExpiredRegistration("dev3", "3"));
+        testStore.start();
+        waitForOffset(changeLog, 6);
+
+        // then
+        assertEquals(6, changeLog.getLastOffset());
+        List<RegistrationChange> changes = changeLog.getChanges(1, 10);
+        assertEquals(5, changes.size());
+        for (int i = 0; i < changes.size(); i++) {
+            assertEquals(i + 2, changes.get(i).getOffset());
+        }
+        assertEquals(RegistrationChange.Type.REGISTERED, changes.get(0).getType());
+        assertEquals("dev2", changes.get(0).getRegistration().getEndpoint());
+        assertEquals(RegistrationChange.Type.UPDATED, changes.get(1).getType());
+        assertEquals("dev1", changes.get(1).getRegistration().getEndpoint());
+        assertEquals("1", changes.get(1).getRegistration().getAdditionalRegistrationAttributes().get("a"));
+        assertEquals(RegistrationChange.Type.DEREGISTERED, changes.get(2).getType());
+        assertEquals("dev2", changes.get(2).getRegistration().getEndpoint());
+        assertEquals(RegistrationChange.Type.REGISTERED, changes.get(3).getType());
+        assertEquals(RegistrationChange.Type.EXPIRED, changes.get(4).getType());
+        assertEquals("dev3", changes.get(4).getRegistration().getEndpoint());
+        assertTrue(changes.get(4).isRemoval());
+
+        // changes are read by batch
+        assertEquals(2, changeLog.getChanges(0, 2).size());
+        // consumer is up to date
+        assertEquals(Collections.emptyList(), changeLog.getChanges(6, 10));
+    }
+
+    @Test
+    public void registration_change_log_is_truncated_after_max_length() {
+        // given
+        testStore = givenATestStore(new RedisRegistrationStore.Builder(pool).setChangeLogMaxLength(10));
+        RegistrationChangeLog changeLog = testStore.getChangeLog();
+
+        // when : stream is trimmed by whole nodes (100 entries by default), so more entries are needed
+        testStore.addRegistration(givenARegistration("dev1", "1", false, objects(3, "1.0"), null));
+        for (int i = 0; i < 300; i++) {
+            testStore.updateRegistration(givenAnUpdate("1", null));
+        }
+
+        // then
+        assertEquals(301, changeLog.getLastOffset());
+        assertThrows(RegistrationChangeLogTruncatedException.class, () -> changeLog.getChanges(0, 10));
+        List<RegistrationChange> changes = changeLog.getChanges(291, 100);
+        assertEquals(10, changes.size());
+        assertEquals(292, changes.get(0).getOffset());
+        assertEquals(301, changes.get(9).getOffset());
+    }
+
+    @Test
+    public void registration_change_log_offset_is_resynchronized_with_stream() {
+        // given
+        testStore = givenATestStore(new RedisRegistrationStore.Builder(pool).setChangeLogMaxLength(1000));
+        RegistrationChangeLog changeLog = testStore.getChangeLog();
+        testStore.addRegistration(givenARegistration("dev1", "1", false, objects(3, "1.0"), null));
+        testStore.updateRegistration(givenAnUpdate("1", null));
+
+        // when
+        try (Jedis j = pool.getResource()) {
+            j.del(testPrefix + "CHANGES#REG#OFFSET");
+        }
+        assertEquals(0, changeLog.getLastOffset());
+        testStore.updateRegistration(givenAnUpdate("1", null));
+
+        // then
+        assertEquals(3, changeLog.getLastOffset());
+        List<RegistrationChange> changes = changeLog.getChanges(1, 10);
+        assertEquals(2, changes.size());
+        assertEquals(3, changes.get(1).getOffset());
+    }
+
+    @Test
+    public void registration_change_not_logged_is_detected_by_consumers() {
+        // given
+        testStore = givenATestStore(new RedisRegistrationStore.Builder(pool).setChangeLogMaxLength(1000));
+        RegistrationChangeLog changeLog = testStore.getChangeLog();
+        testStore.addRegistration(givenARegistration("dev1", "1", false, objects(3, "1.0"), null));
+
+        // when : stream can not be written as its key has a wrong type
+        String streamKey = testPrefix + "CHANGES#REG";
+        try (Jedis j = pool.getResource()) {
+            j.del(streamKey);
+            j.set(streamKey, "not a stream");
+        }
+        testStore.updateRegistration(givenAnUpdate("1", null));
+        try (Jedis j = pool.getResource()) {
+            j.del(streamKey);
+        }
+        testStore.updateRegistration(givenAnUpdate("1", null));
+
+        // then : registration is updated but offset of change not logged is skipped
+        assertEquals("dev1", testStore.getRegistration("1").getEndpoint());
+        assertEquals(3, changeLog.getLastOffset());
+        assertThrows(RegistrationChangeLogTruncatedException.class, () -> changeLog.getChanges(1, 10));
+        assertEquals(3, changeLog.getChanges(2, 10).get(0).getOffset());
+    }
+
+    private RedisRegistrationStore givenATestStore(RedisRegistrationStore.Builder builder) {
+        RedisRegistrationStore testStore = builder.setPrefix(testPrefix).build();
+        testStore.setExpirationListener(new ExpirationListener() {
+            @Override
+            public void registrationExpired(Registration registration, Collection<Observation> observations) {
+            }
+        });
+        return testStore;
+    }
+
+    private void deleteTestKeys() {
+        deleteTestKeys("");
+    }
+
+    private void deleteTestKeys(String keyPrefix) {
+        try (Jedis j = pool.getResource()) {
+            for (String key : getTestKeys(keyPrefix)) {
+                j.del(key);
+            }
+        }
+    }
+
+    private Set<String> getTestKeys(String keyPrefix) {
+        Set<String> keys = new TreeSet<>();
+        try (Jedis j = pool.getResource()) {
+            ScanParams params = new ScanParams().match(testPrefix + keyPrefix + "*").count(100);
+            String cursor = ScanParams.SCAN_POINTER_START;
+            do {
+                ScanResult<String> result = j.scan(cursor, params);
+                keys.addAll(result.getResult());
+                cursor = result.getCursor();
+            } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+        }
+        return keys;
+    }
+
+    private List<String> endpoints(RegistrationQuery query) {
+        return endpoints(testStore.findRegistrations(query));
+    }
+
+    private List<String> endpoints(RegistrationPage page) {
+        List<String> endpoints = new ArrayList<>();
+        for (Registration registration : page.getRegistrations()) {
+            endpoints.add(registration.getEndpoint());
+        }
+        return endpoints;
+    }
+
+    private void waitForOffset(RegistrationChangeLog changeLog, long offset) throws InterruptedException {
+        long timeout = System.currentTimeMillis() + 5000;
+        while (changeLog.getLastOffset() < offset && System.currentTimeMillis() < timeout) {
+            Thread.sleep(100);
+        }
+    }
+
+    private Map<Integer, Version> objects(Object... idAndVersions) {
+        Map<Integer, Version> objects = new HashMap<>();
+        for (int i = 0; i < idAndVersions.length; i += 2) {
+            objects.put((Integer) idAndVersions[i], new Version((String) idAndVersions[i + 1]));
+        }
+        return objects;
+    }
+
+    private Map<String, String> attributes(String key, String value) {
+        return Collections.singletonMap(key, value);
+    }
+
+    private Registration givenARegistration(String endpoint, String id, boolean queueMode,
+            Map<Integer, Version> objects, Map<String, String> attributes) {
+        return new Registration.Builder(id, endpoint, new IpPeer(new InetSocketAddress(address, port)),
+                EndpointUriUtil.createUri("coap://localhost:5683")).lwM2mVersion(LwM2mVersion.V1_1).queueMode(queueMode)
+                        .supportedObjects(objects).additionalRegistrationAttributes(attributes).build();
+    }
+
+    private Registration givenAnExpiredRegistration(String endpoint, String id) {
+        return new Registration.Builder(id, endpoint, new IpPeer(new InetSocketAddress(address, port)),
+                EndpointUriUtil.createUri("coap://localhost:5683")).lifeTimeInSec(1L)
+                        .lastUpdate(new Date(System.currentTimeMillis() - 10000)).build();
+    }
+
+    private RegistrationUpdate givenAnUpdate(String id, Map<String, String> attributes) {
+        return new RegistrationUpdate(id, new IpPeer(new InetSocketAddress(address, port)), null, null, null, null,
+                null, null, null, null, attributes, null);
+    }
+
     private void givenASimpleRegistration(Long lifetime) {
         Registration.Builder builder = new Registration.Builder(registrationId, ep,
                 new IpPeer(new InetSocketAddress(address, port)), EndpointUriUtil.createUri("coap://localhost:5683"));
@@ -39,6 +39,7 @@ import org.eclipse.leshan.integration.tests.util.cf.CertPair;
 import org.eclipse.leshan.integration.tests.util.cf.MapBasedCertificateProvider;
 import org.eclipse.leshan.integration.tests.util.cf.MapBasedRawPublicKeyProvider;
 import org.eclipse.leshan.server.LeshanServerBuilder;
+import org.eclipse.leshan.server.batch.DataBatcher;
 import org.eclipse.leshan.server.californium.endpoint.CaliforniumServerEndpointFactory;
 import org.eclipse.leshan.server.californium.endpoint.CaliforniumServerEndpointsProvider;
 import org.eclipse.leshan.server.californium.endpoint.CaliforniumServerEndpointsProvider.Builder;
@@ -46,7 +47,9 @@ import org.eclipse.leshan.server.californium.endpoint.ServerProtocolProvider;
 import org.eclipse.leshan.server.californium.endpoint.coap.CoapOscoreServerEndpointFactory;
 import org.eclipse.leshan.server.californium.endpoint.coap.CoapServerProtocolProvider;
 import org.eclipse.leshan.server.californium.endpoint.coaps.CoapsServerProtocolProvider;
+import org.eclipse.leshan.server.dispatch.EventDispatcher;
 import org.eclipse.leshan.server.endpoint.LwM2mServerEndpointsProvider;
+import org.eclipse.leshan.server.metrics.ServerMetrics;
 import org.eclipse.leshan.server.model.LwM2mModelProvider;
 import org.eclipse.leshan.server.model.VersionedModelProvider;
 import org.eclipse.leshan.server.queue.ClientAwakeTimeProvider;
@@ -92,7 +95,8 @@ public class LeshanTestServerBuilder extends LeshanServerBuilder {
             ClientAwakeTimeProvider awakeTimeProvider, RegistrationIdProvider registrationIdProvider,
             RegistrationDataExtractor registrationDataExtractor, LwM2mLinkParser linkParser,
             ServerSecurityInfo serverSecurityInfo, boolean updateRegistrationOnNotification,
-            boolean updateRegistrationOnSend) {
+            boolean updateRegistrationOnSend, EventDispatcher eventDispatcher, DataBatcher dataBatcher,
+            ServerMetrics metrics) {
 
         // create endpoint provider.
         if (endpointsProvider == null) {
@@ -112,6 +116,9 @@ public class LeshanTestServerBuilder extends LeshanServerBuilder {
             case "java-coap":
                 endpointsProvider = getJavaCoapProtocolProvider(protocolToUse);
                 break;
+            case "java-coap-reuseport":
+                endpointsProvider = getJavaCoapReusePortProtocolProvider(protocolToUse);
+                break;
             default:
                 throw new IllegalStateException(
                         String.format("Unknown endpoint provider : [%s]", endpointProviderName));
@@ -119,7 +126,8 @@ public class LeshanTestServerBuilder extends LeshanServerBuilder {
         }
         return new LeshanTestServer(endpointsProvider, registrationStore, securityStore, authorizer, modelProvider,
                 encoder, decoder, noQueueMode, awakeTimeProvider, registrationIdProvider, registrationDataExtractor,
-                linkParser, serverSecurityInfo, updateRegistrationOnNotification, updateRegistrationOnSend);
+                linkParser, serverSecurityInfo, updateRegistrationOnNotification, updateRegistrationOnSend,
+                eventDispatcher, dataBatcher, metrics);
     }
 
     public static LeshanTestServerBuilder givenServerUsing(Protocol protocolToUse) {
@@ -251,4 +259,11 @@ public class LeshanTestServerBuilder extends LeshanServerBuilder {
         }
         throw new IllegalStateException(String.format("No Californium Protocol Provider for protocol %s", protocol));
     }
+
+    protected LwM2mServerEndpointsProvider getJavaCoapReusePortProtocolProvider(Protocol protocol) {
+        if (protocolToUse.equals(Protocol.COAP)) {
+            return new JavaCoapServerEndpointsProvider(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 4);
+        }
+        throw new IllegalStateException(String.format("No java-coap Protocol Provider for protocol %s", protocol));
+    }
 }
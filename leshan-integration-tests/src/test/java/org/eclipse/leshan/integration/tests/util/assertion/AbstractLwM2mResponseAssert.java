@@ -57,6 +57,7 @@ public abstract class AbstractLwM2mResponseAssert<SELF extends AbstractLwM2mResp
             assertThatUnderlyingResponse.isExactlyInstanceOf(Response.class);
             break;
         case "java-coap":
+        case "java-coap-reuseport":
             assertThatUnderlyingResponse.isExactlyInstanceOf(CoapResponse.class);
             break;
         default:
@@ -78,6 +79,7 @@ public abstract class AbstractLwM2mResponseAssert<SELF extends AbstractLwM2mResp
             });
             break;
         case "java-coap":
+        case "java-coap-reuseport":
             assertThatUnderlyingResponse.isInstanceOfSatisfying(CoapResponse.class, r -> {
                 Assertions.assertThat(r.options().getContentFormat()).as("Content Format")//
                         .isNotNull().isEqualTo((short) format.getCode());
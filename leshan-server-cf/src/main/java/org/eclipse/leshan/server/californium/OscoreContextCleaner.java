@@ -19,6 +19,7 @@ import java.util.Collection;
 
 import org.eclipse.californium.oscore.OSCoreCtx;
 import org.eclipse.californium.oscore.OSCoreCtxDB;
+import org.eclipse.leshan.core.californium.oscore.cf.ConcurrentOscoreContextDB;
 import org.eclipse.leshan.core.observation.Observation;
 import org.eclipse.leshan.core.peer.OscoreIdentity;
 import org.eclipse.leshan.server.registration.Registration;
@@ -73,6 +74,11 @@ public class OscoreContextCleaner implements RegistrationListener, SecurityStore
     }
 
     private void removeContext(byte[] rid) {
+        if (oscoreCtxDB instanceof ConcurrentOscoreContextDB) {
+            // remove without deriving a context which is not already known
+            ((ConcurrentOscoreContextDB) oscoreCtxDB).removeContext(rid);
+            return;
+        }
         OSCoreCtx context = oscoreCtxDB.getContext(rid);
         if (context != null)
             oscoreCtxDB.removeContext(context);
@@ -17,6 +17,7 @@ package org.eclipse.leshan.server.californium.bootstrap;
 
 import org.eclipse.californium.oscore.OSCoreCtx;
 import org.eclipse.californium.oscore.OSCoreCtxDB;
+import org.eclipse.leshan.core.californium.oscore.cf.ConcurrentOscoreContextDB;
 import org.eclipse.leshan.core.peer.LwM2mIdentity;
 import org.eclipse.leshan.core.peer.OscoreIdentity;
 import org.eclipse.leshan.server.bootstrap.BootstrapFailureCause;
@@ -41,6 +42,11 @@ public class BootstrapOscoreContextCleaner extends BootstrapSessionAdapter {
 
     // TODO OSCORE remove this method when new API will be added to OSCoreCtxDB
     private void removeContext(byte[] rid) {
+        if (oscoreCtxDB instanceof ConcurrentOscoreContextDB) {
+            // remove without deriving a context which is not already known
+            ((ConcurrentOscoreContextDB) oscoreCtxDB).removeContext(rid);
+            return;
+        }
         OSCoreCtx context = oscoreCtxDB.getContext(rid);
         if (context != null)
             oscoreCtxDB.removeContext(context);
@@ -29,7 +29,7 @@ import org.eclipse.californium.oscore.OSCoreCoapStackFactory;
 import org.eclipse.californium.oscore.OSCoreCtxDB;
 import org.eclipse.californium.oscore.OSCoreEndpointContextInfo;
 import org.eclipse.leshan.core.californium.identity.IdentityHandler;
-import org.eclipse.leshan.core.californium.oscore.cf.InMemoryOscoreContextDB;
+import org.eclipse.leshan.core.californium.oscore.cf.ConcurrentOscoreContextDB;
 import org.eclipse.leshan.core.peer.IpPeer;
 import org.eclipse.leshan.core.peer.LwM2mPeer;
 import org.eclipse.leshan.core.peer.OscoreIdentity;
@@ -77,7 +77,7 @@ public class CoapOscoreBootstrapServerEndpointFactory extends CoapBootstrapServe
                 sessionHolder = new OscoreBootstrapListener();
                 server.addListener(sessionHolder);
 
-                oscoreCtxDB = new InMemoryOscoreContextDB(
+                oscoreCtxDB = new ConcurrentOscoreContextDB(
                         new LwM2mBootstrapOscoreStore(server.getSecurityStore(), sessionHolder));
                 oscoreContextCleaner = new BootstrapOscoreContextCleaner(oscoreCtxDB);
                 server.addListener(oscoreContextCleaner);
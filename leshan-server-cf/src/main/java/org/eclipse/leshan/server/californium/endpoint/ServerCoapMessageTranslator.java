@@ -45,6 +45,7 @@ import org.eclipse.leshan.server.californium.request.CoapRequestBuilder;
 import org.eclipse.leshan.server.californium.request.LwM2mResponseBuilder;
 import org.eclipse.leshan.server.californium.send.SendResource;
 import org.eclipse.leshan.server.endpoint.ServerEndpointToolbox;
+import org.eclipse.leshan.server.metrics.ServerMetrics;
 import org.eclipse.leshan.server.profile.ClientProfile;
 import org.eclipse.leshan.server.request.UplinkRequestReceiver;
 import org.slf4j.Logger;
@@ -78,7 +79,7 @@ public class ServerCoapMessageTranslator {
         return Arrays.asList( //
                 (Resource) new RegisterResource(receiver, toolbox.getLinkParser(), identityHandlerProvider), //
                 (Resource) new SendResource(receiver, toolbox.getDecoder(), toolbox.getProfileProvider(),
-                        identityHandlerProvider));
+                        identityHandlerProvider, toolbox.getMetrics()));
     }
 
     public AbstractLwM2mResponse createObserveResponse(Observation observation, Response coapResponse,
@@ -101,8 +102,10 @@ public class ServerCoapMessageTranslator {
                     return new ObserveResponse(responseCode, null, null, null, coapResponse.getPayloadString(),
                             coapResponse);
                 } else {
+                    long start = System.nanoTime();
                     List<TimestampedLwM2mNode> timestampedNodes = toolbox.getDecoder().decodeTimestampedData(
                             coapResponse.getPayload(), contentFormat, singleObservation.getPath(), profile.getModel());
+                    recordDecodingTime(toolbox, contentFormat, start);
 
                     // create lwm2m response
                     if (timestampedNodes.size() == 1 && !timestampedNodes.get(0).isTimestamped()) {
@@ -121,9 +124,11 @@ public class ServerCoapMessageTranslator {
                     return new ObserveCompositeResponse(responseCode, null, null, null, coapResponse.getPayloadString(),
                             coapResponse);
                 } else {
+                    long start = System.nanoTime();
                     TimestampedLwM2mNodes timestampedNodes = toolbox.getDecoder().decodeTimestampedNodes(
                             coapResponse.getPayload(), contentFormat, compositeObservation.getPaths(),
                             profile.getModel());
+                    recordDecodingTime(toolbox, contentFormat, start);
 
                     if (timestampedNodes.getTimestamps().size() == 1
                             && timestampedNodes.getTimestamps().iterator().next() == null) {
@@ -150,4 +155,9 @@ public class ServerCoapMessageTranslator {
                     observation);
         }
     }
+
+    private void recordDecodingTime(ServerEndpointToolbox toolbox, ContentFormat contentFormat, long start) {
+        toolbox.getMetrics().recordDuration(ServerMetrics.NOTIFICATION_DECODE,
+                contentFormat == null ? "none" : contentFormat.getName(), System.nanoTime() - start);
+    }
 }
@@ -22,13 +22,17 @@ import java.security.Principal;
 import org.eclipse.californium.core.coap.Message;
 import org.eclipse.californium.core.network.CoapEndpoint;
 import org.eclipse.californium.core.network.CoapEndpoint.Builder;
+import org.eclipse.californium.core.network.Endpoint;
+import org.eclipse.californium.core.network.EndpointObserver;
 import org.eclipse.californium.elements.AddressEndpointContext;
 import org.eclipse.californium.elements.EndpointContext;
 import org.eclipse.californium.elements.config.Configuration;
 import org.eclipse.californium.oscore.OSCoreCoapStackFactory;
 import org.eclipse.californium.oscore.OSCoreEndpointContextInfo;
 import org.eclipse.leshan.core.californium.identity.IdentityHandler;
-import org.eclipse.leshan.core.californium.oscore.cf.InMemoryOscoreContextDB;
+import org.eclipse.leshan.core.californium.oscore.cf.ConcurrentOscoreContextDB;
+import org.eclipse.leshan.core.californium.oscore.cf.OscoreContextStatePersister;
+import org.eclipse.leshan.core.californium.oscore.cf.OscoreContextStateStore;
 import org.eclipse.leshan.core.peer.IpPeer;
 import org.eclipse.leshan.core.peer.LwM2mPeer;
 import org.eclipse.leshan.core.peer.OscoreIdentity;
@@ -38,6 +42,7 @@ import org.eclipse.leshan.server.californium.LwM2mOscoreStore;
 import org.eclipse.leshan.server.californium.OscoreContextCleaner;
 import org.eclipse.leshan.server.observation.LwM2mNotificationReceiver;
 import org.eclipse.leshan.server.security.EditableSecurityStore;
+import org.eclipse.leshan.server.security.ServerSecurityInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,8 +50,25 @@ public class CoapOscoreServerEndpointFactory extends CoapServerEndpointFactory {
 
     private static final Logger LOG = LoggerFactory.getLogger(CoapOscoreServerEndpointFactory.class);
 
+    private final OscoreContextStateStore oscoreContextStateStore;
+    private OscoreContextStatePersister oscoreContextStatePersister;
+
     public CoapOscoreServerEndpointFactory(URI uri) {
+        this(uri, null);
+    }
+
+    /**
+     * Create a factory for an endpoint which persists OSCORE context states, so foreign peers can resume their OSCORE
+     * context after a server restart without context re-derivation.
+     *
+     * @param uri the endpoint URI
+     * @param oscoreContextStateStore store where OSCORE context states are persisted, <code>null</code> means states
+     *        are not persisted.
+     * @see OscoreContextStatePersister
+     */
+    public CoapOscoreServerEndpointFactory(URI uri, OscoreContextStateStore oscoreContextStateStore) {
         super(uri);
+        this.oscoreContextStateStore = oscoreContextStateStore;
     }
 
     @Override
@@ -54,6 +76,43 @@ public class CoapOscoreServerEndpointFactory extends CoapServerEndpointFactory {
         return super.getEndpointDescription() + " with very experimental support of OSCORE";
     }
 
+    @Override
+    public CoapEndpoint createCoapEndpoint(Configuration defaultConfiguration, ServerSecurityInfo serverSecurityInfo,
+            LwM2mNotificationReceiver notificationReceiver, LeshanServer server) {
+        CoapEndpoint coapEndpoint = super.createCoapEndpoint(defaultConfiguration, serverSecurityInfo,
+                notificationReceiver, server);
+
+        // persister follows endpoint lifecycle
+        OscoreContextStatePersister persister = oscoreContextStatePersister;
+        if (persister != null) {
+            coapEndpoint.addObserver(new EndpointObserver() {
+                @Override
+                public void started(Endpoint endpoint) {
+                    persister.start();
+                }
+
+                @Override
+                public void stopped(Endpoint endpoint) {
+                    persister.stop();
+                }
+
+                @Override
+                public void destroyed(Endpoint endpoint) {
+                    persister.destroy();
+                }
+            });
+        }
+        return coapEndpoint;
+    }
+
+    /**
+     * @return the {@link OscoreContextStatePersister} of the last created endpoint or <code>null</code> if OSCORE
+     *         context states are not persisted.
+     */
+    public OscoreContextStatePersister getOscoreContextStatePersister() {
+        return oscoreContextStatePersister;
+    }
+
     /**
      * This method is intended to be overridden.
      *
@@ -69,10 +128,16 @@ public class CoapOscoreServerEndpointFactory extends CoapServerEndpointFactory {
 
         // handle oscore
         if (server.getSecurityStore() != null) {
-            InMemoryOscoreContextDB oscoreCtxDB = new InMemoryOscoreContextDB(
+            ConcurrentOscoreContextDB oscoreCtxDB = new ConcurrentOscoreContextDB(
                     new LwM2mOscoreStore(server.getSecurityStore(), server.getRegistrationStore()));
             builder.setCustomCoapStackArgument(oscoreCtxDB).setCoapStackFactory(new OSCoreCoapStackFactory());
 
+            if (oscoreContextStateStore != null) {
+                oscoreContextStatePersister = new OscoreContextStatePersister(oscoreCtxDB, oscoreContextStateStore);
+                // load states before endpoint starts to receive messages
+                oscoreContextStatePersister.start();
+            }
+
             OscoreContextCleaner oscoreCtxCleaner = new OscoreContextCleaner(oscoreCtxDB);
             server.getRegistrationService().addListener(oscoreCtxCleaner);
 
@@ -218,6 +218,11 @@ public class CoapsServerEndpointFactory implements CaliforniumServerEndpointFact
             }
         }
 
+        // Count handshakes, unless user set its own session listener
+        if (incompleteConfig.getSessionListener() == null) {
+            dtlsConfigBuilder.setSessionListener(new DtlsHandshakeMetrics(server.getMetrics()));
+        }
+
         // Handle secure address
         if (incompleteConfig.getAddress() == null) {
             dtlsConfigBuilder.setAddress(address);
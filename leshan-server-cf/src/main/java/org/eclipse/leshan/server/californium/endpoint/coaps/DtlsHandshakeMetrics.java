@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.californium.endpoint.coaps;
+
+import org.eclipse.californium.scandium.dtls.DTLSContext;
+import org.eclipse.californium.scandium.dtls.Handshaker;
+import org.eclipse.californium.scandium.dtls.SessionListener;
+import org.eclipse.leshan.core.util.Validate;
+import org.eclipse.leshan.server.metrics.ServerMetrics;
+
+/**
+ * A Scandium {@link SessionListener} which counts DTLS handshakes using {@link ServerMetrics#DTLS_HANDSHAKE} metric.
+ */
+public class DtlsHandshakeMetrics implements SessionListener {
+
+    private final ServerMetrics metrics;
+
+    public DtlsHandshakeMetrics(ServerMetrics metrics) {
+        Validate.notNull(metrics);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void handshakeStarted(Handshaker handshaker) {
+        metrics.increment(ServerMetrics.DTLS_HANDSHAKE, ServerMetrics.HANDSHAKE_STARTED);
+    }
+
+    @Override
+    public void contextEstablished(Handshaker handshaker, DTLSContext establishedContext) {
+    }
+
+    @Override
+    public void handshakeCompleted(Handshaker handshaker) {
+        metrics.increment(ServerMetrics.DTLS_HANDSHAKE, ServerMetrics.HANDSHAKE_SUCCEEDED);
+    }
+
+    @Override
+    public void handshakeFailed(Handshaker handshaker, Throwable error) {
+        metrics.increment(ServerMetrics.DTLS_HANDSHAKE, ServerMetrics.HANDSHAKE_FAILED);
+    }
+
+    @Override
+    public void handshakeFlightRetransmitted(Handshaker handshaker, int flight) {
+    }
+}
@@ -31,6 +31,7 @@ import org.eclipse.leshan.core.request.SendRequest;
 import org.eclipse.leshan.core.request.exception.InvalidRequestException;
 import org.eclipse.leshan.core.response.SendResponse;
 import org.eclipse.leshan.core.response.SendableResponse;
+import org.eclipse.leshan.server.metrics.ServerMetrics;
 import org.eclipse.leshan.server.profile.ClientProfile;
 import org.eclipse.leshan.server.profile.ClientProfileProvider;
 import org.eclipse.leshan.server.request.UplinkRequestReceiver;
@@ -42,13 +43,15 @@ import org.eclipse.leshan.server.request.UplinkRequestReceiver;
  */
 public class SendResource extends LwM2mCoapResource {
     private final LwM2mDecoder decoder;
+    private final ServerMetrics metrics;
     private final UplinkRequestReceiver receiver;
     private final ClientProfileProvider profileProvider;
 
     public SendResource(UplinkRequestReceiver receiver, LwM2mDecoder decoder, ClientProfileProvider profileProvider,
-            IdentityHandlerProvider identityHandlerProvider) {
+            IdentityHandlerProvider identityHandlerProvider, ServerMetrics metrics) {
         super("dp", identityHandlerProvider);
         this.decoder = decoder;
+        this.metrics = metrics;
         this.receiver = receiver;
         this.profileProvider = profileProvider;
     }
@@ -78,8 +81,11 @@ public class SendResource extends LwM2mCoapResource {
                 return;
             }
 
+            long start = System.nanoTime();
             TimestampedLwM2mNodes data = decoder.decodeTimestampedNodes(payload, contentFormat, null,
                     clientProfile.getModel());
+            metrics.recordDuration(ServerMetrics.SEND_DECODE, contentFormat == null ? "none" : contentFormat.getName(),
+                    System.nanoTime() - start);
 
             // Handle "send op request
             SendRequest sendRequest = new SendRequest(contentFormat, data, coapRequest);
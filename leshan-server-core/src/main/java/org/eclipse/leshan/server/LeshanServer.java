@@ -42,10 +42,18 @@ import org.eclipse.leshan.core.response.ErrorCallback;
 import org.eclipse.leshan.core.response.LwM2mResponse;
 import org.eclipse.leshan.core.response.ResponseCallback;
 import org.eclipse.leshan.core.util.Validate;
+import org.eclipse.leshan.server.batch.BatchService;
+import org.eclipse.leshan.server.batch.DataBatcher;
+import org.eclipse.leshan.server.dispatch.EventDispatcher;
+import org.eclipse.leshan.server.dispatch.StripedEventDispatcher;
 import org.eclipse.leshan.server.endpoint.CompositeServerEndpointsProvider;
 import org.eclipse.leshan.server.endpoint.LwM2mServerEndpoint;
 import org.eclipse.leshan.server.endpoint.LwM2mServerEndpointsProvider;
 import org.eclipse.leshan.server.endpoint.ServerEndpointToolbox;
+import org.eclipse.leshan.server.fleet.FleetOperationService;
+import org.eclipse.leshan.server.fleet.FleetOperationServiceImpl;
+import org.eclipse.leshan.server.metrics.ServerMetrics;
+import org.eclipse.leshan.server.metrics.ServerMetricsListener;
 import org.eclipse.leshan.server.model.LwM2mModelProvider;
 import org.eclipse.leshan.server.observation.ObservationService;
 import org.eclipse.leshan.server.observation.ObservationServiceImpl;
@@ -104,6 +112,10 @@ public class LeshanServer {
     private final LwM2mModelProvider modelProvider;
     private PresenceServiceImpl presenceService;
     private final DownlinkRequestSender requestSender;
+    private final FleetOperationServiceImpl fleetOperationService;
+    private final EventDispatcher eventDispatcher;
+    private final DataBatcher dataBatcher;
+    private final ServerMetrics metrics;
 
     /**
      * Initialize a server which will bind to the specified address and port.
@@ -126,6 +138,10 @@ public class LeshanServer {
      * @param updateRegistrationOnSend will activate registration update on Send Operation.
      * @param linkParser a parser {@link LwM2mLinkParser} used to parse a CoRE Link.
      * @param serverSecurityInfo credentials of the Server
+     * @param eventDispatcher used to deliver notifications and data received via "Send" to listeners.
+     * @param dataBatcher used to deliver notifications and data received via "Send" by batch, can be {@code null} if
+     *        batching is not needed.
+     * @param metrics used by server components to report what happens on hot paths.
      * @since 1.1
      */
     public LeshanServer(LwM2mServerEndpointsProvider endpointsProvider, RegistrationStore registrationStore,
@@ -133,7 +149,8 @@ public class LeshanServer {
             LwM2mDecoder decoder, boolean noQueueMode, ClientAwakeTimeProvider awakeTimeProvider,
             RegistrationIdProvider registrationIdProvider, RegistrationDataExtractor registrationDataExtractor,
             boolean updateRegistrationOnNotification, boolean updateRegistrationOnSend, LwM2mLinkParser linkParser,
-            ServerSecurityInfo serverSecurityInfo) {
+            ServerSecurityInfo serverSecurityInfo, EventDispatcher eventDispatcher, DataBatcher dataBatcher,
+            ServerMetrics metrics) {
 
         Validate.notNull(endpointsProvider, "endpointsProvider cannot be null");
         Validate.notNull(registrationStore, "registration store cannot be null");
@@ -142,26 +159,43 @@ public class LeshanServer {
         Validate.notNull(encoder, "encoder cannot be null");
         Validate.notNull(decoder, "decoder cannot be null");
         Validate.notNull(registrationIdProvider, "registrationIdProvider cannot be null");
+        Validate.notNull(eventDispatcher, "eventDispatcher cannot be null");
+        Validate.notNull(metrics, "metrics cannot be null");
 
         // init services and stores
         this.endpointsProvider = endpointsProvider;
+        this.eventDispatcher = eventDispatcher;
+        this.metrics = metrics;
         this.registrationStore = registrationStore;
         registrationService = createRegistrationService(registrationStore);
         this.securityStore = securityStore;
         this.modelProvider = modelProvider;
         this.observationService = createObservationService(registrationStore, updateRegistrationOnNotification,
-                endpointsProvider);
+                endpointsProvider, eventDispatcher);
         if (noQueueMode) {
             presenceService = null;
         } else {
             presenceService = createPresenceService(registrationService, awakeTimeProvider,
                     updateRegistrationOnNotification);
         }
-        this.sendService = createSendHandler(registrationStore, updateRegistrationOnSend);
+        this.sendService = createSendHandler(registrationStore, updateRegistrationOnSend, eventDispatcher);
+
+        // report registration and presence events to metrics
+        ServerMetricsListener metricsListener = new ServerMetricsListener(metrics);
+        registrationService.addListener(metricsListener);
+        if (presenceService != null) {
+            presenceService.addListener(metricsListener);
+            metrics.registerGauge(ServerMetrics.PRESENCE, ServerMetrics.AWAKE, presenceService::getAwakeClientCount);
+        }
+        this.dataBatcher = dataBatcher;
+        if (dataBatcher != null) {
+            observationService.addListener(dataBatcher);
+            sendService.addListener(dataBatcher);
+        }
 
         // create endpoints
         ServerEndpointToolbox toolbox = new ServerEndpointToolbox(decoder, encoder, linkParser,
-                new DefaultClientProfileProvider(registrationStore, modelProvider));
+                new DefaultClientProfileProvider(registrationStore, modelProvider), metrics);
         RegistrationHandler registrationHandler = new RegistrationHandler(registrationService, authorizer,
                 registrationIdProvider, registrationDataExtractor);
         DefaultUplinkRequestReceiver requestReceiver = new DefaultUplinkRequestReceiver(registrationHandler,
@@ -171,7 +205,7 @@ public class LeshanServer {
         // create request sender
         requestSender = createRequestSender(endpointsProvider, registrationService, this.modelProvider,
                 presenceService);
-
+        fleetOperationService = createFleetOperationService(registrationService, presenceService, requestSender);
     }
 
     protected RegistrationServiceImpl createRegistrationService(RegistrationStore registrationStore) {
@@ -179,10 +213,11 @@ public class LeshanServer {
     }
 
     protected ObservationServiceImpl createObservationService(RegistrationStore registrationStore,
-            boolean updateRegistrationOnNotification, LwM2mServerEndpointsProvider endpointsProvider) {
+            boolean updateRegistrationOnNotification, LwM2mServerEndpointsProvider endpointsProvider,
+            EventDispatcher eventDispatcher) {
 
         ObservationServiceImpl observationService = new ObservationServiceImpl(registrationStore, endpointsProvider,
-                updateRegistrationOnNotification);
+                updateRegistrationOnNotification, eventDispatcher);
         return observationService;
     }
 
@@ -197,8 +232,9 @@ public class LeshanServer {
         return presenceService;
     }
 
-    protected SendHandler createSendHandler(RegistrationStore registrationStore, boolean updateRegistrationOnSend) {
-        return new SendHandler(registrationStore, updateRegistrationOnSend);
+    protected SendHandler createSendHandler(RegistrationStore registrationStore, boolean updateRegistrationOnSend,
+            EventDispatcher eventDispatcher) {
+        return new SendHandler(registrationStore, updateRegistrationOnSend, eventDispatcher);
     }
 
     protected DownlinkRequestSender createRequestSender(LwM2mServerEndpointsProvider endpointsProvider,
@@ -208,10 +244,10 @@ public class LeshanServer {
         // if no queue mode, create a "simple" sender
         final DownlinkRequestSender requestSender;
         if (presenceService == null)
-            requestSender = new DefaultDownlinkRequestSender(endpointsProvider, modelProvider);
+            requestSender = new DefaultDownlinkRequestSender(endpointsProvider, modelProvider, metrics);
         else
             requestSender = new QueueModeLwM2mRequestSender(presenceService,
-                    new DefaultDownlinkRequestSender(endpointsProvider, modelProvider));
+                    new DefaultDownlinkRequestSender(endpointsProvider, modelProvider, metrics));
 
         // Cancel observations on client unregistering
         registrationService.addListener(new RegistrationListener() {
@@ -239,6 +275,17 @@ public class LeshanServer {
         return requestSender;
     }
 
+    protected FleetOperationServiceImpl createFleetOperationService(RegistrationServiceImpl registrationService,
+            PresenceServiceImpl presenceService, DownlinkRequestSender requestSender) {
+        FleetOperationServiceImpl fleetOperationService = new FleetOperationServiceImpl(registrationService,
+                presenceService, requestSender);
+        registrationService.addListener(fleetOperationService);
+        if (presenceService != null) {
+            presenceService.addListener(fleetOperationService);
+        }
+        return fleetOperationService;
+    }
+
     /**
      * Starts the server and binds it to the specified port.
      */
@@ -315,10 +362,20 @@ public class LeshanServer {
             ((Stoppable) requestSender).stop();
         }
 
+        fleetOperationService.destroy();
+
         if (presenceService != null) {
             presenceService.destroy();
         }
 
+        if (eventDispatcher instanceof Destroyable) {
+            ((Destroyable) eventDispatcher).destroy();
+        }
+
+        if (dataBatcher != null) {
+            dataBatcher.destroy();
+        }
+
         LOG.info("LWM2M server destroyed.");
     }
 
@@ -352,6 +409,42 @@ public class LeshanServer {
         return sendService;
     }
 
+    /**
+     * Get the {@link BatchService} which can be used to receive data from notifications and {@link SendRequest} by
+     * batch.
+     *
+     * @return the {@link BatchService} or {@code null} if no {@link DataBatcher} was configured.
+     */
+    public BatchService getBatchService() {
+        return dataBatcher;
+    }
+
+    /**
+     * Get the {@link FleetOperationService} which can be used to send the same request to a whole fleet of devices,
+     * with bounded concurrency and rate.
+     */
+    public FleetOperationService getFleetOperationService() {
+        return fleetOperationService;
+    }
+
+    /**
+     * Get the {@link EventDispatcher} used to deliver notifications and "Send" data to listeners.
+     * <p>
+     * This can be used to monitor dispatch stage (e.g. queue depth of a {@link StripedEventDispatcher}).
+     */
+    public EventDispatcher getEventDispatcher() {
+        return eventDispatcher;
+    }
+
+    /**
+     * Get the {@link ServerMetrics} used by server components to report what happens on hot paths.
+     * <p>
+     * This is also used by transport layer to report their own metrics (e.g. decoding time, DTLS handshakes).
+     */
+    public ServerMetrics getMetrics() {
+        return metrics;
+    }
+
     /**
      * Get the {@link PresenceService} to get status of LWM2M clients connected with binding mode 'Q'.
      * <p>
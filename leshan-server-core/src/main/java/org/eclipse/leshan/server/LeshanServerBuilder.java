@@ -37,19 +37,29 @@ import org.eclipse.leshan.core.node.codec.LwM2mDecoder;
 import org.eclipse.leshan.core.node.codec.LwM2mEncoder;
 import org.eclipse.leshan.core.observation.Observation;
 import org.eclipse.leshan.core.request.exception.ClientSleepingException;
+import org.eclipse.leshan.server.batch.BatchListener;
+import org.eclipse.leshan.server.batch.DataBatcher;
+import org.eclipse.leshan.server.dispatch.EventDispatcher;
+import org.eclipse.leshan.server.dispatch.InlineEventDispatcher;
+import org.eclipse.leshan.server.dispatch.StripedEventDispatcher;
 import org.eclipse.leshan.server.endpoint.DefaultCompositeServerEndpointsProvider;
 import org.eclipse.leshan.server.endpoint.LwM2mServerEndpointsProvider;
+import org.eclipse.leshan.server.metrics.InstrumentedRegistrationStore;
+import org.eclipse.leshan.server.metrics.InstrumentedSecurityStore;
+import org.eclipse.leshan.server.metrics.NoopServerMetrics;
+import org.eclipse.leshan.server.metrics.ServerMetrics;
 import org.eclipse.leshan.server.model.LwM2mModelProvider;
 import org.eclipse.leshan.server.model.StandardModelProvider;
 import org.eclipse.leshan.server.queue.ClientAwakeTimeProvider;
 import org.eclipse.leshan.server.queue.StaticClientAwakeTimeProvider;
+import org.eclipse.leshan.server.registration.CachingLwM2mLinkParser;
 import org.eclipse.leshan.server.registration.DefaultRegistrationDataExtractor;
 import org.eclipse.leshan.server.registration.InMemoryRegistrationStore;
-import org.eclipse.leshan.server.registration.RandomStringRegistrationIdProvider;
 import org.eclipse.leshan.server.registration.Registration;
 import org.eclipse.leshan.server.registration.RegistrationDataExtractor;
 import org.eclipse.leshan.server.registration.RegistrationIdProvider;
 import org.eclipse.leshan.server.registration.RegistrationStore;
+import org.eclipse.leshan.server.registration.SecureRandomRegistrationIdProvider;
 import org.eclipse.leshan.server.security.Authorizer;
 import org.eclipse.leshan.server.security.DefaultAuthorizer;
 import org.eclipse.leshan.server.security.InMemorySecurityStore;
@@ -71,6 +81,9 @@ public class LeshanServerBuilder {
     private ClientAwakeTimeProvider awakeTimeProvider;
     private RegistrationIdProvider registrationIdProvider;
     private RegistrationDataExtractor registrationDataExtractor;
+    private EventDispatcher eventDispatcher;
+    private DataBatcher dataBatcher;
+    private ServerMetrics metrics;
 
     private LwM2mEncoder encoder;
     private LwM2mDecoder decoder;
@@ -201,7 +214,7 @@ public class LeshanServerBuilder {
     /**
      * Set the CoRE Link parser {@link LwM2mLinkParser}
      * <p>
-     * By default the {@link DefaultLwM2mLinkParser} is used.
+     * By default a {@link CachingLwM2mLinkParser} using a {@link DefaultLwM2mLinkParser} is used.
      */
     public void setLinkParser(LwM2mLinkParser linkParser) {
         this.linkParser = linkParser;
@@ -233,7 +246,8 @@ public class LeshanServerBuilder {
     }
 
     /**
-     * Sets a new {@link RegistrationIdProvider} object different from the default one (Random string).
+     * Sets a new {@link RegistrationIdProvider} object different from the default one
+     * ({@link SecureRandomRegistrationIdProvider}).
      *
      * @param registrationIdProvider the {@link RegistrationIdProvider} to set.
      */
@@ -253,6 +267,51 @@ public class LeshanServerBuilder {
         this.registrationDataExtractor = registrationDataExtractor;
     }
 
+    /**
+     * Sets the {@link EventDispatcher} used to deliver notifications and data received via "Send" to
+     * {@link org.eclipse.leshan.server.observation.ObservationListener} and
+     * {@link org.eclipse.leshan.server.send.SendListener}.
+     * <p>
+     * By default, {@link InlineEventDispatcher} is used, meaning that listeners are called directly by transport layer
+     * threads. If your listeners can be slow (e.g. writing to a database), you should consider to use a
+     * {@link StripedEventDispatcher}.
+     *
+     * @param eventDispatcher the {@link EventDispatcher} to set.
+     */
+    public LeshanServerBuilder setEventDispatcher(EventDispatcher eventDispatcher) {
+        this.eventDispatcher = eventDispatcher;
+        return this;
+    }
+
+    /**
+     * Sets the {@link DataBatcher} used to deliver data received from notifications and "Send" requests by batch to
+     * {@link BatchListener}.
+     * <p>
+     * By default, no batcher is used and {@link LeshanServer#getBatchService()} returns {@code null}.
+     *
+     * @param dataBatcher the {@link DataBatcher} to set.
+     */
+    public LeshanServerBuilder setDataBatcher(DataBatcher dataBatcher) {
+        this.dataBatcher = dataBatcher;
+        return this;
+    }
+
+    /**
+     * Sets the {@link ServerMetrics} used by server components to report what happens on hot paths (registrations,
+     * store operations, downlink requests, payload decoding, presence, DTLS handshakes).
+     * <p>
+     * When set, {@link RegistrationStore} and {@link SecurityStore} are wrapped in
+     * {@link InstrumentedRegistrationStore} and {@link InstrumentedSecurityStore} to measure store operations.
+     * <p>
+     * By default, a {@link NoopServerMetrics} is used.
+     *
+     * @param metrics the {@link ServerMetrics} to set.
+     */
+    public LeshanServerBuilder setMetrics(ServerMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
     /**
      * Update Registration on notification.
      * <p>
@@ -338,8 +397,21 @@ public class LeshanServerBuilder {
     public LeshanServer build() {
         if (registrationStore == null)
             registrationStore = new InMemoryRegistrationStore();
+
+        RegistrationStore registrationStoreToUse = registrationStore;
+        SecurityStore securityStoreToUse = securityStore;
+        ServerMetrics metricsToUse = metrics;
+        if (metricsToUse == null) {
+            metricsToUse = new NoopServerMetrics();
+        } else {
+            registrationStoreToUse = new InstrumentedRegistrationStore(registrationStore, metrics);
+            if (securityStore != null) {
+                securityStoreToUse = InstrumentedSecurityStore.wrap(securityStore, metrics);
+            }
+        }
+
         if (authorizer == null)
-            authorizer = new DefaultAuthorizer(securityStore);
+            authorizer = new DefaultAuthorizer(securityStoreToUse);
         if (modelProvider == null)
             modelProvider = new StandardModelProvider();
         if (encoder == null)
@@ -347,23 +419,27 @@ public class LeshanServerBuilder {
         if (decoder == null)
             decoder = new DefaultLwM2mDecoder();
         if (linkParser == null)
-            linkParser = new DefaultLwM2mLinkParser();
+            linkParser = new CachingLwM2mLinkParser(new DefaultLwM2mLinkParser());
         if (awakeTimeProvider == null) {
             awakeTimeProvider = new StaticClientAwakeTimeProvider();
         }
         if (registrationIdProvider == null)
-            registrationIdProvider = new RandomStringRegistrationIdProvider();
+            registrationIdProvider = new SecureRandomRegistrationIdProvider();
 
         if (registrationDataExtractor == null) {
             registrationDataExtractor = new DefaultRegistrationDataExtractor();
         }
+        if (eventDispatcher == null) {
+            eventDispatcher = new InlineEventDispatcher();
+        }
 
         ServerSecurityInfo serverSecurityInfo = new ServerSecurityInfo(privateKey, publicKey, certificateChain,
                 trustedCertificates);
 
-        return createServer(endpointsProvider, registrationStore, securityStore, authorizer, modelProvider, encoder,
-                decoder, noQueueMode, awakeTimeProvider, registrationIdProvider, registrationDataExtractor, linkParser,
-                serverSecurityInfo, updateRegistrationOnNotification, updateRegistrationOnSend);
+        return createServer(endpointsProvider, registrationStoreToUse, securityStoreToUse, authorizer, modelProvider,
+                encoder, decoder, noQueueMode, awakeTimeProvider, registrationIdProvider, registrationDataExtractor,
+                linkParser, serverSecurityInfo, updateRegistrationOnNotification, updateRegistrationOnSend,
+                eventDispatcher, dataBatcher, metricsToUse);
     }
 
     /**
@@ -374,7 +450,8 @@ public class LeshanServerBuilder {
      *
      * @see LeshanServer#LeshanServer(LwM2mServerEndpointsProvider, RegistrationStore, SecurityStore, Authorizer,
      *      LwM2mModelProvider, LwM2mEncoder, LwM2mDecoder, boolean, ClientAwakeTimeProvider, RegistrationIdProvider,
-     *      RegistrationDataExtractor, boolean, boolean, LwM2mLinkParser, ServerSecurityInfo)
+     *      RegistrationDataExtractor, boolean, boolean, LwM2mLinkParser, ServerSecurityInfo, EventDispatcher,
+     *      DataBatcher, ServerMetrics)
      */
     protected LeshanServer createServer(LwM2mServerEndpointsProvider endpointsProvider,
             RegistrationStore registrationStore, SecurityStore securityStore, Authorizer authorizer,
@@ -382,9 +459,11 @@ public class LeshanServerBuilder {
             ClientAwakeTimeProvider awakeTimeProvider, RegistrationIdProvider registrationIdProvider,
             RegistrationDataExtractor registrationDataExtractor, LwM2mLinkParser linkParser,
             ServerSecurityInfo serverSecurityInfo, boolean updateRegistrationOnNotification,
-            boolean updateRegistrationOnSend) {
+            boolean updateRegistrationOnSend, EventDispatcher eventDispatcher, DataBatcher dataBatcher,
+            ServerMetrics metrics) {
         return new LeshanServer(endpointsProvider, registrationStore, securityStore, authorizer, modelProvider, encoder,
                 decoder, noQueueMode, awakeTimeProvider, registrationIdProvider, registrationDataExtractor,
-                updateRegistrationOnNotification, updateRegistrationOnSend, linkParser, serverSecurityInfo);
+                updateRegistrationOnNotification, updateRegistrationOnSend, linkParser, serverSecurityInfo,
+                eventDispatcher, dataBatcher, metrics);
     }
 }
@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.batch;
+
+import org.eclipse.leshan.core.node.TimestampedLwM2mNodes;
+import org.eclipse.leshan.core.observation.Observation;
+import org.eclipse.leshan.core.request.SendRequest;
+import org.eclipse.leshan.server.registration.Registration;
+
+/**
+ * Data received from a LWM2M client, via a notification or a {@link SendRequest}.
+ */
+public class BatchEntry {
+
+    private final Registration registration;
+    private final TimestampedLwM2mNodes data;
+    private final Observation observation;
+
+    public BatchEntry(Registration registration, TimestampedLwM2mNodes data, Observation observation) {
+        this.registration = registration;
+        this.data = data;
+        this.observation = observation;
+    }
+
+    /**
+     * @return the registration of the client which sent the data.
+     */
+    public Registration getRegistration() {
+        return registration;
+    }
+
+    /**
+     * @return the data received.
+     */
+    public TimestampedLwM2mNodes getData() {
+        return data;
+    }
+
+    /**
+     * @return the observation concerned by this data or {@code null} if data was received via a {@link SendRequest}.
+     */
+    public Observation getObservation() {
+        return observation;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BatchEntry [endpoint=%s, data=%s, observation=%s]", registration.getEndpoint(), data,
+                observation);
+    }
+}
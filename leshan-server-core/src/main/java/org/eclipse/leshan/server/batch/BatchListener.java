@@ -0,0 +1,35 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.batch;
+
+import java.util.List;
+
+/**
+ * Listener used to be aware of data received from LWM2M clients by batch.
+ * <p>
+ * Those methods are called by the batcher thread, this means that batches are delivered one by one and in order. A slow
+ * listener will delay next batches.
+ */
+public interface BatchListener {
+
+    /**
+     * Called when a batch of data is flushed, either because max batch size is reached or because max latency is
+     * elapsed.
+     *
+     * @param batch the data received, in reception order. The list is never empty.
+     */
+    void dataReceived(List<BatchEntry> batch);
+}
@@ -0,0 +1,30 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.batch;
+
+/**
+ * Service used to receive data from notifications and "Send" requests by batch.
+ * <p>
+ * This is useful for sinks which support bulk writes (e.g. time-series database).
+ *
+ * @see DataBatcher
+ */
+public interface BatchService {
+
+    void addListener(BatchListener listener);
+
+    void removeListener(BatchListener listener);
+}
@@ -0,0 +1,327 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.batch;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.leshan.core.Destroyable;
+import org.eclipse.leshan.core.node.TimestampedLwM2mNode;
+import org.eclipse.leshan.core.node.TimestampedLwM2mNodes;
+import org.eclipse.leshan.core.observation.CompositeObservation;
+import org.eclipse.leshan.core.observation.Observation;
+import org.eclipse.leshan.core.observation.SingleObservation;
+import org.eclipse.leshan.core.request.SendRequest;
+import org.eclipse.leshan.core.response.ObserveCompositeResponse;
+import org.eclipse.leshan.core.response.ObserveResponse;
+import org.eclipse.leshan.core.util.NamedThreadFactory;
+import org.eclipse.leshan.core.util.Validate;
+import org.eclipse.leshan.server.dispatch.StripedEventDispatcher.OverflowPolicy;
+import org.eclipse.leshan.server.observation.ObservationListener;
+import org.eclipse.leshan.server.registration.Registration;
+import org.eclipse.leshan.server.send.SendListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A micro-batcher which collects data received from notifications and "Send" requests and deliver them to
+ * {@link BatchListener} by batch.
+ * <p>
+ * A batch is flushed when it reaches max batch size or when the oldest collected data has waited for max latency. Only
+ * successful notifications are collected, errors should be handled with a classic {@link ObservationListener} or
+ * {@link SendListener}.
+ * <p>
+ * If listeners are slower than producers, collected data are bounded by max pending entries and the
+ * {@link OverflowPolicy} is applied when this limit is reached.
+ */
+public class DataBatcher implements BatchService, ObservationListener, SendListener, Destroyable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DataBatcher.class);
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 500;
+    public static final long DEFAULT_MAX_LATENCY_IN_MS = 200;
+    public static final int DEFAULT_MAX_PENDING_BATCHES = 10;
+
+    private final int maxBatchSize;
+    private final long maxLatencyInMs;
+    private final int maxPendingEntries;
+    private final OverflowPolicy overflowPolicy;
+    private final LongAdder droppedEntries = new LongAdder();
+    private final List<BatchListener> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService executor = Executors
+            .newSingleThreadScheduledExecutor(new NamedThreadFactory("Leshan Data Batcher"));
+
+    // all below fields are guarded by "this"
+    private Deque<BatchEntry> pending;
+    private ScheduledFuture<?> latencyTimer;
+    private boolean flushRequested;
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    /**
+     * Create a {@link DataBatcher} with a max batch size of {@value #DEFAULT_MAX_BATCH_SIZE} and a max latency of
+     * {@value #DEFAULT_MAX_LATENCY_IN_MS}ms.
+     */
+    public DataBatcher() {
+        this(DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_LATENCY_IN_MS);
+    }
+
+    /**
+     * Create a {@link DataBatcher} which keeps at most {@value #DEFAULT_MAX_PENDING_BATCHES} batches of pending
+     * entries, using {@link OverflowPolicy#BLOCK} policy.
+     *
+     * @param maxBatchSize the maximum number of entries by batch.
+     * @param maxLatencyInMs the maximum time an entry can wait before its batch is flushed.
+     */
+    public DataBatcher(int maxBatchSize, long maxLatencyInMs) {
+        this(maxBatchSize, maxLatencyInMs, DEFAULT_MAX_PENDING_BATCHES * maxBatchSize, OverflowPolicy.BLOCK);
+    }
+
+    /**
+     * Create a {@link DataBatcher}.
+     *
+     * @param maxBatchSize the maximum number of entries by batch.
+     * @param maxLatencyInMs the maximum time an entry can wait before its batch is flushed.
+     * @param maxPendingEntries the maximum number of entries waiting to be delivered, must be greater or equal to max
+     *        batch size.
+     * @param overflowPolicy what to do when max pending entries is reached.
+     */
+    public DataBatcher(int maxBatchSize, long maxLatencyInMs, int maxPendingEntries, OverflowPolicy overflowPolicy) {
+        Validate.isTrue(maxBatchSize > 0, "max batch size must be greater than 0");
+        Validate.isTrue(maxLatencyInMs > 0, "max latency must be greater than 0");
+        Validate.isTrue(maxPendingEntries >= maxBatchSize,
+                "max pending entries must be greater or equal to max batch size");
+        Validate.notNull(overflowPolicy, "overflow policy must not be null");
+        this.maxBatchSize = maxBatchSize;
+        this.maxLatencyInMs = maxLatencyInMs;
+        this.maxPendingEntries = maxPendingEntries;
+        this.overflowPolicy = overflowPolicy;
+        this.pending = new ArrayDeque<>(maxBatchSize);
+    }
+
+    @Override
+    public void addListener(BatchListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(BatchListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Add an entry to the current batch. If max pending entries is reached, the {@link OverflowPolicy} is applied.
+     */
+    public void add(BatchEntry entry) {
+        if (listeners.isEmpty())
+            return;
+
+        synchronized (this) {
+            if (executor.isShutdown())
+                return;
+
+            if (pending.size() >= maxPendingEntries && !makeRoom()) {
+                droppedEntries.increment();
+                return;
+            }
+
+            pending.add(entry);
+            if (pending.size() >= maxBatchSize) {
+                // batch is full : flush it as soon as possible
+                if (!flushRequested) {
+                    flushRequested = true;
+                    executor.execute(flushTask);
+                }
+            } else if (latencyTimer == null) {
+                // first entry of this batch : ensure it will not wait more than max latency
+                latencyTimer = executor.schedule(flushTask, maxLatencyInMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Apply overflow policy when pending entries are full.
+     *
+     * @return <code>true</code> if new entry can be added, <code>false</code> if it must be dropped.
+     */
+    private boolean makeRoom() {
+        switch (overflowPolicy) {
+        case DROP_NEWEST:
+            LOG.trace("Entry dropped as max pending entries is reached");
+            return false;
+        case DROP_OLDEST:
+            pending.poll();
+            droppedEntries.increment();
+            LOG.trace("Oldest entry dropped as max pending entries is reached");
+            return true;
+        case BLOCK:
+            // a flush is always requested when pending entries are full, wait for it
+            try {
+                while (pending.size() >= maxPendingEntries) {
+                    wait();
+                    if (executor.isShutdown()) {
+                        return false;
+                    }
+                }
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        default:
+            throw new IllegalStateException(String.format("Unsupported overflow policy %s", overflowPolicy));
+        }
+    }
+
+    /**
+     * Flush pending entries. This is always executed by batcher thread, so batches are delivered in order.
+     */
+    protected void flush() {
+        Deque<BatchEntry> pendingEntries;
+        synchronized (this) {
+            if (latencyTimer != null) {
+                latencyTimer.cancel(false);
+                latencyTimer = null;
+            }
+            flushRequested = false;
+            if (pending.isEmpty())
+                return;
+            pendingEntries = pending;
+            pending = new ArrayDeque<>(maxBatchSize);
+            // wake up producers blocked by overflow policy
+            notifyAll();
+        }
+        List<BatchEntry> batch = new ArrayList<>(pendingEntries);
+
+        // listeners could be slower than producers, so collected data can be bigger than max batch size.
+        for (int from = 0; from < batch.size(); from += maxBatchSize) {
+            List<BatchEntry> subBatch = batch.subList(from, Math.min(from + maxBatchSize, batch.size()));
+            for (BatchListener listener : listeners) {
+                try {
+                    listener.dataReceived(subBatch);
+                } catch (RuntimeException e) {
+                    LOG.error("Unexpected error when delivering batch of {} entries to {}", subBatch.size(), listener,
+                            e);
+                }
+            }
+        }
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public long getMaxLatencyInMs() {
+        return maxLatencyInMs;
+    }
+
+    public int getMaxPendingEntries() {
+        return maxPendingEntries;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * @return the number of entries dropped since creation because max pending entries was reached.
+     */
+    public long getDroppedEntryCount() {
+        return droppedEntries.sum();
+    }
+
+    @Override
+    public void destroy() {
+        if (executor.isShutdown())
+            return;
+
+        // flush remaining data before to stop
+        executor.execute(flushTask);
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                LOG.warn("Data batcher was not terminated in time, some data could be lost");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ********** ObservationListener interface **********//
+    @Override
+    public void onResponse(SingleObservation observation, Registration registration, ObserveResponse response) {
+        if (!response.isSuccess())
+            return;
+
+        TimestampedLwM2mNodes.Builder data = TimestampedLwM2mNodes.builder();
+        if (response.getTimestampedLwM2mNode() != null && !response.getTimestampedLwM2mNode().isEmpty()) {
+            for (TimestampedLwM2mNode node : response.getTimestampedLwM2mNode()) {
+                data.put(node.getTimestamp(), observation.getPath(), node.getNode());
+            }
+        } else {
+            data.put(observation.getPath(), response.getContent());
+        }
+        add(new BatchEntry(registration, data.build(), observation));
+    }
+
+    @Override
+    public void onResponse(CompositeObservation observation, Registration registration,
+            ObserveCompositeResponse response) {
+        if (!response.isSuccess())
+            return;
+
+        TimestampedLwM2mNodes data = response.getTimestampedLwM2mNodes();
+        if (data == null) {
+            data = TimestampedLwM2mNodes.builder().addNodes(response.getContent()).build();
+        }
+        add(new BatchEntry(registration, data, observation));
+    }
+
+    @Override
+    public void onError(Observation observation, Registration registration, Exception error) {
+    }
+
+    @Override
+    public void newObservation(Observation observation, Registration registration) {
+    }
+
+    @Override
+    public void cancelled(Observation observation) {
+    }
+
+    // ********** SendListener interface **********//
+    @Override
+    public void dataReceived(Registration registration, TimestampedLwM2mNodes data, SendRequest request) {
+        add(new BatchEntry(registration, data, null));
+    }
+
+    @Override
+    public void onError(Registration registration, String errorMessage, Exception error) {
+    }
+}
@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.dispatch;
+
+import org.eclipse.leshan.server.observation.ObservationListener;
+import org.eclipse.leshan.server.send.SendListener;
+
+/**
+ * A stage between the transport layer and application listeners (e.g. {@link ObservationListener} or
+ * {@link SendListener}).
+ * <p>
+ * Implementations decide on which thread events are delivered. They MUST preserve order of events dispatched for a
+ * given endpoint.
+ *
+ * @see InlineEventDispatcher
+ * @see StripedEventDispatcher
+ */
+public interface EventDispatcher {
+
+    /**
+     * Dispatch an event concerning the given device.
+     *
+     * @param endpoint the endpoint name of the device concerned by this event, used to preserve ordering.
+     * @param event the task which will call the listeners.
+     */
+    void dispatch(String endpoint, Runnable event);
+}
@@ -0,0 +1,30 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.dispatch;
+
+/**
+ * An {@link EventDispatcher} which calls listeners directly on the caller thread (generally a transport layer thread).
+ * <p>
+ * This is the default behavior. Listeners MUST then execute quickly, else they will slow down CoAP processing for all
+ * devices.
+ */
+public class InlineEventDispatcher implements EventDispatcher {
+
+    @Override
+    public void dispatch(String endpoint, Runnable event) {
+        event.run();
+    }
+}
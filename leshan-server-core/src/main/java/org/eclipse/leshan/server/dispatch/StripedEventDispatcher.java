@@ -0,0 +1,263 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.dispatch;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.leshan.core.Destroyable;
+import org.eclipse.leshan.core.util.NamedThreadFactory;
+import org.eclipse.leshan.core.util.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An {@link EventDispatcher} which delivers events on a fixed set of single threaded "stripes".
+ * <p>
+ * The stripe is chosen using the endpoint name, so all events of a given device are handled by the same thread and
+ * order is preserved. Each stripe has a bounded queue, when it is full the {@link OverflowPolicy} is applied.
+ * <p>
+ * Queue depth and dropped events can be monitored using {@link #getQueueSize()}, {@link #getQueueSizes()} and
+ * {@link #getDroppedEventCount()}.
+ */
+public class StripedEventDispatcher implements EventDispatcher, Destroyable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StripedEventDispatcher.class);
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+
+    /**
+     * What to do when an event is dispatched to a stripe which has a full queue.
+     */
+    public enum OverflowPolicy {
+        /**
+         * The new event is dropped.
+         */
+        DROP_NEWEST,
+        /**
+         * The oldest queued event of the stripe is dropped to make room for the new one.
+         */
+        DROP_OLDEST,
+        /**
+         * The caller thread (generally a transport layer thread) is blocked until there is room in the queue. This
+         * applies backpressure to the transport layer. If a max blocking time is defined, the event is dropped when
+         * this time is elapsed.
+         */
+        BLOCK
+    }
+
+    private final ThreadPoolExecutor[] stripes;
+    private final int queueCapacity;
+    private final OverflowPolicy overflowPolicy;
+    private final long maxBlockingTimeInMs;
+
+    private final LongAdder dispatchedEvents = new LongAdder();
+    private final LongAdder droppedEvents = new LongAdder();
+
+    /**
+     * Create a {@link StripedEventDispatcher} with 1 stripe by available processor, a queue capacity of
+     * {@value #DEFAULT_QUEUE_CAPACITY} events by stripe, using {@link OverflowPolicy#BLOCK} policy.
+     */
+    public StripedEventDispatcher() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_CAPACITY, OverflowPolicy.BLOCK, 0);
+    }
+
+    /**
+     * Create a {@link StripedEventDispatcher}.
+     *
+     * @param nbStripes number of stripes, so number of threads used to call listeners.
+     * @param queueCapacity maximum number of pending events by stripe.
+     * @param overflowPolicy what to do when a stripe queue is full.
+     */
+    public StripedEventDispatcher(int nbStripes, int queueCapacity, OverflowPolicy overflowPolicy) {
+        this(nbStripes, queueCapacity, overflowPolicy, 0);
+    }
+
+    /**
+     * Create a {@link StripedEventDispatcher}.
+     *
+     * @param nbStripes number of stripes, so number of threads used to call listeners.
+     * @param queueCapacity maximum number of pending events by stripe.
+     * @param overflowPolicy what to do when a stripe queue is full.
+     * @param maxBlockingTimeInMs maximum time a caller can be blocked when {@link OverflowPolicy#BLOCK} is used. 0
+     *        means no limit.
+     */
+    public StripedEventDispatcher(int nbStripes, int queueCapacity, OverflowPolicy overflowPolicy,
+            long maxBlockingTimeInMs) {
+        Validate.isTrue(nbStripes > 0, "number of stripes must be greater than 0");
+        Validate.isTrue(queueCapacity > 0, "queue capacity must be greater than 0");
+        Validate.notNull(overflowPolicy, "overflow policy must not be null");
+        Validate.isTrue(maxBlockingTimeInMs >= 0, "max blocking time must be positive");
+
+        this.queueCapacity = queueCapacity;
+        this.overflowPolicy = overflowPolicy;
+        this.maxBlockingTimeInMs = maxBlockingTimeInMs;
+
+        NamedThreadFactory threadFactory = new NamedThreadFactory("Leshan Event Dispatcher#%d");
+        RejectedExecutionHandler overflowHandler = new OverflowHandler();
+        stripes = new ThreadPoolExecutor[nbStripes];
+        for (int i = 0; i < nbStripes; i++) {
+            stripes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<Runnable>(queueCapacity), threadFactory, overflowHandler);
+        }
+    }
+
+    @Override
+    public void dispatch(String endpoint, final Runnable event) {
+        ThreadPoolExecutor stripe = stripes[stripeIndex(endpoint)];
+        if (stripe.isShutdown()) {
+            LOG.debug("Event for {} dropped as dispatcher is destroyed", endpoint);
+            droppedEvents.increment();
+            return;
+        }
+        stripe.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    event.run();
+                } catch (RuntimeException e) {
+                    LOG.error("Unexpected error when calling listeners for {}", endpoint, e);
+                }
+            }
+        });
+        dispatchedEvents.increment();
+    }
+
+    protected int stripeIndex(String endpoint) {
+        if (endpoint == null)
+            return 0;
+        // spread hash to avoid poor distribution of similar endpoint names
+        int h = endpoint.hashCode();
+        h ^= (h >>> 16);
+        return (h & 0x7fffffff) % stripes.length;
+    }
+
+    /**
+     * @return the number of stripes, so number of threads used to call listeners.
+     */
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * @return the maximum number of pending events by stripe.
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * @return the total number of pending events, for all stripes.
+     */
+    public int getQueueSize() {
+        int size = 0;
+        for (ThreadPoolExecutor stripe : stripes) {
+            size += stripe.getQueue().size();
+        }
+        return size;
+    }
+
+    /**
+     * @return the number of pending events for each stripe.
+     */
+    public int[] getQueueSizes() {
+        int[] sizes = new int[stripes.length];
+        for (int i = 0; i < stripes.length; i++) {
+            sizes[i] = stripes[i].getQueue().size();
+        }
+        return sizes;
+    }
+
+    /**
+     * @return the number of events dispatched since creation, including dropped ones.
+     */
+    public long getDispatchedEventCount() {
+        return dispatchedEvents.sum();
+    }
+
+    /**
+     * @return the number of events dropped since creation.
+     */
+    public long getDroppedEventCount() {
+        return droppedEvents.sum();
+    }
+
+    @Override
+    public void destroy() {
+        for (ThreadPoolExecutor stripe : stripes) {
+            stripe.shutdown();
+        }
+        try {
+            for (ThreadPoolExecutor stripe : stripes) {
+                if (!stripe.awaitTermination(5, TimeUnit.SECONDS)) {
+                    LOG.warn("Event dispatcher stripe was not terminated, {} events are lost",
+                            stripe.shutdownNow().size());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private class OverflowHandler implements RejectedExecutionHandler {
+
+        @Override
+        public void rejectedExecution(Runnable event, ThreadPoolExecutor stripe) {
+            if (stripe.isShutdown()) {
+                droppedEvents.increment();
+                return;
+            }
+
+            BlockingQueue<Runnable> queue = stripe.getQueue();
+            switch (overflowPolicy) {
+            case DROP_NEWEST:
+                droppedEvents.increment();
+                LOG.trace("Event dropped as stripe queue is full");
+                break;
+            case DROP_OLDEST:
+                if (queue.poll() != null) {
+                    droppedEvents.increment();
+                    LOG.trace("Oldest event dropped as stripe queue is full");
+                }
+                stripe.execute(event);
+                break;
+            case BLOCK:
+                try {
+                    if (maxBlockingTimeInMs == 0) {
+                        queue.put(event);
+                    } else if (!queue.offer(event, maxBlockingTimeInMs, TimeUnit.MILLISECONDS)) {
+                        droppedEvents.increment();
+                        LOG.trace("Event dropped as stripe queue is still full after {}ms", maxBlockingTimeInMs);
+                    }
+                } catch (InterruptedException e) {
+                    droppedEvents.increment();
+                    Thread.currentThread().interrupt();
+                }
+                break;
+            default:
+                throw new IllegalStateException(String.format("Unsupported overflow policy %s", overflowPolicy));
+            }
+        }
+    }
+}
@@ -18,6 +18,8 @@ package org.eclipse.leshan.server.endpoint;
 import org.eclipse.leshan.core.link.lwm2m.LwM2mLinkParser;
 import org.eclipse.leshan.core.node.codec.LwM2mDecoder;
 import org.eclipse.leshan.core.node.codec.LwM2mEncoder;
+import org.eclipse.leshan.server.metrics.NoopServerMetrics;
+import org.eclipse.leshan.server.metrics.ServerMetrics;
 import org.eclipse.leshan.server.profile.ClientProfileProvider;
 
 public class ServerEndpointToolbox {
@@ -26,13 +28,20 @@ public class ServerEndpointToolbox {
     private final LwM2mEncoder encoder;
     private final LwM2mLinkParser linkParser;
     private final ClientProfileProvider profileProvider;
+    private final ServerMetrics metrics;
 
     public ServerEndpointToolbox(LwM2mDecoder decoder, LwM2mEncoder encoder, LwM2mLinkParser linkParser,
             ClientProfileProvider profileProvider) {
+        this(decoder, encoder, linkParser, profileProvider, new NoopServerMetrics());
+    }
+
+    public ServerEndpointToolbox(LwM2mDecoder decoder, LwM2mEncoder encoder, LwM2mLinkParser linkParser,
+            ClientProfileProvider profileProvider, ServerMetrics metrics) {
         this.decoder = decoder;
         this.encoder = encoder;
         this.linkParser = linkParser;
         this.profileProvider = profileProvider;
+        this.metrics = metrics;
     }
 
     public LwM2mDecoder getDecoder() {
@@ -50,4 +59,8 @@ public class ServerEndpointToolbox {
     public ClientProfileProvider getProfileProvider() {
         return profileProvider;
     }
+
+    public ServerMetrics getMetrics() {
+        return metrics;
+    }
 }
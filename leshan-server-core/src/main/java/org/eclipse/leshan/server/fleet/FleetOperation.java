@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.fleet;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A fleet operation started using {@link FleetOperationService}.
+ */
+public interface FleetOperation {
+
+    /**
+     * @return a snapshot of current progress of this operation.
+     */
+    FleetOperationProgress getProgress();
+
+    /**
+     * Stop sending new requests. Requests already sent are not cancelled and operation is done when their responses are
+     * received.
+     */
+    void cancel();
+
+    /**
+     * @return <code>true</code> if all requests were sent and all responses received, or if operation was cancelled and
+     *         no request is in flight anymore, or if {@link FleetOperationService} was destroyed.
+     */
+    boolean isDone();
+
+    /**
+     * Wait until this operation is done.
+     *
+     * @return <code>true</code> if operation is done, <code>false</code> if timeout elapsed before.
+     */
+    boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException;
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.fleet;
+
+import org.eclipse.leshan.core.util.Validate;
+
+/**
+ * Limits applied to a {@link FleetOperation}.
+ */
+public class FleetOperationConfig {
+
+    public static final int DEFAULT_MAX_IN_FLIGHT = 100;
+    public static final long DEFAULT_TIMEOUT_IN_MS = 2 * 60 * 1000l; // 2min in ms
+
+    private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+    private int maxInFlightPerEndpoint = DEFAULT_MAX_IN_FLIGHT;
+    private int maxRequestsPerSecond = 0;
+    private long timeoutInMs = DEFAULT_TIMEOUT_IN_MS;
+
+    /**
+     * @param maxInFlight maximum number of requests waiting for a response, for the whole operation. Default is
+     *        {@value #DEFAULT_MAX_IN_FLIGHT}.
+     */
+    public FleetOperationConfig setMaxInFlight(int maxInFlight) {
+        Validate.isTrue(maxInFlight > 0, "maxInFlight must be positive");
+        this.maxInFlight = maxInFlight;
+        return this;
+    }
+
+    /**
+     * @param maxInFlightPerEndpoint maximum number of requests waiting for a response, by server endpoint (see
+     *        {@code Registration#getLastEndpointUsed()}). Default is {@value #DEFAULT_MAX_IN_FLIGHT}.
+     */
+    public FleetOperationConfig setMaxInFlightPerEndpoint(int maxInFlightPerEndpoint) {
+        Validate.isTrue(maxInFlightPerEndpoint > 0, "maxInFlightPerEndpoint must be positive");
+        this.maxInFlightPerEndpoint = maxInFlightPerEndpoint;
+        return this;
+    }
+
+    /**
+     * @param maxRequestsPerSecond maximum number of requests sent by second, 0 means no limit. Default is no limit.
+     */
+    public FleetOperationConfig setMaxRequestsPerSecond(int maxRequestsPerSecond) {
+        Validate.isTrue(maxRequestsPerSecond >= 0, "maxRequestsPerSecond must not be negative");
+        this.maxRequestsPerSecond = maxRequestsPerSecond;
+        return this;
+    }
+
+    /**
+     * @param timeoutInMs timeout of each request (see https://github.com/eclipse/leshan/wiki/Request-Timeout). Default
+     *        is 2 minutes.
+     */
+    public FleetOperationConfig setTimeoutInMs(long timeoutInMs) {
+        Validate.isTrue(timeoutInMs > 0, "timeoutInMs must be positive");
+        this.timeoutInMs = timeoutInMs;
+        return this;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public int getMaxInFlightPerEndpoint() {
+        return maxInFlightPerEndpoint;
+    }
+
+    public int getMaxRequestsPerSecond() {
+        return maxRequestsPerSecond;
+    }
+
+    public long getTimeoutInMs() {
+        return timeoutInMs;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "FleetOperationConfig [maxInFlight=%s, maxInFlightPerEndpoint=%s, maxRequestsPerSecond=%s, timeoutInMs=%s]",
+                maxInFlight, maxInFlightPerEndpoint, maxRequestsPerSecond, timeoutInMs);
+    }
+}
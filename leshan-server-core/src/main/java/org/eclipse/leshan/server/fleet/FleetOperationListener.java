@@ -0,0 +1,44 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.fleet;
+
+import org.eclipse.leshan.core.response.LwM2mResponse;
+import org.eclipse.leshan.server.registration.Registration;
+
+/**
+ * Listener notified of progress of a {@link FleetOperation}.
+ * <p>
+ * {@link #onResponse(Registration, LwM2mResponse)} and {@link #onError(Registration, Exception)} are called from the
+ * transport layer threads, like {@code ResponseCallback} and {@code ErrorCallback}, so they should not block.
+ */
+public interface FleetOperationListener<T extends LwM2mResponse> {
+
+    /**
+     * Called when a response (successful or not) is received from a device.
+     */
+    void onResponse(Registration registration, T response);
+
+    /**
+     * Called when no response can be received from a device (e.g. timeout, send failure, device unregistered while
+     * sleeping...).
+     */
+    void onError(Registration registration, Exception error);
+
+    /**
+     * Called once, when operation is done.
+     */
+    void onCompleted(FleetOperationProgress progress);
+}
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.fleet;
+
+import java.util.Map;
+
+import org.eclipse.leshan.core.ResponseCode;
+
+/**
+ * A snapshot of the progress of a {@link FleetOperation}.
+ */
+public class FleetOperationProgress {
+
+    private final long selected;
+    private final long sent;
+    private final long inFlight;
+    private final long waitingForWakeUp;
+    private final Map<ResponseCode, Long> responses;
+    private final Map<String, Long> errors;
+    private final boolean cancelled;
+    private final boolean done;
+
+    public FleetOperationProgress(long selected, long sent, long inFlight, long waitingForWakeUp,
+            Map<ResponseCode, Long> responses, Map<String, Long> errors, boolean cancelled, boolean done) {
+        this.selected = selected;
+        this.sent = sent;
+        this.inFlight = inFlight;
+        this.waitingForWakeUp = waitingForWakeUp;
+        this.responses = responses;
+        this.errors = errors;
+        this.cancelled = cancelled;
+        this.done = done;
+    }
+
+    /**
+     * @return number of registrations selected so far.
+     */
+    public long getSelected() {
+        return selected;
+    }
+
+    /**
+     * @return number of requests sent so far.
+     */
+    public long getSent() {
+        return sent;
+    }
+
+    /**
+     * @return number of requests waiting for a response.
+     */
+    public long getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * @return number of sleeping devices (using queue mode) waiting to be awake to receive the request.
+     */
+    public long getWaitingForWakeUp() {
+        return waitingForWakeUp;
+    }
+
+    /**
+     * @return number of received responses by response code.
+     */
+    public Map<ResponseCode, Long> getResponses() {
+        return responses;
+    }
+
+    /**
+     * @return number of requests without response by error type (simple name of the exception, e.g.
+     *         <code>TimeoutException</code>).
+     */
+    public Map<String, Long> getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return number of received responses and errors.
+     */
+    public long getCompleted() {
+        long completed = 0;
+        for (Long count : responses.values()) {
+            completed += count;
+        }
+        for (Long count : errors.values()) {
+            completed += count;
+        }
+        return completed;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "FleetOperationProgress [selected=%s, sent=%s, inFlight=%s, waitingForWakeUp=%s, responses=%s, errors=%s, cancelled=%s, done=%s]",
+                selected, sent, inFlight, waitingForWakeUp, responses, errors, cancelled, done);
+    }
+}
@@ -0,0 +1,433 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.fleet;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.eclipse.leshan.core.ResponseCode;
+import org.eclipse.leshan.core.request.DownlinkRequest;
+import org.eclipse.leshan.core.request.exception.ClientSleepingException;
+import org.eclipse.leshan.core.request.exception.RequestCanceledException;
+import org.eclipse.leshan.core.response.LwM2mResponse;
+import org.eclipse.leshan.server.queue.PresenceService;
+import org.eclipse.leshan.server.registration.Registration;
+import org.eclipse.leshan.server.registration.RegistrationService;
+import org.eclipse.leshan.server.request.DownlinkRequestSender;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Run a {@link FleetOperation}.
+ * <p>
+ * Dispatch state is only accessed from the single thread of the executor, so no lock is needed. Transport layer
+ * callbacks only update progress counters and then hand over to this thread.
+ * <p>
+ * Registrations are iterated by batch on the fetch executor, as it may be slow (e.g. pages read from a remote store),
+ * and the next batch is fetched while the current one is dispatched.
+ */
+class FleetOperationRunner<T extends LwM2mResponse> implements FleetOperation {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FleetOperationRunner.class);
+    private static final int MIN_FETCH_SIZE = 100;
+
+    private final ScheduledExecutorService executor;
+    private final Executor fetchExecutor;
+    private final Supplier<Iterator<Registration>> registrationSource;
+    private final RegistrationService registrationService;
+    private final PresenceService presenceService;
+    private final DownlinkRequestSender sender;
+    private final Predicate<Registration> selector;
+    private final DownlinkRequest<T> request;
+    private final FleetOperationConfig config;
+    private final FleetOperationListener<T> listener;
+    private final Consumer<FleetOperationRunner<T>> onDone;
+    private final int fetchSize;
+
+    // only accessed from fetch executor thread
+    private Iterator<Registration> registrations;
+
+    // dispatch state, only accessed from executor thread
+    private final Deque<Registration> fetchedRegistrations = new ArrayDeque<>();
+    private boolean fetching;
+    private boolean allRegistrationsIterated;
+    private Registration next;
+    // registrations to dispatch before fetched ones : woken up clients or clients no more blocked by endpoint limit
+    private final Deque<Registration> readyRegistrations = new ArrayDeque<>();
+    private final Map<String, Registration> sleepingRegistrations = new HashMap<>();
+    private final Map<URI, Deque<Registration>> blockedRegistrations = new HashMap<>();
+    private int blockedCount;
+    private final Map<URI, Integer> inFlightByEndpoint = new HashMap<>();
+    private long nextSendTime;
+    private boolean dispatchScheduled;
+
+    // progress, read from any thread
+    private final AtomicLong selected = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private volatile int inFlight;
+    private volatile int waitingForWakeUp;
+    private final ConcurrentMap<ResponseCode, LongAdder> responses = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private volatile boolean cancelled;
+    private final AtomicBoolean completed = new AtomicBoolean();
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    FleetOperationRunner(ScheduledExecutorService executor, Executor fetchExecutor,
+            Supplier<Iterator<Registration>> registrationSource, RegistrationService registrationService,
+            PresenceService presenceService, DownlinkRequestSender sender, Predicate<Registration> selector,
+            DownlinkRequest<T> request, FleetOperationConfig config, FleetOperationListener<T> listener,
+            Consumer<FleetOperationRunner<T>> onDone) {
+        this.executor = executor;
+        this.fetchExecutor = fetchExecutor;
+        this.registrationSource = registrationSource;
+        this.registrationService = registrationService;
+        this.presenceService = presenceService;
+        this.sender = sender;
+        this.selector = selector;
+        this.request = request;
+        this.config = config;
+        this.listener = listener;
+        this.onDone = onDone;
+        this.fetchSize = Math.max(config.getMaxInFlight(), MIN_FETCH_SIZE);
+    }
+
+    void start() {
+        execute(this::dispatch);
+    }
+
+    void onAwake(Registration registration) {
+        execute(() -> {
+            if (sleepingRegistrations.remove(registration.getId()) != null) {
+                // use new registration as it could have been updated while client was sleeping
+                readyRegistrations.add(registration);
+                waitingForWakeUp = sleepingRegistrations.size();
+                dispatch();
+            }
+        });
+    }
+
+    void onUnregistered(Registration registration) {
+        execute(() -> {
+            if (sleepingRegistrations.remove(registration.getId()) != null) {
+                waitingForWakeUp = sleepingRegistrations.size();
+                onUnregisteredWhileSleeping(registration);
+                checkCompletion();
+            }
+        });
+    }
+
+    @Override
+    public void cancel() {
+        cancelled = true;
+        execute(() -> {
+            clearPendingRegistrations();
+            checkCompletion();
+        });
+    }
+
+    /**
+     * Complete this operation as cancelled, as its executors are shut down and it can not progress anymore.
+     */
+    void destroy() {
+        cancelled = true;
+        complete();
+    }
+
+    @Override
+    public boolean isDone() {
+        return done.getCount() == 0;
+    }
+
+    @Override
+    public boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+        return done.await(timeout, unit);
+    }
+
+    @Override
+    public FleetOperationProgress getProgress() {
+        return new FleetOperationProgress(selected.get(), sent.get(), inFlight, waitingForWakeUp, snapshot(responses),
+                snapshot(errors), cancelled, isDone());
+    }
+
+    private static <K> Map<K, Long> snapshot(Map<K, LongAdder> counters) {
+        Map<K, Long> result = new HashMap<>();
+        for (Entry<K, LongAdder> entry : counters.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().sum());
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    private void dispatch() {
+        try {
+            while (!cancelled && inFlight < config.getMaxInFlight()) {
+                Registration registration = peekNext();
+                if (registration == null) {
+                    break;
+                }
+
+                // wait sleeping clients to be awake
+                if (presenceService != null && registration.usesQueueMode()
+                        && !presenceService.isClientAwake(registration)) {
+                    next = null;
+                    waitForWakeUp(registration);
+                    continue;
+                }
+
+                // respect in-flight limit of the endpoint used by this client, wait a request using this endpoint
+                // completes but keep sending requests through other endpoints
+                URI endpoint = registration.getLastEndpointUsed();
+                if (inFlightByEndpoint.getOrDefault(endpoint, 0) >= config.getMaxInFlightPerEndpoint()) {
+                    if (blockedCount >= config.getMaxInFlight()) {
+                        // too many blocked registrations, wait some requests complete before iterating further
+                        break;
+                    }
+                    next = null;
+                    blockedRegistrations.computeIfAbsent(endpoint, e -> new ArrayDeque<>()).add(registration);
+                    blockedCount++;
+                    continue;
+                }
+
+                // respect rate limit
+                if (config.getMaxRequestsPerSecond() > 0) {
+                    long now = System.nanoTime();
+                    if (now - nextSendTime < 0) {
+                        scheduleDispatch(nextSendTime - now);
+                        break;
+                    }
+                    nextSendTime = Math.max(nextSendTime, now)
+                            + TimeUnit.SECONDS.toNanos(1) / config.getMaxRequestsPerSecond();
+                }
+
+                next = null;
+                send(registration);
+            }
+        } catch (RuntimeException e) {
+            LOG.error("Unexpected error while dispatching fleet operation requests, operation is cancelled", e);
+            cancelled = true;
+            clearPendingRegistrations();
+        }
+        checkCompletion();
+    }
+
+    private void clearPendingRegistrations() {
+        next = null;
+        fetchedRegistrations.clear();
+        readyRegistrations.clear();
+        sleepingRegistrations.clear();
+        blockedRegistrations.clear();
+        blockedCount = 0;
+        waitingForWakeUp = 0;
+    }
+
+    private Registration peekNext() {
+        if (next != null) {
+            return next;
+        }
+        next = readyRegistrations.poll();
+        if (next != null) {
+            return next;
+        }
+        next = fetchedRegistrations.poll();
+        fetchIfNeeded();
+        return next;
+    }
+
+    private void fetchIfNeeded() {
+        // registrations are iterated lazily, so we never hold the whole fleet in memory
+        if (!fetching && !allRegistrationsIterated && fetchedRegistrations.size() <= fetchSize / 2) {
+            fetching = true;
+            try {
+                fetchExecutor.execute(this::fetch);
+            } catch (RejectedExecutionException e) {
+                LOG.debug("Fleet operation service is destroyed, registrations are not fetched");
+            }
+        }
+    }
+
+    private void fetch() {
+        List<Registration> fetched = new ArrayList<>();
+        boolean allIterated = false;
+        try {
+            if (registrations == null) {
+                registrations = registrationSource.get();
+            }
+            while (!cancelled && fetched.size() < fetchSize) {
+                if (!registrations.hasNext()) {
+                    allIterated = true;
+                    break;
+                }
+                Registration registration = registrations.next();
+                if (selector.test(registration)) {
+                    selected.incrementAndGet();
+                    fetched.add(registration);
+                }
+            }
+        } catch (RuntimeException e) {
+            LOG.error("Unexpected error while fetching fleet operation registrations, operation is cancelled", e);
+            cancelled = true;
+            execute(() -> {
+                fetching = false;
+                clearPendingRegistrations();
+                checkCompletion();
+            });
+            return;
+        }
+
+        boolean lastBatch = allIterated;
+        execute(() -> {
+            fetching = false;
+            if (!cancelled) {
+                fetchedRegistrations.addAll(fetched);
+                allRegistrationsIterated = lastBatch;
+            }
+            dispatch();
+        });
+    }
+
+    private void send(Registration registration) {
+        inFlight++;
+        inFlightByEndpoint.merge(registration.getLastEndpointUsed(), 1, Integer::sum);
+        sent.incrementAndGet();
+        try {
+            sender.send(registration, request, null, config.getTimeoutInMs(),
+                    response -> onResponse(registration, response), error -> onError(registration, error));
+        } catch (RuntimeException e) {
+            onError(registration, e);
+        }
+    }
+
+    private void onResponse(Registration registration, T response) {
+        responses.computeIfAbsent(response.getCode(), k -> new LongAdder()).increment();
+        if (listener != null && !isDone()) {
+            listener.onResponse(registration, response);
+        }
+        execute(() -> release(registration));
+    }
+
+    private void onError(Registration registration, Exception error) {
+        if (error instanceof ClientSleepingException && presenceService != null && !cancelled) {
+            // client felt asleep after we checked it, wait it wakes up again
+            execute(() -> {
+                waitForWakeUp(registration);
+                release(registration);
+            });
+            return;
+        }
+        errors.computeIfAbsent(error.getClass().getSimpleName(), k -> new LongAdder()).increment();
+        if (listener != null && !isDone()) {
+            listener.onError(registration, error);
+        }
+        execute(() -> release(registration));
+    }
+
+    private void waitForWakeUp(Registration registration) {
+        // registrations are fetched ahead of dispatch, so client could have unregistered meanwhile and it will never
+        // wake up. Unregistration is notified after removing registration from store, so if registration is still
+        // there, onUnregistered() will be called later and remove it from sleeping registrations.
+        if (registrationService.getById(registration.getId()) == null) {
+            onUnregisteredWhileSleeping(registration);
+            return;
+        }
+        sleepingRegistrations.put(registration.getId(), registration);
+        waitingForWakeUp = sleepingRegistrations.size();
+    }
+
+    private void onUnregisteredWhileSleeping(Registration registration) {
+        // no request in flight for this registration, so nothing to release
+        RequestCanceledException error = new RequestCanceledException("Client %s unregistered before waking up",
+                registration.getEndpoint());
+        errors.computeIfAbsent(error.getClass().getSimpleName(), k -> new LongAdder()).increment();
+        if (listener != null && !isDone()) {
+            listener.onError(registration, error);
+        }
+    }
+
+    private void release(Registration registration) {
+        inFlight--;
+        URI endpoint = registration.getLastEndpointUsed();
+        inFlightByEndpoint.computeIfPresent(endpoint, (e, count) -> count > 1 ? count - 1 : null);
+
+        // a request can now be sent using this endpoint
+        Deque<Registration> blocked = blockedRegistrations.get(endpoint);
+        if (blocked != null) {
+            readyRegistrations.addFirst(blocked.poll());
+            blockedCount--;
+            if (blocked.isEmpty()) {
+                blockedRegistrations.remove(endpoint);
+            }
+        }
+        dispatch();
+    }
+
+    private void scheduleDispatch(long delayInNanos) {
+        if (!dispatchScheduled) {
+            dispatchScheduled = true;
+            executor.schedule(() -> {
+                dispatchScheduled = false;
+                dispatch();
+            }, delayInNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void checkCompletion() {
+        if (isDone() || inFlight > 0) {
+            return;
+        }
+        if (cancelled || (allRegistrationsIterated && next == null && fetchedRegistrations.isEmpty()
+                && readyRegistrations.isEmpty() && sleepingRegistrations.isEmpty() && blockedCount == 0)) {
+            complete();
+        }
+    }
+
+    private void complete() {
+        if (completed.compareAndSet(false, true)) {
+            done.countDown();
+            onDone.accept(this);
+            if (listener != null) {
+                listener.onCompleted(getProgress());
+            }
+        }
+    }
+
+    private void execute(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            LOG.debug("Fleet operation service is destroyed, task ignored");
+        }
+    }
+}
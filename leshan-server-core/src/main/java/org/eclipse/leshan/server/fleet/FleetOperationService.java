@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.fleet;
+
+import java.util.function.Predicate;
+
+import org.eclipse.leshan.core.request.DownlinkRequest;
+import org.eclipse.leshan.core.response.LwM2mResponse;
+import org.eclipse.leshan.server.registration.Registration;
+import org.eclipse.leshan.server.registration.RegistrationQuery;
+import org.eclipse.leshan.server.registration.RegistrationService;
+
+/**
+ * Service used to send the same {@link DownlinkRequest} to a whole fleet of devices (e.g. write a configuration or
+ * execute a firmware update on all devices of a given type).
+ * <p>
+ * Requests are sent asynchronously with a bounded number of in-flight requests and an optional rate limit, so neither
+ * the server nor device networks are flooded. Devices using queue mode are only contacted when they are awake.
+ *
+ * @see FleetOperationServiceImpl
+ */
+public interface FleetOperationService {
+
+    /**
+     * Start a fleet operation.
+     *
+     * @param selector select registrations targeted by this operation. It is evaluated lazily, while registrations are
+     *        iterated.
+     * @param request the request to send to each selected device.
+     * @param config limits used by this operation.
+     * @param listener notified of each response or error and of operation completion. Can be <code>null</code>.
+     * @return a {@link FleetOperation} which can be used to follow progress or cancel the operation.
+     */
+    <T extends LwM2mResponse> FleetOperation start(Predicate<Registration> selector, DownlinkRequest<T> request,
+            FleetOperationConfig config, FleetOperationListener<T> listener);
+
+    /**
+     * Start a fleet operation with default {@link FleetOperationConfig} and without listener.
+     *
+     * @see #start(Predicate, DownlinkRequest, FleetOperationConfig, FleetOperationListener)
+     */
+    <T extends LwM2mResponse> FleetOperation start(Predicate<Registration> selector, DownlinkRequest<T> request);
+
+    /**
+     * Start a fleet operation targeting registrations matching the given query.
+     * <p>
+     * Unlike a {@link Predicate}, a query can be answered using registration store indexes, so registrations which are
+     * not targeted are not read at all. Registrations are fetched page by page using
+     * {@link RegistrationQuery#getLimit()} as page size.
+     *
+     * @param query select registrations targeted by this operation.
+     * @param request the request to send to each selected device.
+     * @param config limits used by this operation.
+     * @param listener notified of each response or error and of operation completion. Can be <code>null</code>.
+     * @return a {@link FleetOperation} which can be used to follow progress or cancel the operation.
+     * @see RegistrationService#findRegistrations(RegistrationQuery)
+     */
+    <T extends LwM2mResponse> FleetOperation start(RegistrationQuery query, DownlinkRequest<T> request,
+            FleetOperationConfig config, FleetOperationListener<T> listener);
+}
@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.fleet;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.eclipse.leshan.core.Destroyable;
+import org.eclipse.leshan.core.observation.Observation;
+import org.eclipse.leshan.core.request.DownlinkRequest;
+import org.eclipse.leshan.core.response.LwM2mResponse;
+import org.eclipse.leshan.core.util.NamedThreadFactory;
+import org.eclipse.leshan.core.util.Validate;
+import org.eclipse.leshan.server.queue.PresenceListener;
+import org.eclipse.leshan.server.queue.PresenceService;
+import org.eclipse.leshan.server.registration.Registration;
+import org.eclipse.leshan.server.registration.RegistrationListener;
+import org.eclipse.leshan.server.registration.RegistrationQuery;
+import org.eclipse.leshan.server.registration.RegistrationService;
+import org.eclipse.leshan.server.registration.RegistrationUpdate;
+import org.eclipse.leshan.server.request.DownlinkRequestSender;
+
+/**
+ * Default implementation of {@link FleetOperationService}.
+ * <p>
+ * Requests are sent using the asynchronous API of {@link DownlinkRequestSender}. A single thread (created on first
+ * operation) is used to dispatch requests of all operations, it never blocks waiting for responses. Registrations are
+ * iterated on another thread, so a slow {@link RegistrationService} does not delay dispatch.
+ * <p>
+ * This class must be added as {@link RegistrationListener} and {@link PresenceListener} to be notified when sleeping
+ * clients wake up or unregister.
+ */
+public class FleetOperationServiceImpl
+        implements FleetOperationService, PresenceListener, RegistrationListener, Destroyable {
+
+    private final RegistrationService registrationService;
+    private final PresenceService presenceService;
+    private final DownlinkRequestSender sender;
+
+    private final List<FleetOperationRunner<?>> operations = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService executor;
+    private ExecutorService fetchExecutor;
+    private boolean destroyed;
+
+    /**
+     * @param registrationService used to iterate over registrations.
+     * @param presenceService used to know if clients using queue mode are awake, can be <code>null</code> if queue mode
+     *        is not supported.
+     * @param sender used to send requests.
+     */
+    public FleetOperationServiceImpl(RegistrationService registrationService, PresenceService presenceService,
+            DownlinkRequestSender sender) {
+        Validate.notNull(registrationService);
+        Validate.notNull(sender);
+        this.registrationService = registrationService;
+        this.presenceService = presenceService;
+        this.sender = sender;
+    }
+
+    @Override
+    public <T extends LwM2mResponse> FleetOperation start(Predicate<Registration> selector,
+            DownlinkRequest<T> request) {
+        return start(selector, request, new FleetOperationConfig(), null);
+    }
+
+    @Override
+    public <T extends LwM2mResponse> FleetOperation start(Predicate<Registration> selector, DownlinkRequest<T> request,
+            FleetOperationConfig config, FleetOperationListener<T> listener) {
+        Validate.notNull(selector);
+        Validate.notNull(request);
+        Validate.notNull(config);
+
+        return start(registrationService::getAllRegistrations, selector, request, config, listener);
+    }
+
+    @Override
+    public <T extends LwM2mResponse> FleetOperation start(RegistrationQuery query, DownlinkRequest<T> request,
+            FleetOperationConfig config, FleetOperationListener<T> listener) {
+        Validate.notNull(query);
+        Validate.notNull(request);
+        Validate.notNull(config);
+
+        // registrations are already filtered by the query
+        return start(() -> new QueryResultIterator(registrationService, query), registration -> true, request, config,
+                listener);
+    }
+
+    private <T extends LwM2mResponse> FleetOperation start(Supplier<Iterator<Registration>> registrationSource,
+            Predicate<Registration> selector, DownlinkRequest<T> request, FleetOperationConfig config,
+            FleetOperationListener<T> listener) {
+        FleetOperationRunner<T> operation = new FleetOperationRunner<>(getExecutor(), getFetchExecutor(),
+                registrationSource, registrationService, presenceService, sender, selector, request, config, listener,
+                operations::remove);
+        operations.add(operation);
+        operation.start();
+        return operation;
+    }
+
+    /**
+     * @return number of operations not done yet.
+     */
+    public int getRunningOperationCount() {
+        return operations.size();
+    }
+
+    private synchronized ScheduledExecutorService getExecutor() {
+        if (destroyed) {
+            throw new IllegalStateException("Fleet operation service is destroyed");
+        }
+        if (executor == null) {
+            executor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("Leshan Fleet Operation"));
+        }
+        return executor;
+    }
+
+    private synchronized ExecutorService getFetchExecutor() {
+        if (destroyed) {
+            throw new IllegalStateException("Fleet operation service is destroyed");
+        }
+        if (fetchExecutor == null) {
+            fetchExecutor = Executors.newSingleThreadExecutor(new NamedThreadFactory("Leshan Fleet Operation Fetch"));
+        }
+        return fetchExecutor;
+    }
+
+    /**
+     * Stop all threads. Operations which are not done yet are completed as cancelled.
+     */
+    @Override
+    public synchronized void destroy() {
+        destroyed = true;
+        shutdown(executor);
+        shutdown(fetchExecutor);
+        for (FleetOperationRunner<?> operation : operations) {
+            operation.destroy();
+        }
+    }
+
+    private void shutdown(ExecutorService executorService) {
+        if (executorService != null) {
+            executorService.shutdownNow();
+            try {
+                executorService.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // ********** PresenceListener interface **********//
+    @Override
+    public void onAwake(Registration registration) {
+        for (FleetOperationRunner<?> operation : operations) {
+            operation.onAwake(registration);
+        }
+    }
+
+    @Override
+    public void onSleeping(Registration registration) {
+    }
+
+    // ********** RegistrationListener interface **********//
+    @Override
+    public void registered(Registration registration, Registration previousReg,
+            Collection<Observation> previousObservations) {
+    }
+
+    @Override
+    public void updated(RegistrationUpdate update, Registration updatedReg, Registration previousReg) {
+    }
+
+    @Override
+    public void unregistered(Registration registration, Collection<Observation> observations, boolean expired,
+            Registration newReg) {
+        for (FleetOperationRunner<?> operation : operations) {
+            operation.onUnregistered(registration);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.fleet;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.eclipse.leshan.server.registration.Registration;
+import org.eclipse.leshan.server.registration.RegistrationPage;
+import org.eclipse.leshan.server.registration.RegistrationQuery;
+import org.eclipse.leshan.server.registration.RegistrationService;
+
+/**
+ * An {@link Iterator} over all registrations matching a {@link RegistrationQuery}, fetching them page by page.
+ */
+class QueryResultIterator implements Iterator<Registration> {
+
+    private final RegistrationService registrationService;
+    private RegistrationQuery query;
+    private Iterator<Registration> page;
+
+    QueryResultIterator(RegistrationService registrationService, RegistrationQuery query) {
+        this.registrationService = registrationService;
+        this.query = query;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (page == null || !page.hasNext()) {
+            if (query == null) {
+                return false;
+            }
+            RegistrationPage result = registrationService.findRegistrations(query);
+            page = result.getRegistrations().iterator();
+            query = result.hasNext() ? query.withCursor(result.getNextCursor()) : null;
+        }
+        return true;
+    }
+
+    @Override
+    public Registration next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.next();
+    }
+}
@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A {@link ServerMetrics} which aggregates metrics in memory, without any external dependency.
+ * <p>
+ * Counters and durations are aggregated since creation. Current values can be collected using {@link #getCounters()},
+ * {@link #getTimers()} and {@link #getGauges()}, e.g. to expose them over HTTP.
+ */
+public class InMemoryServerMetrics implements ServerMetrics {
+
+    // name => tag => value
+    private final ConcurrentMap<String, ConcurrentMap<String, LongAdder>> counters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConcurrentMap<String, Timer>> timers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConcurrentMap<String, LongSupplier>> gauges = new ConcurrentHashMap<>();
+
+    @Override
+    public void increment(String name, String tag) {
+        LongAdder counter = get(counters, name, tag);
+        if (counter == null) {
+            counter = getOrCreate(counters, name).computeIfAbsent(tag, k -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    @Override
+    public void recordDuration(String name, String tag, long durationInNanos) {
+        Timer timer = get(timers, name, tag);
+        if (timer == null) {
+            timer = getOrCreate(timers, name).computeIfAbsent(tag, k -> new Timer());
+        }
+        timer.record(durationInNanos);
+    }
+
+    @Override
+    public void registerGauge(String name, String tag, LongSupplier gauge) {
+        getOrCreate(gauges, name).put(tag, gauge);
+    }
+
+    /**
+     * @return current value of all counters by name and by tag.
+     */
+    public SortedMap<String, SortedMap<String, Long>> getCounters() {
+        SortedMap<String, SortedMap<String, Long>> result = new TreeMap<>();
+        for (Entry<String, ConcurrentMap<String, LongAdder>> byName : counters.entrySet()) {
+            SortedMap<String, Long> byTag = new TreeMap<>();
+            for (Entry<String, LongAdder> entry : byName.getValue().entrySet()) {
+                byTag.put(entry.getKey(), entry.getValue().sum());
+            }
+            result.put(byName.getKey(), Collections.unmodifiableSortedMap(byTag));
+        }
+        return Collections.unmodifiableSortedMap(result);
+    }
+
+    /**
+     * @return a snapshot of all recorded durations by name and by tag.
+     */
+    public SortedMap<String, SortedMap<String, TimerSnapshot>> getTimers() {
+        SortedMap<String, SortedMap<String, TimerSnapshot>> result = new TreeMap<>();
+        for (Entry<String, ConcurrentMap<String, Timer>> byName : timers.entrySet()) {
+            SortedMap<String, TimerSnapshot> byTag = new TreeMap<>();
+            for (Entry<String, Timer> entry : byName.getValue().entrySet()) {
+                byTag.put(entry.getKey(), entry.getValue().snapshot());
+            }
+            result.put(byName.getKey(), Collections.unmodifiableSortedMap(byTag));
+        }
+        return Collections.unmodifiableSortedMap(result);
+    }
+
+    /**
+     * @return current value of all gauges by name and by tag.
+     */
+    public SortedMap<String, SortedMap<String, Long>> getGauges() {
+        SortedMap<String, SortedMap<String, Long>> result = new TreeMap<>();
+        for (Entry<String, ConcurrentMap<String, LongSupplier>> byName : gauges.entrySet()) {
+            SortedMap<String, Long> byTag = new TreeMap<>();
+            for (Entry<String, LongSupplier> entry : byName.getValue().entrySet()) {
+                byTag.put(entry.getKey(), entry.getValue().getAsLong());
+            }
+            result.put(byName.getKey(), Collections.unmodifiableSortedMap(byTag));
+        }
+        return Collections.unmodifiableSortedMap(result);
+    }
+
+    private static <T> T get(Map<String, ConcurrentMap<String, T>> metrics, String name, String tag) {
+        // fast path without allocation for already known metrics
+        ConcurrentMap<String, T> byTag = metrics.get(name);
+        return byTag == null ? null : byTag.get(tag);
+    }
+
+    private static <T> ConcurrentMap<String, T> getOrCreate(ConcurrentMap<String, ConcurrentMap<String, T>> metrics,
+            String name) {
+        return metrics.computeIfAbsent(name, k -> new ConcurrentHashMap<>());
+    }
+
+    private static class Timer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalTime = new LongAdder();
+        private final LongAccumulator maxTime = new LongAccumulator(Long::max, 0);
+
+        void record(long durationInNanos) {
+            count.increment();
+            totalTime.add(durationInNanos);
+            maxTime.accumulate(durationInNanos);
+        }
+
+        TimerSnapshot snapshot() {
+            return new TimerSnapshot(count.sum(), totalTime.sum(), maxTime.get());
+        }
+    }
+
+    /**
+     * Aggregated durations of a given operation.
+     */
+    public static class TimerSnapshot {
+        private final long count;
+        private final long totalTimeInNanos;
+        private final long maxTimeInNanos;
+
+        public TimerSnapshot(long count, long totalTimeInNanos, long maxTimeInNanos) {
+            this.count = count;
+            this.totalTimeInNanos = totalTimeInNanos;
+            this.maxTimeInNanos = maxTimeInNanos;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotalTimeInNanos() {
+            return totalTimeInNanos;
+        }
+
+        public long getMaxTimeInNanos() {
+            return maxTimeInNanos;
+        }
+
+        public long getMeanTimeInNanos() {
+            return count == 0 ? 0 : totalTimeInNanos / count;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("TimerSnapshot [count=%s, totalTimeInNanos=%s, maxTimeInNanos=%s]", count,
+                    totalTimeInNanos, maxTimeInNanos);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.metrics;
+
+import java.util.Collection;
+
+import org.eclipse.leshan.server.security.EditableSecurityStore;
+import org.eclipse.leshan.server.security.NonUniqueSecurityInfoException;
+import org.eclipse.leshan.server.security.SecurityInfo;
+import org.eclipse.leshan.server.security.SecurityStoreListener;
+
+/**
+ * An {@link InstrumentedSecurityStore} for {@link EditableSecurityStore}.
+ */
+public class InstrumentedEditableSecurityStore extends InstrumentedSecurityStore implements EditableSecurityStore {
+
+    private final EditableSecurityStore delegate;
+
+    public InstrumentedEditableSecurityStore(EditableSecurityStore delegate, ServerMetrics metrics) {
+        super(delegate, metrics);
+        this.delegate = delegate;
+    }
+
+    @Override
+    public EditableSecurityStore getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public Collection<SecurityInfo> getAll() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getAll();
+        } finally {
+            record("getAll", start);
+        }
+    }
+
+    @Override
+    public SecurityInfo add(SecurityInfo info) throws NonUniqueSecurityInfoException {
+        long start = System.nanoTime();
+        try {
+            return delegate.add(info);
+        } finally {
+            record("add", start);
+        }
+    }
+
+    @Override
+    public SecurityInfo remove(String endpoint, boolean infosAreCompromised) {
+        long start = System.nanoTime();
+        try {
+            return delegate.remove(endpoint, infosAreCompromised);
+        } finally {
+            record("remove", start);
+        }
+    }
+
+    @Override
+    public void addListener(SecurityStoreListener listener) {
+        delegate.addListener(listener);
+    }
+
+    @Override
+    public void removeListener(SecurityStoreListener listener) {
+        delegate.removeListener(listener);
+    }
+}
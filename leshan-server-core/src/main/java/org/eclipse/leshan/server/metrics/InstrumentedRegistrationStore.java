@@ -0,0 +1,289 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.metrics;
+
+import java.net.InetSocketAddress;
+import java.util.Collection;
+import java.util.Iterator;
+
+import org.eclipse.leshan.core.Destroyable;
+import org.eclipse.leshan.core.Startable;
+import org.eclipse.leshan.core.Stoppable;
+import org.eclipse.leshan.core.observation.Observation;
+import org.eclipse.leshan.core.observation.ObservationIdentifier;
+import org.eclipse.leshan.core.peer.LwM2mIdentity;
+import org.eclipse.leshan.core.util.Validate;
+import org.eclipse.leshan.server.registration.Deregistration;
+import org.eclipse.leshan.server.registration.ExpirationListener;
+import org.eclipse.leshan.server.registration.Registration;
+import org.eclipse.leshan.server.registration.RegistrationChangeLog;
+import org.eclipse.leshan.server.registration.RegistrationPage;
+import org.eclipse.leshan.server.registration.RegistrationQuery;
+import org.eclipse.leshan.server.registration.RegistrationStore;
+import org.eclipse.leshan.server.registration.RegistrationUpdate;
+import org.eclipse.leshan.server.registration.UpdatedRegistration;
+
+/**
+ * A {@link RegistrationStore} which reports duration of each operation of an other store to {@link ServerMetrics} using
+ * {@link ServerMetrics#REGISTRATION_STORE} metric.
+ * <p>
+ * {@link Startable}, {@link Stoppable} and {@link Destroyable} calls are forwarded to the wrapped store.
+ */
+public class InstrumentedRegistrationStore implements RegistrationStore, Startable, Stoppable, Destroyable {
+
+    private final RegistrationStore delegate;
+    private final ServerMetrics metrics;
+
+    public InstrumentedRegistrationStore(RegistrationStore delegate, ServerMetrics metrics) {
+        Validate.notNull(delegate);
+        Validate.notNull(metrics);
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return the wrapped store.
+     */
+    public RegistrationStore getDelegate() {
+        return delegate;
+    }
+
+    private void record(String operation, long start) {
+        metrics.recordDuration(ServerMetrics.REGISTRATION_STORE, operation, System.nanoTime() - start);
+    }
+
+    @Override
+    public Deregistration addRegistration(Registration registration) {
+        long start = System.nanoTime();
+        try {
+            return delegate.addRegistration(registration);
+        } finally {
+            record("addRegistration", start);
+        }
+    }
+
+    @Override
+    public UpdatedRegistration updateRegistration(RegistrationUpdate update) {
+        long start = System.nanoTime();
+        try {
+            return delegate.updateRegistration(update);
+        } finally {
+            record("updateRegistration", start);
+        }
+    }
+
+    @Override
+    public Registration getRegistration(String registrationId) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getRegistration(registrationId);
+        } finally {
+            record("getRegistration", start);
+        }
+    }
+
+    @Override
+    public Registration getRegistrationByEndpoint(String endpoint) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getRegistrationByEndpoint(endpoint);
+        } finally {
+            record("getRegistrationByEndpoint", start);
+        }
+    }
+
+    @Override
+    public Registration getRegistrationByAdress(InetSocketAddress address) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getRegistrationByAdress(address);
+        } finally {
+            record("getRegistrationByAdress", start);
+        }
+    }
+
+    @Override
+    public Registration getRegistrationByIdentity(LwM2mIdentity identity) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getRegistrationByIdentity(identity);
+        } finally {
+            record("getRegistrationByIdentity", start);
+        }
+    }
+
+    @Override
+    public Iterator<Registration> getAllRegistrations() {
+        long start = System.nanoTime();
+        Iterator<Registration> iterator = delegate.getAllRegistrations();
+        return new TimedIterator(iterator, System.nanoTime() - start);
+    }
+
+    @Override
+    public RegistrationPage findRegistrations(RegistrationQuery query) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findRegistrations(query);
+        } finally {
+            record("findRegistrations", start);
+        }
+    }
+
+    @Override
+    public Deregistration removeRegistration(String registrationId) {
+        long start = System.nanoTime();
+        try {
+            return delegate.removeRegistration(registrationId);
+        } finally {
+            record("removeRegistration", start);
+        }
+    }
+
+    @Override
+    public Collection<Observation> addObservation(String registrationId, Observation observation, boolean addIfAbsent) {
+        long start = System.nanoTime();
+        try {
+            return delegate.addObservation(registrationId, observation, addIfAbsent);
+        } finally {
+            record("addObservation", start);
+        }
+    }
+
+    @Override
+    public Observation getObservation(String registrationId, ObservationIdentifier observationId) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getObservation(registrationId, observationId);
+        } finally {
+            record("getObservation", start);
+        }
+    }
+
+    @Override
+    public Observation getObservation(ObservationIdentifier observationId) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getObservation(observationId);
+        } finally {
+            record("getObservation", start);
+        }
+    }
+
+    @Override
+    public Observation removeObservation(String registrationId, ObservationIdentifier observationId) {
+        long start = System.nanoTime();
+        try {
+            return delegate.removeObservation(registrationId, observationId);
+        } finally {
+            record("removeObservation", start);
+        }
+    }
+
+    @Override
+    public Collection<Observation> getObservations(String registrationId) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getObservations(registrationId);
+        } finally {
+            record("getObservations", start);
+        }
+    }
+
+    @Override
+    public Collection<Observation> removeObservations(String registrationId) {
+        long start = System.nanoTime();
+        try {
+            return delegate.removeObservations(registrationId);
+        } finally {
+            record("removeObservations", start);
+        }
+    }
+
+    @Override
+    public RegistrationChangeLog getChangeLog() {
+        return delegate.getChangeLog();
+    }
+
+    @Override
+    public void setExpirationListener(ExpirationListener listener) {
+        delegate.setExpirationListener(listener);
+    }
+
+    @Override
+    public void start() {
+        if (delegate instanceof Startable) {
+            ((Startable) delegate).start();
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (delegate instanceof Stoppable) {
+            ((Stoppable) delegate).stop();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (delegate instanceof Destroyable) {
+            ((Destroyable) delegate).destroy();
+        } else if (delegate instanceof Stoppable) {
+            ((Stoppable) delegate).stop();
+        }
+    }
+
+    /**
+     * Registrations could be fetched lazily while iterating, so duration of {@code getAllRegistrations} includes time
+     * spent in {@link Iterator} methods. It is recorded when iteration is complete.
+     */
+    private class TimedIterator implements Iterator<Registration> {
+        private final Iterator<Registration> iterator;
+        private long durationInNanos;
+        private boolean recorded;
+
+        TimedIterator(Iterator<Registration> iterator, long durationInNanos) {
+            this.iterator = iterator;
+            this.durationInNanos = durationInNanos;
+        }
+
+        @Override
+        public boolean hasNext() {
+            long start = System.nanoTime();
+            boolean hasNext = iterator.hasNext();
+            durationInNanos += System.nanoTime() - start;
+            if (!hasNext && !recorded) {
+                recorded = true;
+                metrics.recordDuration(ServerMetrics.REGISTRATION_STORE, "getAllRegistrations", durationInNanos);
+            }
+            return hasNext;
+        }
+
+        @Override
+        public Registration next() {
+            long start = System.nanoTime();
+            try {
+                return iterator.next();
+            } finally {
+                durationInNanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void remove() {
+            iterator.remove();
+        }
+    }
+}
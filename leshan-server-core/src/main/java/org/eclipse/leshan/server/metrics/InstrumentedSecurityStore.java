@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.metrics;
+
+import org.eclipse.leshan.core.peer.OscoreIdentity;
+import org.eclipse.leshan.core.util.Validate;
+import org.eclipse.leshan.server.security.EditableSecurityStore;
+import org.eclipse.leshan.server.security.SecurityInfo;
+import org.eclipse.leshan.server.security.SecurityStore;
+
+/**
+ * A {@link SecurityStore} which reports duration of each lookup of an other store to {@link ServerMetrics} using
+ * {@link ServerMetrics#SECURITY_STORE} metric.
+ * <p>
+ * Use {@link #wrap(SecurityStore, ServerMetrics)} to keep {@link EditableSecurityStore} capabilities of the wrapped
+ * store.
+ */
+public class InstrumentedSecurityStore implements SecurityStore {
+
+    private final SecurityStore delegate;
+    protected final ServerMetrics metrics;
+
+    /**
+     * Wrap the given store, if it is an {@link EditableSecurityStore} the returned store is editable too.
+     */
+    public static SecurityStore wrap(SecurityStore store, ServerMetrics metrics) {
+        if (store instanceof EditableSecurityStore) {
+            return new InstrumentedEditableSecurityStore((EditableSecurityStore) store, metrics);
+        } else {
+            return new InstrumentedSecurityStore(store, metrics);
+        }
+    }
+
+    public InstrumentedSecurityStore(SecurityStore delegate, ServerMetrics metrics) {
+        Validate.notNull(delegate);
+        Validate.notNull(metrics);
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return the wrapped store.
+     */
+    public SecurityStore getDelegate() {
+        return delegate;
+    }
+
+    protected void record(String operation, long start) {
+        metrics.recordDuration(ServerMetrics.SECURITY_STORE, operation, System.nanoTime() - start);
+    }
+
+    @Override
+    public SecurityInfo getByEndpoint(String endpoint) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getByEndpoint(endpoint);
+        } finally {
+            record("getByEndpoint", start);
+        }
+    }
+
+    @Override
+    public SecurityInfo getByIdentity(String pskIdentity) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getByIdentity(pskIdentity);
+        } finally {
+            record("getByIdentity", start);
+        }
+    }
+
+    @Override
+    public SecurityInfo getByOscoreIdentity(OscoreIdentity oscoreIdentity) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getByOscoreIdentity(oscoreIdentity);
+        } finally {
+            record("getByOscoreIdentity", start);
+        }
+    }
+}
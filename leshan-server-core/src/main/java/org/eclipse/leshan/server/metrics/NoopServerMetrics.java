@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.metrics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * A {@link ServerMetrics} which ignores everything. This is the default one.
+ */
+public class NoopServerMetrics implements ServerMetrics {
+
+    @Override
+    public void increment(String name, String tag) {
+    }
+
+    @Override
+    public void recordDuration(String name, String tag, long durationInNanos) {
+    }
+
+    @Override
+    public void registerGauge(String name, String tag, LongSupplier gauge) {
+    }
+}
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.metrics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * An instrumentation API used by server components to report what happens on hot paths.
+ * <p>
+ * Each metric is identified by a name and a tag (e.g. operation name, request type or content format), which is close
+ * to what metrics libraries like Micrometer or Dropwizard Metrics offer. So an implementation of this interface can be
+ * used to bridge to this kind of library.
+ * <p>
+ * Implementation MUST be thread-safe and SHOULD be as cheap as possible as it is called from transport and store
+ * threads.
+ *
+ * @see NoopServerMetrics
+ * @see InMemoryServerMetrics
+ */
+public interface ServerMetrics {
+
+    /**
+     * Counter of registration events, tagged with {@link #REGISTERED}, {@link #UPDATED}, {@link #DEREGISTERED} or
+     * {@link #EXPIRED}.
+     */
+    String REGISTRATION = "leshan.registration";
+    String REGISTERED = "registered";
+    String UPDATED = "updated";
+    String DEREGISTERED = "deregistered";
+    String EXPIRED = "expired";
+
+    /**
+     * Duration of {@code RegistrationStore} operations, tagged with method name.
+     */
+    String REGISTRATION_STORE = "leshan.registration.store";
+
+    /**
+     * Duration of {@code SecurityStore} operations, tagged with method name.
+     */
+    String SECURITY_STORE = "leshan.security.store";
+
+    /**
+     * Duration of downlink requests (from sending to response reception), tagged with request type (e.g.
+     * {@code ReadRequest}).
+     */
+    String DOWNLINK_REQUEST = "leshan.downlink.request";
+
+    /**
+     * Counter of downlink requests which failed without response (timeout, cancellation, send failure...), tagged with
+     * request type.
+     */
+    String DOWNLINK_REQUEST_ERROR = "leshan.downlink.request.error";
+
+    /**
+     * Duration of notification payload decoding, tagged with content format name.
+     */
+    String NOTIFICATION_DECODE = "leshan.notification.decode";
+
+    /**
+     * Duration of "Send" request payload decoding, tagged with content format name.
+     */
+    String SEND_DECODE = "leshan.send.decode";
+
+    /**
+     * Counter of presence state changes of clients using queue mode, tagged with {@link #AWAKE} or {@link #SLEEPING}. A
+     * gauge with same name and {@link #AWAKE} tag gives current number of awake clients.
+     */
+    String PRESENCE = "leshan.presence";
+    String AWAKE = "awake";
+    String SLEEPING = "sleeping";
+
+    /**
+     * Counter of DTLS handshakes, tagged with {@link #HANDSHAKE_STARTED}, {@link #HANDSHAKE_SUCCEEDED} or
+     * {@link #HANDSHAKE_FAILED}.
+     */
+    String DTLS_HANDSHAKE = "leshan.dtls.handshake";
+    String HANDSHAKE_STARTED = "started";
+    String HANDSHAKE_SUCCEEDED = "succeeded";
+    String HANDSHAKE_FAILED = "failed";
+
+    /**
+     * Increment a counter.
+     *
+     * @param name name of the metric
+     * @param tag tag of the metric
+     */
+    void increment(String name, String tag);
+
+    /**
+     * Record the duration of an operation.
+     *
+     * @param name name of the metric
+     * @param tag tag of the metric
+     * @param durationInNanos duration of the operation in nanoseconds, generally computed using
+     *        {@link System#nanoTime()}
+     */
+    void recordDuration(String name, String tag, long durationInNanos);
+
+    /**
+     * Register a gauge, a value which is computed on demand when metrics are collected.
+     *
+     * @param name name of the metric
+     * @param tag tag of the metric
+     * @param gauge function to call to get current value.
+     */
+    void registerGauge(String name, String tag, LongSupplier gauge);
+}
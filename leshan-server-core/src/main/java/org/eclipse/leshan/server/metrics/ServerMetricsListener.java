@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.metrics;
+
+import java.util.Collection;
+
+import org.eclipse.leshan.core.observation.Observation;
+import org.eclipse.leshan.core.util.Validate;
+import org.eclipse.leshan.server.queue.PresenceListener;
+import org.eclipse.leshan.server.registration.Registration;
+import org.eclipse.leshan.server.registration.RegistrationListener;
+import org.eclipse.leshan.server.registration.RegistrationUpdate;
+
+/**
+ * Listen registration and presence events to report them to {@link ServerMetrics} using
+ * {@link ServerMetrics#REGISTRATION} and {@link ServerMetrics#PRESENCE} metrics.
+ */
+public class ServerMetricsListener implements RegistrationListener, PresenceListener {
+
+    private final ServerMetrics metrics;
+
+    public ServerMetricsListener(ServerMetrics metrics) {
+        Validate.notNull(metrics);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void registered(Registration registration, Registration previousReg,
+            Collection<Observation> previousObservations) {
+        metrics.increment(ServerMetrics.REGISTRATION, ServerMetrics.REGISTERED);
+    }
+
+    @Override
+    public void updated(RegistrationUpdate update, Registration updatedReg, Registration previousReg) {
+        metrics.increment(ServerMetrics.REGISTRATION, ServerMetrics.UPDATED);
+    }
+
+    @Override
+    public void unregistered(Registration registration, Collection<Observation> observations, boolean expired,
+            Registration newReg) {
+        // when newReg is not null, registration was replaced by a new one which is counted as registered.
+        if (newReg == null) {
+            metrics.increment(ServerMetrics.REGISTRATION, expired ? ServerMetrics.EXPIRED : ServerMetrics.DEREGISTERED);
+        }
+    }
+
+    @Override
+    public void onAwake(Registration registration) {
+        metrics.increment(ServerMetrics.PRESENCE, ServerMetrics.AWAKE);
+    }
+
+    @Override
+    public void onSleeping(Registration registration) {
+        metrics.increment(ServerMetrics.PRESENCE, ServerMetrics.SLEEPING);
+    }
+}
@@ -58,7 +58,7 @@ public class VersionedBootstrapModelProvider implements LwM2mBootstrapModelProvi
         public ResourceModel getResourceModel(int objectId, int resourceId) {
             ObjectModel objectModel = getObjectModel(objectId);
             if (objectModel != null)
-                return objectModel.resources.get(resourceId);
+                return objectModel.getResourceModel(resourceId);
             else
                 return null;
         }
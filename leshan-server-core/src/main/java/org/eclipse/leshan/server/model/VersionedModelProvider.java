@@ -60,7 +60,7 @@ public class VersionedModelProvider implements LwM2mModelProvider {
         public ResourceModel getResourceModel(int objectId, int resourceId) {
             ObjectModel objectModel = getObjectModel(objectId);
             if (objectModel != null)
-                return objectModel.resources.get(resourceId);
+                return objectModel.getResourceModel(resourceId);
             else
                 return null;
         }
@@ -31,6 +31,8 @@ import org.eclipse.leshan.core.observation.SingleObservation;
 import org.eclipse.leshan.core.peer.LwM2mPeer;
 import org.eclipse.leshan.core.response.ObserveCompositeResponse;
 import org.eclipse.leshan.core.response.ObserveResponse;
+import org.eclipse.leshan.server.dispatch.EventDispatcher;
+import org.eclipse.leshan.server.dispatch.InlineEventDispatcher;
 import org.eclipse.leshan.server.endpoint.LwM2mServerEndpoint;
 import org.eclipse.leshan.server.endpoint.LwM2mServerEndpointsProvider;
 import org.eclipse.leshan.server.profile.ClientProfile;
@@ -54,6 +56,7 @@ public class ObservationServiceImpl implements ObservationService, LwM2mNotifica
     private final RegistrationStore registrationStore;
     private final LwM2mServerEndpointsProvider endpointProvider;
     private final boolean updateRegistrationOnNotification;
+    private final EventDispatcher dispatcher;
 
     private final List<ObservationListener> listeners = new CopyOnWriteArrayList<>();;
 
@@ -73,9 +76,21 @@ public class ObservationServiceImpl implements ObservationService, LwM2mNotifica
      */
     public ObservationServiceImpl(RegistrationStore store, LwM2mServerEndpointsProvider endpointProvider,
             boolean updateRegistrationOnNotification) {
+        this(store, endpointProvider, updateRegistrationOnNotification, new InlineEventDispatcher());
+    }
+
+    /**
+     * Creates an instance of {@link ObservationServiceImpl}
+     *
+     * @param updateRegistrationOnNotification will activate registration update on observe notification.
+     * @param dispatcher the {@link EventDispatcher} used to deliver notifications to {@link ObservationListener}.
+     */
+    public ObservationServiceImpl(RegistrationStore store, LwM2mServerEndpointsProvider endpointProvider,
+            boolean updateRegistrationOnNotification, EventDispatcher dispatcher) {
         this.registrationStore = store;
         this.updateRegistrationOnNotification = updateRegistrationOnNotification;
         this.endpointProvider = endpointProvider;
+        this.dispatcher = dispatcher;
     }
 
     @Override
@@ -220,40 +235,71 @@ public class ObservationServiceImpl implements ObservationService, LwM2mNotifica
 
     // ********** NotificationListener interface **********//
     @Override
-    public void onNotification(SingleObservation observation, LwM2mPeer sender, ClientProfile profile,
-            ObserveResponse response) {
+    public void onNotification(final SingleObservation observation, LwM2mPeer sender, final ClientProfile profile,
+            final ObserveResponse response) {
+        final Registration updatedRegistration;
         try {
-            Registration updatedRegistration = updateRegistrationOnRegistration(observation, sender, profile);
-            for (ObservationListener listener : listeners) {
-                listener.onResponse(observation, updatedRegistration, response);
-            }
+            updatedRegistration = updateRegistrationOnRegistration(observation, sender, profile);
         } catch (Exception e) {
-            for (ObservationListener listener : listeners) {
-                listener.onError(observation, profile.getRegistration(), e);
-            }
+            fireError(observation, profile.getRegistration(), e);
+            return;
         }
+        dispatcher.dispatch(updatedRegistration.getEndpoint(), new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (ObservationListener listener : listeners) {
+                        listener.onResponse(observation, updatedRegistration, response);
+                    }
+                } catch (Exception e) {
+                    for (ObservationListener listener : listeners) {
+                        listener.onError(observation, profile.getRegistration(), e);
+                    }
+                }
+            }
+        });
     }
 
     @Override
-    public void onNotification(CompositeObservation observation, LwM2mPeer sender, ClientProfile profile,
-            ObserveCompositeResponse response) {
+    public void onNotification(final CompositeObservation observation, LwM2mPeer sender, final ClientProfile profile,
+            final ObserveCompositeResponse response) {
+        final Registration updatedRegistration;
         try {
-            Registration updatedRegistration = updateRegistrationOnRegistration(observation, sender, profile);
-            for (ObservationListener listener : listeners) {
-                listener.onResponse(observation, updatedRegistration, response);
-            }
+            updatedRegistration = updateRegistrationOnRegistration(observation, sender, profile);
         } catch (Exception e) {
-            for (ObservationListener listener : listeners) {
-                listener.onError(observation, profile.getRegistration(), e);
-            }
+            fireError(observation, profile.getRegistration(), e);
+            return;
         }
+        dispatcher.dispatch(updatedRegistration.getEndpoint(), new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (ObservationListener listener : listeners) {
+                        listener.onResponse(observation, updatedRegistration, response);
+                    }
+                } catch (Exception e) {
+                    for (ObservationListener listener : listeners) {
+                        listener.onError(observation, profile.getRegistration(), e);
+                    }
+                }
+            }
+        });
     }
 
     @Override
     public void onError(Observation observation, LwM2mPeer sender, ClientProfile profile, Exception error) {
-        for (ObservationListener listener : listeners) {
-            listener.onError(observation, profile.getRegistration(), error);
-        }
+        fireError(observation, profile.getRegistration(), error);
+    }
+
+    private void fireError(final Observation observation, final Registration registration, final Exception error) {
+        dispatcher.dispatch(registration.getEndpoint(), new Runnable() {
+            @Override
+            public void run() {
+                for (ObservationListener listener : listeners) {
+                    listener.onError(observation, registration, error);
+                }
+            }
+        });
     }
 
     @Override
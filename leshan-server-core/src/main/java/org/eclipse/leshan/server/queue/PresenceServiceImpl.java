@@ -65,6 +65,13 @@ public final class PresenceServiceImpl implements PresenceService, Destroyable {
         return clientPresences.containsKey(registration.getEndpoint());
     }
 
+    /**
+     * @return the number of clients using queue mode which are currently awake.
+     */
+    public int getAwakeClientCount() {
+        return clientPresences.size();
+    }
+
     /**
      * Set the client identified by registration as awake. Listeners are notified if that client state changed to awake
      * state.
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.registration;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.eclipse.leshan.core.link.Link;
+import org.eclipse.leshan.core.link.LinkParseException;
+import org.eclipse.leshan.core.link.lwm2m.DefaultLwM2mLinkParser;
+import org.eclipse.leshan.core.link.lwm2m.LwM2mLink;
+import org.eclipse.leshan.core.link.lwm2m.LwM2mLinkParser;
+import org.eclipse.leshan.core.util.Validate;
+
+/**
+ * A {@link LwM2mLinkParser} which remembers the object links of the last parsed CoRE Link Format payloads.
+ * <p>
+ * Most of the time, devices send again and again the same object links (e.g. on each registration update) and a fleet
+ * of devices generally shares a few distinct payloads. So when a payload was already parsed, links are not parsed again
+ * and the canonical links shared by registrations (see {@link RegistrationDataInterner}) are returned. This allows
+ * {@link Registration#hasSameObjectLinks(Link[])} to detect unchanged object links without comparing them.
+ * <p>
+ * As links returned by {@link #parseCoreLinkFormat(byte[])} may be shared, they MUST NOT be modified.
+ * {@link #parseLwM2mLinkFromCoreLinkFormat(byte[], String)} (used for Discover response) is not cached.
+ */
+public class CachingLwM2mLinkParser implements LwM2mLinkParser {
+
+    public static final int DEFAULT_CACHE_SIZE = 1024;
+
+    private final LwM2mLinkParser parser;
+    private final RegistrationDataInterner interner;
+    private final Map<Payload, RegistrationObjectLinks> cache;
+
+    public CachingLwM2mLinkParser() {
+        this(new DefaultLwM2mLinkParser());
+    }
+
+    public CachingLwM2mLinkParser(LwM2mLinkParser parser) {
+        this(parser, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param parser the parser used when payload is not in cache.
+     * @param cacheSize the maximum number of distinct payloads kept in cache, least recently used ones are evicted.
+     */
+    public CachingLwM2mLinkParser(LwM2mLinkParser parser, final int cacheSize) {
+        Validate.notNull(parser);
+        Validate.isTrue(cacheSize > 0, "cache size must be positive");
+        this.parser = parser;
+        this.interner = RegistrationDataInterner.getDefault();
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<Payload, RegistrationObjectLinks>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Entry<Payload, RegistrationObjectLinks> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    @Override
+    public Link[] parseCoreLinkFormat(byte[] bytes) throws LinkParseException {
+        if (bytes == null || bytes.length == 0) {
+            return parser.parseCoreLinkFormat(bytes);
+        }
+
+        Payload payload = new Payload(bytes);
+        RegistrationObjectLinks links = cache.get(payload);
+        if (links == null) {
+            links = interner.internObjectLinks(parser.parseCoreLinkFormat(bytes));
+            // keep a copy as given bytes could be modified by caller
+            cache.put(new Payload(Arrays.copyOf(bytes, bytes.length), payload.hashCode), links);
+        }
+        return links.getLinks();
+    }
+
+    @Override
+    public LwM2mLink[] parseLwM2mLinkFromCoreLinkFormat(byte[] bytes, String rootpath) throws LinkParseException {
+        return parser.parseLwM2mLinkFromCoreLinkFormat(bytes, rootpath);
+    }
+
+    /**
+     * @return the number of payloads currently in cache.
+     */
+    public int getCacheSize() {
+        return cache.size();
+    }
+
+    private static class Payload {
+        private final byte[] bytes;
+        private final int hashCode;
+
+        Payload(byte[] bytes) {
+            this(bytes, Arrays.hashCode(bytes));
+        }
+
+        Payload(byte[] bytes, int hashCode) {
+            this.bytes = bytes;
+            this.hashCode = hashCode;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof Payload))
+                return false;
+            Payload other = (Payload) obj;
+            return hashCode == other.hashCode && Arrays.equals(bytes, other.bytes);
+        }
+    }
+}
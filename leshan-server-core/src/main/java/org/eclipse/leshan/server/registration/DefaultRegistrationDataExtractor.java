@@ -33,9 +33,16 @@ import org.eclipse.leshan.core.model.LwM2mCoreObjectVersionRegistry;
 import org.eclipse.leshan.core.node.LwM2mPath;
 import org.eclipse.leshan.core.request.ContentFormat;
 
+/**
+ * Default {@link RegistrationDataExtractor}.
+ * <p>
+ * Extracted collections are unmodifiable and interned using {@link RegistrationDataInterner}, so registrations of
+ * devices with same profile share the same instances.
+ */
 public class DefaultRegistrationDataExtractor implements RegistrationDataExtractor {
 
     protected LwM2mCoreObjectVersionRegistry versionRegistry = new LwM2mCoreObjectVersionRegistry();
+    protected RegistrationDataInterner interner = RegistrationDataInterner.getDefault();
 
     @Override
     public RegistrationData extractDataFromObjectLinks(Link[] objectLinks, LwM2mVersion lwM2mVersion) {
@@ -49,15 +56,15 @@ public class DefaultRegistrationDataExtractor implements RegistrationDataExtract
             data.setAlternatePath(extractAlternatePath(root));
 
             // extract supported Content format in root link
-            data.setSupportedContentFormats(extractContentFormat(lwM2mVersion, root));
+            data.setSupportedContentFormats(interner.internContentFormats(extractContentFormat(lwM2mVersion, root)));
 
             // Extract data from link object
             Map<Integer, Version> supportedObjects = new HashMap<>();
             Set<LwM2mPath> availableInstances = new HashSet<>();
             extractAvailableInstancesAndSupportedObjects(lwM2mVersion, objectLinks, supportedObjects,
                     availableInstances);
-            data.setSupportedObjects(supportedObjects);
-            data.setAvailableInstances(availableInstances);
+            data.setSupportedObjects(interner.internSupportedObjects(supportedObjects));
+            data.setAvailableInstances(interner.internAvailableInstances(availableInstances));
 
         }
         return data;
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.registration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.leshan.core.util.Validate;
+import org.eclipse.leshan.server.registration.RegistrationChange.Type;
+
+/**
+ * A {@link RegistrationChangeLog} which keeps last changes in memory, in a ring buffer of fixed capacity.
+ * <p>
+ * Changes are appended by {@link InMemoryRegistrationStore} while it holds its write lock, so order of changes is the
+ * order in which they were applied to the store.
+ */
+public class InMemoryRegistrationChangeLog implements RegistrationChangeLog {
+
+    public static final int DEFAULT_CAPACITY = 10_000;
+
+    private final RegistrationChange[] changes;
+    private long lastOffset;
+
+    /**
+     * Create a log which keeps last {@link #DEFAULT_CAPACITY} changes.
+     */
+    public InMemoryRegistrationChangeLog() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity maximum number of changes kept in memory.
+     */
+    public InMemoryRegistrationChangeLog(int capacity) {
+        Validate.isTrue(capacity > 0, "capacity must be positive");
+        this.changes = new RegistrationChange[capacity];
+    }
+
+    /**
+     * Append a change at the end of the log, oldest change is dropped if log is full.
+     *
+     * @return the appended change
+     */
+    public synchronized RegistrationChange append(Type type, Registration registration) {
+        RegistrationChange change = new RegistrationChange(lastOffset + 1, type, registration);
+        changes[index(change.getOffset())] = change;
+        lastOffset = change.getOffset();
+        return change;
+    }
+
+    @Override
+    public synchronized long getLastOffset() {
+        return lastOffset;
+    }
+
+    @Override
+    public synchronized List<RegistrationChange> getChanges(long afterOffset, int limit) {
+        Validate.isTrue(afterOffset >= 0, "afterOffset must not be negative");
+        Validate.isTrue(afterOffset <= lastOffset, "afterOffset must not be greater than last offset");
+        Validate.isTrue(limit > 0, "limit must be positive");
+
+        long firstAvailableOffset = Math.max(1, lastOffset - changes.length + 1);
+        if (afterOffset + 1 < firstAvailableOffset) {
+            throw new RegistrationChangeLogTruncatedException(
+                    String.format("Changes after %d are not available anymore, first available change is %d",
+                            afterOffset, firstAvailableOffset));
+        }
+        if (afterOffset == lastOffset) {
+            return Collections.emptyList();
+        }
+
+        long toOffset = Math.min(lastOffset, afterOffset + limit);
+        List<RegistrationChange> result = new ArrayList<>((int) (toOffset - afterOffset));
+        for (long offset = afterOffset + 1; offset <= toOffset; offset++) {
+            result.add(changes[index(offset)]);
+        }
+        return result;
+    }
+
+    /**
+     * @return maximum number of changes kept in memory.
+     */
+    public int getCapacity() {
+        return changes.length;
+    }
+
+    private int index(long offset) {
+        return (int) ((offset - 1) % changes.length);
+    }
+}
@@ -18,13 +18,16 @@ package org.eclipse.leshan.server.registration;
 import java.net.InetSocketAddress;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Objects;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -41,6 +44,7 @@ import org.eclipse.leshan.core.observation.ObservationIdentifier;
 import org.eclipse.leshan.core.observation.SingleObservation;
 import org.eclipse.leshan.core.peer.LwM2mIdentity;
 import org.eclipse.leshan.core.util.NamedThreadFactory;
+import org.eclipse.leshan.server.registration.RegistrationChange.Type;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -57,8 +61,12 @@ public class InMemoryRegistrationStore implements RegistrationStore, Startable,
     private final Map<LwM2mIdentity, Registration> regsByIdentity = new HashMap<>();
     private final Map<ObservationIdentifier, Observation> obsByToken = new HashMap<>();
     private final Map<String, Set<ObservationIdentifier>> tokensByRegId = new HashMap<>();
+    // inverted indexes used to answer RegistrationQuery, see RegistrationQuery#getIndexTerms(Registration)
+    private final Map<String /* index term */, NavigableSet<String /* end-point */>> endpointsByIndexTerm = new HashMap<>();
 
     private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // changes are appended while holding write lock, may be null
+    private final InMemoryRegistrationChangeLog changeLog;
 
     // Listener use to notify when a registration expires
     private ExpirationListener expirationListener;
@@ -79,8 +87,19 @@ public class InMemoryRegistrationStore implements RegistrationStore, Startable,
     }
 
     public InMemoryRegistrationStore(ScheduledExecutorService schedExecutor, long cleanPeriodInSec) {
+        this(schedExecutor, cleanPeriodInSec, null);
+    }
+
+    /**
+     * @param schedExecutor executor used to remove expired registrations
+     * @param cleanPeriodInSec time between 2 removals of expired registrations
+     * @param changeLog log where registration changes are recorded, <code>null</code> means changes are not recorded.
+     */
+    public InMemoryRegistrationStore(ScheduledExecutorService schedExecutor, long cleanPeriodInSec,
+            InMemoryRegistrationChangeLog changeLog) {
         this.schedExecutor = schedExecutor;
         this.cleanPeriod = cleanPeriodInSec;
+        this.changeLog = changeLog;
     }
 
     /* *************** Leshan Registration API **************** */
@@ -96,6 +115,8 @@ public class InMemoryRegistrationStore implements RegistrationStore, Startable,
             // If a registration is already associated to this address we don't care as we only want to keep the most
             // recent binding.
             regsByAddr.put(registration.getSocketAddress(), registration);
+            updateIndexes(registrationRemoved, registration);
+            logChange(Type.REGISTERED, registration);
             if (registrationRemoved != null) {
                 Collection<Observation> observationsRemoved = unsafeRemoveAllObservations(registrationRemoved.getId());
                 if (!registrationRemoved.getSocketAddress().equals(registration.getSocketAddress())) {
@@ -141,6 +162,8 @@ public class InMemoryRegistrationStore implements RegistrationStore, Startable,
                 }
 
                 regsByRegId.put(updatedRegistration.getId(), updatedRegistration);
+                updateIndexes(registration, updatedRegistration);
+                logChange(Type.UPDATED, updatedRegistration);
 
                 return new UpdatedRegistration(registration, updatedRegistration);
             }
@@ -199,8 +222,49 @@ public class InMemoryRegistrationStore implements RegistrationStore, Startable,
         }
     }
 
+    @Override
+    public RegistrationPage findRegistrations(RegistrationQuery query) {
+        try {
+            lock.readLock().lock();
+
+            // iterate over the smallest index, other criteria are checked on registration directly
+            NavigableSet<String> candidates = null;
+            for (String term : query.getIndexTerms()) {
+                NavigableSet<String> endpoints = endpointsByIndexTerm.get(term);
+                if (endpoints == null) {
+                    return new RegistrationPage(Collections.<Registration> emptyList(), null);
+                }
+                if (candidates == null || endpoints.size() < candidates.size()) {
+                    candidates = endpoints;
+                }
+            }
+            if (query.getCursor() != null) {
+                candidates = candidates.tailSet(query.getCursor(), false);
+            }
+
+            List<Registration> matches = new ArrayList<>();
+            for (String endpoint : candidates) {
+                Registration registration = regsByEp.get(endpoint);
+                if (query.matches(registration)) {
+                    matches.add(registration);
+                    // we search one more registration to know if there is a next page.
+                    if (matches.size() > query.getLimit()) {
+                        break;
+                    }
+                }
+            }
+            return query.toPage(matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
     @Override
     public Deregistration removeRegistration(String registrationId) {
+        return removeRegistration(registrationId, Type.DEREGISTERED);
+    }
+
+    private Deregistration removeRegistration(String registrationId, Type changeType) {
         try {
             lock.writeLock().lock();
 
@@ -211,6 +275,8 @@ public class InMemoryRegistrationStore implements RegistrationStore, Startable,
                 removeFromMap(regsByAddr, registration.getSocketAddress(), registration);
                 removeFromMap(regsByRegId, registration.getId(), registration);
                 removeFromMap(regsByIdentity, registration.getClientTransportData().getIdentity(), registration);
+                updateIndexes(registration, null);
+                logChange(changeType, registration);
                 return new Deregistration(registration, observationsRemoved);
             }
             return null;
@@ -219,6 +285,42 @@ public class InMemoryRegistrationStore implements RegistrationStore, Startable,
         }
     }
 
+    @Override
+    public RegistrationChangeLog getChangeLog() {
+        return changeLog;
+    }
+
+    private void logChange(Type type, Registration registration) {
+        if (changeLog != null) {
+            changeLog.append(type, registration);
+        }
+    }
+
+    private void updateIndexes(Registration previous, Registration current) {
+        // previous and current registration always share the same endpoint.
+        Set<String> previousTerms = previous == null ? Collections.<String> emptySet()
+                : RegistrationQuery.getIndexTerms(previous);
+        Set<String> currentTerms = current == null ? Collections.<String> emptySet()
+                : RegistrationQuery.getIndexTerms(current);
+
+        for (String term : previousTerms) {
+            if (!currentTerms.contains(term)) {
+                NavigableSet<String> endpoints = endpointsByIndexTerm.get(term);
+                if (endpoints != null) {
+                    endpoints.remove(previous.getEndpoint());
+                    if (endpoints.isEmpty()) {
+                        endpointsByIndexTerm.remove(term);
+                    }
+                }
+            }
+        }
+        for (String term : currentTerms) {
+            if (!previousTerms.contains(term)) {
+                endpointsByIndexTerm.computeIfAbsent(term, t -> new TreeSet<>()).add(current.getEndpoint());
+            }
+        }
+    }
+
     /* *************** Leshan Observation API **************** */
 
     @Override
@@ -452,7 +554,7 @@ public class InMemoryRegistrationStore implements RegistrationStore, Startable,
                 for (Registration reg : allRegs) {
                     if (!reg.isAlive()) {
                         // force de-registration
-                        Deregistration removedRegistration = removeRegistration(reg.getId());
+                        Deregistration removedRegistration = removeRegistration(reg.getId(), Type.EXPIRED);
                         expirationListener.registrationExpired(removedRegistration.getRegistration(),
                                 removedRegistration.getObservations());
                     }
@@ -18,6 +18,13 @@ package org.eclipse.leshan.server.registration;
 import org.eclipse.leshan.core.request.RegisterRequest;
 import org.eclipse.leshan.core.util.RandomStringUtils;
 
+/**
+ * A {@link RegistrationIdProvider} which creates 10 alphanumeric characters identifiers using a
+ * {@link java.util.Random} shared by all threads.
+ * <p>
+ * Identifiers are predictable and concurrent registrations contend on the shared random source, prefer
+ * {@link SecureRandomRegistrationIdProvider}.
+ */
 public class RandomStringRegistrationIdProvider implements RegistrationIdProvider {
 
     @Override
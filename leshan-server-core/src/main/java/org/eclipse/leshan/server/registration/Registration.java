@@ -22,14 +22,12 @@ import java.net.InetSocketAddress;
 import java.net.URI;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.Date;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeSet;
 
 import org.eclipse.leshan.core.LwM2m.LwM2mVersion;
 import org.eclipse.leshan.core.LwM2m.Version;
@@ -40,7 +38,6 @@ import org.eclipse.leshan.core.peer.IpPeer;
 import org.eclipse.leshan.core.peer.LwM2mPeer;
 import org.eclipse.leshan.core.request.BindingMode;
 import org.eclipse.leshan.core.request.ContentFormat;
-import org.eclipse.leshan.core.util.StringUtils;
 import org.eclipse.leshan.core.util.Validate;
 import org.eclipse.leshan.server.security.Authorizer;
 
@@ -71,6 +68,8 @@ public class Registration {
     private final String id;
 
     private final Link[] objectLinks;
+    // shared by registrations with same object links
+    private final RegistrationObjectLinks sharedObjectLinks;
 
     private final Map<String, String> additionalRegistrationAttributes;
 
@@ -102,6 +101,7 @@ public class Registration {
 
         // object links related params
         objectLinks = builder.objectLinks;
+        sharedObjectLinks = builder.sharedObjectLinks;
         rootPath = builder.rootPath;
         supportedContentFormats = builder.supportedContentFormats;
         supportedObjects = builder.supportedObjects;
@@ -176,59 +176,37 @@ public class Registration {
         return null;
     }
 
+    /**
+     * @return the object links of this registration. The array is shared with other registrations having the same
+     *         object links and so must not be modified.
+     */
     public Link[] getObjectLinks() {
         return objectLinks;
     }
 
+    /**
+     * @return a copy of the object links sorted by path. Sorting is done only once and shared by all registrations with
+     *         same object links.
+     */
     public Link[] getSortedObjectLinks() {
-        // sort the list of objects
-        if (objectLinks == null) {
+        if (sharedObjectLinks == null) {
             return null;
         }
-
-        Link[] res = Arrays.copyOf(objectLinks, objectLinks.length);
-
-        Arrays.sort(res, new Comparator<Link>() {
-
-            /* sort by path */
-            @Override
-            public int compare(Link o1, Link o2) {
-                if (o1 == null && o2 == null)
-                    return 0;
-                if (o1 == null)
-                    return -1;
-                if (o2 == null)
-                    return 1;
-                // by URL
-                String[] url1 = o1.getUriReference().split("/");
-                String[] url2 = o2.getUriReference().split("/");
-
-                for (int i = 0; i < url1.length && i < url2.length; i++) {
-                    // is it two numbers?
-                    if (isNumber(url1[i]) && isNumber(url2[i])) {
-                        int cmp = Integer.parseInt(url1[i]) - Integer.parseInt(url2[i]);
-                        if (cmp != 0) {
-                            return cmp;
-                        }
-                    } else {
-
-                        int v = url1[i].compareTo(url2[i]);
-
-                        if (v != 0) {
-                            return v;
-                        }
-                    }
-                }
-
-                return url1.length - url2.length;
-            }
-        });
-
-        return res;
+        Link[] sorted = sharedObjectLinks.getSortedLinks();
+        return Arrays.copyOf(sorted, sorted.length);
     }
 
-    private static boolean isNumber(String s) {
-        return !StringUtils.isEmpty(s) && StringUtils.isNumeric(s);
+    /**
+     * Check if given object links are the same than the ones of this registration. The hash code of the object links is
+     * kept with the registration, so most of the time different object links are detected without comparing them.
+     *
+     * @return <code>true</code> if given links are equal to {@link #getObjectLinks()}.
+     */
+    public boolean hasSameObjectLinks(Link[] objectLinks) {
+        if (sharedObjectLinks == null) {
+            return objectLinks == null;
+        }
+        return sharedObjectLinks.hasSameLinks(objectLinks);
     }
 
     public Long getLifeTimeInSec() {
@@ -501,6 +479,7 @@ public class Registration {
         private Boolean queueMode;
         private LwM2mVersion lwM2mVersion = LwM2mVersion.getDefault();
         private Link[] objectLinks;
+        private RegistrationObjectLinks sharedObjectLinks;
         private String rootPath;
         private Set<ContentFormat> supportedContentFormats;
         private Map<Integer, Version> supportedObjects;
@@ -508,7 +487,11 @@ public class Registration {
         private Map<String, String> additionalRegistrationAttributes;
         private Map<String, String> applicationData;
 
+        // registration from which data was copied, its data is already shared and so does not need to be interned again
+        private Registration source;
+
         public Builder(Registration registration) {
+            source = registration;
 
             // mandatory params
             registrationId = registration.id;
@@ -518,6 +501,7 @@ public class Registration {
 
             // object links related params
             objectLinks = registration.objectLinks;
+            sharedObjectLinks = registration.sharedObjectLinks;
             rootPath = registration.rootPath;
             supportedContentFormats = registration.supportedContentFormats;
             supportedObjects = registration.supportedObjects;
@@ -586,6 +570,22 @@ public class Registration {
 
         public Builder objectLinks(Link[] objectLinks) {
             this.objectLinks = objectLinks;
+            this.sharedObjectLinks = null;
+            return this;
+        }
+
+        /**
+         * Reuse object links and data extracted from them (root path, supported content formats, supported objects and
+         * available instances) from given registration.
+         */
+        Builder objectLinksData(Registration registration) {
+            source = registration;
+            objectLinks = registration.objectLinks;
+            sharedObjectLinks = registration.sharedObjectLinks;
+            rootPath = registration.rootPath;
+            supportedContentFormats = registration.supportedContentFormats;
+            supportedObjects = registration.supportedObjects;
+            availableInstances = registration.availableInstances;
             return this;
         }
 
@@ -637,26 +637,28 @@ public class Registration {
             registrationDate = registrationDate == null ? new Date() : registrationDate;
             lastUpdate = lastUpdate == null ? new Date() : lastUpdate;
 
-            // Make collection immutable
-            // We create a new Collection and make it "unmodifiable".
-            if (supportedContentFormats == null || supportedContentFormats.isEmpty()) {
-                supportedContentFormats = Collections.emptySet();
-            } else {
-                supportedContentFormats = Collections.unmodifiableSet(new HashSet<>(supportedContentFormats));
+            // Share immutable object links related data with other registrations
+            // (see RegistrationDataInterner)
+            RegistrationDataInterner interner = RegistrationDataInterner.getDefault();
+            if (sharedObjectLinks == null || sharedObjectLinks.getLinks() != objectLinks) {
+                sharedObjectLinks = interner.internObjectLinks(objectLinks);
             }
-            if (supportedObjects == null || supportedObjects.isEmpty()) {
-                supportedObjects = Collections.emptyMap();
-            } else {
-                supportedObjects = Collections.unmodifiableMap(new HashMap<>(supportedObjects));
+            objectLinks = sharedObjectLinks == null ? null : sharedObjectLinks.getLinks();
+            if (source == null || source.supportedContentFormats != supportedContentFormats) {
+                supportedContentFormats = interner.internContentFormats(supportedContentFormats);
             }
-            if (availableInstances == null || availableInstances.isEmpty()) {
-                availableInstances = Collections.emptySet();
-            } else {
-                availableInstances = Collections.unmodifiableSet(new TreeSet<>(availableInstances));
+            if (source == null || source.supportedObjects != supportedObjects) {
+                supportedObjects = interner.internSupportedObjects(supportedObjects);
             }
+            if (source == null || source.availableInstances != availableInstances) {
+                availableInstances = interner.internAvailableInstances(availableInstances);
+            }
+
+            // Make collection immutable
+            // We create a new Collection and make it "unmodifiable".
             if (additionalRegistrationAttributes == null || additionalRegistrationAttributes.isEmpty()) {
                 additionalRegistrationAttributes = Collections.emptyMap();
-            } else {
+            } else if (source == null || source.additionalRegistrationAttributes != additionalRegistrationAttributes) {
                 additionalRegistrationAttributes = Collections
                         .unmodifiableMap(new HashMap<>(additionalRegistrationAttributes));
             }
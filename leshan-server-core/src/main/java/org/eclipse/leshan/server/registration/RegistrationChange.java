@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.registration;
+
+import org.eclipse.leshan.core.util.Validate;
+
+/**
+ * A change of a {@link Registration} recorded in a {@link RegistrationChangeLog}.
+ * <p>
+ * A change holds the whole registration, so applying changes is idempotent : for {@link Type#REGISTERED} and
+ * {@link Type#UPDATED}, the registration replaces any registration with the same endpoint name; for
+ * {@link Type#DEREGISTERED} and {@link Type#EXPIRED}, registration with same endpoint name and same registration ID is
+ * removed.
+ */
+public class RegistrationChange {
+
+    public enum Type {
+        /** A new registration was added, maybe replacing a previous registration of same endpoint */
+        REGISTERED,
+        /** A registration was updated */
+        UPDATED,
+        /** A registration was removed because client de-registered or registration was explicitly removed */
+        DEREGISTERED,
+        /** A registration was removed because it expired */
+        EXPIRED
+    }
+
+    private final long offset;
+    private final Type type;
+    private final Registration registration;
+
+    /**
+     * @param offset position of this change in the log, first change has offset 1
+     * @param type type of change
+     * @param registration registration after the change, or the removed registration for {@link Type#DEREGISTERED} and
+     *        {@link Type#EXPIRED}
+     */
+    public RegistrationChange(long offset, Type type, Registration registration) {
+        Validate.isTrue(offset > 0, "offset must be positive");
+        Validate.notNull(type);
+        Validate.notNull(registration);
+        this.offset = offset;
+        this.type = type;
+        this.registration = registration;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Registration getRegistration() {
+        return registration;
+    }
+
+    /**
+     * @return <code>true</code> if registration was removed by this change.
+     */
+    public boolean isRemoval() {
+        return type == Type.DEREGISTERED || type == Type.EXPIRED;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RegistrationChange [offset=%s, type=%s, endpoint=%s, registrationId=%s]", offset, type,
+                registration.getEndpoint(), registration.getId());
+    }
+}
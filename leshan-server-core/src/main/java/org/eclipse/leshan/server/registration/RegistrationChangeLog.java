@@ -0,0 +1,54 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.registration;
+
+import java.util.List;
+
+/**
+ * An ordered log of {@link RegistrationChange} made to a {@link RegistrationStore}.
+ * <p>
+ * It allows a consumer (e.g. a new server node of a cluster or an analytics application) to know the state of the fleet
+ * without scanning the whole store each time :
+ * <ol>
+ * <li>get current offset using {@link #getLastOffset()},
+ * <li>load a snapshot of registrations using {@link RegistrationStore#getAllRegistrations()},
+ * <li>then periodically get changes made since this offset using {@link #getChanges(long, int)}.
+ * </ol>
+ * As offset is read before the snapshot, changes made during snapshot loading are read again from the log. This is not
+ * an issue as applying a change is idempotent (see {@link RegistrationChange}).
+ * <p>
+ * Log only keeps a bounded number of changes, a consumer which is too late must load a new snapshot.
+ *
+ * @see RegistrationStore#getChangeLog()
+ */
+public interface RegistrationChangeLog {
+
+    /**
+     * @return offset of the last change, or 0 if there is no change yet.
+     */
+    long getLastOffset();
+
+    /**
+     * Get changes following the given offset, in order.
+     *
+     * @param afterOffset offset of the last change already known by the consumer, 0 to get changes from the beginning
+     * @param limit maximum number of changes to return
+     * @return changes with an offset greater than <code>afterOffset</code>, empty if there is no new change.
+     * @throws RegistrationChangeLogTruncatedException if some changes following <code>afterOffset</code> are not
+     *         available anymore.
+     */
+    List<RegistrationChange> getChanges(long afterOffset, int limit) throws RegistrationChangeLogTruncatedException;
+}
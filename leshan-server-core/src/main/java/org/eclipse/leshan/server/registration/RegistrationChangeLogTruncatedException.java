@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.registration;
+
+/**
+ * Raised by {@link RegistrationChangeLog} when changes requested by a consumer are not available anymore. Consumer
+ * should load a new snapshot of registrations.
+ */
+public class RegistrationChangeLogTruncatedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs a {@code RegistrationChangeLogTruncatedException} with the specified message.
+     *
+     * @param msg the detail message
+     */
+    public RegistrationChangeLogTruncatedException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.registration;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.eclipse.leshan.core.LwM2m.Version;
+import org.eclipse.leshan.core.link.Link;
+import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.request.ContentFormat;
+import org.eclipse.leshan.core.util.WeakInterner;
+
+/**
+ * Shares immutable parts of {@link Registration} between registrations.
+ * <p>
+ * Devices generally share a few firmware profiles, so most registrations have exactly the same object links, supported
+ * objects, available instances or supported content formats. Each of them is replaced by a canonical unmodifiable
+ * instance, so only one copy is kept in memory for all registrations using it.
+ * <p>
+ * Canonical instances are weakly referenced and so released when no more registration uses them.
+ *
+ * @see Registration.Builder#build()
+ * @see DefaultRegistrationDataExtractor
+ */
+public class RegistrationDataInterner {
+
+    private static final RegistrationDataInterner DEFAULT = new RegistrationDataInterner();
+
+    /**
+     * @return the interner used by default by {@link Registration.Builder}.
+     */
+    public static RegistrationDataInterner getDefault() {
+        return DEFAULT;
+    }
+
+    private final WeakInterner<RegistrationObjectLinks> objectLinks = new WeakInterner<>();
+    private final WeakInterner<Set<ContentFormat>> contentFormats = new WeakInterner<>();
+    private final WeakInterner<Map<Integer, Version>> supportedObjects = new WeakInterner<>();
+    private final WeakInterner<Set<LwM2mPath>> availableInstances = new WeakInterner<>();
+
+    RegistrationObjectLinks internObjectLinks(Link[] links) {
+        if (links == null) {
+            return null;
+        }
+        return objectLinks.intern(new RegistrationObjectLinks(links));
+    }
+
+    /**
+     * @return a canonical unmodifiable set equal to given one or an empty set if given one is <code>null</code>.
+     */
+    public Set<ContentFormat> internContentFormats(Set<ContentFormat> supportedContentFormats) {
+        if (supportedContentFormats == null || supportedContentFormats.isEmpty()) {
+            return Collections.emptySet();
+        }
+        return contentFormats.intern(supportedContentFormats, s -> Collections.unmodifiableSet(new HashSet<>(s)));
+    }
+
+    /**
+     * @return a canonical unmodifiable map equal to given one or an empty map if given one is <code>null</code>.
+     */
+    public Map<Integer, Version> internSupportedObjects(Map<Integer, Version> objects) {
+        if (objects == null || objects.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return supportedObjects.intern(objects, m -> Collections.unmodifiableMap(new HashMap<>(m)));
+    }
+
+    /**
+     * @return a canonical unmodifiable sorted set equal to given one or an empty set if given one is <code>null</code>.
+     */
+    public Set<LwM2mPath> internAvailableInstances(Set<LwM2mPath> instances) {
+        if (instances == null || instances.isEmpty()) {
+            return Collections.emptySet();
+        }
+        return availableInstances.intern(instances, s -> Collections.unmodifiableSet(new TreeSet<>(s)));
+    }
+}
@@ -21,6 +21,7 @@ import java.net.URI;
 import java.util.Date;
 
 import org.eclipse.leshan.core.LwM2m.LwM2mVersion;
+import org.eclipse.leshan.core.link.Link;
 import org.eclipse.leshan.core.peer.LwM2mPeer;
 import org.eclipse.leshan.core.request.DeregisterRequest;
 import org.eclipse.leshan.core.request.RegisterRequest;
@@ -139,17 +140,22 @@ public class RegistrationHandler {
         LwM2mVersion lwM2mVersion = currentRegistration.getLwM2mVersion();
         updateRequest.validate(lwM2mVersion);
 
+        // Object links are generally unchanged (e.g. update only sent to refresh lifetime), in this case there is no
+        // need to extract data from them or to update them.
+        Link[] objectLinks = updateRequest.getObjectLinks();
+        if (objectLinks != null && currentRegistration.hasSameObjectLinks(objectLinks)) {
+            objectLinks = null;
+        }
+
         // Extract data from object link
-        RegistrationData objLinksData = dataExtractor.extractDataFromObjectLinks(updateRequest.getObjectLinks(),
-                lwM2mVersion);
+        RegistrationData objLinksData = dataExtractor.extractDataFromObjectLinks(objectLinks, lwM2mVersion);
 
         // Create update
         final RegistrationUpdate update = new RegistrationUpdate(updateRequest.getRegistrationId(), sender,
                 updateRequest.getLifeTimeInSec(), updateRequest.getSmsNumber(), updateRequest.getBindingMode(),
-                updateRequest.getObjectLinks(), objLinksData.getAlternatePath(),
-                objLinksData.getSupportedContentFormats(), objLinksData.getSupportedObjects(),
-                objLinksData.getAvailableInstances(), updateRequest.getAdditionalAttributes(),
-                authorization.getApplicationData());
+                objectLinks, objLinksData.getAlternatePath(), objLinksData.getSupportedContentFormats(),
+                objLinksData.getSupportedObjects(), objLinksData.getAvailableInstances(),
+                updateRequest.getAdditionalAttributes(), authorization.getApplicationData());
 
         // update registration
         final UpdatedRegistration updatedRegistration = registrationService.getStore().updateRegistration(update);
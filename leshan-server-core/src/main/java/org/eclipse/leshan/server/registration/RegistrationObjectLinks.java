@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.registration;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.eclipse.leshan.core.link.Link;
+import org.eclipse.leshan.core.util.StringUtils;
+
+/**
+ * Object links of a {@link Registration}, shared by all registrations with same object links.
+ * <p>
+ * Sorted links are lazily computed once, then cached.
+ *
+ * @see RegistrationDataInterner
+ */
+class RegistrationObjectLinks {
+
+    private static final Comparator<Link> BY_PATH = new Comparator<Link>() {
+
+        /* sort by path */
+        @Override
+        public int compare(Link o1, Link o2) {
+            if (o1 == null && o2 == null)
+                return 0;
+            if (o1 == null)
+                return -1;
+            if (o2 == null)
+                return 1;
+            // by URL
+            String[] url1 = o1.getUriReference().split("/");
+            String[] url2 = o2.getUriReference().split("/");
+
+            for (int i = 0; i < url1.length && i < url2.length; i++) {
+                // is it two numbers?
+                if (isNumber(url1[i]) && isNumber(url2[i])) {
+                    int cmp = Integer.parseInt(url1[i]) - Integer.parseInt(url2[i]);
+                    if (cmp != 0) {
+                        return cmp;
+                    }
+                } else {
+
+                    int v = url1[i].compareTo(url2[i]);
+
+                    if (v != 0) {
+                        return v;
+                    }
+                }
+            }
+
+            return url1.length - url2.length;
+        }
+    };
+
+    private final Link[] links;
+    private final int hashCode;
+
+    // lazily computed, computing it twice concurrently is harmless
+    private volatile Link[] sortedLinks;
+
+    RegistrationObjectLinks(Link[] links) {
+        this.links = links;
+        this.hashCode = Arrays.hashCode(links);
+    }
+
+    Link[] getLinks() {
+        return links;
+    }
+
+    /**
+     * @return <code>true</code> if given links are equal to these ones, the precomputed hash code is used to avoid
+     *         comparing links when possible.
+     */
+    boolean hasSameLinks(Link[] other) {
+        if (links == other) {
+            return true;
+        }
+        return other != null && Arrays.hashCode(other) == hashCode && Arrays.equals(links, other);
+    }
+
+    /**
+     * @return the sorted links, this array must not be modified.
+     */
+    Link[] getSortedLinks() {
+        Link[] sorted = sortedLinks;
+        if (sorted == null) {
+            sorted = Arrays.copyOf(links, links.length);
+            Arrays.sort(sorted, BY_PATH);
+            sortedLinks = sorted;
+        }
+        return sorted;
+    }
+
+    private static boolean isNumber(String s) {
+        return !StringUtils.isEmpty(s) && StringUtils.isNumeric(s);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null || getClass() != obj.getClass())
+            return false;
+        RegistrationObjectLinks other = (RegistrationObjectLinks) obj;
+        return hashCode == other.hashCode && Arrays.equals(links, other.links);
+    }
+}
@@ -0,0 +1,366 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.registration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.eclipse.leshan.core.LwM2m.Version;
+import org.eclipse.leshan.core.util.Validate;
+
+/**
+ * A query over registrations of a {@link RegistrationStore}.
+ * <p>
+ * All criteria must be satisfied by a registration to match (criteria are AND-ed). A query without criteria matches all
+ * registrations.
+ * <p>
+ * Results are sorted by endpoint name and paginated : a query returns at most {@link #getLimit()} registrations with an
+ * endpoint name strictly greater than {@link #getCursor()}. The next page can be requested using
+ * {@link #withCursor(String)} with the {@link RegistrationPage#getNextCursor()} of the current page.
+ * <p>
+ * Stores can maintain secondary indexes to answer queries without scanning all registrations. Terms to use for those
+ * indexes are given by {@link #getIndexTerms(Registration)} and {@link #getIndexTerms()}.
+ *
+ * @see RegistrationStore#findRegistrations(RegistrationQuery)
+ */
+public class RegistrationQuery {
+
+    /**
+     * Default maximum number of registrations returned by a query.
+     */
+    public static final int DEFAULT_LIMIT = 100;
+
+    /**
+     * Index term used for all registrations, so indexes can also be used to paginate over all registrations.
+     */
+    public static final String ALL_TERM = "*";
+
+    private final Map<Integer, Version> supportedObjects; // objectId => version or null for any version
+    private final Boolean queueMode;
+    private final Map<String, String> additionalAttributes; // key => value or null for any value
+    private final String cursor;
+    private final int limit;
+
+    protected RegistrationQuery(Builder builder) {
+        this.supportedObjects = Collections.unmodifiableMap(new LinkedHashMap<>(builder.supportedObjects));
+        this.queueMode = builder.queueMode;
+        this.additionalAttributes = Collections.unmodifiableMap(new LinkedHashMap<>(builder.additionalAttributes));
+        this.cursor = builder.cursor;
+        this.limit = builder.limit;
+    }
+
+    /**
+     * @return supported objects criteria : object id to supported version or {@code null} if any version is accepted.
+     */
+    public Map<Integer, Version> getSupportedObjects() {
+        return supportedObjects;
+    }
+
+    /**
+     * @return the queue mode criterion or {@code null} if both queue mode and non queue mode clients are accepted.
+     */
+    public Boolean getQueueMode() {
+        return queueMode;
+    }
+
+    /**
+     * @return additional registration attributes criteria : attribute key to expected value or {@code null} if any
+     *         value is accepted.
+     */
+    public Map<String, String> getAdditionalAttributes() {
+        return additionalAttributes;
+    }
+
+    /**
+     * @return the endpoint name after which registrations are returned or {@code null} for the first page.
+     */
+    public String getCursor() {
+        return cursor;
+    }
+
+    /**
+     * @return the maximum number of registrations returned by this query.
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return a copy of this query returning registrations after the given endpoint name.
+     */
+    public RegistrationQuery withCursor(String cursor) {
+        return new Builder(this).cursor(cursor).build();
+    }
+
+    /**
+     * @return <code>true</code> if the given registration satisfies all criteria of this query. Pagination is not taken
+     *         into account.
+     */
+    public boolean matches(Registration registration) {
+        for (Entry<Integer, Version> supportedObject : supportedObjects.entrySet()) {
+            Version version = registration.getSupportedVersion(supportedObject.getKey());
+            if (version == null
+                    || (supportedObject.getValue() != null && !supportedObject.getValue().equals(version))) {
+                return false;
+            }
+        }
+        if (queueMode != null && queueMode != registration.usesQueueMode()) {
+            return false;
+        }
+        for (Entry<String, String> attribute : additionalAttributes.entrySet()) {
+            Map<String, String> attributes = registration.getAdditionalRegistrationAttributes();
+            if (attributes == null || !attributes.containsKey(attribute.getKey())) {
+                return false;
+            }
+            if (attribute.getValue() != null && !attribute.getValue().equals(attributes.get(attribute.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Answer this query by scanning the given registrations. This is the fallback for stores without secondary indexes
+     * : all registrations are read but only {@link #getLimit()} of them are kept in memory.
+     *
+     * @param registrations all the registrations of a store.
+     * @return the requested page
+     */
+    public RegistrationPage scan(Iterator<Registration> registrations) {
+        // endpoint => registration, only the (limit + 1) smallest endpoints are kept
+        TreeMap<String, Registration> page = new TreeMap<>();
+        while (registrations.hasNext()) {
+            Registration registration = registrations.next();
+            String endpoint = registration.getEndpoint();
+            if ((cursor != null && endpoint.compareTo(cursor) <= 0) || !matches(registration)) {
+                continue;
+            }
+            if (page.size() > limit) {
+                if (endpoint.compareTo(page.lastKey()) >= 0) {
+                    continue;
+                }
+                page.pollLastEntry();
+            }
+            page.put(endpoint, registration);
+        }
+        return toPage(new ArrayList<>(page.values()));
+    }
+
+    /**
+     * Create the page to return from up to ({@link #getLimit()} + 1) matching registrations sorted by endpoint. The
+     * extra registration is only used to know if there is a next page.
+     */
+    public RegistrationPage toPage(List<Registration> sortedMatches) {
+        if (sortedMatches.size() > limit) {
+            List<Registration> registrations = new ArrayList<>(sortedMatches.subList(0, limit));
+            return new RegistrationPage(registrations, registrations.get(limit - 1).getEndpoint());
+        } else {
+            return new RegistrationPage(sortedMatches, null);
+        }
+    }
+
+    /**
+     * @return terms a registration MUST be indexed with to match this query. {@link #ALL_TERM} is returned when there
+     *         is no criteria.
+     */
+    public List<String> getIndexTerms() {
+        List<String> terms = new ArrayList<>();
+        for (Entry<Integer, Version> supportedObject : supportedObjects.entrySet()) {
+            terms.add(supportedObject.getValue() == null ? objectTerm(supportedObject.getKey())
+                    : objectTerm(supportedObject.getKey(), supportedObject.getValue()));
+        }
+        if (queueMode != null) {
+            terms.add(queueModeTerm(queueMode));
+        }
+        for (Entry<String, String> attribute : additionalAttributes.entrySet()) {
+            terms.add(attribute.getValue() == null ? attributeTerm(attribute.getKey())
+                    : attributeTerm(attribute.getKey(), attribute.getValue()));
+        }
+        if (terms.isEmpty()) {
+            terms.add(ALL_TERM);
+        }
+        return terms;
+    }
+
+    /**
+     * @return all the terms a registration should be indexed with, so it can be found by any query.
+     */
+    public static Set<String> getIndexTerms(Registration registration) {
+        Set<String> terms = new HashSet<>();
+        terms.add(ALL_TERM);
+        for (Entry<Integer, Version> supportedObject : registration.getSupportedObject().entrySet()) {
+            terms.add(objectTerm(supportedObject.getKey()));
+            if (supportedObject.getValue() != null) {
+                terms.add(objectTerm(supportedObject.getKey(), supportedObject.getValue()));
+            }
+        }
+        terms.add(queueModeTerm(registration.usesQueueMode()));
+        Map<String, String> attributes = registration.getAdditionalRegistrationAttributes();
+        if (attributes != null) {
+            for (Entry<String, String> attribute : attributes.entrySet()) {
+                terms.add(attributeTerm(attribute.getKey()));
+                if (attribute.getValue() != null) {
+                    terms.add(attributeTerm(attribute.getKey(), attribute.getValue()));
+                }
+            }
+        }
+        return terms;
+    }
+
+    private static String objectTerm(int objectId) {
+        return "obj:" + objectId;
+    }
+
+    private static String objectTerm(int objectId, Version version) {
+        return "obj:" + objectId + "@" + version;
+    }
+
+    private static String queueModeTerm(boolean queueMode) {
+        return "queue:" + queueMode;
+    }
+
+    // as keys and values are not escaped, different attributes could share a term. This is not an issue as indexes
+    // are only used to select candidates, matches(Registration) is always used to check them.
+    private static String attributeTerm(String key) {
+        return "attr:" + key;
+    }
+
+    private static String attributeTerm(String key, String value) {
+        return "attr:" + key + "=" + value;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "RegistrationQuery [supportedObjects=%s, queueMode=%s, additionalAttributes=%s, cursor=%s, limit=%s]",
+                supportedObjects, queueMode, additionalAttributes, cursor, limit);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(additionalAttributes, cursor, limit, queueMode, supportedObjects);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof RegistrationQuery))
+            return false;
+        RegistrationQuery other = (RegistrationQuery) obj;
+        return Objects.equals(additionalAttributes, other.additionalAttributes) && Objects.equals(cursor, other.cursor)
+                && limit == other.limit && Objects.equals(queueMode, other.queueMode)
+                && Objects.equals(supportedObjects, other.supportedObjects);
+    }
+
+    /**
+     * Class helping to build a {@link RegistrationQuery}.
+     */
+    public static class Builder {
+
+        private final Map<Integer, Version> supportedObjects = new LinkedHashMap<>();
+        private Boolean queueMode;
+        private final Map<String, String> additionalAttributes = new LinkedHashMap<>();
+        private String cursor;
+        private int limit = DEFAULT_LIMIT;
+
+        public Builder() {
+        }
+
+        public Builder(RegistrationQuery query) {
+            supportedObjects.putAll(query.supportedObjects);
+            queueMode = query.queueMode;
+            additionalAttributes.putAll(query.additionalAttributes);
+            cursor = query.cursor;
+            limit = query.limit;
+        }
+
+        /**
+         * Only match registrations supporting the given object, whatever the version.
+         */
+        public Builder supportedObject(int objectId) {
+            supportedObjects.put(objectId, null);
+            return this;
+        }
+
+        /**
+         * Only match registrations supporting the given version of the given object.
+         */
+        public Builder supportedObject(int objectId, Version version) {
+            Validate.notNull(version);
+            supportedObjects.put(objectId, version);
+            return this;
+        }
+
+        /**
+         * Only match registrations using (or not using) queue mode.
+         */
+        public Builder queueMode(boolean queueMode) {
+            this.queueMode = queueMode;
+            return this;
+        }
+
+        /**
+         * Only match registrations having the given additional registration attribute, whatever the value.
+         */
+        public Builder additionalAttribute(String key) {
+            Validate.notNull(key);
+            additionalAttributes.put(key, null);
+            return this;
+        }
+
+        /**
+         * Only match registrations having the given additional registration attribute with the given value.
+         */
+        public Builder additionalAttribute(String key, String value) {
+            Validate.notNull(key);
+            Validate.notNull(value);
+            additionalAttributes.put(key, value);
+            return this;
+        }
+
+        /**
+         * Only return registrations with an endpoint name strictly greater than the given one. Generally the
+         * {@link RegistrationPage#getNextCursor()} of the previous page.
+         */
+        public Builder cursor(String cursor) {
+            this.cursor = cursor;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of registrations returned. Default value is {@value RegistrationQuery#DEFAULT_LIMIT}.
+         */
+        public Builder limit(int limit) {
+            Validate.isTrue(limit > 0, "limit must be greater than 0");
+            this.limit = limit;
+            return this;
+        }
+
+        public RegistrationQuery build() {
+            return new RegistrationQuery(this);
+        }
+    }
+}
@@ -45,6 +45,17 @@ public interface RegistrationService {
      */
     Iterator<Registration> getAllRegistrations();
 
+    /**
+     * Returns a page of the registrations matching the given query, sorted by endpoint name.
+     * <p>
+     * Prefer this to {@link #getAllRegistrations()} to select registrations, as stores can answer it using indexes.
+     *
+     * @param query the criteria and pagination of the search.
+     * @return the requested page of matching registrations.
+     * @since 2.0
+     */
+    RegistrationPage findRegistrations(RegistrationQuery query);
+
     /**
      * Adds a new listener to be notified with client registration events.
      *
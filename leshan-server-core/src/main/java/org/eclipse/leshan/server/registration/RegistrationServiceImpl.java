@@ -51,6 +51,11 @@ public class RegistrationServiceImpl implements RegistrationService, ExpirationL
         return store.getAllRegistrations();
     }
 
+    @Override
+    public RegistrationPage findRegistrations(RegistrationQuery query) {
+        return store.findRegistrations(query);
+    }
+
     @Override
     public Registration getByEndpoint(String endpoint) {
         return store.getRegistrationByEndpoint(endpoint);
@@ -88,6 +88,30 @@ public interface RegistrationStore {
      */
     Iterator<Registration> getAllRegistrations();
 
+    /**
+     * Returns a page of the registrations matching the given query, sorted by endpoint name.
+     * <p>
+     * Default implementation scans all registrations using {@link #getAllRegistrations()}. Implementations SHOULD
+     * maintain secondary indexes to avoid this (see {@link RegistrationQuery#getIndexTerms(Registration)}).
+     *
+     * @param query the criteria and pagination of the search.
+     * @return the requested page of matching registrations.
+     * @since 2.0
+     */
+    default RegistrationPage findRegistrations(RegistrationQuery query) {
+        return query.scan(getAllRegistrations());
+    }
+
+    /**
+     * Returns the ordered log of changes made to registrations of this store, if this store records them.
+     *
+     * @return the {@link RegistrationChangeLog} of this store or <code>null</code> if changes are not recorded.
+     * @since 2.0
+     */
+    default RegistrationChangeLog getChangeLog() {
+        return null;
+    }
+
     /**
      * Remove the registration with the given registration Id
      *
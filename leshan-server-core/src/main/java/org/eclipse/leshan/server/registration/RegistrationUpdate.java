@@ -107,15 +107,6 @@ public class RegistrationUpdate {
         EnumSet<BindingMode> bindingMode = this.bindingMode != null ? this.bindingMode : registration.getBindingMode();
         String smsNumber = this.smsNumber != null ? this.smsNumber : registration.getSmsNumber();
 
-        Link[] linkObject = this.objectLinks != null ? this.objectLinks : registration.getObjectLinks();
-        String alternatePath = this.alternatePath != null ? this.alternatePath : registration.getRootPath();
-        Set<ContentFormat> supportedContentFormats = this.supportedContentFormats != null ? this.supportedContentFormats
-                : registration.getSupportedContentFormats();
-        Map<Integer, Version> supportedObjects = this.supportedObjects != null ? this.supportedObjects
-                : registration.getSupportedObject();
-        Set<LwM2mPath> availableInstances = this.availableInstances != null ? this.availableInstances
-                : registration.getAvailableInstances();
-
         Map<String, String> additionalAttributes = this.additionalAttributes.isEmpty()
                 ? registration.getAdditionalRegistrationAttributes()
                 : updateAdditionalAttributes(registration.getAdditionalRegistrationAttributes());
@@ -140,15 +131,28 @@ public class RegistrationUpdate {
                 .bindingMode(bindingMode) //
                 .smsNumber(smsNumber) //
                 // object link data
-                .objectLinks(linkObject) //
-                .rootPath(alternatePath) //
-                .supportedContentFormats(supportedContentFormats) //
-                .supportedObjects(supportedObjects) //
-                .availableInstances(availableInstances) //
+                .objectLinksData(registration) //
                 // out of spec data
                 .additionalRegistrationAttributes(additionalAttributes) //
                 .applicationData(applicationData);
 
+        // object link data, unchanged data is reused as is
+        if (this.objectLinks != null) {
+            builder.objectLinks(this.objectLinks);
+        }
+        if (this.alternatePath != null) {
+            builder.rootPath(this.alternatePath);
+        }
+        if (this.supportedContentFormats != null) {
+            builder.supportedContentFormats(this.supportedContentFormats);
+        }
+        if (this.supportedObjects != null) {
+            builder.supportedObjects(this.supportedObjects);
+        }
+        if (this.availableInstances != null) {
+            builder.availableInstances(this.availableInstances);
+        }
+
         return builder.build();
     }
 
@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.registration;
+
+import java.security.SecureRandom;
+import java.util.function.Supplier;
+
+import org.eclipse.leshan.core.request.RegisterRequest;
+import org.eclipse.leshan.core.util.Validate;
+
+/**
+ * A {@link RegistrationIdProvider} which creates unguessable fixed-length base62 identifiers without contention between
+ * threads.
+ * <p>
+ * Each thread uses its own {@link SecureRandom} and consumes random bytes from a per-thread buffer, so concurrent
+ * registrations (e.g. after a server restart, when all devices reconnect) neither wait on a shared random source nor
+ * call it for each identifier. A character is produced from a random byte by keeping its 6 lowest bits and rejecting
+ * values greater than 61, so characters are uniformly distributed: default length of 16 gives about 95 bits of
+ * randomness.
+ * <p>
+ * Identifiers can optionally be time-ordered : they are then prefixed by creation time in milliseconds, encoded on 8
+ * characters. As base62 alphabet used is in ASCII order, identifiers created later are lexicographically greater, which
+ * gives better locality in sorted indexes of registration stores. Time prefix is guessable, so random part length
+ * should not be reduced in this case.
+ */
+public class SecureRandomRegistrationIdProvider implements RegistrationIdProvider {
+
+    public static final int DEFAULT_LENGTH = 16;
+    private static final int MIN_LENGTH = 8;
+    private static final int TIME_LENGTH = 8;
+    private static final int BUFFER_SIZE = 256;
+
+    // in ASCII order, so time-ordered identifiers are also lexicographically ordered
+    private static final char[] ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz"
+            .toCharArray();
+
+    private final int length;
+    private final boolean timeOrdered;
+    private final ThreadLocal<RandomBuffer> randomBuffers;
+
+    /**
+     * Create a provider of random identifiers of {@link #DEFAULT_LENGTH} characters.
+     */
+    public SecureRandomRegistrationIdProvider() {
+        this(DEFAULT_LENGTH, false);
+    }
+
+    /**
+     * Create a provider of identifiers using a per thread {@link SecureRandom} created with its default constructor.
+     *
+     * @param length number of random characters of identifiers, at least 8.
+     * @param timeOrdered <code>true</code> to prefix identifiers by 8 characters encoding creation time.
+     */
+    public SecureRandomRegistrationIdProvider(int length, boolean timeOrdered) {
+        this(length, timeOrdered, SecureRandom::new);
+    }
+
+    /**
+     * Create a provider of identifiers.
+     *
+     * @param length number of random characters of identifiers, at least 8.
+     * @param timeOrdered <code>true</code> to prefix identifiers by 8 characters encoding creation time.
+     * @param randomFactory factory called once by thread to create its {@link SecureRandom}.
+     */
+    public SecureRandomRegistrationIdProvider(int length, boolean timeOrdered, Supplier<SecureRandom> randomFactory) {
+        Validate.isTrue(length >= MIN_LENGTH, "length must be at least ", MIN_LENGTH);
+        Validate.notNull(randomFactory);
+        this.length = length;
+        this.timeOrdered = timeOrdered;
+        this.randomBuffers = ThreadLocal.withInitial(() -> new RandomBuffer(randomFactory.get()));
+    }
+
+    @Override
+    public String getRegistrationId(RegisterRequest registerRequest) {
+        char[] id;
+        int offset;
+        if (timeOrdered) {
+            id = new char[TIME_LENGTH + length];
+            long time = System.currentTimeMillis();
+            for (int i = TIME_LENGTH - 1; i >= 0; i--) {
+                id[i] = ALPHABET[(int) (time % ALPHABET.length)];
+                time /= ALPHABET.length;
+            }
+            offset = TIME_LENGTH;
+        } else {
+            id = new char[length];
+            offset = 0;
+        }
+
+        RandomBuffer buffer = randomBuffers.get();
+        for (int i = offset; i < id.length;) {
+            int value = buffer.nextByte() & 0x3F;
+            if (value < ALPHABET.length) {
+                id[i++] = ALPHABET[value];
+            }
+        }
+        return new String(id);
+    }
+
+    private static class RandomBuffer {
+        private final SecureRandom random;
+        private final byte[] bytes = new byte[BUFFER_SIZE];
+        private int position = BUFFER_SIZE;
+
+        RandomBuffer(SecureRandom random) {
+            this.random = random;
+        }
+
+        byte nextByte() {
+            if (position == bytes.length) {
+                random.nextBytes(bytes);
+                position = 0;
+            }
+            return bytes[position++];
+        }
+    }
+}
@@ -33,6 +33,8 @@ import org.eclipse.leshan.core.response.ResponseCallback;
 import org.eclipse.leshan.core.util.Validate;
 import org.eclipse.leshan.server.endpoint.LwM2mServerEndpoint;
 import org.eclipse.leshan.server.endpoint.LwM2mServerEndpointsProvider;
+import org.eclipse.leshan.server.metrics.NoopServerMetrics;
+import org.eclipse.leshan.server.metrics.ServerMetrics;
 import org.eclipse.leshan.server.model.LwM2mModelProvider;
 import org.eclipse.leshan.server.profile.ClientProfile;
 import org.eclipse.leshan.server.registration.Registration;
@@ -44,6 +46,7 @@ public class DefaultDownlinkRequestSender implements DownlinkRequestSender {
 
     private final LwM2mModelProvider modelProvider;
     private final LwM2mServerEndpointsProvider endpointsProvider;
+    private final ServerMetrics metrics;
 
     /**
      * @param endpointsProvider which provides available {@link LwM2mServerEndpoint}
@@ -52,9 +55,23 @@ public class DefaultDownlinkRequestSender implements DownlinkRequestSender {
      */
     public DefaultDownlinkRequestSender(LwM2mServerEndpointsProvider endpointsProvider,
             LwM2mModelProvider modelProvider) {
+        this(endpointsProvider, modelProvider, new NoopServerMetrics());
+    }
+
+    /**
+     * @param endpointsProvider which provides available {@link LwM2mServerEndpoint}
+     * @param modelProvider the {@link LwM2mModelProvider} used retrieve the {@link LwM2mModel} used to encode/decode
+     *        {@link LwM2mNode}.
+     * @param metrics used to report latency of requests by request type, using {@link ServerMetrics#DOWNLINK_REQUEST}
+     *        and {@link ServerMetrics#DOWNLINK_REQUEST_ERROR} metrics.
+     */
+    public DefaultDownlinkRequestSender(LwM2mServerEndpointsProvider endpointsProvider,
+            LwM2mModelProvider modelProvider, ServerMetrics metrics) {
         Validate.notNull(modelProvider);
+        Validate.notNull(metrics);
         this.modelProvider = modelProvider;
         this.endpointsProvider = endpointsProvider;
+        this.metrics = metrics;
     }
 
     /**
@@ -90,8 +107,20 @@ public class DefaultDownlinkRequestSender implements DownlinkRequestSender {
         final LwM2mModel model = modelProvider.getObjectModel(destination);
 
         // Send requests synchronously
-        T response = endpoint.send(new ClientProfile(destination, model), request, lowerLayerConfig, timeoutInMs);
-        return response;
+        String requestType = request.getClass().getSimpleName();
+        long start = System.nanoTime();
+        T response = null;
+        try {
+            response = endpoint.send(new ClientProfile(destination, model), request, lowerLayerConfig, timeoutInMs);
+            return response;
+        } finally {
+            if (response != null) {
+                metrics.recordDuration(ServerMetrics.DOWNLINK_REQUEST, requestType, System.nanoTime() - start);
+            } else {
+                // timeout or exception
+                metrics.increment(ServerMetrics.DOWNLINK_REQUEST_ERROR, requestType);
+            }
+        }
     }
 
     /**
@@ -125,7 +154,7 @@ public class DefaultDownlinkRequestSender implements DownlinkRequestSender {
     @Override
     public <T extends LwM2mResponse> void send(final Registration destination, DownlinkRequest<T> request,
             LowerLayerConfig lowerLayerConfig, long timeoutInMs, final ResponseCallback<T> responseCallback,
-            ErrorCallback errorCallback) {
+            final ErrorCallback errorCallback) {
 
         // find endpoint to use
         LwM2mServerEndpoint endpoint = endpointsProvider.getEndpoint(destination.getLastEndpointUsed());
@@ -134,12 +163,21 @@ public class DefaultDownlinkRequestSender implements DownlinkRequestSender {
         final LwM2mModel model = modelProvider.getObjectModel(destination);
 
         // Send requests asynchronously
+        final String requestType = request.getClass().getSimpleName();
+        final long start = System.nanoTime();
         endpoint.send(new ClientProfile(destination, model), request, new ResponseCallback<T>() {
             @Override
             public void onResponse(T response) {
+                metrics.recordDuration(ServerMetrics.DOWNLINK_REQUEST, requestType, System.nanoTime() - start);
                 responseCallback.onResponse(response);
             }
-        }, errorCallback, lowerLayerConfig, timeoutInMs);
+        }, new ErrorCallback() {
+            @Override
+            public void onError(Exception e) {
+                metrics.increment(ServerMetrics.DOWNLINK_REQUEST_ERROR, requestType);
+                errorCallback.onError(e);
+            }
+        }, lowerLayerConfig, timeoutInMs);
     }
 
     @Override
@@ -27,6 +27,8 @@ import org.eclipse.leshan.core.request.SendRequest;
 import org.eclipse.leshan.core.request.exception.InvalidRequestException;
 import org.eclipse.leshan.core.response.SendResponse;
 import org.eclipse.leshan.core.response.SendableResponse;
+import org.eclipse.leshan.server.dispatch.EventDispatcher;
+import org.eclipse.leshan.server.dispatch.InlineEventDispatcher;
 import org.eclipse.leshan.server.registration.Registration;
 import org.eclipse.leshan.server.registration.RegistrationStore;
 import org.eclipse.leshan.server.registration.RegistrationUpdate;
@@ -45,12 +47,22 @@ public class SendHandler implements SendService {
 
     private final RegistrationStore registrationStore;
     private final boolean updateRegistrationOnSend;
+    private final EventDispatcher dispatcher;
 
     private final List<SendListener> listeners = new CopyOnWriteArrayList<>();;
 
     public SendHandler(RegistrationStore registrationStore, boolean updateRegistrationOnSend) {
+        this(registrationStore, updateRegistrationOnSend, new InlineEventDispatcher());
+    }
+
+    /**
+     * @param dispatcher the {@link EventDispatcher} used to deliver received data to {@link SendListener}.
+     */
+    public SendHandler(RegistrationStore registrationStore, boolean updateRegistrationOnSend,
+            EventDispatcher dispatcher) {
         this.registrationStore = registrationStore;
         this.updateRegistrationOnSend = updateRegistrationOnSend;
+        this.dispatcher = dispatcher;
     }
 
     @Override
@@ -122,16 +134,27 @@ public class SendHandler implements SendService {
         return registration;
     }
 
-    protected void fireDataReceived(Registration registration, TimestampedLwM2mNodes data, SendRequest request) {
-        for (SendListener listener : listeners) {
-            listener.dataReceived(registration, data, request);
-        }
+    protected void fireDataReceived(final Registration registration, final TimestampedLwM2mNodes data,
+            final SendRequest request) {
+        dispatcher.dispatch(registration.getEndpoint(), new Runnable() {
+            @Override
+            public void run() {
+                for (SendListener listener : listeners) {
+                    listener.dataReceived(registration, data, request);
+                }
+            }
+        });
     }
 
-    public void onError(Registration registration, String errorMessage, Exception error) {
-        for (SendListener listener : listeners) {
-            listener.onError(registration, errorMessage, error);
-        }
+    public void onError(final Registration registration, final String errorMessage, final Exception error) {
+        dispatcher.dispatch(registration.getEndpoint(), new Runnable() {
+            @Override
+            public void run() {
+                for (SendListener listener : listeners) {
+                    listener.onError(registration, errorMessage, error);
+                }
+            }
+        });
     }
 
     protected SendResponse validateSendRequest(Registration registration, SendRequest request) {
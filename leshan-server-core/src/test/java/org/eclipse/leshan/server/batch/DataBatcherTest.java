@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.Inet4Address;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.leshan.core.endpoint.EndpointUriUtil;
+import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.node.LwM2mSingleResource;
+import org.eclipse.leshan.core.node.TimestampedLwM2mNodes;
+import org.eclipse.leshan.core.peer.IpPeer;
+import org.eclipse.leshan.server.dispatch.StripedEventDispatcher.OverflowPolicy;
+import org.eclipse.leshan.server.registration.Registration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class DataBatcherTest {
+
+    private DataBatcher batcher;
+
+    @AfterEach
+    public void destroy() {
+        if (batcher != null)
+            batcher.destroy();
+    }
+
+    @Test
+    public void batch_is_flushed_when_max_size_is_reached() throws InterruptedException {
+        batcher = new DataBatcher(3, 60000);
+        BatchCollector collector = new BatchCollector(2);
+        batcher.addListener(collector);
+
+        Registration registration = givenRegistration();
+        for (int i = 0; i < 6; i++) {
+            batcher.dataReceived(registration, givenData(i), null);
+        }
+
+        assertTrue(collector.await());
+        assertEquals(2, collector.batches.size());
+        assertEquals(3, collector.batches.get(0).size());
+        assertEquals(3, collector.batches.get(1).size());
+        // check order is preserved
+        assertEquals(givenData(0), collector.batches.get(0).get(0).getData());
+        assertEquals(givenData(5), collector.batches.get(1).get(2).getData());
+        assertNull(collector.batches.get(0).get(0).getObservation());
+    }
+
+    @Test
+    public void batch_is_flushed_when_max_latency_is_elapsed() throws InterruptedException {
+        batcher = new DataBatcher(100, 50);
+        BatchCollector collector = new BatchCollector(1);
+        batcher.addListener(collector);
+
+        Registration registration = givenRegistration();
+        batcher.dataReceived(registration, givenData(0), null);
+        batcher.dataReceived(registration, givenData(1), null);
+
+        assertTrue(collector.await());
+        assertEquals(1, collector.batches.size());
+        assertEquals(2, collector.batches.get(0).size());
+    }
+
+    @Test
+    public void oldest_entries_are_dropped_when_listener_is_too_slow() throws InterruptedException {
+        batcher = new DataBatcher(2, 60000, 4, OverflowPolicy.DROP_OLDEST);
+        CountDownLatch firstBatchReceived = new CountDownLatch(1);
+        CountDownLatch unblockListener = new CountDownLatch(1);
+        BatchCollector collector = new BatchCollector(3) {
+            @Override
+            public void dataReceived(List<BatchEntry> batch) {
+                super.dataReceived(batch);
+                firstBatchReceived.countDown();
+                try {
+                    unblockListener.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        batcher.addListener(collector);
+
+        Registration registration = givenRegistration();
+        batcher.dataReceived(registration, givenData(0), null);
+        batcher.dataReceived(registration, givenData(1), null);
+        assertTrue(firstBatchReceived.await(5, TimeUnit.SECONDS));
+
+        // listener is blocked : only 4 last entries are kept
+        for (int i = 2; i < 8; i++) {
+            batcher.dataReceived(registration, givenData(i), null);
+        }
+        unblockListener.countDown();
+
+        assertTrue(collector.await());
+        assertEquals(2, batcher.getDroppedEntryCount());
+        assertEquals(givenData(4), collector.batches.get(1).get(0).getData());
+        assertEquals(givenData(7), collector.batches.get(2).get(1).getData());
+    }
+
+    private Registration givenRegistration() {
+        return new Registration.Builder("ID", "urn:client",
+                new IpPeer(new InetSocketAddress(Inet4Address.getLoopbackAddress(), 12354)),
+                EndpointUriUtil.createUri("coap://localhost:5683")).build();
+    }
+
+    private TimestampedLwM2mNodes givenData(long value) {
+        return TimestampedLwM2mNodes.builder()
+                .put(new LwM2mPath(3442, 0, 120), LwM2mSingleResource.newIntegerResource(120, value)).build();
+    }
+
+    private static class BatchCollector implements BatchListener {
+        private final List<List<BatchEntry>> batches = new CopyOnWriteArrayList<>();
+        private final CountDownLatch latch;
+
+        public BatchCollector(int expectedBatches) {
+            latch = new CountDownLatch(expectedBatches);
+        }
+
+        @Override
+        public void dataReceived(List<BatchEntry> batch) {
+            batches.add(new ArrayList<>(batch));
+            latch.countDown();
+        }
+
+        public boolean await() throws InterruptedException {
+            return latch.await(5, TimeUnit.SECONDS);
+        }
+    }
+}
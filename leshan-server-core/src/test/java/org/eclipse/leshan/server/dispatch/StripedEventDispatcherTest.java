@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.dispatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.leshan.server.dispatch.StripedEventDispatcher.OverflowPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class StripedEventDispatcherTest {
+
+    private StripedEventDispatcher dispatcher;
+
+    @AfterEach
+    public void destroy() {
+        if (dispatcher != null)
+            dispatcher.destroy();
+    }
+
+    @Test
+    public void events_of_same_endpoint_are_delivered_in_order() throws InterruptedException {
+        dispatcher = new StripedEventDispatcher(4, 10, OverflowPolicy.BLOCK);
+        final List<Integer> received = Collections.synchronizedList(new ArrayList<Integer>());
+        final CountDownLatch done = new CountDownLatch(1000);
+
+        for (int i = 0; i < 1000; i++) {
+            final int value = i;
+            dispatcher.dispatch("urn:device", new Runnable() {
+                @Override
+                public void run() {
+                    received.add(value);
+                    done.countDown();
+                }
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, received.get(i).intValue());
+        }
+        assertEquals(1000, dispatcher.getDispatchedEventCount());
+        assertEquals(0, dispatcher.getDroppedEventCount());
+    }
+
+    @Test
+    public void newest_events_are_dropped_when_queue_is_full() throws InterruptedException {
+        dispatcher = new StripedEventDispatcher(1, 2, OverflowPolicy.DROP_NEWEST);
+        CountDownLatch release = blockStripe();
+
+        final List<Integer> received = Collections.synchronizedList(new ArrayList<Integer>());
+        for (int i = 0; i < 5; i++) {
+            dispatcher.dispatch("urn:device", collect(received, i));
+        }
+        assertEquals(2, dispatcher.getQueueSize());
+        assertEquals(3, dispatcher.getDroppedEventCount());
+
+        release.countDown();
+        waitForEvents(received, 2);
+        assertEquals(Arrays.asList(0, 1), received);
+    }
+
+    @Test
+    public void oldest_events_are_dropped_when_queue_is_full() throws InterruptedException {
+        dispatcher = new StripedEventDispatcher(1, 2, OverflowPolicy.DROP_OLDEST);
+        CountDownLatch release = blockStripe();
+
+        final List<Integer> received = Collections.synchronizedList(new ArrayList<Integer>());
+        for (int i = 0; i < 5; i++) {
+            dispatcher.dispatch("urn:device", collect(received, i));
+        }
+        assertEquals(2, dispatcher.getQueueSize());
+        assertEquals(3, dispatcher.getDroppedEventCount());
+
+        release.countDown();
+        waitForEvents(received, 2);
+        assertEquals(Arrays.asList(3, 4), received);
+    }
+
+    private CountDownLatch blockStripe() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        dispatcher.dispatch("urn:device", new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return release;
+    }
+
+    private Runnable collect(final List<Integer> received, final int value) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                received.add(value);
+            }
+        };
+    }
+
+    private void waitForEvents(List<Integer> received, int expectedSize) throws InterruptedException {
+        long timeout = System.currentTimeMillis() + 5000;
+        while (received.size() < expectedSize && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        assertEquals(expectedSize, received.size());
+    }
+}
@@ -0,0 +1,328 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.fleet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.Inet4Address;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.leshan.core.ResponseCode;
+import org.eclipse.leshan.core.endpoint.EndpointUriUtil;
+import org.eclipse.leshan.core.peer.IpPeer;
+import org.eclipse.leshan.core.request.BindingMode;
+import org.eclipse.leshan.core.request.DownlinkRequest;
+import org.eclipse.leshan.core.request.ExecuteRequest;
+import org.eclipse.leshan.core.request.exception.TimeoutException;
+import org.eclipse.leshan.core.request.exception.TimeoutException.Type;
+import org.eclipse.leshan.core.response.ErrorCallback;
+import org.eclipse.leshan.core.response.ExecuteResponse;
+import org.eclipse.leshan.core.response.LwM2mResponse;
+import org.eclipse.leshan.core.response.ResponseCallback;
+import org.eclipse.leshan.server.queue.PresenceServiceImpl;
+import org.eclipse.leshan.server.queue.StaticClientAwakeTimeProvider;
+import org.eclipse.leshan.server.registration.InMemoryRegistrationStore;
+import org.eclipse.leshan.server.registration.Registration;
+import org.eclipse.leshan.server.registration.RegistrationQuery;
+import org.eclipse.leshan.server.registration.RegistrationServiceImpl;
+import org.eclipse.leshan.server.request.DownlinkRequestSender;
+import org.eclipse.leshan.server.request.LowerLayerConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class FleetOperationServiceImplTest {
+
+    private static class SentRequest {
+        final Registration registration;
+        final ResponseCallback<ExecuteResponse> responseCallback;
+        final ErrorCallback errorCallback;
+
+        SentRequest(Registration registration, ResponseCallback<ExecuteResponse> responseCallback,
+                ErrorCallback errorCallback) {
+            this.registration = registration;
+            this.responseCallback = responseCallback;
+            this.errorCallback = errorCallback;
+        }
+    }
+
+    private static class QueuedSender implements DownlinkRequestSender {
+        final BlockingQueue<SentRequest> sent = new LinkedBlockingQueue<>();
+
+        @Override
+        public <T extends LwM2mResponse> T send(Registration destination, DownlinkRequest<T> request,
+                LowerLayerConfig lowerLayerConfig, long timeoutInMs) throws InterruptedException {
+            throw new UnsupportedOperationException();
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public <T extends LwM2mResponse> void send(Registration destination, DownlinkRequest<T> request,
+                LowerLayerConfig lowerLayerConfig, long timeoutInMs, ResponseCallback<T> responseCallback,
+                ErrorCallback errorCallback) {
+            sent.add(new SentRequest(destination, (ResponseCallback<ExecuteResponse>) responseCallback, errorCallback));
+        }
+
+        @Override
+        public void cancelOngoingRequests(Registration registration) {
+        }
+    }
+
+    private InMemoryRegistrationStore store;
+    private RegistrationServiceImpl registrationService;
+    private PresenceServiceImpl presenceService;
+    private QueuedSender sender;
+    private FleetOperationServiceImpl fleetOperationService;
+
+    @BeforeEach
+    public void setup() {
+        store = new InMemoryRegistrationStore();
+        registrationService = new RegistrationServiceImpl(store);
+        presenceService = new PresenceServiceImpl(new StaticClientAwakeTimeProvider());
+        sender = new QueuedSender();
+        fleetOperationService = new FleetOperationServiceImpl(registrationService, presenceService, sender);
+        registrationService.addListener(fleetOperationService);
+        presenceService.addListener(fleetOperationService);
+    }
+
+    @AfterEach
+    public void destroy() {
+        fleetOperationService.destroy();
+        presenceService.destroy();
+    }
+
+    @Test
+    public void requests_are_sent_to_selected_clients_with_bounded_in_flight() throws InterruptedException {
+        for (int i = 0; i < 10; i++) {
+            givenRegistration("client" + i, false);
+        }
+
+        FleetOperation operation = fleetOperationService.start(r -> !r.getEndpoint().equals("client0"),
+                new ExecuteRequest("/3/0/4"), new FleetOperationConfig().setMaxInFlight(3), null);
+
+        // only 3 requests are sent until responses are received
+        Thread.sleep(100);
+        assertEquals(3, sender.sent.size());
+        assertEquals(3, operation.getProgress().getInFlight());
+
+        for (int i = 0; i < 9; i++) {
+            SentRequest request = sender.sent.poll(1, TimeUnit.SECONDS);
+            assertNotNull(request);
+            if (i == 8) {
+                request.errorCallback.onError(new TimeoutException(Type.RESPONSE_TIMEOUT, "timeout"));
+            } else if (i == 7) {
+                request.responseCallback.onResponse(ExecuteResponse.notFound());
+            } else {
+                request.responseCallback.onResponse(ExecuteResponse.success());
+            }
+        }
+
+        assertTrue(operation.awaitCompletion(1, TimeUnit.SECONDS));
+        FleetOperationProgress progress = operation.getProgress();
+        assertEquals(9, progress.getSelected());
+        assertEquals(9, progress.getSent());
+        assertEquals(9, progress.getCompleted());
+        assertEquals(7l, progress.getResponses().get(ResponseCode.CHANGED));
+        assertEquals(1l, progress.getResponses().get(ResponseCode.NOT_FOUND));
+        assertEquals(1l, progress.getErrors().get("TimeoutException"));
+        assertTrue(progress.isDone());
+        assertEquals(0, fleetOperationService.getRunningOperationCount());
+    }
+
+    @Test
+    public void sleeping_clients_receive_request_when_awake() throws InterruptedException {
+        Registration sleeping = givenRegistration("sleeping", true);
+
+        FleetOperation operation = fleetOperationService.start(r -> true, new ExecuteRequest("/3/0/4"));
+
+        assertNull(sender.sent.poll(100, TimeUnit.MILLISECONDS));
+        assertEquals(1, operation.getProgress().getWaitingForWakeUp());
+        assertTrue(!operation.isDone());
+
+        presenceService.setAwake(sleeping);
+        SentRequest request = sender.sent.poll(1, TimeUnit.SECONDS);
+        assertNotNull(request);
+        assertEquals("sleeping", request.registration.getEndpoint());
+        request.responseCallback.onResponse(ExecuteResponse.success());
+
+        assertTrue(operation.awaitCompletion(1, TimeUnit.SECONDS));
+        assertEquals(0, operation.getProgress().getWaitingForWakeUp());
+    }
+
+    @Test
+    public void sleeping_client_unregistered_before_dispatch_does_not_block_operation() throws InterruptedException {
+        givenRegistration("client", false);
+        givenRegistration("sleeping", true);
+
+        // sleeping client unregisters after being fetched but before being dispatched
+        FleetOperation operation = fleetOperationService.start(r -> {
+            if (r.getEndpoint().equals("sleeping")) {
+                store.removeRegistration(r.getId());
+                fleetOperationService.unregistered(r, Collections.emptyList(), false, null);
+            }
+            return true;
+        }, new ExecuteRequest("/3/0/4"));
+
+        SentRequest request = sender.sent.poll(1, TimeUnit.SECONDS);
+        assertNotNull(request);
+        assertEquals("client", request.registration.getEndpoint());
+        request.responseCallback.onResponse(ExecuteResponse.success());
+
+        assertTrue(operation.awaitCompletion(1, TimeUnit.SECONDS));
+        FleetOperationProgress progress = operation.getProgress();
+        assertEquals(0, progress.getWaitingForWakeUp());
+        assertEquals(0, progress.getInFlight());
+        assertEquals(1l, progress.getErrors().get("RequestCanceledException"));
+    }
+
+    @Test
+    public void requests_are_sent_to_clients_matching_query() throws InterruptedException {
+        for (int i = 0; i < 10; i++) {
+            givenRegistration("client" + i, i % 2 == 0);
+        }
+
+        // small page size to check all pages are iterated
+        FleetOperation operation = fleetOperationService.start(
+                new RegistrationQuery.Builder().queueMode(false).limit(2).build(), new ExecuteRequest("/3/0/4"),
+                new FleetOperationConfig(), null);
+
+        Set<String> endpoints = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            SentRequest request = sender.sent.poll(1, TimeUnit.SECONDS);
+            assertNotNull(request);
+            endpoints.add(request.registration.getEndpoint());
+            request.responseCallback.onResponse(ExecuteResponse.success());
+        }
+
+        assertTrue(operation.awaitCompletion(1, TimeUnit.SECONDS));
+        assertEquals(new HashSet<>(Arrays.asList("client1", "client3", "client5", "client7", "client9")), endpoints);
+        assertEquals(5, operation.getProgress().getSelected());
+        assertTrue(sender.sent.isEmpty());
+    }
+
+    @Test
+    public void cancel_stops_sending_requests() throws InterruptedException {
+        for (int i = 0; i < 5; i++) {
+            givenRegistration("client" + i, false);
+        }
+        givenRegistration("sleeping", true);
+
+        FleetOperation operation = fleetOperationService.start(r -> true, new ExecuteRequest("/3/0/4"),
+                new FleetOperationConfig().setMaxInFlight(1), null);
+        SentRequest request = sender.sent.poll(1, TimeUnit.SECONDS);
+        assertNotNull(request);
+
+        operation.cancel();
+        request.responseCallback.onResponse(ExecuteResponse.success());
+
+        assertTrue(operation.awaitCompletion(1, TimeUnit.SECONDS));
+        assertNull(sender.sent.poll(100, TimeUnit.MILLISECONDS));
+        assertTrue(operation.getProgress().isCancelled());
+        assertEquals(1, operation.getProgress().getSent());
+    }
+
+    @Test
+    public void endpoint_limit_does_not_block_clients_using_other_endpoints() throws InterruptedException {
+        givenRegistration("client0", false, "coap://localhost:5683");
+        givenRegistration("client1", false, "coap://localhost:5683");
+        givenRegistration("client2", false, "coap://localhost:5684");
+
+        FleetOperation operation = fleetOperationService.start(r -> true, new ExecuteRequest("/3/0/4"),
+                new FleetOperationConfig().setMaxInFlightPerEndpoint(1), null);
+
+        // one request by endpoint
+        Set<String> endpoints = new HashSet<>();
+        SentRequest first = sender.sent.poll(1, TimeUnit.SECONDS);
+        SentRequest second = sender.sent.poll(1, TimeUnit.SECONDS);
+        assertNotNull(first);
+        assertNotNull(second);
+        endpoints.add(first.registration.getLastEndpointUsed().toString());
+        endpoints.add(second.registration.getLastEndpointUsed().toString());
+        assertEquals(new HashSet<>(Arrays.asList("coap://localhost:5683", "coap://localhost:5684")), endpoints);
+        assertNull(sender.sent.poll(100, TimeUnit.MILLISECONDS));
+
+        // blocked client is sent when endpoint is free
+        SentRequest requestUsing5683 = first.registration.getLastEndpointUsed().getPort() == 5683 ? first : second;
+        requestUsing5683.responseCallback.onResponse(ExecuteResponse.success());
+        SentRequest third = sender.sent.poll(1, TimeUnit.SECONDS);
+        assertNotNull(third);
+        assertEquals(5683, third.registration.getLastEndpointUsed().getPort());
+
+        (requestUsing5683 == first ? second : first).responseCallback.onResponse(ExecuteResponse.success());
+        third.responseCallback.onResponse(ExecuteResponse.success());
+        assertTrue(operation.awaitCompletion(1, TimeUnit.SECONDS));
+        assertEquals(3, operation.getProgress().getCompleted());
+    }
+
+    @Test
+    public void destroy_completes_running_operations() throws InterruptedException {
+        givenRegistration("client0", false);
+        givenRegistration("sleeping", true);
+
+        CountDownLatch completed = new CountDownLatch(1);
+        FleetOperation operation = fleetOperationService.start(r -> true, new ExecuteRequest("/3/0/4"),
+                new FleetOperationConfig(), new FleetOperationListener<ExecuteResponse>() {
+                    @Override
+                    public void onResponse(Registration registration, ExecuteResponse response) {
+                    }
+
+                    @Override
+                    public void onError(Registration registration, Exception error) {
+                    }
+
+                    @Override
+                    public void onCompleted(FleetOperationProgress progress) {
+                        completed.countDown();
+                    }
+                });
+        assertNotNull(sender.sent.poll(1, TimeUnit.SECONDS));
+
+        fleetOperationService.destroy();
+
+        assertTrue(operation.awaitCompletion(1, TimeUnit.SECONDS));
+        assertTrue(completed.await(1, TimeUnit.SECONDS));
+        assertTrue(operation.getProgress().isCancelled());
+        assertEquals(0, fleetOperationService.getRunningOperationCount());
+    }
+
+    private Registration givenRegistration(String endpoint, boolean queueMode) {
+        return givenRegistration(endpoint, queueMode, "coap://localhost:5683");
+    }
+
+    private Registration givenRegistration(String endpoint, boolean queueMode, String lastEndpointUsed) {
+        Registration.Builder builder = new Registration.Builder(endpoint + "-id", endpoint,
+                new IpPeer(new InetSocketAddress(Inet4Address.getLoopbackAddress(), 12354)),
+                EndpointUriUtil.createUri(lastEndpointUsed));
+        if (queueMode) {
+            builder.bindingMode(EnumSet.of(BindingMode.U, BindingMode.Q));
+        }
+        Registration registration = builder.build();
+        store.addRegistration(registration);
+        return registration;
+    }
+}
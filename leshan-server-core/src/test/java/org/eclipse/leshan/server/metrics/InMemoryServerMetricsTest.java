@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.leshan.server.metrics.InMemoryServerMetrics.TimerSnapshot;
+import org.eclipse.leshan.server.registration.InMemoryRegistrationStore;
+import org.eclipse.leshan.server.registration.Registration;
+import org.eclipse.leshan.server.registration.RegistrationStore;
+import org.junit.jupiter.api.Test;
+
+public class InMemoryServerMetricsTest {
+
+    @Test
+    public void count_by_name_and_tag() {
+        InMemoryServerMetrics metrics = new InMemoryServerMetrics();
+
+        metrics.increment(ServerMetrics.REGISTRATION, ServerMetrics.REGISTERED);
+        metrics.increment(ServerMetrics.REGISTRATION, ServerMetrics.REGISTERED);
+        metrics.increment(ServerMetrics.REGISTRATION, ServerMetrics.UPDATED);
+
+        assertEquals(2l, metrics.getCounters().get(ServerMetrics.REGISTRATION).get(ServerMetrics.REGISTERED));
+        assertEquals(1l, metrics.getCounters().get(ServerMetrics.REGISTRATION).get(ServerMetrics.UPDATED));
+        assertNull(metrics.getCounters().get(ServerMetrics.PRESENCE));
+    }
+
+    @Test
+    public void aggregate_durations() {
+        InMemoryServerMetrics metrics = new InMemoryServerMetrics();
+
+        metrics.recordDuration(ServerMetrics.DOWNLINK_REQUEST, "ReadRequest", 100);
+        metrics.recordDuration(ServerMetrics.DOWNLINK_REQUEST, "ReadRequest", 300);
+
+        TimerSnapshot timer = metrics.getTimers().get(ServerMetrics.DOWNLINK_REQUEST).get("ReadRequest");
+        assertEquals(2, timer.getCount());
+        assertEquals(400, timer.getTotalTimeInNanos());
+        assertEquals(200, timer.getMeanTimeInNanos());
+        assertEquals(300, timer.getMaxTimeInNanos());
+    }
+
+    @Test
+    public void gauge_is_computed_on_collect() {
+        InMemoryServerMetrics metrics = new InMemoryServerMetrics();
+        AtomicLong value = new AtomicLong(1);
+
+        metrics.registerGauge(ServerMetrics.PRESENCE, ServerMetrics.AWAKE, value::get);
+        assertEquals(1l, metrics.getGauges().get(ServerMetrics.PRESENCE).get(ServerMetrics.AWAKE));
+
+        value.set(5);
+        assertEquals(5l, metrics.getGauges().get(ServerMetrics.PRESENCE).get(ServerMetrics.AWAKE));
+    }
+
+    @Test
+    public void instrumented_store_records_operations() {
+        InMemoryServerMetrics metrics = new InMemoryServerMetrics();
+        RegistrationStore store = new InstrumentedRegistrationStore(new InMemoryRegistrationStore(), metrics);
+
+        store.getRegistration("unknown");
+        store.getRegistrationByEndpoint("unknown");
+        store.getRegistrationByEndpoint("unknown");
+
+        assertEquals(1, metrics.getTimers().get(ServerMetrics.REGISTRATION_STORE).get("getRegistration").getCount());
+        assertEquals(2,
+                metrics.getTimers().get(ServerMetrics.REGISTRATION_STORE).get("getRegistrationByEndpoint").getCount());
+    }
+
+    @Test
+    public void instrumented_store_records_iteration_once_complete() {
+        InMemoryServerMetrics metrics = new InMemoryServerMetrics();
+        RegistrationStore store = new InstrumentedRegistrationStore(new InMemoryRegistrationStore(), metrics);
+
+        Iterator<Registration> iterator = store.getAllRegistrations();
+        assertNull(metrics.getTimers().get(ServerMetrics.REGISTRATION_STORE));
+
+        assertFalse(iterator.hasNext());
+        assertFalse(iterator.hasNext());
+        assertEquals(1,
+                metrics.getTimers().get(ServerMetrics.REGISTRATION_STORE).get("getAllRegistrations").getCount());
+    }
+}
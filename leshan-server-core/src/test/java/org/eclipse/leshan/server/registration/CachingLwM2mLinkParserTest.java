@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.registration;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.leshan.core.link.Link;
+import org.eclipse.leshan.core.link.LinkParseException;
+import org.eclipse.leshan.core.link.lwm2m.DefaultLwM2mLinkParser;
+import org.junit.jupiter.api.Test;
+
+public class CachingLwM2mLinkParserTest {
+
+    @Test
+    public void same_payload_returns_same_links() throws LinkParseException {
+        CachingLwM2mLinkParser parser = new CachingLwM2mLinkParser();
+
+        Link[] links = parser.parseCoreLinkFormat("</1/0>,</3/0>".getBytes(StandardCharsets.UTF_8));
+        Link[] sameLinks = parser.parseCoreLinkFormat("</1/0>,</3/0>".getBytes(StandardCharsets.UTF_8));
+        Link[] otherLinks = parser.parseCoreLinkFormat("</1/0>,</3/0>,</4/0>".getBytes(StandardCharsets.UTF_8));
+
+        assertSame(links, sameLinks);
+        assertNotSame(links, otherLinks);
+        assertArrayEquals(new DefaultLwM2mLinkParser().parseCoreLinkFormat("</1/0>,</3/0>".getBytes()), links);
+        assertEquals(2, parser.getCacheSize());
+    }
+
+    @Test
+    public void least_recently_used_payload_is_evicted() throws LinkParseException {
+        CachingLwM2mLinkParser parser = new CachingLwM2mLinkParser(new DefaultLwM2mLinkParser(), 2);
+
+        Link[] links = parser.parseCoreLinkFormat("</1/0>".getBytes());
+        parser.parseCoreLinkFormat("</2/0>".getBytes());
+        parser.parseCoreLinkFormat("</1/0>".getBytes());
+        parser.parseCoreLinkFormat("</3/0>".getBytes());
+
+        assertEquals(2, parser.getCacheSize());
+        assertSame(links, parser.parseCoreLinkFormat("</1/0>".getBytes()));
+    }
+
+    @Test
+    public void modifying_parsed_payload_does_not_impact_cache() throws LinkParseException {
+        CachingLwM2mLinkParser parser = new CachingLwM2mLinkParser();
+
+        byte[] payload = "</1/0>".getBytes();
+        Link[] links = parser.parseCoreLinkFormat(payload);
+        payload[2] = '2';
+
+        assertEquals("/1/0", parser.parseCoreLinkFormat("</1/0>".getBytes())[0].getUriReference());
+        assertNotSame(links, parser.parseCoreLinkFormat(payload));
+    }
+}
@@ -20,13 +20,22 @@ package org.eclipse.leshan.server.registration;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+import org.eclipse.leshan.core.LwM2m.LwM2mVersion;
+import org.eclipse.leshan.core.LwM2m.Version;
 import org.eclipse.leshan.core.endpoint.EndpointUriUtil;
 import org.eclipse.leshan.core.link.Link;
 import org.eclipse.leshan.core.peer.IpPeer;
@@ -98,6 +107,145 @@ public class InMemoryRegistrationStoreTest {
         assertTrue(reg.isAlive());
     }
 
+    @Test
+    public void find_registrations_using_indexes() {
+        store.addRegistration(givenARegistration("ep1", "1", false, objects(3, "1.0", 5, "1.1"), attributes("t", "a")));
+        store.addRegistration(givenARegistration("ep2", "2", true, objects(3, "1.0", 5, "1.0"), attributes("t", "b")));
+        store.addRegistration(givenARegistration("ep3", "3", true, objects(3, "1.1"), attributes("x", "a")));
+
+        assertEquals(Arrays.asList("ep1", "ep2"),
+                endpoints(new RegistrationQuery.Builder().supportedObject(5).build()));
+        assertEquals(Arrays.asList("ep1"),
+                endpoints(new RegistrationQuery.Builder().supportedObject(5, new Version("1.1")).build()));
+        assertEquals(Arrays.asList("ep2", "ep3"), endpoints(new RegistrationQuery.Builder().queueMode(true).build()));
+        assertEquals(Arrays.asList("ep1", "ep2"),
+                endpoints(new RegistrationQuery.Builder().additionalAttribute("t").build()));
+        assertEquals(Arrays.asList("ep2"), endpoints(new RegistrationQuery.Builder().additionalAttribute("t", "b")
+                .queueMode(true).supportedObject(3).build()));
+        assertEquals(Arrays.asList(),
+                endpoints(new RegistrationQuery.Builder().additionalAttribute("t", "a").queueMode(true).build()));
+        assertEquals(Arrays.asList(), endpoints(new RegistrationQuery.Builder().supportedObject(6).build()));
+    }
+
+    @Test
+    public void find_registrations_by_page() {
+        for (int i = 9; i >= 0; i--) {
+            store.addRegistration(givenARegistration("ep" + i, "id" + i, i % 2 == 0, objects(3, "1.0"), null));
+        }
+
+        RegistrationQuery query = new RegistrationQuery.Builder().limit(3).build();
+        RegistrationPage page = store.findRegistrations(query);
+        assertEquals(Arrays.asList("ep0", "ep1", "ep2"), endpoints(page));
+        assertEquals("ep2", page.getNextCursor());
+        assertEquals(page.getNextCursor(), query.scan(store.getAllRegistrations()).getNextCursor());
+
+        page = store.findRegistrations(query.withCursor("ep8"));
+        assertEquals(Arrays.asList("ep9"), endpoints(page));
+        assertFalse(page.hasNext());
+
+        // compare with the default implementation which scan all registrations
+        query = new RegistrationQuery.Builder().queueMode(true).limit(2).build();
+        List<String> found = new ArrayList<>();
+        List<String> scanned = new ArrayList<>();
+        for (String cursor = null;;) {
+            RegistrationPage indexed = store.findRegistrations(query.withCursor(cursor));
+            RegistrationPage scan = query.withCursor(cursor).scan(store.getAllRegistrations());
+            found.addAll(endpoints(indexed));
+            scanned.addAll(endpoints(scan));
+            assertEquals(scan.getNextCursor(), indexed.getNextCursor());
+            cursor = indexed.getNextCursor();
+            if (cursor == null) {
+                break;
+            }
+        }
+        assertEquals(Arrays.asList("ep0", "ep2", "ep4", "ep6", "ep8"), found);
+        assertEquals(found, scanned);
+    }
+
+    @Test
+    public void update_and_remove_registration_update_indexes() {
+        store.addRegistration(givenARegistration("ep1", "1", false, objects(3, "1.0"), attributes("t", "a")));
+        RegistrationQuery byOldAttribute = new RegistrationQuery.Builder().additionalAttribute("t", "a").build();
+        RegistrationQuery byNewAttribute = new RegistrationQuery.Builder().additionalAttribute("t", "b").build();
+        assertEquals(Arrays.asList("ep1"), endpoints(byOldAttribute));
+
+        store.updateRegistration(new RegistrationUpdate("1", new IpPeer(new InetSocketAddress(address, port)), null,
+                null, null, null, null, null, null, null, attributes("t", "b"), null));
+        assertEquals(Arrays.asList(), endpoints(byOldAttribute));
+        assertEquals(Arrays.asList("ep1"), endpoints(byNewAttribute));
+
+        // registration with same endpoint replaces previous one
+        store.addRegistration(givenARegistration("ep1", "2", true, objects(3, "1.0"), null));
+        assertEquals(Arrays.asList(), endpoints(byNewAttribute));
+        assertEquals(Arrays.asList("ep1"), endpoints(new RegistrationQuery.Builder().queueMode(true).build()));
+
+        store.removeRegistration("2");
+        assertEquals(Arrays.asList(), endpoints(new RegistrationQuery.Builder().build()));
+    }
+
+    @Test
+    public void registration_changes_are_logged_in_order() {
+        InMemoryRegistrationChangeLog changeLog = new InMemoryRegistrationChangeLog(3);
+        store = new InMemoryRegistrationStore(null, 2, changeLog);
+        assertSame(changeLog, store.getChangeLog());
+        assertEquals(0, changeLog.getLastOffset());
+
+        store.addRegistration(givenARegistration("dev1", "1", false, objects(3, "1.0"), attributes("a", "1")));
+        store.addRegistration(givenARegistration("dev2", "2", false, objects(3, "1.0"), attributes("a", "1")));
+        store.updateRegistration(new RegistrationUpdate("1", new IpPeer(new InetSocketAddress(address, port)), null,
+                null, null, null, null, null, null, null, null, null));
+        store.removeRegistration("2");
+        // unknown registration is not logged
+        store.removeRegistration("3");
+
+        assertEquals(4, changeLog.getLastOffset());
+        List<RegistrationChange> changes = changeLog.getChanges(1, 10);
+        assertEquals(3, changes.size());
+        assertEquals(2, changes.get(0).getOffset());
+        assertEquals(RegistrationChange.Type.REGISTERED, changes.get(0).getType());
+        assertEquals("dev2", changes.get(0).getRegistration().getEndpoint());
+        assertEquals(RegistrationChange.Type.UPDATED, changes.get(1).getType());
+        assertEquals("dev1", changes.get(1).getRegistration().getEndpoint());
+        assertEquals(RegistrationChange.Type.DEREGISTERED, changes.get(2).getType());
+        assertTrue(changes.get(2).isRemoval());
+
+        // consumer is up to date
+        assertEquals(Collections.emptyList(), changeLog.getChanges(4, 10));
+        // consumer is too late, first change was dropped
+        assertThrows(RegistrationChangeLogTruncatedException.class, () -> changeLog.getChanges(0, 10));
+    }
+
+    private List<String> endpoints(RegistrationQuery query) {
+        return endpoints(store.findRegistrations(query));
+    }
+
+    private List<String> endpoints(RegistrationPage page) {
+        List<String> endpoints = new ArrayList<>();
+        for (Registration registration : page.getRegistrations()) {
+            endpoints.add(registration.getEndpoint());
+        }
+        return endpoints;
+    }
+
+    private Map<Integer, Version> objects(Object... idAndVersions) {
+        Map<Integer, Version> objects = new HashMap<>();
+        for (int i = 0; i < idAndVersions.length; i += 2) {
+            objects.put((Integer) idAndVersions[i], new Version((String) idAndVersions[i + 1]));
+        }
+        return objects;
+    }
+
+    private Map<String, String> attributes(String key, String value) {
+        return Collections.singletonMap(key, value);
+    }
+
+    private Registration givenARegistration(String endpoint, String id, boolean queueMode,
+            Map<Integer, Version> objects, Map<String, String> attributes) {
+        return new Registration.Builder(id, endpoint, new IpPeer(new InetSocketAddress(address, port)),
+                EndpointUriUtil.createUri("coap://localhost:5683")).lwM2mVersion(LwM2mVersion.V1_1).queueMode(queueMode)
+                        .supportedObjects(objects).additionalRegistrationAttributes(attributes).build();
+    }
+
     private void givenASimpleRegistration(Long lifetime) {
 
         Registration.Builder builder = new Registration.Builder(registrationId, ep,
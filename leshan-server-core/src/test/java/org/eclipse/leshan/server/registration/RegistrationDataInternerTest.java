@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.registration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.leshan.core.LwM2m.LwM2mVersion;
+import org.eclipse.leshan.core.endpoint.EndpointUriUtil;
+import org.eclipse.leshan.core.link.Link;
+import org.eclipse.leshan.core.link.LinkParseException;
+import org.eclipse.leshan.core.link.LinkParser;
+import org.eclipse.leshan.core.link.lwm2m.DefaultLwM2mLinkParser;
+import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.peer.IpPeer;
+import org.eclipse.leshan.server.registration.RegistrationDataExtractor.RegistrationData;
+import org.junit.jupiter.api.Test;
+
+public class RegistrationDataInternerTest {
+
+    private final LinkParser linkParser = new DefaultLwM2mLinkParser();
+    private final RegistrationDataExtractor extractor = new DefaultRegistrationDataExtractor();
+
+    private Registration given_a_registration(String endpoint, String objectLinks, Map<String, String> attributes)
+            throws LinkParseException {
+        // parse and extract data each time like for a new registration
+        Link[] links = linkParser.parseCoreLinkFormat(objectLinks.getBytes());
+        RegistrationData data = extractor.extractDataFromObjectLinks(links, LwM2mVersion.V1_1);
+
+        return new Registration.Builder(endpoint + "-id", endpoint,
+                new IpPeer(InetSocketAddress.createUnresolved("localhost", 0)),
+                EndpointUriUtil.createUri("coap://localhost:5683")) //
+                        .lwM2mVersion(LwM2mVersion.V1_1) //
+                        .objectLinks(links) //
+                        .rootPath(data.getAlternatePath()) //
+                        .supportedContentFormats(data.getSupportedContentFormats()) //
+                        .supportedObjects(data.getSupportedObjects()) //
+                        .availableInstances(data.getAvailableInstances()) //
+                        .additionalRegistrationAttributes(new HashMap<>(attributes)) //
+                        .build();
+    }
+
+    @Test
+    public void registrations_with_same_profile_share_data() throws LinkParseException {
+        String links = "</>;ct=\"60 110\";rt=\"oma.lwm2m\",</1/0>,</3>;ver=1.1,</3/0>,</3442/0>";
+        Map<String, String> attributes = Collections.singletonMap("imei", "profile-A");
+
+        Registration reg1 = given_a_registration("client1", links, attributes);
+        Registration reg2 = given_a_registration("client2", links, attributes);
+
+        assertNotSame(reg1, reg2);
+        assertSame(reg1.getObjectLinks(), reg2.getObjectLinks());
+        assertSame(reg1.getSupportedContentFormats(), reg2.getSupportedContentFormats());
+        assertSame(reg1.getSupportedObject(), reg2.getSupportedObject());
+        assertSame(reg1.getAvailableInstances(), reg2.getAvailableInstances());
+
+        // shared data are not modifiable
+        assertThrows(UnsupportedOperationException.class, () -> reg1.getAvailableInstances().add(new LwM2mPath(4, 0)));
+        assertThrows(UnsupportedOperationException.class, () -> reg1.getSupportedObject().remove(3));
+    }
+
+    @Test
+    public void registrations_with_different_profiles_do_not_share_data() throws LinkParseException {
+        Registration reg1 = given_a_registration("client1", "</1/0>,</3/0>", Collections.emptyMap());
+        Registration reg2 = given_a_registration("client2", "</1/0>,</3/0>,</5/0>", Collections.emptyMap());
+
+        assertNotSame(reg1.getObjectLinks(), reg2.getObjectLinks());
+        assertNotSame(reg1.getAvailableInstances(), reg2.getAvailableInstances());
+        assertEquals(2, reg1.getAvailableInstances().size());
+        assertEquals(3, reg2.getAvailableInstances().size());
+        // content formats are the same
+        assertSame(reg1.getSupportedContentFormats(), reg2.getSupportedContentFormats());
+    }
+
+    @Test
+    public void updated_registration_keeps_shared_data() throws LinkParseException {
+        Registration reg = given_a_registration("client1", "</1/0>,</3/0>", Collections.emptyMap());
+        Registration updated = new RegistrationUpdate(reg.getId(), reg.getClientTransportData(), 300l, null, null, null,
+                null, null, null, null, null, null).update(reg);
+
+        assertSame(reg.getObjectLinks(), updated.getObjectLinks());
+        assertSame(reg.getSupportedObject(), updated.getSupportedObject());
+        assertSame(reg.getAvailableInstances(), updated.getAvailableInstances());
+    }
+}
@@ -16,6 +16,7 @@
 package org.eclipse.leshan.server.registration;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 import java.net.InetSocketAddress;
 import java.net.URI;
@@ -24,8 +25,10 @@ import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.eclipse.leshan.core.LwM2m.LwM2mVersion;
 import org.eclipse.leshan.core.endpoint.EndpointUriUtil;
 import org.eclipse.leshan.core.link.DefaultLinkParser;
+import org.eclipse.leshan.core.link.Link;
 import org.eclipse.leshan.core.link.LinkParseException;
 import org.eclipse.leshan.core.peer.IpPeer;
 import org.eclipse.leshan.core.peer.LwM2mPeer;
@@ -33,6 +36,7 @@ import org.eclipse.leshan.core.request.BindingMode;
 import org.eclipse.leshan.core.request.RegisterRequest;
 import org.eclipse.leshan.core.request.UpdateRequest;
 import org.eclipse.leshan.core.request.UplinkRequest;
+import org.eclipse.leshan.server.registration.RegistrationDataExtractor.RegistrationData;
 import org.eclipse.leshan.server.security.Authorization;
 import org.eclipse.leshan.server.security.Authorizer;
 import org.junit.jupiter.api.BeforeEach;
@@ -43,13 +47,22 @@ public class RegistrationHandlerTest {
     private RegistrationHandler registrationHandler;
     private RegistrationStore registrationStore;
     private TestAuthorizer authorizer;
+    private int nbObjectLinksExtractions;
 
     @BeforeEach
     public void setUp() throws UnknownHostException {
         authorizer = new TestAuthorizer();
         registrationStore = new InMemoryRegistrationStore();
         registrationHandler = new RegistrationHandler(new RegistrationServiceImpl(registrationStore), authorizer,
-                new RandomStringRegistrationIdProvider(), new DefaultRegistrationDataExtractor());
+                new RandomStringRegistrationIdProvider(), new DefaultRegistrationDataExtractor() {
+                    @Override
+                    public RegistrationData extractDataFromObjectLinks(Link[] objectLinks, LwM2mVersion lwM2mVersion) {
+                        if (objectLinks != null) {
+                            nbObjectLinksExtractions++;
+                        }
+                        return super.extractDataFromObjectLinks(objectLinks, lwM2mVersion);
+                    }
+                });
     }
 
     @Test
@@ -111,6 +124,36 @@ public class RegistrationHandlerTest {
         assertEquals(appData, registration.getApplicationData());
     }
 
+    @Test
+    public void test_update_with_unchanged_object_links() throws LinkParseException {
+        authorizer.willReturn(Authorization.approved());
+
+        // handle REGISTER request
+        registrationHandler.register(givenIdentity(), givenRegisterRequestWithEndpoint("myEndpoint"),
+                givenServerEndpointUri());
+        Registration registration = registrationStore.getRegistrationByEndpoint("myEndpoint");
+        assertEquals(1, nbObjectLinksExtractions);
+
+        // handle UPDATE request with same object links
+        registrationHandler.update(givenIdentity(),
+                givenUpdateRequestWithLinks(registration.getId(), "</1/0/1>,</2/1>,</3>"));
+
+        // check object links data are reused as is
+        Registration updatedRegistration = registrationStore.getRegistrationByEndpoint("myEndpoint");
+        assertEquals(1, nbObjectLinksExtractions);
+        assertSame(registration.getObjectLinks(), updatedRegistration.getObjectLinks());
+        assertSame(registration.getAvailableInstances(), updatedRegistration.getAvailableInstances());
+
+        // handle UPDATE request with new object links
+        registrationHandler.update(givenIdentity(),
+                givenUpdateRequestWithLinks(registration.getId(), "</1/0/1>,</2/1>,</3>,</4>"));
+
+        // check object links are updated
+        updatedRegistration = registrationStore.getRegistrationByEndpoint("myEndpoint");
+        assertEquals(2, nbObjectLinksExtractions);
+        assertEquals(4, updatedRegistration.getObjectLinks().length);
+    }
+
     private IpPeer givenIdentity() {
         return new IpPeer(new InetSocketAddress(0));
     }
@@ -132,6 +175,11 @@ public class RegistrationHandlerTest {
         return new UpdateRequest(registrationID, null, null, null, null, null);
     }
 
+    private UpdateRequest givenUpdateRequestWithLinks(String registrationID, String links) throws LinkParseException {
+        return new UpdateRequest(registrationID, null, null, null,
+                new DefaultLinkParser().parseCoreLinkFormat(links.getBytes()), null);
+    }
+
     private static class TestAuthorizer implements Authorizer {
 
         private Authorization autorization;
@@ -18,7 +18,9 @@
 package org.eclipse.leshan.server.registration;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 import java.net.Inet4Address;
 import java.net.InetSocketAddress;
@@ -50,4 +52,23 @@ public class RegistrationSortObjectLinksTest {
         assertEquals("/0/2", res[1].getUriReference());
         assertEquals("/0/1024/2", res[2].getUriReference());
     }
+
+    @Test
+    public void sorted_links_of_shared_links_can_be_modified() throws UnknownHostException {
+        Registration r1 = newRegistration("reg1", new Link("/3/0"), new Link("/1/0"));
+        Registration r2 = newRegistration("reg2", new Link("/3/0"), new Link("/1/0"));
+        assertSame(r1.getObjectLinks(), r2.getObjectLinks());
+
+        // returned array is a copy which can be modified without impacting registration
+        Link[] sorted = r1.getSortedObjectLinks();
+        assertNotSame(sorted, r1.getSortedObjectLinks());
+        sorted[0] = null;
+        assertEquals("/1/0", r2.getSortedObjectLinks()[0].getUriReference());
+    }
+
+    private Registration newRegistration(String id, Link... links) throws UnknownHostException {
+        return new Registration.Builder(id, "endpoint",
+                new IpPeer(new InetSocketAddress(Inet4Address.getLocalHost(), 1)),
+                EndpointUriUtil.createUri("coap://localhost:5683")).objectLinks(links).build();
+    }
 }
@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.registration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+public class SecureRandomRegistrationIdProviderTest {
+
+    @Test
+    public void create_fixed_length_base62_ids() {
+        RegistrationIdProvider provider = new SecureRandomRegistrationIdProvider();
+
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            String id = provider.getRegistrationId(null);
+            assertEquals(SecureRandomRegistrationIdProvider.DEFAULT_LENGTH, id.length());
+            assertTrue(id.matches("[0-9A-Za-z]+"), id);
+            ids.add(id);
+        }
+        assertEquals(10_000, ids.size());
+    }
+
+    @Test
+    public void create_time_ordered_ids() throws InterruptedException {
+        RegistrationIdProvider provider = new SecureRandomRegistrationIdProvider(10, true);
+
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ids.add(provider.getRegistrationId(null));
+            Thread.sleep(2);
+        }
+
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(18, ids.get(i).length());
+            if (i > 0) {
+                assertTrue(ids.get(i - 1).compareTo(ids.get(i)) < 0);
+            }
+        }
+    }
+
+    @Test
+    public void cannot_create_short_ids() {
+        assertThrows(IllegalArgumentException.class, () -> new SecureRandomRegistrationIdProvider(4, false));
+    }
+}
@@ -56,6 +56,7 @@ import org.eclipse.leshan.server.demo.servlet.ClientServlet;
 import org.eclipse.leshan.server.demo.servlet.EventServlet;
 import org.eclipse.leshan.server.demo.servlet.ObjectSpecServlet;
 import org.eclipse.leshan.server.demo.servlet.ServerServlet;
+import org.eclipse.leshan.server.metrics.InMemoryServerMetrics;
 import org.eclipse.leshan.server.model.LwM2mModelProvider;
 import org.eclipse.leshan.server.model.VersionedModelProvider;
 import org.eclipse.leshan.server.redis.RedisRegistrationStore;
@@ -164,6 +165,9 @@ public class LeshanServerDemo {
         }
         builder.setSecurityStore(securityStore);
 
+        // Collect metrics in memory, they are available at /api/server/metrics
+        builder.setMetrics(new InMemoryServerMetrics());
+
         if (cli.identity.isx509()) {
             // use X.509 mode (+ RPK)
             builder.setPrivateKey(cli.identity.getPrivateKey());
@@ -255,7 +259,8 @@ public class LeshanServerDemo {
         int jcoapPort = cli.main.jlocalPort;
         InetSocketAddress jcoapAddr = cli.main.jlocalAddress == null ? new InetSocketAddress(jcoapPort)
                 : new InetSocketAddress(cli.main.jlocalAddress, jcoapPort);
-        JavaCoapServerEndpointsProvider javacoapEndpointsProvider = new JavaCoapServerEndpointsProvider(jcoapAddr);
+        JavaCoapServerEndpointsProvider javacoapEndpointsProvider = new JavaCoapServerEndpointsProvider(jcoapAddr,
+                cli.main.jsockets);
 
         // Create LWM2M server
         builder.setEndpointsProviders(endpointsBuilder.build(), javacoapEndpointsProvider);
@@ -290,6 +295,7 @@ public class LeshanServerDemo {
         root.addServlet(eventServletHolder, "/api/event/*");
 
         ServletHolder clientServletHolder = new ServletHolder(new ClientServlet(lwServer));
+        clientServletHolder.setAsyncSupported(true);
         root.addServlet(clientServletHolder, "/api/clients/*");
 
         ServletHolder securityServletHolder;
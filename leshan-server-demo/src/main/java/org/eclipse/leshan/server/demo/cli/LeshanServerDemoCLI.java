@@ -69,6 +69,13 @@ public class LeshanServerDemoCLI implements Runnable {
                 converter = PortConverter.class)
         public Integer jlocalPort = 5685;
 
+        @Option(names = { "-js", "--java-coap-sockets" },
+                description = { //
+                        "Set the number of UDP sockets (and so receiver threads) sharing the port of endpoint based on java-coap library.", //
+                        "This needs SO_REUSEPORT support, if not available only 1 socket is used.", //
+                        "Default: ${DEFAULT-VALUE}" })
+        public Integer jsockets = 1;
+
         @Option(names = { "-r", "--redis" },
                 description = { //
                         "Use redis to store registration and securityInfo.", //
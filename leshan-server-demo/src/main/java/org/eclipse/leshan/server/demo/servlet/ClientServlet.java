@@ -18,16 +18,18 @@ package org.eclipse.leshan.server.demo.servlet;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -35,6 +37,7 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
+import org.eclipse.leshan.core.LwM2m.Version;
 import org.eclipse.leshan.core.link.Link;
 import org.eclipse.leshan.core.link.attributes.InvalidAttributeException;
 import org.eclipse.leshan.core.link.lwm2m.attributes.DefaultLwM2mAttributeParser;
@@ -55,6 +58,7 @@ import org.eclipse.leshan.core.request.ContentFormat;
 import org.eclipse.leshan.core.request.CreateRequest;
 import org.eclipse.leshan.core.request.DeleteRequest;
 import org.eclipse.leshan.core.request.DiscoverRequest;
+import org.eclipse.leshan.core.request.DownlinkRequest;
 import org.eclipse.leshan.core.request.ExecuteRequest;
 import org.eclipse.leshan.core.request.ObserveCompositeRequest;
 import org.eclipse.leshan.core.request.ObserveRequest;
@@ -69,20 +73,9 @@ import org.eclipse.leshan.core.request.exception.InvalidRequestException;
 import org.eclipse.leshan.core.request.exception.InvalidResponseException;
 import org.eclipse.leshan.core.request.exception.RequestCanceledException;
 import org.eclipse.leshan.core.request.exception.RequestRejectedException;
-import org.eclipse.leshan.core.response.CancelCompositeObservationResponse;
-import org.eclipse.leshan.core.response.CancelObservationResponse;
-import org.eclipse.leshan.core.response.CreateResponse;
-import org.eclipse.leshan.core.response.DeleteResponse;
-import org.eclipse.leshan.core.response.DiscoverResponse;
-import org.eclipse.leshan.core.response.ExecuteResponse;
+import org.eclipse.leshan.core.request.exception.TimeoutException;
 import org.eclipse.leshan.core.response.LwM2mResponse;
-import org.eclipse.leshan.core.response.ObserveCompositeResponse;
-import org.eclipse.leshan.core.response.ObserveResponse;
-import org.eclipse.leshan.core.response.ReadCompositeResponse;
-import org.eclipse.leshan.core.response.ReadResponse;
-import org.eclipse.leshan.core.response.WriteAttributesResponse;
-import org.eclipse.leshan.core.response.WriteCompositeResponse;
-import org.eclipse.leshan.core.response.WriteResponse;
+import org.eclipse.leshan.core.response.ResponseCallback;
 import org.eclipse.leshan.server.LeshanServer;
 import org.eclipse.leshan.server.demo.servlet.json.JacksonLinkSerializer;
 import org.eclipse.leshan.server.demo.servlet.json.JacksonLwM2mNodeDeserializer;
@@ -90,13 +83,18 @@ import org.eclipse.leshan.server.demo.servlet.json.JacksonLwM2mNodeSerializer;
 import org.eclipse.leshan.server.demo.servlet.json.JacksonRegistrationSerializer;
 import org.eclipse.leshan.server.demo.servlet.json.JacksonResponseSerializer;
 import org.eclipse.leshan.server.registration.Registration;
+import org.eclipse.leshan.server.registration.RegistrationPage;
+import org.eclipse.leshan.server.registration.RegistrationQuery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 
 /**
@@ -115,14 +113,24 @@ public class ClientServlet extends HttpServlet {
     private static final String PATH_FORMAT_PARAM = "pathformat";
     private static final String NODE_FORMAT_PARAM = "nodeformat";
 
+    // for client listing
+    private static final String LIMIT_PARAM = "limit";
+    private static final String CURSOR_PARAM = "cursor";
+    private static final String OBJECT_PARAM = "object";
+    private static final String QUEUE_MODE_PARAM = "queuemode";
+    private static final String ATTRIBUTE_PARAM = "attribute";
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private static final Logger LOG = LoggerFactory.getLogger(ClientServlet.class);
 
     private static final long DEFAULT_TIMEOUT = 5000; // ms
+    private static final long ASYNC_TIMEOUT_MARGIN = 5000; // ms
 
     private static final long serialVersionUID = 1L;
 
     private final LeshanServer server;
     private final ObjectMapper mapper;
+    private final ObjectWriter registrationWriter;
     private final LwM2mAttributeParser attributeParser;
 
     public ClientServlet(LeshanServer server) {
@@ -137,6 +145,8 @@ public class ClientServlet extends HttpServlet {
         module.addSerializer(LwM2mNode.class, new JacksonLwM2mNodeSerializer());
         module.addDeserializer(LwM2mNode.class, new JacksonLwM2mNodeDeserializer());
         mapper.registerModule(module);
+        // registrations are streamed one by one, let the output stream decide when to flush
+        registrationWriter = mapper.writerFor(Registration.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
         attributeParser = new DefaultLwM2mAttributeParser();
     }
 
@@ -148,16 +158,7 @@ public class ClientServlet extends HttpServlet {
 
         // all registered clients
         if (req.getPathInfo() == null) {
-            Collection<Registration> registrations = new ArrayList<>();
-            for (Iterator<Registration> iterator = server.getRegistrationService().getAllRegistrations(); iterator
-                    .hasNext();) {
-                registrations.add(iterator.next());
-            }
-
-            String json = this.mapper.writeValueAsString(registrations.toArray(new Registration[] {}));
-            resp.setContentType("application/json");
-            resp.getOutputStream().write(json.getBytes(StandardCharsets.UTF_8));
-            resp.setStatus(HttpServletResponse.SC_OK);
+            listClients(req, resp);
             return;
         }
 
@@ -204,13 +205,12 @@ public class ClientServlet extends HttpServlet {
                     // create & process request
                     ReadCompositeRequest request = new ReadCompositeRequest(pathContentFormat, nodeContentFormat,
                             paths);
-                    ReadCompositeResponse cResponse = server.send(registration, request, extractTimeout(req));
-                    processDeviceResponse(req, resp, cResponse);
+                    sendAsync(req, resp, registration, request);
                 } else {
                     resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                     resp.getWriter().format("No registered client with id '%s'", clientEndpoint).flush();
                 }
-            } catch (RuntimeException | InterruptedException e) {
+            } catch (RuntimeException e) {
                 handleException(e, resp);
             }
             return;
@@ -224,13 +224,12 @@ public class ClientServlet extends HttpServlet {
                 if (registration != null) {
                     // create & process request
                     DiscoverRequest request = new DiscoverRequest(target);
-                    DiscoverResponse cResponse = server.send(registration, request, extractTimeout(req));
-                    processDeviceResponse(req, resp, cResponse);
+                    sendAsync(req, resp, registration, request);
                 } else {
                     resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                     resp.getWriter().format("No registered client with id '%s'", clientEndpoint).flush();
                 }
-            } catch (RuntimeException | InterruptedException e) {
+            } catch (RuntimeException e) {
                 handleException(e, resp);
             }
             return;
@@ -249,17 +248,109 @@ public class ClientServlet extends HttpServlet {
 
                 // create & process request
                 ReadRequest request = new ReadRequest(contentFormat, target);
-                ReadResponse cResponse = server.send(registration, request, extractTimeout(req));
-                processDeviceResponse(req, resp, cResponse);
+                sendAsync(req, resp, registration, request);
             } else {
                 resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                 resp.getWriter().format("No registered client with id '%s'", clientEndpoint).flush();
             }
-        } catch (RuntimeException | InterruptedException e) {
+        } catch (RuntimeException e) {
             handleException(e, resp);
         }
     }
 
+    /**
+     * List registered clients as a JSON array, streamed to the response so the whole fleet is never held in memory.
+     * <p>
+     * Without parameters, all clients are returned. They can be filtered using {@value #OBJECT_PARAM} (e.g. {@code 5}
+     * or {@code 5@1.1}), {@value #QUEUE_MODE_PARAM} and {@value #ATTRIBUTE_PARAM} (e.g. {@code key} or
+     * {@code key=value}) parameters and paginated using {@value #LIMIT_PARAM} and {@value #CURSOR_PARAM} parameters.
+     * When there is a next page, its cursor is available in {@value #NEXT_CURSOR_HEADER} header.
+     */
+    private void listClients(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        Iterator<Registration> registrations;
+        if (isRegistrationQuery(req)) {
+            RegistrationQuery query;
+            try {
+                query = extractRegistrationQuery(req);
+            } catch (IllegalArgumentException e) {
+                resp.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+                return;
+            }
+            RegistrationPage page = server.getRegistrationService().findRegistrations(query);
+            if (page.hasNext()) {
+                resp.setHeader(NEXT_CURSOR_HEADER, page.getNextCursor());
+            }
+            registrations = page.getRegistrations().iterator();
+        } else {
+            // iterate lazily (e.g. using SCAN for redis store)
+            registrations = server.getRegistrationService().getAllRegistrations();
+        }
+
+        resp.setContentType("application/json");
+        resp.setStatus(HttpServletResponse.SC_OK);
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(resp.getOutputStream())) {
+            generator.writeStartArray();
+            while (registrations.hasNext()) {
+                registrationWriter.writeValue(generator, registrations.next());
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    private boolean isRegistrationQuery(HttpServletRequest req) {
+        return req.getParameter(LIMIT_PARAM) != null || req.getParameter(CURSOR_PARAM) != null
+                || req.getParameter(OBJECT_PARAM) != null || req.getParameter(QUEUE_MODE_PARAM) != null
+                || req.getParameter(ATTRIBUTE_PARAM) != null;
+    }
+
+    private RegistrationQuery extractRegistrationQuery(HttpServletRequest req) {
+        RegistrationQuery.Builder builder = new RegistrationQuery.Builder();
+
+        String limitParam = req.getParameter(LIMIT_PARAM);
+        if (limitParam != null) {
+            try {
+                builder.limit(Integer.parseInt(limitParam));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(String.format("Invalid limit '%s'", limitParam), e);
+            }
+        }
+        builder.cursor(req.getParameter(CURSOR_PARAM));
+
+        String[] objectParams = req.getParameterValues(OBJECT_PARAM);
+        if (objectParams != null) {
+            for (String objectParam : objectParams) {
+                try {
+                    int objectId = Integer.parseInt(StringUtils.substringBefore(objectParam, "@"));
+                    if (objectParam.contains("@")) {
+                        builder.supportedObject(objectId, new Version(StringUtils.substringAfter(objectParam, "@")));
+                    } else {
+                        builder.supportedObject(objectId);
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException(String.format("Invalid object '%s'", objectParam), e);
+                }
+            }
+        }
+
+        String queueModeParam = req.getParameter(QUEUE_MODE_PARAM);
+        if (queueModeParam != null) {
+            builder.queueMode(Boolean.parseBoolean(queueModeParam));
+        }
+
+        String[] attributeParams = req.getParameterValues(ATTRIBUTE_PARAM);
+        if (attributeParams != null) {
+            for (String attributeParam : attributeParams) {
+                if (attributeParam.contains("=")) {
+                    builder.additionalAttribute(StringUtils.substringBefore(attributeParam, "="),
+                            StringUtils.substringAfter(attributeParam, "="));
+                } else {
+                    builder.additionalAttribute(attributeParam);
+                }
+            }
+        }
+        return builder.build();
+    }
+
     private void handleException(Exception e, HttpServletResponse resp) throws IOException {
         if (e instanceof InvalidRequestException || e instanceof CodecException
                 || e instanceof ClientSleepingException) {
@@ -278,10 +369,6 @@ public class ClientServlet extends HttpServlet {
             LOG.warn("Invalid response", e);
             resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             resp.getWriter().append("Invalid Response: ").append(e.getMessage()).flush();
-        } else if (e instanceof InterruptedException) {
-            LOG.warn("Thread Interrupted", e);
-            resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-            resp.getWriter().append("Thread Interrupted: ").append(e.getMessage()).flush();
         } else {
             LOG.warn("Unexpected exception", e);
             resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
@@ -314,15 +401,13 @@ public class ClientServlet extends HttpServlet {
                             new TypeReference<HashMap<LwM2mPath, LwM2mNode>>() {
                             });
                     // create & process request
-                    WriteCompositeResponse cResponse = server.send(registration,
-                            new WriteCompositeRequest(nodeContentFormat, values, null), extractTimeout(req));
-                    processDeviceResponse(req, resp, cResponse);
+                    sendAsync(req, resp, registration, new WriteCompositeRequest(nodeContentFormat, values, null));
 
                 } else {
                     resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                     resp.getWriter().format("no registered client with id '%s'", clientEndpoint).flush();
                 }
-            } catch (RuntimeException | InterruptedException e) {
+            } catch (RuntimeException e) {
                 handleException(e, resp);
             }
             return;
@@ -344,8 +429,7 @@ public class ClientServlet extends HttpServlet {
                     LwM2mAttributeSet attributes = new LwM2mAttributeSet(
                             attributeParser.parseUriQuery(req.getQueryString()));
                     WriteAttributesRequest request = new WriteAttributesRequest(target, attributes);
-                    WriteAttributesResponse cResponse = server.send(registration, request, extractTimeout(req));
-                    processDeviceResponse(req, resp, cResponse);
+                    sendAsync(req, resp, registration, request);
                 } else {
                     // get content format
                     String contentFormatParam = req.getParameter(FORMAT_PARAM);
@@ -363,14 +447,13 @@ public class ClientServlet extends HttpServlet {
                     LwM2mNode node = extractLwM2mNode(target, req, new LwM2mPath(target));
                     WriteRequest request = new WriteRequest(replace ? Mode.REPLACE : Mode.UPDATE, contentFormat, target,
                             node);
-                    WriteResponse cResponse = server.send(registration, request, extractTimeout(req));
-                    processDeviceResponse(req, resp, cResponse);
+                    sendAsync(req, resp, registration, request);
                 }
             } else {
                 resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                 resp.getWriter().format("No registered client with id '%s'", clientEndpoint).flush();
             }
-        } catch (RuntimeException | InterruptedException | InvalidAttributeException e) {
+        } catch (RuntimeException | InvalidAttributeException e) {
             handleException(e, resp);
         }
     }
@@ -405,13 +488,12 @@ public class ClientServlet extends HttpServlet {
                     // create & process request
                     ObserveCompositeRequest request = new ObserveCompositeRequest(pathContentFormat, nodeContentFormat,
                             paths);
-                    ObserveCompositeResponse cResponse = server.send(registration, request, extractTimeout(req));
-                    processDeviceResponse(req, resp, cResponse);
+                    sendAsync(req, resp, registration, request);
                 } else {
                     resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                     resp.getWriter().format("No registered client with id '%s'", clientEndpoint).flush();
                 }
-            } catch (RuntimeException | InterruptedException e) {
+            } catch (RuntimeException e) {
                 handleException(e, resp);
             }
             return;
@@ -431,13 +513,12 @@ public class ClientServlet extends HttpServlet {
 
                     // create & process request
                     ObserveRequest request = new ObserveRequest(contentFormat, target);
-                    ObserveResponse cResponse = server.send(registration, request, extractTimeout(req));
-                    processDeviceResponse(req, resp, cResponse);
+                    sendAsync(req, resp, registration, request);
                 } else {
                     resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                     resp.getWriter().format("no registered client with id '%s'", clientEndpoint).flush();
                 }
-            } catch (RuntimeException | InterruptedException e) {
+            } catch (RuntimeException e) {
                 handleException(e, resp);
             }
             return;
@@ -455,13 +536,12 @@ public class ClientServlet extends HttpServlet {
                         params = IOUtils.toString(req.getInputStream(), StandardCharsets.UTF_8);
                     }
                     ExecuteRequest request = new ExecuteRequest(target, params);
-                    ExecuteResponse cResponse = server.send(registration, request, extractTimeout(req));
-                    processDeviceResponse(req, resp, cResponse);
+                    sendAsync(req, resp, registration, request);
                 } else {
                     resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                     resp.getWriter().format("no registered client with id '%s'", clientEndpoint).flush();
                 }
-            } catch (RuntimeException | InterruptedException e) {
+            } catch (RuntimeException e) {
                 handleException(e, resp);
             }
             return;
@@ -489,8 +569,7 @@ public class ClientServlet extends HttpServlet {
                             request = new CreateRequest(contentFormat, target, (LwM2mObjectInstance) node);
                         }
 
-                        CreateResponse cResponse = server.send(registration, request, extractTimeout(req));
-                        processDeviceResponse(req, resp, cResponse);
+                        sendAsync(req, resp, registration, request);
                     } else {
                         throw new IllegalArgumentException("payload must contain an object instance");
                     }
@@ -498,7 +577,7 @@ public class ClientServlet extends HttpServlet {
                     resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                     resp.getWriter().format("no registered client with id '%s'", clientEndpoint).flush();
                 }
-            } catch (RuntimeException | InterruptedException e) {
+            } catch (RuntimeException e) {
                 handleException(e, resp);
             }
             return;
@@ -531,13 +610,14 @@ public class ClientServlet extends HttpServlet {
                                         .getPaths().equals(LwM2mPath.getLwM2mPathList(Arrays.asList(paths))))
                                 .findFirst();
                         if (observation.isPresent()) {
-                            CancelCompositeObservationResponse response = server.send(registration,
+                            sendAsync(req, resp, registration,
                                     new CancelCompositeObservationRequest((CompositeObservation) observation.get()),
-                                    extractTimeout(req));
-                            processDeviceResponse(req, resp, response);
-                            if (response.isSuccess()) {
-                                server.getObservationService().cancelCompositeObservations(registration, paths);
-                            }
+                                    response -> {
+                                        if (response.isSuccess()) {
+                                            server.getObservationService().cancelCompositeObservations(registration,
+                                                    paths);
+                                        }
+                                    });
                         } else {
                             resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
                             resp.getWriter().format("no composite observation for paths %s for  client '%s'",
@@ -551,7 +631,7 @@ public class ClientServlet extends HttpServlet {
                     resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                     resp.getWriter().format("no registered client with id '%s'", clientEndpoint).flush();
                 }
-            } catch (RuntimeException | InterruptedException e) {
+            } catch (RuntimeException e) {
                 handleException(e, resp);
             }
             return;
@@ -571,13 +651,12 @@ public class ClientServlet extends HttpServlet {
                                         && ((SingleObservation) obs).getPath().equals(new LwM2mPath(target)))
                                 .findFirst();
                         if (observation.isPresent()) {
-                            CancelObservationResponse response = server.send(registration,
-                                    new CancelObservationRequest((SingleObservation) observation.get()),
-                                    extractTimeout(req));
-                            processDeviceResponse(req, resp, response);
-                            if (response.isSuccess()) {
-                                server.getObservationService().cancelObservations(registration, target);
-                            }
+                            sendAsync(req, resp, registration,
+                                    new CancelObservationRequest((SingleObservation) observation.get()), response -> {
+                                        if (response.isSuccess()) {
+                                            server.getObservationService().cancelObservations(registration, target);
+                                        }
+                                    });
                         } else {
                             resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
                             resp.getWriter()
@@ -592,7 +671,7 @@ public class ClientServlet extends HttpServlet {
                     resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                     resp.getWriter().format("no registered client with id '%s'", clientEndpoint).flush();
                 }
-            } catch (RuntimeException | InterruptedException e) {
+            } catch (RuntimeException e) {
                 handleException(e, resp);
             }
             return;
@@ -604,17 +683,103 @@ public class ClientServlet extends HttpServlet {
             Registration registration = server.getRegistrationService().getByEndpoint(clientEndpoint);
             if (registration != null) {
                 DeleteRequest request = new DeleteRequest(target);
-                DeleteResponse cResponse = server.send(registration, request, extractTimeout(req));
-                processDeviceResponse(req, resp, cResponse);
+                sendAsync(req, resp, registration, request);
             } else {
                 resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                 resp.getWriter().format("no registered client with id '%s'", clientEndpoint).flush();
             }
-        } catch (RuntimeException | InterruptedException e) {
+        } catch (RuntimeException e) {
             handleException(e, resp);
         }
     }
 
+    private <T extends LwM2mResponse> void sendAsync(HttpServletRequest req, HttpServletResponse resp,
+            Registration registration, DownlinkRequest<T> request) throws IOException {
+        sendAsync(req, resp, registration, request, null);
+    }
+
+    /**
+     * Send a request to a device without holding the HTTP thread until the device answers. The HTTP response is written
+     * from a container thread once a response, an error or a timeout is raised by Leshan.
+     *
+     * @param onResponse called with the device response before it is written, can be <code>null</code>.
+     */
+    private <T extends LwM2mResponse> void sendAsync(HttpServletRequest req, HttpServletResponse resp,
+            Registration registration, DownlinkRequest<T> request, ResponseCallback<T> onResponse) throws IOException {
+        long timeout = extractTimeout(req);
+        AsyncContext async = req.startAsync();
+        // Leshan is in charge of the timeout, the container one is just a safety net.
+        async.setTimeout(timeout + ASYNC_TIMEOUT_MARGIN);
+        AtomicBoolean completed = new AtomicBoolean(false);
+        async.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent event) throws IOException {
+                if (completed.compareAndSet(false, true)) {
+                    processDeviceResponse(req, resp, null);
+                    async.complete();
+                }
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+            }
+
+            @Override
+            public void onComplete(AsyncEvent event) {
+            }
+        });
+
+        try {
+            server.send(registration, request, timeout, //
+                    response -> complete(async, completed, () -> {
+                        if (onResponse != null) {
+                            onResponse.onResponse(response);
+                        }
+                        processDeviceResponse(req, resp, response);
+                    }), //
+                    error -> complete(async, completed, () -> {
+                        if (error instanceof TimeoutException) {
+                            processDeviceResponse(req, resp, null);
+                        } else {
+                            handleException(error, resp);
+                        }
+                    }));
+        } catch (RuntimeException e) {
+            // e.g. request can not be encoded
+            if (completed.compareAndSet(false, true)) {
+                try {
+                    handleException(e, resp);
+                } finally {
+                    async.complete();
+                }
+            }
+        }
+    }
+
+    private interface ResponseWriter {
+        void write() throws IOException;
+    }
+
+    private void complete(AsyncContext async, AtomicBoolean completed, ResponseWriter writer) {
+        if (!completed.compareAndSet(false, true)) {
+            return;
+        }
+        // do not write HTTP response from transport layer threads
+        async.start(() -> {
+            try {
+                writer.write();
+            } catch (IOException | RuntimeException e) {
+                LOG.warn("Unable to write HTTP response", e);
+            } finally {
+                async.complete();
+            }
+        });
+    }
+
     private void processDeviceResponse(HttpServletRequest req, HttpServletResponse resp, LwM2mResponse cResponse)
             throws IOException {
         if (cResponse == null) {
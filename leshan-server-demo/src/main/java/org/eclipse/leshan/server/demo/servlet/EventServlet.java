@@ -20,10 +20,17 @@ package org.eclipse.leshan.server.demo.servlet;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 import javax.servlet.http.HttpServletRequest;
 
@@ -40,6 +47,7 @@ import org.eclipse.leshan.core.observation.SingleObservation;
 import org.eclipse.leshan.core.request.SendRequest;
 import org.eclipse.leshan.core.response.ObserveCompositeResponse;
 import org.eclipse.leshan.core.response.ObserveResponse;
+import org.eclipse.leshan.core.util.NamedThreadFactory;
 import org.eclipse.leshan.server.LeshanServer;
 import org.eclipse.leshan.server.californium.endpoint.CaliforniumServerEndpoint;
 import org.eclipse.leshan.server.demo.servlet.json.JacksonLinkSerializer;
@@ -63,7 +71,6 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import jline.internal.Log;
 
@@ -87,6 +94,9 @@ public class EventServlet extends EventSourceServlet {
 
     private static final String QUERY_PARAM_ENDPOINT = "ep";
 
+    // maximum number of events waiting to be written to a given event source, older ones are dropped.
+    private static final int MAX_QUEUED_EVENTS = 1000;
+
     private static final long serialVersionUID = 1L;
 
     private static final Logger LOG = LoggerFactory.getLogger(EventServlet.class);
@@ -95,14 +105,23 @@ public class EventServlet extends EventSourceServlet {
 
     private final CoapMessageTracer coapMessageTracer;
 
-    private final Set<LeshanEventSource> eventSources = Collections
-            .newSetFromMap(new ConcurrentHashMap<LeshanEventSource, Boolean>());
+    // event sources without endpoint filter, they receive all events.
+    private final Set<LeshanEventSource> globalEventSources = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<String, Set<LeshanEventSource>> eventSourcesByEndpoint = new ConcurrentHashMap<>();
+
+    // events are written to event sources by this executor, so a slow connection never blocks the Leshan threads
+    // which raise events. Each event source uses at most 1 thread at a time.
+    private final ExecutorService writerExecutor = Executors
+            .newCachedThreadPool(new NamedThreadFactory("Event Servlet Writer %d"));
 
     private final RegistrationListener registrationListener = new RegistrationListener() {
 
         @Override
         public void registered(Registration registration, Registration previousReg,
                 Collection<Observation> previousObservations) {
+            if (!hasEventSources(registration.getEndpoint())) {
+                return;
+            }
             String jReg = null;
             try {
                 jReg = EventServlet.this.mapper.writeValueAsString(registration);
@@ -115,6 +134,9 @@ public class EventServlet extends EventSourceServlet {
         @Override
         public void updated(RegistrationUpdate update, Registration updatedRegistration,
                 Registration previousRegistration) {
+            if (!hasEventSources(updatedRegistration.getEndpoint())) {
+                return;
+            }
             RegUpdate regUpdate = new RegUpdate();
             regUpdate.registration = updatedRegistration;
             regUpdate.update = update;
@@ -130,6 +152,9 @@ public class EventServlet extends EventSourceServlet {
         @Override
         public void unregistered(Registration registration, Collection<Observation> observations, boolean expired,
                 Registration newReg) {
+            if (!hasEventSources(registration.getEndpoint())) {
+                return;
+            }
             String jReg = null;
             try {
                 jReg = EventServlet.this.mapper.writeValueAsString(registration);
@@ -170,6 +195,9 @@ public class EventServlet extends EventSourceServlet {
                 LOG.debug("Received notification from [{}] containing value [{}]", observation.getPath(),
                         response.getContent());
             }
+            if (registration == null || !hasEventSources(registration.getEndpoint())) {
+                return;
+            }
             String jsonContent = null;
             try {
                 jsonContent = mapper.writeValueAsString(response.getContent());
@@ -197,6 +225,9 @@ public class EventServlet extends EventSourceServlet {
             if (LOG.isDebugEnabled()) {
                 LOG.debug("Received composite notificationfrom [{}] containing value [{}]", response.getContent());
             }
+            if (registration == null || !hasEventSources(registration.getEndpoint())) {
+                return;
+            }
             String jsonContent = null;
             String jsonListOfPath = null;
             try {
@@ -247,7 +278,7 @@ public class EventServlet extends EventSourceServlet {
                 LOG.debug("Received Send request from [{}] containing value [{}]", registration, data.toString());
             }
 
-            if (registration != null) {
+            if (registration != null && hasEventSources(registration.getEndpoint())) {
                 try {
                     String jsonContent = EventServlet.this.mapper.writeValueAsString(data.getNodes());
 
@@ -310,18 +341,63 @@ public class EventServlet extends EventSourceServlet {
         this.mapper = mapper;
     }
 
-    private synchronized void sendEvent(String event, String data, String endpoint) {
+    @Override
+    public void destroy() {
+        coapMessageTracer.destroy();
+        writerExecutor.shutdownNow();
+        super.destroy();
+    }
+
+    /**
+     * @return <code>true</code> if at least one event source is interested by events of this endpoint. This allows to
+     *         avoid serializing events nobody will receive.
+     */
+    private boolean hasEventSources(String endpoint) {
+        return !globalEventSources.isEmpty() || eventSourcesByEndpoint.containsKey(endpoint);
+    }
+
+    private void sendEvent(String event, String data, String endpoint) {
+        sendEvent(event, () -> data, endpoint);
+    }
+
+    private void sendEvent(String event, Supplier<String> data, String endpoint) {
         if (LOG.isDebugEnabled()) {
             LOG.debug("Dispatching {} event from endpoint {}", event, endpoint);
         }
 
-        for (LeshanEventSource eventSource : eventSources) {
-            if (eventSource.getEndpoint() == null || eventSource.getEndpoint().equals(endpoint)) {
-                eventSource.sentEvent(event, data);
+        // data is serialized once and shared by all event sources
+        Event e = new Event(event, data);
+        for (LeshanEventSource eventSource : globalEventSources) {
+            eventSource.queueEvent(e);
+        }
+        Set<LeshanEventSource> endpointEventSources = eventSourcesByEndpoint.get(endpoint);
+        if (endpointEventSources != null) {
+            for (LeshanEventSource eventSource : endpointEventSources) {
+                eventSource.queueEvent(e);
             }
         }
     }
 
+    private void addEventSource(LeshanEventSource eventSource) {
+        if (eventSource.getEndpoint() == null) {
+            globalEventSources.add(eventSource);
+        } else {
+            eventSourcesByEndpoint.computeIfAbsent(eventSource.getEndpoint(), ep -> ConcurrentHashMap.newKeySet())
+                    .add(eventSource);
+        }
+    }
+
+    private void removeEventSource(LeshanEventSource eventSource) {
+        if (eventSource.getEndpoint() == null) {
+            globalEventSources.remove(eventSource);
+        } else {
+            eventSourcesByEndpoint.computeIfPresent(eventSource.getEndpoint(), (ep, eventSources) -> {
+                eventSources.remove(eventSource);
+                return eventSources.isEmpty() ? null : eventSources;
+            });
+        }
+    }
+
     class ClientCoapListener implements CoapMessageListener {
 
         private final String endpoint;
@@ -332,13 +408,22 @@ public class EventServlet extends EventSourceServlet {
 
         @Override
         public void trace(CoapMessage message) {
+            // message is formatted by event writer thread, not by CoAP thread
+            sendEvent(EVENT_COAP_LOG, () -> toJson(message), endpoint);
+        }
+
+        private String toJson(CoapMessage message) {
             try {
-                ObjectNode coapLog = EventServlet.this.mapper.valueToTree(message);
-                coapLog.put("ep", this.endpoint);
-                sendEvent(EVENT_COAP_LOG, EventServlet.this.mapper.writeValueAsString(coapLog), endpoint);
+                // serialize message directly, then add endpoint as first field
+                String jsonMessage = EventServlet.this.mapper.writeValueAsString(message);
+                return new StringBuilder("{\"ep\":") //
+                        .append(EventServlet.this.mapper.writeValueAsString(endpoint)) //
+                        .append(jsonMessage.length() > 2 ? "," : "") //
+                        .append(jsonMessage, 1, jsonMessage.length()) //
+                        .toString();
             } catch (JsonProcessingException e) {
                 Log.warn(String.format("Error while processing json [%s] : [%s]", message.toString(), e.getMessage()));
-                sendEvent(EVENT_COAP_LOG, message.toString(), endpoint);
+                return message.toString();
             }
         }
 
@@ -346,12 +431,9 @@ public class EventServlet extends EventSourceServlet {
 
     private void cleanCoapListener(String endpoint) {
         // remove the listener if there is no more eventSources for this endpoint
-        for (LeshanEventSource eventSource : eventSources) {
-            if (eventSource.getEndpoint() == null || eventSource.getEndpoint().equals(endpoint)) {
-                return;
-            }
+        if (endpoint != null && !hasEventSources(endpoint)) {
+            coapMessageTracer.removeListener(endpoint);
         }
-        coapMessageTracer.removeListener(endpoint);
     }
 
     @Override
@@ -360,10 +442,35 @@ public class EventServlet extends EventSourceServlet {
         return new LeshanEventSource(endpoint);
     }
 
+    private static class Event {
+        private final String name;
+        private Supplier<String> dataSupplier;
+        private String data;
+
+        Event(String name, Supplier<String> dataSupplier) {
+            this.name = name;
+            this.dataSupplier = dataSupplier;
+        }
+
+        /**
+         * @return data of this event, computed on first call (from event writer threads).
+         */
+        synchronized String getData() {
+            if (dataSupplier != null) {
+                data = dataSupplier.get();
+                dataSupplier = null;
+            }
+            return data;
+        }
+    }
+
     private class LeshanEventSource implements EventSource {
 
         private final String endpoint;
-        private Emitter emitter;
+        private final BlockingQueue<Event> queue = new ArrayBlockingQueue<>(MAX_QUEUED_EVENTS);
+        private final AtomicBoolean writing = new AtomicBoolean(false);
+        private volatile Emitter emitter;
+        private volatile boolean closed;
 
         public LeshanEventSource(String endpoint) {
             this.endpoint = endpoint;
@@ -372,7 +479,7 @@ public class EventServlet extends EventSourceServlet {
         @Override
         public void onOpen(Emitter emitter) throws IOException {
             this.emitter = emitter;
-            eventSources.add(this);
+            addEventSource(this);
 
             if (endpoint != null) {
                 coapMessageTracer.addListener(endpoint, new ClientCoapListener(endpoint));
@@ -382,16 +489,52 @@ public class EventServlet extends EventSourceServlet {
 
         @Override
         public void onClose() {
+            closed = true;
+            removeEventSource(this);
             cleanCoapListener(endpoint);
-            eventSources.remove(this);
+            queue.clear();
         }
 
-        public void sentEvent(String event, String data) {
+        public void queueEvent(Event event) {
+            if (closed) {
+                return;
+            }
+            while (!queue.offer(event)) {
+                // this event source is too slow, drop the oldest event
+                Event dropped = queue.poll();
+                if (dropped != null && LOG.isDebugEnabled()) {
+                    LOG.debug("Too many pending events for event source [{}], drop {} event", endpoint, dropped.name);
+                }
+            }
+            scheduleWrite();
+        }
+
+        private void scheduleWrite() {
+            if (writing.compareAndSet(false, true)) {
+                try {
+                    writerExecutor.execute(this::writeEvents);
+                } catch (RejectedExecutionException e) {
+                    // servlet is destroyed
+                    writing.set(false);
+                }
+            }
+        }
+
+        private void writeEvents() {
             try {
-                emitter.event(event, data);
+                Event event;
+                while (!closed && (event = queue.poll()) != null) {
+                    emitter.event(event.name, event.getData());
+                }
             } catch (IOException e) {
-                e.printStackTrace();
+                LOG.debug("Unable to write event to event source [{}]", endpoint, e);
                 onClose();
+            } finally {
+                writing.set(false);
+            }
+            // an event could have been queued after the last poll
+            if (!closed && !queue.isEmpty()) {
+                scheduleWrite();
             }
         }
 
@@ -20,6 +20,8 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.security.PublicKey;
 import java.security.cert.X509Certificate;
+import java.util.Map.Entry;
+import java.util.SortedMap;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
@@ -31,6 +33,8 @@ import org.eclipse.leshan.server.LeshanServer;
 import org.eclipse.leshan.server.core.demo.json.PublicKeySerDes;
 import org.eclipse.leshan.server.core.demo.json.X509CertificateSerDes;
 import org.eclipse.leshan.server.endpoint.LwM2mServerEndpoint;
+import org.eclipse.leshan.server.metrics.InMemoryServerMetrics;
+import org.eclipse.leshan.server.metrics.InMemoryServerMetrics.TimerSnapshot;
 
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
@@ -106,6 +110,50 @@ public class ServerServlet extends HttpServlet {
             return;
         }
 
+        // metrics collected in memory
+        if ("metrics".equals(path[0])) {
+            if (!(server.getMetrics() instanceof InMemoryServerMetrics)) {
+                resp.sendError(HttpServletResponse.SC_NOT_FOUND, "no in-memory metrics available");
+                return;
+            }
+            InMemoryServerMetrics metrics = (InMemoryServerMetrics) server.getMetrics();
+
+            ObjectNode json = JsonNodeFactory.instance.objectNode();
+            json.set("counters", toJson(metrics.getCounters()));
+            json.set("gauges", toJson(metrics.getGauges()));
+            ObjectNode timers = JsonNodeFactory.instance.objectNode();
+            for (Entry<String, SortedMap<String, TimerSnapshot>> byName : metrics.getTimers().entrySet()) {
+                ObjectNode byTag = JsonNodeFactory.instance.objectNode();
+                for (Entry<String, TimerSnapshot> entry : byName.getValue().entrySet()) {
+                    ObjectNode timer = JsonNodeFactory.instance.objectNode();
+                    timer.put("count", entry.getValue().getCount());
+                    timer.put("totalTimeInNanos", entry.getValue().getTotalTimeInNanos());
+                    timer.put("meanTimeInNanos", entry.getValue().getMeanTimeInNanos());
+                    timer.put("maxTimeInNanos", entry.getValue().getMaxTimeInNanos());
+                    byTag.set(entry.getKey(), timer);
+                }
+                timers.set(byName.getKey(), byTag);
+            }
+            json.set("timers", timers);
+
+            resp.setContentType("application/json");
+            resp.getOutputStream().write(json.toString().getBytes(StandardCharsets.UTF_8));
+            resp.setStatus(HttpServletResponse.SC_OK);
+            return;
+        }
+
         resp.sendError(HttpServletResponse.SC_BAD_REQUEST);
     }
+
+    private ObjectNode toJson(SortedMap<String, SortedMap<String, Long>> values) {
+        ObjectNode json = JsonNodeFactory.instance.objectNode();
+        for (Entry<String, SortedMap<String, Long>> byName : values.entrySet()) {
+            ObjectNode byTag = JsonNodeFactory.instance.objectNode();
+            for (Entry<String, Long> entry : byName.getValue().entrySet()) {
+                byTag.put(entry.getKey(), entry.getValue());
+            }
+            json.set(byName.getKey(), byTag);
+        }
+        return json;
+    }
 }
@@ -29,10 +29,17 @@ import org.eclipse.californium.core.coap.Option;
 import org.eclipse.californium.core.coap.OptionSet;
 import org.eclipse.californium.core.coap.Request;
 import org.eclipse.californium.core.coap.Response;
+import org.eclipse.californium.core.coap.Token;
 import org.eclipse.californium.core.coap.option.OptionDefinition;
 import org.eclipse.californium.core.coap.option.StandardOptionRegistry;
 import org.eclipse.leshan.core.util.Hex;
 
+/**
+ * A CoAP message to trace.
+ * <p>
+ * Only cheap fields are computed on creation (generally from transport threads), token, options and payload are
+ * formatted lazily when they are accessed (e.g. on JSON serialization).
+ */
 public class CoapMessage {
 
     public long timestamp;
@@ -48,69 +55,89 @@ public class CoapMessage {
 
     public int mId;
 
-    public String token;
+    // raw data formatted lazily
+    private final Token rawToken;
+    private final OptionSet rawOptions;
+    private final byte[] rawPayload;
 
-    public String options;
-
-    public String payload;
+    private String token;
+    private String options;
+    private String payload;
 
     public CoapMessage(Request request, boolean incoming) {
-        this(incoming, request.getType(), request.getMID(), request.getTokenString(), request.getOptions(),
+        this(incoming, request.getType(), request.getMID(), request.getToken(), request.getOptions(),
                 request.getPayload());
         this.code = request.getCode().toString();
     }
 
     public CoapMessage(Response request, boolean incoming) {
-        this(incoming, request.getType(), request.getMID(), request.getTokenString(), request.getOptions(),
+        this(incoming, request.getType(), request.getMID(), request.getToken(), request.getOptions(),
                 request.getPayload());
         this.code = request.getCode().toString();
     }
 
     public CoapMessage(EmptyMessage request, boolean incoming) {
-        this(incoming, request.getType(), request.getMID(), request.getTokenString(), request.getOptions(),
+        this(incoming, request.getType(), request.getMID(), request.getToken(), request.getOptions(),
                 request.getPayload());
     }
 
-    private CoapMessage(boolean incoming, Type type, int mId, String token, OptionSet options, byte[] payload) {
+    private CoapMessage(boolean incoming, Type type, int mId, Token token, OptionSet options, byte[] payload) {
         this.incoming = incoming;
         this.timestamp = System.currentTimeMillis();
         this.type = type.toString();
         this.mId = mId;
-        this.token = token;
-
-        if (options != null) {
-            List<Option> opts = options.asSortedList();
-            if (!opts.isEmpty()) {
-                Map<String, List<String>> optMap = new HashMap<>();
-                for (Option opt : opts) {
-                    String strOption = getOption(opt.getNumber());
-                    List<String> values = optMap.get(strOption);
-                    if (values == null) {
-                        values = new ArrayList<>();
-                        optMap.put(strOption, values);
-                    }
-                    values.add(opt.toValueString());
-                }
+        this.rawToken = token;
+        // message could be modified after interception, so keep a copy of options
+        this.rawOptions = options != null ? new OptionSet(options) : null;
+        this.rawPayload = payload;
+    }
 
-                StringBuilder builder = new StringBuilder();
-                for (Entry<String, List<String>> e : optMap.entrySet()) {
-                    if (builder.length() > 0) {
-                        builder.append(" - ");
-                    }
-                    builder.append(e.getKey()).append(": ").append(StringUtils.join(e.getValue(), ", "));
+    public synchronized String getToken() {
+        if (token == null && rawToken != null) {
+            token = rawToken.getAsString();
+        }
+        return token;
+    }
+
+    public synchronized String getOptions() {
+        if (options == null && rawOptions != null) {
+            List<Option> opts = rawOptions.asSortedList();
+            if (opts.isEmpty()) {
+                return null;
+            }
+            Map<String, List<String>> optMap = new HashMap<>();
+            for (Option opt : opts) {
+                String strOption = getOption(opt.getNumber());
+                List<String> values = optMap.get(strOption);
+                if (values == null) {
+                    values = new ArrayList<>();
+                    optMap.put(strOption, values);
                 }
-                this.options = builder.toString();
+                values.add(opt.toValueString());
+            }
 
+            StringBuilder builder = new StringBuilder();
+            for (Entry<String, List<String>> e : optMap.entrySet()) {
+                if (builder.length() > 0) {
+                    builder.append(" - ");
+                }
+                builder.append(e.getKey()).append(": ").append(StringUtils.join(e.getValue(), ", "));
             }
+            options = builder.toString();
         }
-        if (payload != null && payload.length > 0) {
-            String strPayload = new String(payload, StandardCharsets.UTF_8);
+        return options;
+    }
+
+    public synchronized String getPayload() {
+        if (payload == null && rawPayload != null && rawPayload.length > 0) {
+            String strPayload = new String(rawPayload, StandardCharsets.UTF_8);
             if (StringUtils.isAsciiPrintable(strPayload)) {
-                this.payload = strPayload;
+                payload = strPayload;
             } else {
-                this.payload = "Hex:" + Hex.encodeHexString(payload);
+                payload = "Hex:" + Hex.encodeHexString(rawPayload);
             }
         }
+        return payload;
     }
 
     private String getOption(int optionNumber) {
@@ -122,4 +149,10 @@ public class CoapMessage {
             return String.format("Unknown (%d)", optionNumber);
         }
     }
+
+    @Override
+    public String toString() {
+        return String.format("CoapMessage [timestamp=%s, incoming=%s, type=%s, code=%s, mId=%s, token=%s]", timestamp,
+                incoming, type, code, mId, getToken());
+    }
 }
@@ -16,94 +16,203 @@
 package org.eclipse.leshan.server.demo.servlet.log;
 
 import java.net.InetSocketAddress;
-import java.util.Map;
+import java.util.Collection;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.californium.core.coap.EmptyMessage;
+import org.eclipse.californium.core.coap.Message;
 import org.eclipse.californium.core.coap.Request;
 import org.eclipse.californium.core.coap.Response;
 import org.eclipse.californium.core.network.interceptors.MessageInterceptor;
+import org.eclipse.californium.elements.EndpointContext;
+import org.eclipse.leshan.core.observation.Observation;
 import org.eclipse.leshan.server.registration.Registration;
+import org.eclipse.leshan.server.registration.RegistrationListener;
 import org.eclipse.leshan.server.registration.RegistrationService;
-
+import org.eclipse.leshan.server.registration.RegistrationUpdate;
+
+/**
+ * A {@link MessageInterceptor} which traces CoAP messages exchanged with endpoints having a
+ * {@link CoapMessageListener}.
+ * <p>
+ * This costs nothing when there is no listener. Else, only messages of traced endpoints are converted to
+ * {@link CoapMessage} (which are formatted lazily) and at most {@code maxMessagesPerSecond} messages are traced by
+ * endpoint, others are skipped.
+ */
 public class CoapMessageTracer implements MessageInterceptor {
 
-    private final Map<String, CoapMessageListener> listeners = new ConcurrentHashMap<>();
+    public static final int DEFAULT_MAX_MESSAGES_PER_SECOND = 100;
+
+    private final ConcurrentMap<String, TracedEndpoint> tracedEndpoints = new ConcurrentHashMap<>();
+    // secondary index used to find traced endpoint from message peer address
+    private final ConcurrentMap<InetSocketAddress, TracedEndpoint> tracedEndpointsByAddress = new ConcurrentHashMap<>();
 
     private final RegistrationService registry;
+    private final int maxMessagesPerSecond;
+
+    private final RegistrationListener registrationListener = new RegistrationListener() {
+
+        @Override
+        public void registered(Registration registration, Registration previousReg,
+                Collection<Observation> previousObservations) {
+            updateAddress(previousReg, registration);
+        }
+
+        @Override
+        public void updated(RegistrationUpdate update, Registration updatedReg, Registration previousReg) {
+            updateAddress(previousReg, updatedReg);
+        }
+
+        @Override
+        public void unregistered(Registration registration, Collection<Observation> observations, boolean expired,
+                Registration newReg) {
+            if (newReg == null) {
+                updateAddress(registration, null);
+            }
+        }
+    };
+
+    public CoapMessageTracer(RegistrationService registry) {
+        this(registry, DEFAULT_MAX_MESSAGES_PER_SECOND);
+    }
+
+    public CoapMessageTracer(RegistrationService registry, int maxMessagesPerSecond) {
+        this.registry = registry;
+        this.maxMessagesPerSecond = maxMessagesPerSecond;
+        // keep address index up to date, so devices registering after listener is added are traced too.
+        registry.addListener(registrationListener);
+    }
 
     public void addListener(String endpoint, CoapMessageListener listener) {
+        TracedEndpoint tracedEndpoint = new TracedEndpoint(listener);
+        TracedEndpoint previous = tracedEndpoints.put(endpoint, tracedEndpoint);
         Registration registration = registry.getByEndpoint(endpoint);
         if (registration != null) {
-            listeners.put(toStringAddress(registration.getSocketAddress()), listener);
+            tracedEndpointsByAddress.put(registration.getSocketAddress(), tracedEndpoint);
+        }
+        if (previous != null) {
+            tracedEndpointsByAddress.values().remove(previous);
         }
     }
 
     public void removeListener(String endpoint) {
-        Registration registration = registry.getByEndpoint(endpoint);
-        if (registration != null) {
-            listeners.remove(toStringAddress(registration.getSocketAddress()));
+        TracedEndpoint removed = tracedEndpoints.remove(endpoint);
+        if (removed != null) {
+            tracedEndpointsByAddress.values().remove(removed);
         }
     }
 
-    private String toStringAddress(InetSocketAddress clientAddress) {
-        return clientAddress.getAddress() + ":" + clientAddress.getPort();
+    public void destroy() {
+        registry.removeListener(registrationListener);
     }
 
-    public CoapMessageTracer(RegistrationService registry) {
-        this.registry = registry;
+    private void updateAddress(Registration previous, Registration current) {
+        if (tracedEndpoints.isEmpty()) {
+            return;
+        }
+        if (previous != null && (current == null || !previous.getSocketAddress().equals(current.getSocketAddress()))) {
+            TracedEndpoint tracedEndpoint = tracedEndpoints.get(previous.getEndpoint());
+            if (tracedEndpoint != null) {
+                tracedEndpointsByAddress.remove(previous.getSocketAddress(), tracedEndpoint);
+            }
+        }
+        if (current != null) {
+            TracedEndpoint tracedEndpoint = tracedEndpoints.get(current.getEndpoint());
+            if (tracedEndpoint != null) {
+                tracedEndpointsByAddress.put(current.getSocketAddress(), tracedEndpoint);
+            }
+        }
+    }
+
+    private TracedEndpoint getTracedEndpoint(Message message, boolean incoming) {
+        // fast path : nobody is listening
+        if (tracedEndpointsByAddress.isEmpty()) {
+            return null;
+        }
+        EndpointContext context = incoming ? message.getSourceContext() : message.getDestinationContext();
+        if (context == null) {
+            return null;
+        }
+        TracedEndpoint tracedEndpoint = tracedEndpointsByAddress.get(context.getPeerAddress());
+        if (tracedEndpoint == null || !tracedEndpoint.sample()) {
+            return null;
+        }
+        return tracedEndpoint;
     }
 
     @Override
     public void sendRequest(Request request) {
-        CoapMessageListener listener = listeners.get(toStringAddress(request.getDestinationContext().getPeerAddress()));
-        if (listener != null) {
-            listener.trace(new CoapMessage(request, false));
+        TracedEndpoint tracedEndpoint = getTracedEndpoint(request, false);
+        if (tracedEndpoint != null) {
+            tracedEndpoint.listener.trace(new CoapMessage(request, false));
         }
     }
 
     @Override
     public void sendResponse(Response response) {
-        CoapMessageListener listener = listeners
-                .get(toStringAddress(response.getDestinationContext().getPeerAddress()));
-        if (listener != null) {
-            listener.trace(new CoapMessage(response, false));
+        TracedEndpoint tracedEndpoint = getTracedEndpoint(response, false);
+        if (tracedEndpoint != null) {
+            tracedEndpoint.listener.trace(new CoapMessage(response, false));
         }
     }
 
     @Override
     public void sendEmptyMessage(EmptyMessage message) {
-        CoapMessageListener listener = listeners.get(toStringAddress(message.getDestinationContext().getPeerAddress()));
-        if (listener != null) {
-            listener.trace(new CoapMessage(message, false));
+        TracedEndpoint tracedEndpoint = getTracedEndpoint(message, false);
+        if (tracedEndpoint != null) {
+            tracedEndpoint.listener.trace(new CoapMessage(message, false));
         }
     }
 
     @Override
     public void receiveRequest(Request request) {
-        CoapMessageListener listener = listeners.get(toStringAddress(request.getSourceContext().getPeerAddress()));
-        if (listener != null) {
-            listener.trace(new CoapMessage(request, true));
+        TracedEndpoint tracedEndpoint = getTracedEndpoint(request, true);
+        if (tracedEndpoint != null) {
+            tracedEndpoint.listener.trace(new CoapMessage(request, true));
         }
-
     }
 
     @Override
     public void receiveResponse(Response response) {
-        CoapMessageListener listener = listeners.get(toStringAddress(response.getSourceContext().getPeerAddress()));
-        if (listener != null) {
-            listener.trace(new CoapMessage(response, true));
+        TracedEndpoint tracedEndpoint = getTracedEndpoint(response, true);
+        if (tracedEndpoint != null) {
+            tracedEndpoint.listener.trace(new CoapMessage(response, true));
         }
-
     }
 
     @Override
     public void receiveEmptyMessage(EmptyMessage message) {
-        CoapMessageListener listener = listeners.get(toStringAddress(message.getSourceContext().getPeerAddress()));
-        if (listener != null) {
-            listener.trace(new CoapMessage(message, true));
+        TracedEndpoint tracedEndpoint = getTracedEndpoint(message, true);
+        if (tracedEndpoint != null) {
+            tracedEndpoint.listener.trace(new CoapMessage(message, true));
         }
-
     }
 
+    private class TracedEndpoint {
+        private final CoapMessageListener listener;
+
+        // number of messages traced during current 1 second window
+        private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+        private final AtomicInteger tracedInWindow = new AtomicInteger();
+
+        TracedEndpoint(CoapMessageListener listener) {
+            this.listener = listener;
+        }
+
+        /**
+         * @return <code>true</code> if current message should be traced.
+         */
+        boolean sample() {
+            long now = System.nanoTime();
+            long start = windowStart.get();
+            if (now - start >= TimeUnit.SECONDS.toNanos(1) && windowStart.compareAndSet(start, now)) {
+                tracedInWindow.set(0);
+            }
+            return tracedInWindow.incrementAndGet() <= maxMessagesPerSecond;
+        }
+    }
 }
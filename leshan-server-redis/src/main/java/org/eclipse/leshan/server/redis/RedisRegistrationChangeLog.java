@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.redis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.leshan.core.util.Validate;
+import org.eclipse.leshan.server.redis.serialization.RegistrationSerDes;
+import org.eclipse.leshan.server.registration.Registration;
+import org.eclipse.leshan.server.registration.RegistrationChange;
+import org.eclipse.leshan.server.registration.RegistrationChange.Type;
+import org.eclipse.leshan.server.registration.RegistrationChangeLog;
+import org.eclipse.leshan.server.registration.RegistrationChangeLogTruncatedException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+import redis.clients.jedis.resps.StreamEntry;
+import redis.clients.jedis.util.Pool;
+
+/**
+ * A {@link RegistrationChangeLog} stored in a Redis Stream, shared by all servers using same
+ * {@link RedisRegistrationStore}.
+ * <p>
+ * Changes are appended by {@link RedisRegistrationStore} while it holds the lock of the endpoint. Offsets are given by
+ * a Redis counter and used as stream entry ID (<code>0-offset</code>), both are updated atomically by a Lua script, so
+ * offsets are contiguous and ordered like stream entries even when several servers append changes concurrently. If the
+ * counter is behind the stream (e.g. counter was deleted but not the stream), it is resynchronized with the last ID of
+ * the stream.
+ * <p>
+ * Stream is trimmed to approximately the configured maximum length (see <code>XADD MAXLEN ~</code>).
+ * <p>
+ * A change which can not be appended (e.g. Redis error after the registration was stored) is not lost silently : its
+ * offset is skipped, so consumers which did not read changes after this offset yet get a
+ * {@link RegistrationChangeLogTruncatedException} and load a new snapshot. If the offset can not be skipped either
+ * (e.g. Redis is not reachable), it is skipped before the next change appended by this server.
+ */
+public class RedisRegistrationChangeLog implements RegistrationChangeLog {
+
+    private static final String TYPE_FIELD = "type";
+    private static final String REGISTRATION_FIELD = "reg";
+
+    // KEYS[1] : stream, KEYS[2] : offset counter, ARGV[1] : max length, ARGV[2] : type, ARGV[3] : registration
+    // Counter is updated only once the entry is added, so a failure never leaves a gap in offsets.
+    private static final String APPEND_SCRIPT = "" //
+            + "local function add(offset) " //
+            + "  return redis.pcall('XADD', KEYS[1], 'MAXLEN', '~', ARGV[1], '0-' .. offset, '" + TYPE_FIELD
+            + "', ARGV[2], '" + REGISTRATION_FIELD + "', ARGV[3]) " //
+            + "end " //
+            + "local offset = (tonumber(redis.call('GET', KEYS[2])) or 0) + 1 " //
+            + "local result = add(offset) " //
+            + "if type(result) == 'table' and result.err then " //
+            + "  local info = redis.call('XINFO', 'STREAM', KEYS[1]) " //
+            + "  for i = 1, #info, 2 do " //
+            + "    if info[i] == 'last-generated-id' then " //
+            + "      offset = tonumber(string.match(info[i + 1], '%-(%d+)$')) + 1 " //
+            + "    end " //
+            + "  end " //
+            + "  result = add(offset) " //
+            + "  if type(result) == 'table' and result.err then " //
+            + "    return result " //
+            + "  end " //
+            + "end " //
+            + "redis.call('SET', KEYS[2], offset) " //
+            + "return offset";
+
+    private final Pool<Jedis> pool;
+    private final String streamKey;
+    private final String offsetKey;
+    private final String maxLength;
+    private final RegistrationSerDes registrationSerDes;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    // SHA1 of the append script, once loaded in Redis script cache
+    private volatile String appendScriptSha;
+    // true if a change could not be appended and its offset is not skipped yet
+    private volatile boolean offsetToSkip;
+
+    /**
+     * @param pool pool of Redis connections
+     * @param streamKey key of the Redis Stream, the offset counter uses same key with <code>#OFFSET</code> suffix
+     * @param maxLength approximate number of changes kept in the stream
+     * @param registrationSerDes serializer used for registrations
+     */
+    public RedisRegistrationChangeLog(Pool<Jedis> pool, String streamKey, long maxLength,
+            RegistrationSerDes registrationSerDes) {
+        Validate.notNull(pool);
+        Validate.notEmpty(streamKey);
+        Validate.isTrue(maxLength > 0, "maxLength must be positive");
+        Validate.notNull(registrationSerDes);
+        this.pool = pool;
+        this.streamKey = streamKey;
+        this.offsetKey = streamKey + "#OFFSET";
+        this.maxLength = Long.toString(maxLength);
+        this.registrationSerDes = registrationSerDes;
+    }
+
+    /**
+     * Append a change at the end of the log.
+     * <p>
+     * Script is sent only once, then called by its SHA1 (see <code>EVALSHA</code>). It is loaded again if Redis script
+     * cache was flushed.
+     *
+     * @return the offset of the appended change.
+     * @throws JedisException if change can not be appended
+     */
+    long append(Jedis j, Type type, Registration registration) {
+        if (offsetToSkip) {
+            skipOffset(j);
+        }
+
+        List<String> keys = Arrays.asList(streamKey, offsetKey);
+        List<String> args = Arrays.asList(maxLength, type.name(), registrationSerDes.sSerialize(registration));
+
+        String sha = appendScriptSha;
+        if (sha == null) {
+            sha = loadAppendScript(j);
+        }
+        try {
+            return (Long) j.evalsha(sha, keys, args);
+        } catch (JedisNoScriptException e) {
+            return (Long) j.evalsha(loadAppendScript(j), keys, args);
+        }
+    }
+
+    /**
+     * Skip the offset of a change which could not be appended, so consumers know they missed it.
+     *
+     * @throws JedisException if offset can not be skipped, it will be skipped on next append.
+     */
+    void appendFailed(Jedis j) {
+        offsetToSkip = true;
+        skipOffset(j);
+    }
+
+    private void skipOffset(Jedis j) {
+        j.incr(offsetKey);
+        offsetToSkip = false;
+    }
+
+    private String loadAppendScript(Jedis j) {
+        String sha = j.scriptLoad(APPEND_SCRIPT);
+        appendScriptSha = sha;
+        return sha;
+    }
+
+    @Override
+    public long getLastOffset() {
+        try (Jedis j = pool.getResource()) {
+            return getLastOffset(j);
+        }
+    }
+
+    private long getLastOffset(Jedis j) {
+        String offset = j.get(offsetKey);
+        return offset == null ? 0 : Long.parseLong(offset);
+    }
+
+    @Override
+    public List<RegistrationChange> getChanges(long afterOffset, int limit) {
+        Validate.isTrue(afterOffset >= 0, "afterOffset must not be negative");
+        Validate.isTrue(limit > 0, "limit must be positive");
+
+        try (Jedis j = pool.getResource()) {
+            long lastOffset = getLastOffset(j);
+            Validate.isTrue(afterOffset <= lastOffset, "afterOffset must not be greater than last offset");
+            if (afterOffset == lastOffset) {
+                return Collections.emptyList();
+            }
+
+            List<StreamEntry> entries = j.xrange(streamKey, "0-" + (afterOffset + 1), "+", limit);
+            if (entries.isEmpty() || entries.get(0).getID().getSequence() != afterOffset + 1) {
+                throw new RegistrationChangeLogTruncatedException(
+                        String.format("Changes after %d are not available anymore", afterOffset));
+            }
+
+            List<RegistrationChange> changes = new ArrayList<>(entries.size());
+            for (StreamEntry entry : entries) {
+                changes.add(new RegistrationChange(entry.getID().getSequence(),
+                        Type.valueOf(entry.getFields().get(TYPE_FIELD)),
+                        deserializeReg(entry.getFields().get(REGISTRATION_FIELD))));
+            }
+            return changes;
+        }
+    }
+
+    private Registration deserializeReg(String data) {
+        try {
+            return registrationSerDes.deserialize(mapper.readTree(data));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(String.format("Unable to deserialize Registration %s", data), e);
+        }
+    }
+}
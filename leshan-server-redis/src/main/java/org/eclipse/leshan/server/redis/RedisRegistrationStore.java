@@ -55,6 +55,10 @@ import org.eclipse.leshan.server.redis.serialization.RegistrationSerDes;
 import org.eclipse.leshan.server.registration.Deregistration;
 import org.eclipse.leshan.server.registration.ExpirationListener;
 import org.eclipse.leshan.server.registration.Registration;
+import org.eclipse.leshan.server.registration.RegistrationChange.Type;
+import org.eclipse.leshan.server.registration.RegistrationChangeLog;
+import org.eclipse.leshan.server.registration.RegistrationPage;
+import org.eclipse.leshan.server.registration.RegistrationQuery;
 import org.eclipse.leshan.server.registration.RegistrationStore;
 import org.eclipse.leshan.server.registration.RegistrationUpdate;
 import org.eclipse.leshan.server.registration.UpdatedRegistration;
@@ -63,21 +67,36 @@ import org.slf4j.LoggerFactory;
 
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.Transaction;
+import redis.clients.jedis.exceptions.JedisException;
 import redis.clients.jedis.params.ScanParams;
 import redis.clients.jedis.resps.ScanResult;
 import redis.clients.jedis.util.Pool;
 
 /**
  * A RegistrationStore which stores registrations and observations in Redis.
+ * <p>
+ * Registrations are indexed by terms of {@link RegistrationQuery#getIndexTerms(Registration)} to answer
+ * {@link #findRegistrations(RegistrationQuery)}. A registration and its index entries are always written in the same
+ * Redis transaction. Registrations stored by a previous version, without those indexes, are indexed once on first
+ * {@link #start()}.
  */
 public class RedisRegistrationStore implements RegistrationStore, Startable, Stoppable, Destroyable {
     private static final Logger LOG = LoggerFactory.getLogger(RedisRegistrationStore.class);
 
+    // bounds used for lexicographical range queries on sorted sets
+    private static final byte[] LEX_MIN = "-".getBytes(UTF_8);
+    private static final byte[] LEX_MAX = "+".getBytes(UTF_8);
+    private static final byte[] LEX_EXCLUSIVE = "(".getBytes(UTF_8);
+
+    // version of query indexes, stored in Redis once all registrations are indexed
+    private static final String QUERY_INDEXES_VERSION = "1";
+
     // Redis key prefixes
     private final String registrationByEndpointPrefix; // (Endpoint => Registration)
     private final String endpointByRegistrationIdPrefix; // secondary index key (Registration ID => Endpoint)
     private final String endpointBySocketAddressPrefix; // secondary index key (Socket Address => Endpoint)
     private final String endpointByIdentityPrefix; // secondary index key (Identity => Endpoint)
+    private final String endpointsByIndexTermPrefix; // secondary index (Index term => sorted set of Endpoint)
     private final String endpointLockPrefix;
     private final byte[] observationTokenPrefix;
     private final String observationTokensByRegistrationIdPrefix; // secondary index (Registration => Token list)
@@ -92,6 +111,7 @@ public class RedisRegistrationStore implements RegistrationStore, Startable, Sto
     private final ScheduledExecutorService schedExecutor;
     private ScheduledFuture<?> cleanerTask;
     private boolean started = false;
+    private boolean queryIndexesChecked = false;
 
     private final long cleanPeriod; // in seconds
     private final int cleanLimit; // maximum number to clean in a clean period
@@ -101,6 +121,7 @@ public class RedisRegistrationStore implements RegistrationStore, Startable, Sto
     private final RegistrationSerDes registrationSerDes;
     private final ObservationSerDes observationSerDes;
     private final LwM2mIdentitySerDes identitySerDes;
+    private final RedisRegistrationChangeLog changeLog; // may be null
 
     public RedisRegistrationStore(Pool<Jedis> p) {
         this(new Builder(p).generateDefaultValue());
@@ -112,6 +133,7 @@ public class RedisRegistrationStore implements RegistrationStore, Startable, Sto
         this.endpointByRegistrationIdPrefix = builder.endpointByRegistrationIdPrefix;
         this.endpointBySocketAddressPrefix = builder.endpointBySocketAddressPrefix;
         this.endpointByIdentityPrefix = builder.endpointByIdentityPrefix;
+        this.endpointsByIndexTermPrefix = builder.endpointsByIndexTermPrefix;
         this.endpointLockPrefix = builder.endpointLockPrefix;
         this.observationTokenPrefix = builder.observationTokenPrefix.getBytes(UTF_8);
         this.observationTokensByRegistrationIdPrefix = builder.observationTokensByRegistrationIdPrefix;
@@ -124,6 +146,12 @@ public class RedisRegistrationStore implements RegistrationStore, Startable, Sto
         this.registrationSerDes = builder.registrationSerDes;
         this.observationSerDes = builder.observationSerDes;
         this.identitySerDes = builder.identitySerDes;
+        if (builder.changeLogMaxLength > 0) {
+            this.changeLog = new RedisRegistrationChangeLog(pool, builder.changeLogKey, builder.changeLogMaxLength,
+                    registrationSerDes);
+        } else {
+            this.changeLog = null;
+        }
     }
 
     /* *************** Redis Key utility function **************** */
@@ -158,9 +186,14 @@ public class RedisRegistrationStore implements RegistrationStore, Startable, Sto
             try {
                 lockValue = lock.acquire(j, lockKey);
 
-                // add registration
+                // add registration and update its query indexes atomically
                 byte[] k = toEndpointKey(registration.getEndpoint());
-                byte[] old = j.getSet(k, serializeReg(registration));
+                byte[] old = j.get(k);
+                Registration oldRegistration = old != null ? deserializeReg(old) : null;
+                Transaction transaction = j.multi();
+                transaction.set(k, serializeReg(registration));
+                updateQueryIndexes(transaction, oldRegistration, registration);
+                transaction.exec();
 
                 // add registration: secondary indexes
                 byte[] regid_idx = toRegIdKey(registration.getId());
@@ -172,9 +205,9 @@ public class RedisRegistrationStore implements RegistrationStore, Startable, Sto
 
                 // Add or update expiration
                 addOrUpdateExpiration(j, registration);
+                logChange(j, Type.REGISTERED, registration);
 
-                if (old != null) {
-                    Registration oldRegistration = deserializeReg(old);
+                if (oldRegistration != null) {
                     // remove old secondary index
                     if (!registration.getId().equals(oldRegistration.getId()))
                         j.del(toRegIdKey(oldRegistration.getId()));
@@ -223,11 +256,15 @@ public class RedisRegistrationStore implements RegistrationStore, Startable, Sto
 
                 Registration updatedRegistration = update.update(r);
 
-                // Store the new registration
-                j.set(toEndpointKey(updatedRegistration.getEndpoint()), serializeReg(updatedRegistration));
+                // Store the new registration and update its query indexes atomically
+                Transaction transaction = j.multi();
+                transaction.set(toEndpointKey(updatedRegistration.getEndpoint()), serializeReg(updatedRegistration));
+                updateQueryIndexes(transaction, r, updatedRegistration);
+                transaction.exec();
 
                 // Add or update expiration
                 addOrUpdateExpiration(j, updatedRegistration);
+                logChange(j, Type.UPDATED, updatedRegistration);
 
                 // Update secondary index :
                 // If registration is already associated to this address we don't care as we only want to keep the most
@@ -372,6 +409,59 @@ public class RedisRegistrationStore implements RegistrationStore, Startable, Sto
         }
     }
 
+    @Override
+    public RegistrationPage findRegistrations(RegistrationQuery query) {
+        try (Jedis j = pool.getResource()) {
+            // iterate over the smallest index, other criteria are checked on registration directly
+            byte[] candidatesKey = null;
+            long candidatesCount = 0;
+            for (String term : query.getIndexTerms()) {
+                byte[] key = toIndexTermKey(term);
+                long count = j.zcard(key);
+                if (count == 0) {
+                    return new RegistrationPage(Collections.<Registration> emptyList(), null);
+                }
+                if (candidatesKey == null || count < candidatesCount) {
+                    candidatesKey = key;
+                    candidatesCount = count;
+                }
+            }
+
+            // all members have the same score, so sorted set is sorted by endpoint
+            byte[] min = query.getCursor() == null ? LEX_MIN : toKey(LEX_EXCLUSIVE, query.getCursor().getBytes(UTF_8));
+            // we search one more registration to know if there is a next page.
+            int batchSize = Math.max(query.getLimit() + 1, 16);
+            List<Registration> matches = new ArrayList<>();
+            while (true) {
+                List<byte[]> endpoints = j.zrangeByLex(candidatesKey, min, LEX_MAX, 0, batchSize);
+                if (endpoints.isEmpty()) {
+                    break;
+                }
+                byte[][] keys = new byte[endpoints.size()][];
+                for (int i = 0; i < keys.length; i++) {
+                    keys[i] = toEndpointKey(endpoints.get(i));
+                }
+                for (byte[] data : j.mget(keys)) {
+                    // registration could have been removed since index read
+                    if (data != null) {
+                        Registration registration = deserializeReg(data);
+                        if (query.matches(registration)) {
+                            matches.add(registration);
+                            if (matches.size() > query.getLimit()) {
+                                return query.toPage(matches);
+                            }
+                        }
+                    }
+                }
+                if (endpoints.size() < batchSize) {
+                    break;
+                }
+                min = toKey(LEX_EXCLUSIVE, endpoints.get(endpoints.size() - 1));
+            }
+            return query.toPage(matches);
+        }
+    }
+
     @Override
     public Deregistration removeRegistration(String registrationId) {
         try (Jedis j = pool.getResource()) {
@@ -401,11 +491,16 @@ public class RedisRegistrationStore implements RegistrationStore, Startable, Sto
             if (!removeOnlyIfNotAlive || !r.isAlive(gracePeriod)) {
                 long nbRemoved = j.del(toRegIdKey(r.getId()));
                 if (nbRemoved > 0) {
-                    j.del(toEndpointKey(r.getEndpoint()));
+                    // remove registration and its query indexes atomically
+                    Transaction transaction = j.multi();
+                    transaction.del(toEndpointKey(r.getEndpoint()));
+                    updateQueryIndexes(transaction, r, null);
+                    transaction.exec();
                     Collection<Observation> obsRemoved = unsafeRemoveAllObservations(j, r.getId());
                     removeAddrIndex(j, r);
                     removeIdentityIndex(j, r);
                     removeExpiration(j, r);
+                    logChange(j, removeOnlyIfNotAlive ? Type.EXPIRED : Type.DEREGISTERED, r);
                     return new Deregistration(r, obsRemoved);
                 }
             }
@@ -415,6 +510,29 @@ public class RedisRegistrationStore implements RegistrationStore, Startable, Sto
         }
     }
 
+    @Override
+    public RegistrationChangeLog getChangeLog() {
+        return changeLog;
+    }
+
+    private void logChange(Jedis j, Type type, Registration registration) {
+        if (changeLog != null) {
+            // registration is already stored, so a change log failure must not fail the registration
+            try {
+                changeLog.append(j, type, registration);
+            } catch (JedisException e) {
+                LOG.warn("Unable to log {} change of registration {} [{}]", type, registration.getEndpoint(),
+                        registration.getId(), e);
+                try {
+                    changeLog.appendFailed(j);
+                } catch (JedisException skipError) {
+                    LOG.warn("Unable to skip offset of change not logged, it will be skipped on next change",
+                            skipError);
+                }
+            }
+        }
+    }
+
     private void removeAddrIndex(Jedis j, Registration r) {
         removeSecondaryIndex(j, toRegAddrKey(r.getSocketAddress()), r.getEndpoint());
     }
@@ -442,6 +560,79 @@ public class RedisRegistrationStore implements RegistrationStore, Startable, Sto
         }
     }
 
+    private void updateQueryIndexes(Transaction transaction, Registration previous, Registration current) {
+        // previous and current registration always share the same endpoint.
+        Set<String> previousTerms = previous == null ? Collections.<String> emptySet()
+                : RegistrationQuery.getIndexTerms(previous);
+        Set<String> currentTerms = current == null ? Collections.<String> emptySet()
+                : RegistrationQuery.getIndexTerms(current);
+
+        for (String term : previousTerms) {
+            if (!currentTerms.contains(term)) {
+                transaction.zrem(toIndexTermKey(term), previous.getEndpoint().getBytes(UTF_8));
+            }
+        }
+        for (String term : currentTerms) {
+            if (!previousTerms.contains(term)) {
+                transaction.zadd(toIndexTermKey(term), 0, current.getEndpoint().getBytes(UTF_8));
+            }
+        }
+    }
+
+    /**
+     * Index registrations stored before query indexes existed (e.g. by a previous Leshan version). This is done only
+     * once : when all registrations are indexed, {@link #QUERY_INDEXES_VERSION} is stored in Redis.
+     */
+    private void indexExistingRegistrations() {
+        try (Jedis j = pool.getResource()) {
+            byte[] versionKey = toIndexTermKey("#VERSION");
+            if (QUERY_INDEXES_VERSION.equals(toString(j.get(versionKey)))) {
+                return;
+            }
+
+            long count = 0;
+            ScanParams scanParams = new ScanParams().match(registrationByEndpointPrefix + "*").count(100);
+            byte[] prefix = registrationByEndpointPrefix.getBytes(UTF_8);
+            String cursor = "0";
+            do {
+                ScanResult<byte[]> sr = j.scan(cursor.getBytes(UTF_8), scanParams);
+                for (byte[] key : sr.getResult()) {
+                    if (indexExistingRegistration(j, Arrays.copyOfRange(key, prefix.length, key.length))) {
+                        count++;
+                    }
+                }
+                cursor = sr.getCursor();
+            } while (!"0".equals(cursor));
+
+            j.set(versionKey, QUERY_INDEXES_VERSION.getBytes(UTF_8));
+            LOG.info("{} existing registrations indexed", count);
+        }
+    }
+
+    private boolean indexExistingRegistration(Jedis j, byte[] endpoint) {
+        byte[] lockValue = null;
+        byte[] lockKey = toLockKey(endpoint);
+        try {
+            lockValue = lock.acquire(j, lockKey);
+
+            byte[] data = j.get(toEndpointKey(endpoint));
+            if (data == null) {
+                return false;
+            }
+            // adding index entries which already exist has no effect.
+            Transaction transaction = j.multi();
+            updateQueryIndexes(transaction, null, deserializeReg(data));
+            transaction.exec();
+            return true;
+        } finally {
+            lock.release(j, lockKey, lockValue);
+        }
+    }
+
+    private static String toString(byte[] value) {
+        return value == null ? null : new String(value, UTF_8);
+    }
+
     private void addOrUpdateExpiration(Jedis j, Registration registration) {
         j.zadd(endpointExpirationKey, registration.getExpirationTimeStamp(gracePeriod),
                 registration.getEndpoint().getBytes(UTF_8));
@@ -463,6 +654,10 @@ public class RedisRegistrationStore implements RegistrationStore, Startable, Sto
         return toKey(endpointByIdentityPrefix, identitySerDes.serialize(identity).toString());
     }
 
+    private byte[] toIndexTermKey(String term) {
+        return toKey(endpointsByIndexTermPrefix, term);
+    }
+
     private byte[] toEndpointKey(String endpoint) {
         return toKey(registrationByEndpointPrefix, endpoint);
     }
@@ -693,10 +888,15 @@ public class RedisRegistrationStore implements RegistrationStore, Startable, Sto
     /* *************** Expiration handling **************** */
 
     /**
-     * Start regular cleanup of dead registrations.
+     * Index existing registrations if needed (see {@link RedisRegistrationStore}), then start regular cleanup of dead
+     * registrations.
      */
     @Override
     public synchronized void start() {
+        if (!queryIndexesChecked) {
+            indexExistingRegistrations();
+            queryIndexesChecked = true;
+        }
         if (!started) {
             started = true;
             cleanerTask = schedExecutor.scheduleAtFixedRate(new Cleaner(), cleanPeriod, cleanPeriod, TimeUnit.SECONDS);
@@ -775,10 +975,13 @@ public class RedisRegistrationStore implements RegistrationStore, Startable, Sto
         private String endpointByRegistrationIdPrefix;
         private String endpointBySocketAddressPrefix;
         private String endpointByIdentityPrefix;
+        private String endpointsByIndexTermPrefix;
         private String endpointLockPrefix;
         private String observationTokenPrefix;
         private String observationTokensByRegistrationIdPrefix;
         private String endpointExpirationKey;
+        private String changeLogKey;
+        private long changeLogMaxLength;
 
         /** Time in seconds between 2 cleaning tasks (used to remove expired registration) */
         private long cleanPeriod;
@@ -847,6 +1050,17 @@ public class RedisRegistrationStore implements RegistrationStore, Startable, Sto
             return this;
         }
 
+        /**
+         * Set the key prefix for endpoints lookup by index term. Each key is a sorted set of endpoints used to answer
+         * {@link RegistrationQuery} (see {@link RegistrationQuery#getIndexTerms(Registration)}).
+         * <p>
+         * Default value is {@literal EPS#IDX#}. Should not be {@code null} or empty.
+         */
+        public Builder setEndpointsByIndexTermPrefix(String endpointsByIndexTermPrefix) {
+            this.endpointsByIndexTermPrefix = endpointsByIndexTermPrefix;
+            return this;
+        }
+
         /**
          * Set the key prefix for endpoint locks lookup.
          * <p>
@@ -891,6 +1105,27 @@ public class RedisRegistrationStore implements RegistrationStore, Startable, Sto
             return this;
         }
 
+        /**
+         * Set the key of the Redis Stream used as {@link RegistrationChangeLog}. Key with {@literal #OFFSET} suffix is
+         * also used to store the last offset.
+         * <p>
+         * Default value is {@literal CHANGES#REG}. Should not be {@code null} or empty.
+         */
+        public Builder setChangeLogKey(String changeLogKey) {
+            this.changeLogKey = changeLogKey;
+            return this;
+        }
+
+        /**
+         * Set the approximate maximum number of changes kept in the {@link RegistrationChangeLog}.
+         * <p>
+         * Default value is {@literal 0} which means changes are not recorded.
+         */
+        public Builder setChangeLogMaxLength(long changeLogMaxLength) {
+            this.changeLogMaxLength = changeLogMaxLength;
+            return this;
+        }
+
         /**
          * Set time between 2 periodic task about cleaning expired registration.
          * <p>
@@ -980,10 +1215,12 @@ public class RedisRegistrationStore implements RegistrationStore, Startable, Sto
             this.endpointByRegistrationIdPrefix = "EP#REGID#";
             this.endpointBySocketAddressPrefix = "EP#ADDR#";
             this.endpointByIdentityPrefix = "EP#IDENTITY#";
+            this.endpointsByIndexTermPrefix = "EPS#IDX#";
             this.endpointLockPrefix = "LOCK#EP#";
             this.observationTokenPrefix = "OBS#TKN#";
             this.observationTokensByRegistrationIdPrefix = "TKNS#REGID#";
             this.endpointExpirationKey = "EXP#EP";
+            this.changeLogKey = "CHANGES#REG";
             this.cleanPeriod = 60;
             this.cleanLimit = 500;
             this.gracePeriod = 0;
@@ -1039,6 +1276,10 @@ public class RedisRegistrationStore implements RegistrationStore, Startable, Sto
                 throw new IllegalArgumentException("endpointByIdentityPrefix should not be empty");
             }
 
+            if (this.endpointsByIndexTermPrefix == null || this.endpointsByIndexTermPrefix.isEmpty()) {
+                throw new IllegalArgumentException("endpointsByIndexTermPrefix should not be empty");
+            }
+
             if (this.endpointLockPrefix == null || this.endpointLockPrefix.isEmpty()) {
                 throw new IllegalArgumentException("endpointLockPrefix should not be empty");
             }
@@ -1056,11 +1297,19 @@ public class RedisRegistrationStore implements RegistrationStore, Startable, Sto
                 throw new IllegalArgumentException("endpointExpirationKey should not be empty");
             }
 
+            if (this.changeLogKey == null || this.changeLogKey.isEmpty()) {
+                throw new IllegalArgumentException("changeLogKey should not be empty");
+            }
+
+            if (this.changeLogMaxLength < 0) {
+                throw new IllegalArgumentException("changeLogMaxLength should not be negative");
+            }
+
             // Make sure same prefix is not used more than once
             String[] prefixes = new String[] { this.registrationByEndpointPrefix, this.endpointByRegistrationIdPrefix,
-                    this.endpointBySocketAddressPrefix, this.endpointByIdentityPrefix, this.endpointLockPrefix,
-                    this.observationTokenPrefix, this.observationTokensByRegistrationIdPrefix,
-                    this.endpointExpirationKey };
+                    this.endpointBySocketAddressPrefix, this.endpointByIdentityPrefix, this.endpointsByIndexTermPrefix,
+                    this.endpointLockPrefix, this.observationTokenPrefix, this.observationTokensByRegistrationIdPrefix,
+                    this.endpointExpirationKey, this.changeLogKey };
             Set<String> uniquePrefixes = new HashSet<>();
 
             for (String prefix : prefixes) {
@@ -1074,11 +1323,13 @@ public class RedisRegistrationStore implements RegistrationStore, Startable, Sto
                 this.endpointByRegistrationIdPrefix = this.prefix + this.endpointByRegistrationIdPrefix;
                 this.endpointBySocketAddressPrefix = this.prefix + this.endpointBySocketAddressPrefix;
                 this.endpointByIdentityPrefix = this.prefix + this.endpointByIdentityPrefix;
+                this.endpointsByIndexTermPrefix = this.prefix + this.endpointsByIndexTermPrefix;
                 this.endpointLockPrefix = this.prefix + this.endpointLockPrefix;
                 this.observationTokenPrefix = this.prefix + this.observationTokenPrefix;
                 this.observationTokensByRegistrationIdPrefix = this.prefix
                         + this.observationTokensByRegistrationIdPrefix;
                 this.endpointExpirationKey = this.prefix + this.endpointExpirationKey;
+                this.changeLogKey = this.prefix + this.changeLogKey;
             }
 
             generateDefaultValue();
@@ -20,6 +20,7 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -28,6 +29,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.WeakHashMap;
 
 import org.eclipse.leshan.core.LwM2m.LwM2mVersion;
 import org.eclipse.leshan.core.LwM2m.Version;
@@ -61,6 +63,10 @@ public class RegistrationSerDes {
     private final AttributeParser attributeParser;
     private final LwM2mPeerSerDes peerSerDes;
 
+    // Object links are shared by registrations with same links (see RegistrationDataInterner), so their JSON
+    // representation is computed once by links array. Weak keys let unused links be garbage collected.
+    private final Map<Link[], ArrayNode> linksCache = Collections.synchronizedMap(new WeakHashMap<>());
+
     public RegistrationSerDes(LwM2mPeerSerDes peerSerDes) {
         // Define all supported Attributes
         Collection<AttributeModel<?>> suppportedAttributes = new ArrayList<AttributeModel<?>>();
@@ -83,6 +89,14 @@ public class RegistrationSerDes {
     }
 
     public JsonNode jSerialize(Registration r) {
+        return jSerialize(r, false);
+    }
+
+    /**
+     * @param shareLinks if <code>true</code> the returned node reuses the cached object links JSON node, so it must not
+     *        be modified.
+     */
+    private JsonNode jSerialize(Registration r, boolean shareLinks) {
         ObjectNode o = JsonNodeFactory.instance.objectNode();
         o.put("regDate", r.getRegistrationDate().getTime());
         // TODO handle backward compatibility ?
@@ -100,23 +114,8 @@ public class RegistrationSerDes {
         o.put("regId", r.getId());
         o.put("epUri", r.getLastEndpointUsed().toString());
 
-        ArrayNode links = JsonNodeFactory.instance.arrayNode();
-        for (Link l : r.getObjectLinks()) {
-            ObjectNode ol = JsonNodeFactory.instance.objectNode();
-            ol.put("url", l.getUriReference());
-            ObjectNode at = JsonNodeFactory.instance.objectNode();
-            for (Attribute a : l.getAttributes()) {
-                if (a.hasValue()) {
-                    at.put(a.getName(), a.getCoreLinkValue());
-                } else {
-                    at.set(a.getName(), null);
-
-                }
-            }
-            ol.set("at", at);
-            links.add(ol);
-        }
-        o.set("objLink", links);
+        ArrayNode links = serializeObjectLinks(r.getObjectLinks());
+        o.set("objLink", shareLinks ? links : links.deepCopy());
         ObjectNode addAttr = JsonNodeFactory.instance.objectNode();
         for (Map.Entry<String, String> e : r.getAdditionalRegistrationAttributes().entrySet()) {
             addAttr.put(e.getKey(), e.getValue());
@@ -156,12 +155,36 @@ public class RegistrationSerDes {
         return o;
     }
 
+    private ArrayNode serializeObjectLinks(Link[] objectLinks) {
+        ArrayNode links = linksCache.get(objectLinks);
+        if (links == null) {
+            links = JsonNodeFactory.instance.arrayNode();
+            for (Link l : objectLinks) {
+                ObjectNode ol = JsonNodeFactory.instance.objectNode();
+                ol.put("url", l.getUriReference());
+                ObjectNode at = JsonNodeFactory.instance.objectNode();
+                for (Attribute a : l.getAttributes()) {
+                    if (a.hasValue()) {
+                        at.put(a.getName(), a.getCoreLinkValue());
+                    } else {
+                        at.set(a.getName(), null);
+
+                    }
+                }
+                ol.set("at", at);
+                links.add(ol);
+            }
+            linksCache.put(objectLinks, links);
+        }
+        return links;
+    }
+
     public String sSerialize(Registration r) {
-        return jSerialize(r).toString();
+        return jSerialize(r, true).toString();
     }
 
     public byte[] bSerialize(Registration r) {
-        return jSerialize(r).toString().getBytes();
+        return jSerialize(r, true).toString().getBytes();
     }
 
     public Registration deserialize(JsonNode jObj) {
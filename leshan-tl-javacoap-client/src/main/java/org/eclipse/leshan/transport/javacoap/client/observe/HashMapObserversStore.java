@@ -16,16 +16,31 @@
 package org.eclipse.leshan.transport.javacoap.client.observe;
 
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
+import org.eclipse.leshan.client.notification.ObserveRelationIndex;
+import org.eclipse.leshan.core.node.InvalidLwM2mPathException;
+import org.eclipse.leshan.core.node.LwM2mPath;
+
 import com.mbed.coap.packet.CoapRequest;
+import com.mbed.coap.packet.Method;
 import com.mbed.coap.packet.Opaque;
 
+/**
+ * An {@link ObserversStore} which keeps observe requests in memory and indexes them by observed {@link LwM2mPath}, so
+ * affected observers are found without iterating over all of them.
+ */
 public class HashMapObserversStore implements ObserversStore {
 
     private final ConcurrentHashMap<Object, CoapRequest> store = new ConcurrentHashMap<>();
+    private final ObserveRelationIndex<Object> index = new ObserveRelationIndex<>();
 
     @Override
     public Iterator<CoapRequest> iterator() {
@@ -34,12 +49,57 @@ public class HashMapObserversStore implements ObserversStore {
 
     @Override
     public void add(CoapRequest observeRequest) {
-        store.put(toKey(observeRequest), observeRequest);
+        Object key = toKey(observeRequest);
+        synchronized (store) {
+            CoapRequest previous = store.put(key, observeRequest);
+            if (previous != null) {
+                index.remove(key, getObservedPaths(previous));
+            }
+            index.add(key, getObservedPaths(observeRequest));
+        }
     }
 
     @Override
     public void remove(CoapRequest observeRequest) {
-        store.remove(toKey(observeRequest));
+        Object key = toKey(observeRequest);
+        synchronized (store) {
+            CoapRequest previous = store.remove(key);
+            if (previous != null) {
+                index.remove(key, getObservedPaths(previous));
+            }
+        }
+    }
+
+    @Override
+    public Collection<CoapRequest> getObservers(LwM2mPath... changedPaths) {
+        Set<Object> keys = index.getRelations(changedPaths);
+        if (keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<CoapRequest> result = new ArrayList<>(keys.size());
+        for (Object key : keys) {
+            CoapRequest observeRequest = store.get(key);
+            if (observeRequest != null) {
+                result.add(observeRequest);
+            }
+        }
+        return result;
+    }
+
+    protected List<LwM2mPath> getObservedPaths(CoapRequest observeRequest) {
+        if (observeRequest.getMethod() == Method.GET) {
+            // handle "single observation"
+            try {
+                return Collections.singletonList(new LwM2mPath(observeRequest.options().getUriPath()));
+            } catch (InvalidLwM2mPathException e) {
+                return Collections.emptyList();
+            }
+        } else if (observeRequest.getMethod() == Method.FETCH) {
+            // handle "composite observation"
+            return observeRequest.getTransContext().getOrDefault(LwM2mKeys.LESHAN_OBSERVED_PATHS,
+                    Collections.emptyList());
+        }
+        return Collections.emptyList();
     }
 
     protected Object toKey(CoapRequest observeRequest) {
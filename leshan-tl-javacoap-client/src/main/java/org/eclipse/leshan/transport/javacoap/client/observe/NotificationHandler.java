@@ -15,16 +15,12 @@
  *******************************************************************************/
 package org.eclipse.leshan.transport.javacoap.client.observe;
 
-import java.util.Collections;
-import java.util.List;
-
 import org.eclipse.leshan.client.resource.LwM2mObjectEnabler;
 import org.eclipse.leshan.client.resource.listener.ObjectsListener;
 import org.eclipse.leshan.core.node.LwM2mPath;
 
 import com.mbed.coap.packet.CoapRequest;
 import com.mbed.coap.packet.CoapResponse;
-import com.mbed.coap.packet.Method;
 import com.mbed.coap.utils.Service;
 
 public class NotificationHandler implements ObjectsListener {
@@ -39,30 +35,7 @@ public class NotificationHandler implements ObjectsListener {
 
     @Override
     public void resourceChanged(LwM2mPath... paths) {
-        observersManager.sendObservation((observeRequest) -> {
-
-            if (observeRequest.getMethod() == Method.GET) {
-                // handle "single observation"
-                LwM2mPath observedURI = new LwM2mPath(observeRequest.options().getUriPath());
-                for (LwM2mPath resourceChangedURI : paths) {
-                    if (resourceChangedURI.startWith(observedURI)) {
-                        return true;
-                    }
-                }
-            } else if (observeRequest.getMethod() == Method.FETCH) {
-                // handle "composite observation"
-                List<LwM2mPath> observerdURIs = observeRequest.getTransContext()
-                        .getOrDefault(LwM2mKeys.LESHAN_OBSERVED_PATHS, Collections.emptyList());
-                for (LwM2mPath observedURI : observerdURIs) {
-                    for (LwM2mPath resourceChangedURI : paths) {
-                        if (resourceChangedURI.startWith(observedURI)) {
-                            return true;
-                        }
-                    }
-                }
-            }
-            return false;
-        }, responseProvider);
+        observersManager.sendObservation(paths, responseProvider);
     }
 
     @Override
@@ -25,6 +25,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import java.util.stream.StreamSupport;
 
+import org.eclipse.leshan.core.node.LwM2mPath;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -89,6 +90,12 @@ public class ObserversManager implements Filter.SimpleFilter<CoapRequest, CoapRe
                 .forEach(coapRequest -> sendObservation(coapRequest, responseBuilder));
     }
 
+    public void sendObservation(LwM2mPath[] changedPaths, Service<CoapRequest, CoapResponse> responseBuilder) {
+        for (CoapRequest coapRequest : observersStore.getObservers(changedPaths)) {
+            sendObservation(coapRequest, responseBuilder);
+        }
+    }
+
     private void sendObservation(CoapRequest observeRequest, Service<CoapRequest, CoapResponse> responseBuilder) {
         int currentObserveSequence = observeSeq.incrementAndGet();
         responseBuilder.apply(observeRequest)
@@ -15,11 +15,54 @@
  *******************************************************************************/
 package org.eclipse.leshan.transport.javacoap.client.observe;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.leshan.core.node.LwM2mPath;
+
 import com.mbed.coap.packet.CoapRequest;
+import com.mbed.coap.packet.Method;
 
 public interface ObserversStore extends Iterable<CoapRequest> {
 
     void add(CoapRequest observeRequest);
 
     void remove(CoapRequest observeRequest);
+
+    /**
+     * Get observe requests affected by a change of at least one of the given paths.
+     * <p>
+     * Default implementation iterates over all observe requests, implementations should rather index them by observed
+     * path.
+     *
+     * @param changedPaths the changed paths
+     * @return affected observe requests
+     */
+    default Collection<CoapRequest> getObservers(LwM2mPath... changedPaths) {
+        List<CoapRequest> result = new ArrayList<>();
+        for (CoapRequest observeRequest : this) {
+            List<LwM2mPath> observedPaths;
+            if (observeRequest.getMethod() == Method.GET) {
+                // handle "single observation"
+                observedPaths = Collections.singletonList(new LwM2mPath(observeRequest.options().getUriPath()));
+            } else if (observeRequest.getMethod() == Method.FETCH) {
+                // handle "composite observation"
+                observedPaths = observeRequest.getTransContext().getOrDefault(LwM2mKeys.LESHAN_OBSERVED_PATHS,
+                        Collections.emptyList());
+            } else {
+                continue;
+            }
+            observed: for (LwM2mPath observedPath : observedPaths) {
+                for (LwM2mPath changedPath : changedPaths) {
+                    if (changedPath.startWith(observedPath)) {
+                        result.add(observeRequest);
+                        break observed;
+                    }
+                }
+            }
+        }
+        return result;
+    }
 }
@@ -20,6 +20,7 @@ import static java.util.concurrent.CompletableFuture.completedFuture;
 import java.util.concurrent.CompletableFuture;
 
 import org.eclipse.leshan.client.endpoint.ClientEndpointToolbox;
+import org.eclipse.leshan.client.notification.NotificationCache;
 import org.eclipse.leshan.client.request.DownlinkRequestReceiver;
 import org.eclipse.leshan.client.servers.LwM2mServer;
 import org.eclipse.leshan.core.ResponseCode;
@@ -139,11 +140,12 @@ public class ObjectResource extends LwM2mClientCoapResource {
                 ObserveResponse response = requestReceiver.requestReceived(identity, observeRequest).getResponse();
                 if (response.getCode() == ResponseCode.CONTENT) {
                     ContentFormat format = getContentFormat(observeRequest, requestedContentFormat);
+                    LwM2mPath path = getPath(URI);
                     return responseWithPayload( //
                             response.getCode(), //
                             format, //
-                            toolbox.getEncoder().encode(response.getContent(), format, getPath(URI),
-                                    toolbox.getModel()));
+                            NotificationCache.encode(response.getContent(), format, path, () -> toolbox.getEncoder()
+                                    .encode(response.getContent(), format, path, toolbox.getModel())));
                 } else {
                     return errorMessage(response.getCode(), response.getErrorMessage());
                 }
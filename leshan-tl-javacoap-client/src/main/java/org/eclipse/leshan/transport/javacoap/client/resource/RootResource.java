@@ -22,6 +22,7 @@ import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 import org.eclipse.leshan.client.endpoint.ClientEndpointToolbox;
+import org.eclipse.leshan.client.notification.NotificationCache;
 import org.eclipse.leshan.client.request.DownlinkRequestReceiver;
 import org.eclipse.leshan.client.servers.LwM2mServer;
 import org.eclipse.leshan.core.ResponseCode;
@@ -114,11 +115,12 @@ public class RootResource extends LwM2mClientCoapResource {
             ObserveCompositeResponse response = requestReceiver.requestReceived(identity, observeRequest).getResponse();
 
             if (response.getCode() == ResponseCode.CONTENT) {
+                ContentFormat format = responseContentFormat;
                 return responseWithPayload( //
                         response.getCode(), //
-                        responseContentFormat, //
-                        toolbox.getEncoder().encodeNodes(response.getContent(), responseContentFormat,
-                                toolbox.getModel()));
+                        format, //
+                        NotificationCache.encode(response.getContent(), format, null, () -> toolbox.getEncoder()
+                                .encodeNodes(response.getContent(), format, toolbox.getModel())));
             } else {
                 return errorMessage(response.getCode(), response.getErrorMessage());
             }
@@ -16,6 +16,8 @@
 package org.eclipse.leshan.transport.javacoap.server.endpoint;
 
 import java.net.URI;
+import java.util.Collections;
+import java.util.List;
 import java.util.SortedMap;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
@@ -33,6 +35,8 @@ import java.util.concurrent.atomic.AtomicLong;
 import org.eclipse.leshan.core.endpoint.EndpointUriUtil;
 import org.eclipse.leshan.core.endpoint.Protocol;
 import org.eclipse.leshan.core.observation.Observation;
+import org.eclipse.leshan.core.peer.IpPeer;
+import org.eclipse.leshan.core.peer.LwM2mPeer;
 import org.eclipse.leshan.core.request.DownlinkRequest;
 import org.eclipse.leshan.core.request.exception.RequestCanceledException;
 import org.eclipse.leshan.core.request.exception.SendFailedException;
@@ -46,6 +50,7 @@ import org.eclipse.leshan.server.endpoint.LwM2mServerEndpoint;
 import org.eclipse.leshan.server.endpoint.ServerEndpointToolbox;
 import org.eclipse.leshan.server.profile.ClientProfile;
 import org.eclipse.leshan.server.request.LowerLayerConfig;
+import org.eclipse.leshan.transport.javacoap.server.transport.ReusePortTransportGroup;
 
 import com.mbed.coap.exception.CoapTimeoutException;
 import com.mbed.coap.packet.CoapRequest;
@@ -54,7 +59,8 @@ import com.mbed.coap.server.CoapServer;
 
 public class JavaCoapServerEndpoint implements LwM2mServerEndpoint {
 
-    private final CoapServer coapServer;
+    private final List<CoapServer> coapServers;
+    private final ReusePortTransportGroup transportGroup;
     private final ServerCoapMessageTranslator translator;
     private final ServerEndpointToolbox toolbox;
 
@@ -70,7 +76,24 @@ public class JavaCoapServerEndpoint implements LwM2mServerEndpoint {
 
     public JavaCoapServerEndpoint(CoapServer coapServer, ServerCoapMessageTranslator translator,
             ServerEndpointToolbox toolbox) {
-        this.coapServer = coapServer;
+        this(Collections.singletonList(coapServer), null, translator, toolbox);
+    }
+
+    /**
+     * Create an endpoint backed by several {@link CoapServer}, each of them using one transport of the given
+     * {@link ReusePortTransportGroup}.
+     *
+     * @param coapServers servers ordered as transports of the group.
+     * @param transportGroup group used to know which server should send a request to a given peer. Can be null if there
+     *        is only 1 server.
+     */
+    public JavaCoapServerEndpoint(List<CoapServer> coapServers, ReusePortTransportGroup transportGroup,
+            ServerCoapMessageTranslator translator, ServerEndpointToolbox toolbox) {
+        Validate.notEmpty(coapServers);
+        Validate.isTrue(coapServers.size() == 1 || transportGroup != null,
+                "transport group is needed when there is several coap servers");
+        this.coapServers = coapServers;
+        this.transportGroup = transportGroup;
         this.translator = translator;
         this.toolbox = toolbox;
     }
@@ -87,7 +110,7 @@ public class JavaCoapServerEndpoint implements LwM2mServerEndpoint {
 
     @Override
     public URI getURI() {
-        return EndpointUriUtil.createUri(getProtocol().getUriScheme(), coapServer.getLocalSocketAddress());
+        return EndpointUriUtil.createUri(getProtocol().getUriScheme(), coapServers.get(0).getLocalSocketAddress());
     }
 
     @Override
@@ -162,7 +185,8 @@ public class JavaCoapServerEndpoint implements LwM2mServerEndpoint {
         applyUserConfig(lowerLayerConfig, coapRequest);
 
         // Send CoAP Request
-        CompletableFuture<CoapResponse> coapResponseFuture = coapServer.clientService().apply(coapRequest);
+        CompletableFuture<CoapResponse> coapResponseFuture = getCoapServer(destination).clientService()
+                .apply(coapRequest);
 
         // On response, create LWM2M Response from CoAP response
         lwm2mResponseFuture = coapResponseFuture.thenApply(coapResponse -> translator.createLwM2mResponse(destination,
@@ -174,6 +198,22 @@ public class JavaCoapServerEndpoint implements LwM2mServerEndpoint {
         return lwm2mResponseFuture;
     }
 
+    /**
+     * @return the {@link CoapServer} to use to send request to the given destination. When several sockets share the
+     *         same port, this must be the one which receives data from this destination, else the response will not be
+     *         matched.
+     */
+    protected CoapServer getCoapServer(ClientProfile destination) {
+        if (transportGroup == null) {
+            return coapServers.get(0);
+        }
+        LwM2mPeer peer = destination.getTransportData();
+        if (peer instanceof IpPeer) {
+            return coapServers.get(transportGroup.getTransportIndex(((IpPeer) peer).getSocketAddress()));
+        }
+        return coapServers.get(0);
+    }
+
     public void timeoutAfter(CompletableFuture<?> future, long timeoutInMs) {
         // schedule a timeout task to stop future after given amount of time
         ScheduledFuture<?> timeoutTask = executor.schedule(() -> {
@@ -18,11 +18,14 @@ package org.eclipse.leshan.transport.javacoap.server.endpoint;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipse.leshan.core.endpoint.Protocol;
+import org.eclipse.leshan.core.util.Validate;
 import org.eclipse.leshan.server.LeshanServer;
 import org.eclipse.leshan.server.endpoint.LwM2mServerEndpoint;
 import org.eclipse.leshan.server.endpoint.LwM2mServerEndpointsProvider;
@@ -34,6 +37,10 @@ import org.eclipse.leshan.transport.javacoap.server.observation.CoapNotification
 import org.eclipse.leshan.transport.javacoap.server.observation.LwM2mObservationsStore;
 import org.eclipse.leshan.transport.javacoap.server.resource.RegistrationResource;
 import org.eclipse.leshan.transport.javacoap.server.resource.SendResource;
+import org.eclipse.leshan.transport.javacoap.server.transport.ReusePortDatagramTransport;
+import org.eclipse.leshan.transport.javacoap.server.transport.ReusePortTransportGroup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.mbed.coap.packet.CoapRequest;
 import com.mbed.coap.packet.CoapResponse;
@@ -41,17 +48,54 @@ import com.mbed.coap.server.CoapServer;
 import com.mbed.coap.server.CoapServerBuilder;
 import com.mbed.coap.server.RouterService;
 import com.mbed.coap.server.filter.TokenGeneratorFilter;
+import com.mbed.coap.transport.CoapTransport;
 import com.mbed.coap.transport.udp.DatagramSocketTransport;
 import com.mbed.coap.utils.Service;
 
 public class JavaCoapServerEndpointsProvider implements LwM2mServerEndpointsProvider {
 
-    private CoapServer coapServer;
+    private static final Logger LOG = LoggerFactory.getLogger(JavaCoapServerEndpointsProvider.class);
+
+    private final List<CoapServer> coapServers = new ArrayList<>();
     private final InetSocketAddress localAddress;
+    private final int nbSockets;
+    private final int maxMessageSize;
     private JavaCoapServerEndpoint lwm2mEndpoint;
 
     public JavaCoapServerEndpointsProvider(InetSocketAddress localAddress) {
+        this(localAddress, 1);
+    }
+
+    /**
+     * Create a provider for an endpoint using several UDP sockets bound to the same address.
+     * <p>
+     * Sockets share the port using {@code SO_REUSEPORT} socket option, so the OS kernel spreads incoming traffic
+     * between them. Each socket has its own receiver thread and its own java-coap {@link CoapServer}, all hidden behind
+     * 1 {@link LwM2mServerEndpoint}.
+     * <p>
+     * If {@code SO_REUSEPORT} is not supported by the platform, only 1 socket is used.
+     *
+     * @param localAddress local address of the endpoint
+     * @param nbSockets number of sockets/receiver threads to use.
+     */
+    public JavaCoapServerEndpointsProvider(InetSocketAddress localAddress, int nbSockets) {
+        this(localAddress, nbSockets, ReusePortTransportGroup.DEFAULT_MAX_MESSAGE_SIZE);
+    }
+
+    /**
+     * Create a provider for an endpoint using several UDP sockets bound to the same address.
+     *
+     * @param localAddress local address of the endpoint
+     * @param nbSockets number of sockets/receiver threads to use.
+     * @param maxMessageSize maximum size of CoAP messages, bigger datagrams are dropped.
+     * @see #JavaCoapServerEndpointsProvider(InetSocketAddress, int)
+     */
+    public JavaCoapServerEndpointsProvider(InetSocketAddress localAddress, int nbSockets, int maxMessageSize) {
+        Validate.isTrue(nbSockets > 0, "number of sockets must be greater than 0");
+        Validate.isTrue(maxMessageSize > 0, "max message size must be greater than 0");
         this.localAddress = localAddress;
+        this.nbSockets = nbSockets;
+        this.maxMessageSize = maxMessageSize;
     }
 
     @Override
@@ -70,21 +114,47 @@ public class JavaCoapServerEndpointsProvider implements LwM2mServerEndpointsProv
                 .any("/rd", registerResource)//
                 .any("/dp",
                         new SendResource(requestReceiver, toolbox.getDecoder(), toolbox.getProfileProvider(),
-                                endpointUriProvider))//
+                                endpointUriProvider, toolbox.getMetrics()))//
                 .build();
 
-        // Create CoAP Server
-        coapServer = createCoapServer() //
-                .transport(new DatagramSocketTransport(localAddress)) //
-                .route(resources) //
-                .notificationsReceiver(new CoapNotificationReceiver(coapServer, notificationReceiver,
-                        server.getRegistrationStore(), server.getModelProvider(), toolbox.getDecoder())) //
-                .observationsStore(new LwM2mObservationsStore(server.getRegistrationStore(), notificationReceiver)) //
-                .build();
-        endpointUriProvider.setCoapServer(coapServer);
+        // Create CoAP Server(s)
+        coapServers.clear();
+        ReusePortTransportGroup transportGroup = null;
+        if (nbSockets > 1 && ReusePortTransportGroup.isReusePortSupported()) {
+            transportGroup = new ReusePortTransportGroup(localAddress, nbSockets,
+                    ReusePortTransportGroup.DEFAULT_MAX_PEER_AFFINITY_ENTRIES, maxMessageSize);
+            for (ReusePortDatagramTransport transport : transportGroup.getTransports()) {
+                coapServers.add(createCoapServer(transport, resources, notificationReceiver, toolbox, server));
+            }
+        } else {
+            if (nbSockets > 1) {
+                LOG.warn("SO_REUSEPORT is not supported on this platform : only 1 socket will be used for {}",
+                        localAddress);
+            }
+            coapServers.add(createCoapServer(new DatagramSocketTransport(localAddress), resources, notificationReceiver,
+                    toolbox, server));
+        }
+        endpointUriProvider.setCoapServer(coapServers.get(0));
 
-        lwm2mEndpoint = new JavaCoapServerEndpoint(coapServer, new ServerCoapMessageTranslator(), toolbox);
+        lwm2mEndpoint = new JavaCoapServerEndpoint(coapServers, transportGroup, new ServerCoapMessageTranslator(),
+                toolbox);
+
+    }
 
+    protected CoapServer createCoapServer(CoapTransport transport, Service<CoapRequest, CoapResponse> resources,
+            LwM2mNotificationReceiver notificationReceiver, ServerEndpointToolbox toolbox, LeshanServer server) {
+        // coap server is not created yet, so receiver gets it lazily to retrieve remaining blocks of notifications.
+        AtomicReference<CoapServer> coapServer = new AtomicReference<>();
+        coapServer.set(createCoapServer() //
+                .transport(transport) //
+                .maxMessageSize(maxMessageSize) //
+                .route(resources) //
+                .notificationsReceiver(new CoapNotificationReceiver(coapServer::get, notificationReceiver,
+                        server.getRegistrationStore(), server.getModelProvider(), toolbox.getDecoder(),
+                        toolbox.getMetrics())) //
+                .observationsStore(new LwM2mObservationsStore(server.getRegistrationStore(), notificationReceiver)) //
+                .build());
+        return coapServer.get();
     }
 
     protected CoapServerBuilder createCoapServer() {
@@ -94,10 +164,7 @@ public class JavaCoapServerEndpointsProvider implements LwM2mServerEndpointsProv
     @Override
     public List<LwM2mServerEndpoint> getEndpoints() {
         // java-coap CoapServer support only 1 socket/endpoint by server.
-        // So for now this endpoint provider support only 1 endpoint.
-        // If we want to support more, we need to :
-        // - either create serveral coap server by provider
-        // - or create a kind or custom transport proxy with several transport.
+        // When several sockets are used, they share the same address and so are exposed as 1 endpoint.
         if (lwm2mEndpoint == null) {
             return Collections.emptyList();
         } else {
@@ -116,7 +183,10 @@ public class JavaCoapServerEndpointsProvider implements LwM2mServerEndpointsProv
     @Override
     public void start() {
         try {
-            coapServer.start();
+            // start in order : when ephemeral port is used, first server chooses the port used by others.
+            for (CoapServer coapServer : coapServers) {
+                coapServer.start();
+            }
         } catch (IOException e) {
             throw new IllegalStateException("Unable to start java-coap endpoint", e);
         }
@@ -127,12 +197,16 @@ public class JavaCoapServerEndpointsProvider implements LwM2mServerEndpointsProv
         // TODO in Leshan stop means "we can restart after a stop"
         // but in java-coap : There is no restart after stop, need to create new instance to start again.
         // I don't know if we should remove stop from Leshan API ?
-        coapServer.stop();
+        for (CoapServer coapServer : coapServers) {
+            coapServer.stop();
+        }
     }
 
     @Override
     public void destroy() {
         // TODO there is no destroy, so we just stop ?
-        coapServer.stop();
+        for (CoapServer coapServer : coapServers) {
+            coapServer.stop();
+        }
     }
 }
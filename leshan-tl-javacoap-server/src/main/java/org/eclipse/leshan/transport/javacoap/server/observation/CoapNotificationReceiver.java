@@ -19,6 +19,7 @@ import java.net.InetSocketAddress;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import org.eclipse.leshan.core.ResponseCode;
 import org.eclipse.leshan.core.node.TimestampedLwM2mNode;
@@ -35,6 +36,7 @@ import org.eclipse.leshan.core.request.exception.InvalidResponseException;
 import org.eclipse.leshan.core.response.AbstractLwM2mResponse;
 import org.eclipse.leshan.core.response.ObserveCompositeResponse;
 import org.eclipse.leshan.core.response.ObserveResponse;
+import org.eclipse.leshan.server.metrics.ServerMetrics;
 import org.eclipse.leshan.server.model.LwM2mModelProvider;
 import org.eclipse.leshan.server.observation.LwM2mNotificationReceiver;
 import org.eclipse.leshan.server.profile.ClientProfile;
@@ -50,20 +52,32 @@ import com.mbed.coap.server.observe.NotificationsReceiver;
 
 public class CoapNotificationReceiver implements NotificationsReceiver {
 
-    private final CoapServer coapServer;
+    private final Supplier<CoapServer> coapServer;
     private final LwM2mNotificationReceiver notificationReceiver;
     private final RegistrationStore registrationStore;
     private final LwM2mModelProvider modelProvider;
     private final LwM2mDecoder decoder;
+    private final ServerMetrics metrics;
 
     public CoapNotificationReceiver(CoapServer coapServer, LwM2mNotificationReceiver notificationReceiver,
-            RegistrationStore registrationStore, LwM2mModelProvider modelProvider, LwM2mDecoder decoder) {
-        super();
+            RegistrationStore registrationStore, LwM2mModelProvider modelProvider, LwM2mDecoder decoder,
+            ServerMetrics metrics) {
+        this(() -> coapServer, notificationReceiver, registrationStore, modelProvider, decoder, metrics);
+    }
+
+    /**
+     * @param coapServer supplier of the {@link CoapServer} used to retrieve remaining blocks of a notification. As the
+     *        {@link CoapServer} is created using this receiver, it is only called when a notification is received.
+     */
+    public CoapNotificationReceiver(Supplier<CoapServer> coapServer, LwM2mNotificationReceiver notificationReceiver,
+            RegistrationStore registrationStore, LwM2mModelProvider modelProvider, LwM2mDecoder decoder,
+            ServerMetrics metrics) {
         this.coapServer = coapServer;
         this.notificationReceiver = notificationReceiver;
         this.registrationStore = registrationStore;
         this.modelProvider = modelProvider;
         this.decoder = decoder;
+        this.metrics = metrics;
     }
 
     @Override
@@ -87,7 +101,7 @@ public class CoapNotificationReceiver implements NotificationsReceiver {
 
         // In case of block transfer, call to retrieve rest of payload.
         CompletableFuture<Opaque> payload = NotificationsReceiver.retrieveRemainingBlocks(resourceUriPath, coapResponse,
-                req -> coapServer.clientService().apply(req));
+                req -> coapServer.get().clientService().apply(req));
 
         // Handle CoAP Notification
         payload.whenComplete((p, e) -> {
@@ -108,8 +122,9 @@ public class CoapNotificationReceiver implements NotificationsReceiver {
                     notificationReceiver.onError(observation, sender, clientProfile,
                             e instanceof Exception ? (Exception) e : new Exception(e));
                 } else if (p != null) {
+                    // use whole payload, in case of block transfer
                     AbstractLwM2mResponse observeResponse = createLwM2mResponseForNotification(observation,
-                            coapResponse.asResponse(), clientProfile);
+                            coapResponse.asResponse().withPayload(p), clientProfile);
                     if (observation instanceof SingleObservation) {
 
                         // Single Observe Notification
@@ -148,10 +163,12 @@ public class CoapNotificationReceiver implements NotificationsReceiver {
         if (observation instanceof SingleObservation) {
             SingleObservation singleObservation = (SingleObservation) observation;
 
-            ContentFormat contentFormat = ContentFormat.fromCode(coapResponse.options().getContentFormat());
+            ContentFormat contentFormat = getContentFormat(coapResponse);
+            long start = System.nanoTime();
             List<TimestampedLwM2mNode> timestampedNodes = decoder.decodeTimestampedData(
                     coapResponse.getPayload().getBytes(), contentFormat, singleObservation.getPath(),
                     profile.getModel());
+            recordDecodingTime(contentFormat, start);
 
             // create lwm2m response
             if (timestampedNodes.size() == 1 && !timestampedNodes.get(0).isTimestamped()) {
@@ -163,10 +180,12 @@ public class CoapNotificationReceiver implements NotificationsReceiver {
         } else if (observation instanceof CompositeObservation) {
             CompositeObservation compositeObservation = (CompositeObservation) observation;
 
-            ContentFormat contentFormat = ContentFormat.fromCode(coapResponse.options().getContentFormat());
+            ContentFormat contentFormat = getContentFormat(coapResponse);
+            long start = System.nanoTime();
             TimestampedLwM2mNodes timestampedNodes = decoder.decodeTimestampedNodes(
                     coapResponse.getPayload().getBytes(), contentFormat, compositeObservation.getPaths(),
                     profile.getModel());
+            recordDecodingTime(contentFormat, start);
 
             if (timestampedNodes.getTimestamps().size() == 1
                     && timestampedNodes.getTimestamps().iterator().next() == null) {
@@ -181,4 +200,13 @@ public class CoapNotificationReceiver implements NotificationsReceiver {
         return null;
     }
 
+    private ContentFormat getContentFormat(CoapResponse coapResponse) {
+        Short code = coapResponse.options().getContentFormat();
+        return code == null ? null : ContentFormat.fromCode(code);
+    }
+
+    private void recordDecodingTime(ContentFormat contentFormat, long start) {
+        metrics.recordDuration(ServerMetrics.NOTIFICATION_DECODE,
+                contentFormat == null ? "none" : contentFormat.getName(), System.nanoTime() - start);
+    }
 }
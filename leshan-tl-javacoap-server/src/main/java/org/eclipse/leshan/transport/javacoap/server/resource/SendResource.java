@@ -29,6 +29,7 @@ import org.eclipse.leshan.core.request.SendRequest;
 import org.eclipse.leshan.core.request.exception.InvalidRequestException;
 import org.eclipse.leshan.core.response.SendResponse;
 import org.eclipse.leshan.core.response.SendableResponse;
+import org.eclipse.leshan.server.metrics.ServerMetrics;
 import org.eclipse.leshan.server.profile.ClientProfile;
 import org.eclipse.leshan.server.profile.ClientProfileProvider;
 import org.eclipse.leshan.server.request.UplinkRequestReceiver;
@@ -50,15 +51,17 @@ public class SendResource extends LwM2mCoapResource {
     public static final String RESOURCE_URI = "/" + RESOURCE_NAME + "/*";
 
     private final LwM2mDecoder decoder;
+    private final ServerMetrics metrics;
     private final UplinkRequestReceiver receiver;
     private final ClientProfileProvider profileProvider;
 
     private final EndpointUriProvider endpointUriProvider;
 
     public SendResource(UplinkRequestReceiver receiver, LwM2mDecoder decoder, ClientProfileProvider profileProvider,
-            EndpointUriProvider endpointUriProvider) {
+            EndpointUriProvider endpointUriProvider, ServerMetrics metrics) {
         super(RESOURCE_URI);
         this.decoder = decoder;
+        this.metrics = metrics;
         this.receiver = receiver;
         this.profileProvider = profileProvider;
         this.endpointUriProvider = endpointUriProvider;
@@ -88,8 +91,11 @@ public class SendResource extends LwM2mCoapResource {
                 return errorMessage(ResponseCode.BAD_REQUEST, "Unsupported content format");
             }
 
+            long start = System.nanoTime();
             TimestampedLwM2mNodes data = decoder.decodeTimestampedNodes(payload, contentFormat, null,
                     clientProfile.getModel());
+            metrics.recordDuration(ServerMetrics.SEND_DECODE, contentFormat == null ? "none" : contentFormat.getName(),
+                    System.nanoTime() - start);
 
             // Handle "send op request
             SendRequest sendRequest = new SendRequest(contentFormat, data, coapRequest);
@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.transport.javacoap.server.transport;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.eclipse.leshan.core.util.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mbed.coap.exception.CoapException;
+import com.mbed.coap.packet.CoapPacket;
+import com.mbed.coap.packet.CoapSerializer;
+import com.mbed.coap.transport.BlockingCoapTransport;
+
+/**
+ * A java-coap UDP transport based on a NIO {@link DatagramChannel} sharing its local port with other transports of the
+ * same {@link ReusePortTransportGroup}.
+ * <p>
+ * Each transport has its own receiver thread. Datagrams bigger than {@link ReusePortTransportGroup#getMaxMessageSize()}
+ * are dropped.
+ */
+public class ReusePortDatagramTransport extends BlockingCoapTransport {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReusePortDatagramTransport.class);
+
+    private final ReusePortTransportGroup group;
+    private final int index;
+    private final ByteBuffer receiveBuffer;
+
+    private volatile DatagramChannel channel;
+    private volatile InetSocketAddress localAddress;
+    private ExecutorService readingWorker;
+
+    ReusePortDatagramTransport(ReusePortTransportGroup group, int index) {
+        this.group = group;
+        this.index = index;
+        // 1 more byte to detect truncated datagrams
+        this.receiveBuffer = ByteBuffer.allocate(group.getMaxMessageSize() + 1);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public synchronized void start() throws IOException {
+        channel = group.openChannel(index);
+        localAddress = (InetSocketAddress) channel.getLocalAddress();
+        readingWorker = Executors.newSingleThreadExecutor(
+                new NamedThreadFactory(String.format("Leshan java-coap UDP receiver#%d", index)));
+    }
+
+    @Override
+    public CompletableFuture<CoapPacket> receive() {
+        try {
+            return CompletableFuture.supplyAsync(this::blockingReceive, readingWorker);
+        } catch (RejectedExecutionException e) {
+            // transport is stopped
+            CompletableFuture<CoapPacket> closed = new CompletableFuture<>();
+            closed.completeExceptionally(new ClosedChannelException());
+            return closed;
+        }
+    }
+
+    private CoapPacket blockingReceive() {
+        // only called from readingWorker thread, so receiveBuffer is not shared.
+        while (true) {
+            try {
+                receiveBuffer.clear();
+                InetSocketAddress peerAddress = (InetSocketAddress) channel.receive(receiveBuffer);
+                if (!receiveBuffer.hasRemaining()) {
+                    LOG.warn("Datagram from {} dropped : bigger than max message size ({} bytes)", peerAddress,
+                            group.getMaxMessageSize());
+                    continue;
+                }
+                group.onDataReceived(index, peerAddress);
+                return CoapSerializer.deserialize(peerAddress, receiveBuffer.array(), receiveBuffer.position());
+            } catch (CoapException e) {
+                LOG.warn("Unable to decode CoAP message : {}", e.getMessage());
+            } catch (IOException e) {
+                // also raised when channel is closed on stop
+                throw new CompletionException(e);
+            }
+        }
+    }
+
+    @Override
+    public void sendPacket0(CoapPacket coapPacket) throws CoapException, IOException {
+        channel.send(ByteBuffer.wrap(CoapSerializer.serialize(coapPacket)), coapPacket.getRemoteAddress());
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOG.warn("Unable to close channel of transport {}", index, e);
+            }
+        }
+        if (readingWorker != null) {
+            readingWorker.shutdown();
+        }
+        if (index == 0) {
+            group.onStopped();
+        }
+    }
+
+    @Override
+    public InetSocketAddress getLocalSocketAddress() {
+        return localAddress;
+    }
+}
@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.transport.javacoap.server.transport;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketOption;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.leshan.core.util.Validate;
+
+/**
+ * A group of {@link ReusePortDatagramTransport} bound to the same local address using the {@code SO_REUSEPORT} socket
+ * option.
+ * <p>
+ * The OS kernel spreads incoming datagrams between sockets of the group (generally using a hash of the remote address),
+ * so each socket can be handled by its own receiver thread and its own java-coap {@code CoapServer}.
+ * <p>
+ * As a CoAP response is always received by the socket the kernel chose for this peer, outgoing requests must be sent
+ * using this same socket to be matched with their response. This is why the group keeps track of which transport
+ * received data from which peer, see {@link #getTransportIndex(InetSocketAddress)}.
+ */
+public class ReusePortTransportGroup {
+
+    public static final int DEFAULT_MAX_PEER_AFFINITY_ENTRIES = 100_000;
+    // same default value than java-coap CoapServerBuilder
+    public static final int DEFAULT_MAX_MESSAGE_SIZE = 1152;
+
+    private static final SocketOption<Boolean> SO_REUSEPORT = findReusePortOption();
+
+    private final InetSocketAddress bindAddress;
+    private final List<ReusePortDatagramTransport> transports;
+    private final int maxPeerAffinityEntries;
+    private final int maxMessageSize;
+    // peer address => index of transport which receives data from this peer
+    private final ConcurrentHashMap<InetSocketAddress, Integer> peerAffinity = new ConcurrentHashMap<>();
+
+    /**
+     * @return <code>true</code> if {@code SO_REUSEPORT} socket option is available for UDP on this platform.
+     */
+    public static boolean isReusePortSupported() {
+        return SO_REUSEPORT != null;
+    }
+
+    public ReusePortTransportGroup(InetSocketAddress bindAddress, int nbTransports) {
+        this(bindAddress, nbTransports, DEFAULT_MAX_PEER_AFFINITY_ENTRIES, DEFAULT_MAX_MESSAGE_SIZE);
+    }
+
+    /**
+     * Create a group of transports.
+     *
+     * @param bindAddress the local address all transports will be bound to. If port is 0, the first transport will be
+     *        bound to an ephemeral port and others will reuse it.
+     * @param nbTransports number of sockets (and so receiver threads) to create.
+     * @param maxPeerAffinityEntries maximum number of peers for which we remember the receiving transport.
+     * @param maxMessageSize maximum size of received datagrams, bigger ones are dropped.
+     */
+    public ReusePortTransportGroup(InetSocketAddress bindAddress, int nbTransports, int maxPeerAffinityEntries,
+            int maxMessageSize) {
+        Validate.notNull(bindAddress);
+        Validate.isTrue(nbTransports > 0, "number of transports must be greater than 0");
+        Validate.isTrue(maxPeerAffinityEntries > 0, "max peer affinity entries must be greater than 0");
+        Validate.isTrue(maxMessageSize > 0, "max message size must be greater than 0");
+        if (!isReusePortSupported()) {
+            throw new IllegalStateException("SO_REUSEPORT socket option is not supported on this platform");
+        }
+
+        this.bindAddress = bindAddress;
+        this.maxPeerAffinityEntries = maxPeerAffinityEntries;
+        this.maxMessageSize = maxMessageSize;
+        List<ReusePortDatagramTransport> transportList = new ArrayList<>(nbTransports);
+        for (int i = 0; i < nbTransports; i++) {
+            transportList.add(new ReusePortDatagramTransport(this, i));
+        }
+        this.transports = Collections.unmodifiableList(transportList);
+    }
+
+    public int getMaxMessageSize() {
+        return maxMessageSize;
+    }
+
+    public List<ReusePortDatagramTransport> getTransports() {
+        return transports;
+    }
+
+    /**
+     * Get the index of the transport which should be used to send data to the given peer.
+     * <p>
+     * This is the transport which last received data from this peer or, if we never get data from it, a transport
+     * chosen using a hash of its address.
+     */
+    public int getTransportIndex(InetSocketAddress peerAddress) {
+        Integer index = peerAffinity.get(peerAddress);
+        if (index != null) {
+            return index;
+        }
+        return (peerAddress.hashCode() & 0x7fffffff) % transports.size();
+    }
+
+    /**
+     * @return the local address shared by all transports of this group.
+     */
+    public InetSocketAddress getLocalSocketAddress() {
+        InetSocketAddress localAddress = transports.get(0).getLocalSocketAddress();
+        return localAddress != null ? localAddress : bindAddress;
+    }
+
+    DatagramChannel openChannel(int transportIndex) throws IOException {
+        InetSocketAddress address = bindAddress;
+        if (transportIndex > 0 && bindAddress.getPort() == 0) {
+            // first transport chose the ephemeral port, others must reuse it.
+            InetSocketAddress firstAddress = transports.get(0).getLocalSocketAddress();
+            if (firstAddress == null) {
+                throw new IllegalStateException(
+                        "First transport of the group must be started before others when ephemeral port is used");
+            }
+            address = new InetSocketAddress(bindAddress.getAddress(), firstAddress.getPort());
+        }
+
+        DatagramChannel channel = DatagramChannel.open();
+        try {
+            channel.setOption(SO_REUSEPORT, true);
+            channel.bind(address);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return channel;
+    }
+
+    void onDataReceived(int transportIndex, InetSocketAddress peerAddress) {
+        Integer previous = peerAffinity.put(peerAddress, transportIndex);
+        if (previous == null && peerAffinity.size() > maxPeerAffinityEntries) {
+            // Too many peers (e.g. because of NAT rebinding), forget everything.
+            // Affinity will be learned again at next received datagram.
+            peerAffinity.clear();
+        }
+    }
+
+    void onStopped() {
+        peerAffinity.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SocketOption<Boolean> findReusePortOption() {
+        // StandardSocketOptions.SO_REUSEPORT is only available since Java 9, so we search it by name.
+        try (DatagramChannel channel = DatagramChannel.open()) {
+            for (SocketOption<?> option : channel.supportedOptions()) {
+                if ("SO_REUSEPORT".equals(option.name()) && option.type() == Boolean.class) {
+                    return (SocketOption<Boolean>) option;
+                }
+            }
+        } catch (IOException e) {
+            // no socket available, so we consider option is not supported.
+        }
+        return null;
+    }
+}
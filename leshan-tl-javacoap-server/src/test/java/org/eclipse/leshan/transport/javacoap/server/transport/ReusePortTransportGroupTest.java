@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.transport.javacoap.server.transport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.mbed.coap.packet.CoapPacket;
+import com.mbed.coap.packet.CoapSerializer;
+import com.mbed.coap.packet.Code;
+import com.mbed.coap.packet.MessageType;
+import com.mbed.coap.packet.Method;
+
+public class ReusePortTransportGroupTest {
+
+    private ReusePortTransportGroup group;
+    private final List<DatagramSocket> clients = new ArrayList<>();
+
+    @BeforeEach
+    public void check_reuse_port_is_supported() {
+        assumeTrue(ReusePortTransportGroup.isReusePortSupported());
+    }
+
+    @AfterEach
+    public void stop() {
+        if (group != null) {
+            for (ReusePortDatagramTransport transport : group.getTransports()) {
+                transport.stop();
+            }
+        }
+        for (DatagramSocket client : clients) {
+            client.close();
+        }
+    }
+
+    @Test
+    public void transports_share_port_and_exchange_messages() throws Exception {
+        given_a_started_group(4, ReusePortTransportGroup.DEFAULT_MAX_MESSAGE_SIZE);
+        int port = group.getLocalSocketAddress().getPort();
+        for (ReusePortDatagramTransport transport : group.getTransports()) {
+            assertEquals(port, transport.getLocalSocketAddress().getPort());
+        }
+
+        // send 1 request from several clients
+        int nbClients = 8;
+        for (int i = 0; i < nbClients; i++) {
+            DatagramSocket client = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+            client.setSoTimeout(5000);
+            clients.add(client);
+            send(client, request(i));
+        }
+
+        // each request is received once and answered by transport which received it
+        Map<Integer, Integer> receivedBy = new HashMap<>();
+        List<CompletableFuture<CoapPacket>> receptions = new ArrayList<>();
+        for (ReusePortDatagramTransport transport : group.getTransports()) {
+            receptions.add(transport.receive());
+        }
+        while (receivedBy.size() < nbClients) {
+            CompletableFuture.anyOf(receptions.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+            for (int i = 0; i < receptions.size(); i++) {
+                if (receptions.get(i).isDone()) {
+                    CoapPacket request = receptions.get(i).get();
+                    assertEquals(null, receivedBy.put(request.getMessageId(), i));
+                    assertEquals(i, group.getTransportIndex(request.getRemoteAddress()));
+                    group.getTransports().get(i).sendPacket(request.createResponse(Code.C205_CONTENT)).get(5,
+                            TimeUnit.SECONDS);
+                    receptions.set(i, group.getTransports().get(i).receive());
+                }
+            }
+        }
+
+        // each client get its response from the shared port
+        for (int i = 0; i < nbClients; i++) {
+            DatagramPacket response = new DatagramPacket(new byte[64], 64);
+            clients.get(i).receive(response);
+            assertEquals(port, response.getPort());
+            CoapPacket packet = CoapSerializer.deserialize(null, response.getData(), response.getLength());
+            assertEquals(Code.C205_CONTENT, packet.getCode());
+            assertEquals(i, packet.getMessageId());
+        }
+    }
+
+    @Test
+    public void datagram_bigger_than_max_message_size_is_dropped() throws Exception {
+        given_a_started_group(1, 16);
+        DatagramSocket client = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+        clients.add(client);
+
+        CoapPacket tooBig = request(1);
+        tooBig.setPayload("a payload which does not fit in 16 bytes");
+        send(client, tooBig);
+        send(client, request(2));
+
+        CoapPacket received = group.getTransports().get(0).receive().get(5, TimeUnit.SECONDS);
+        assertEquals(2, received.getMessageId());
+    }
+
+    @Test
+    public void receive_after_stop_does_not_throw() throws Exception {
+        given_a_started_group(2, ReusePortTransportGroup.DEFAULT_MAX_MESSAGE_SIZE);
+        for (ReusePortDatagramTransport transport : group.getTransports()) {
+            transport.stop();
+        }
+
+        for (ReusePortDatagramTransport transport : group.getTransports()) {
+            CompletableFuture<CoapPacket> reception = transport.receive();
+            assertTrue(reception.isCompletedExceptionally());
+        }
+    }
+
+    private void given_a_started_group(int nbTransports, int maxMessageSize) throws IOException {
+        group = new ReusePortTransportGroup(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), nbTransports,
+                ReusePortTransportGroup.DEFAULT_MAX_PEER_AFFINITY_ENTRIES, maxMessageSize);
+        for (ReusePortDatagramTransport transport : group.getTransports()) {
+            transport.start();
+        }
+    }
+
+    private CoapPacket request(int messageId) {
+        CoapPacket request = new CoapPacket(Method.GET, MessageType.Confirmable, "/test",
+                group.getLocalSocketAddress());
+        request.setMessageId(messageId);
+        return request;
+    }
+
+    private void send(DatagramSocket client, CoapPacket packet) throws Exception {
+        byte[] data = CoapSerializer.serialize(packet);
+        client.send(new DatagramPacket(data, data.length, group.getLocalSocketAddress()));
+    }
+}